@@ -27,6 +27,8 @@ import org.weasis.core.api.gui.util.GuiExecutor;
 import org.weasis.core.api.image.cv.ImageCVIO;
 import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.api.media.data.MediaElement;
+import org.weasis.core.api.media.data.Thumbnail;
+import org.weasis.core.api.media.data.ThumbnailStore;
 import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.opencv.data.PlanarImage;
 import org.weasis.opencv.op.ImageConversion;
@@ -36,12 +38,12 @@ public final class JIThumbnailCache {
   private static final Logger LOGGER = LoggerFactory.getLogger(JIThumbnailCache.class);
 
   private final LinkedBlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
-  // Set only one concurrent thread. The time-consuming part is in loading image thread (see
-  // ImageElement)
+  // Same bounded pool size as the thumbnails of the DICOM explorer, the thumbnails already built
+  // are read from the ThumbnailStore
   private final ExecutorService qExecutor =
       new ThreadPoolExecutor(
-          1,
-          1,
+          Thumbnail.THUMB_THREADS,
+          Thumbnail.THUMB_THREADS,
           0L,
           TimeUnit.MILLISECONDS,
           queue,
@@ -54,7 +56,7 @@ public final class JIThumbnailCache {
         Collections.synchronizedMap(
             new LinkedHashMap<>(80) {
 
-              private static final int MAX_ENTRIES = 100;
+              private static final int MAX_ENTRIES = 300;
 
               @Override
               protected boolean removeEldestEntry(final Map.Entry eldest) {
@@ -164,17 +166,30 @@ public final class JIThumbnailCache {
         }
       }
 
+      String storeKey = null;
       if (img == null) {
-        img = diskObject.getRenderedImage(diskObject.getImage(null));
+        storeKey =
+            ThumbnailStore.buildKey(diskObject.getThumbnailKey(), ThumbnailRenderer.ICON_DIM.width);
+        File stored = ThumbnailStore.get(storeKey);
+        if (stored != null) {
+          img = ImageProcessor.readImage(stored, null);
+        }
+        if (img != null) {
+          // Already at the size of the icon
+          storeKey = null;
+        } else {
+          img = diskObject.getRenderedImage(diskObject.getImage(null));
+        }
       }
 
       if (img == null) {
         return;
       }
 
-      final BufferedImage tIcon =
-          ImageConversion.toBufferedImage(
-              (PlanarImage) ImageProcessor.buildThumbnail(img, ThumbnailRenderer.ICON_DIM, true));
+      PlanarImage thumb =
+          (PlanarImage) ImageProcessor.buildThumbnail(img, ThumbnailRenderer.ICON_DIM, true);
+      ThumbnailStore.put(storeKey, thumb);
+      final BufferedImage tIcon = ImageConversion.toBufferedImage(thumb);
 
       GuiExecutor.execute(
           () -> {
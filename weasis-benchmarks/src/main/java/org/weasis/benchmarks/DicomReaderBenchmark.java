@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.benchmarks;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.dicom.codec.DicomMediaIO;
+import org.weasis.dicom.codec.TransferSyntax;
+import org.weasis.opencv.data.PlanarImage;
+import org.weasis.opencv.op.ImageConversion;
+
+/**
+ * Reading of a 512x512 CT file: parsing of the header and decoding of the pixel data for the
+ * common transfer syntaxes. The raw cache of the decoded frames is disabled, so every invocation
+ * decodes the pixel data.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dweasis.dicom.raw.cache.size=0")
+public class DicomReaderBenchmark {
+
+  @Param({
+    "EXPLICIT_VR_LE",
+    "IMPLICIT_VR",
+    "RLE",
+    "JPEG_LOSSLESS_70",
+    "JPEGLS_LOSSLESS",
+    "JPEG2000_LOSSLESS"
+  })
+  TransferSyntax syntax;
+
+  private Path directory;
+  private Path file;
+  private DicomMediaIO reader;
+  private DicomImageElement image;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    SyntheticDicom.loadNativeLibrary();
+    directory = SyntheticDicom.createTempDirectory();
+    SyntheticDicom data = new SyntheticDicom(directory, 512, 1);
+    file = data.transcode(data.writeCtSeries().getFirst(), syntax);
+    reader = new DicomMediaIO(file);
+    image = reader.getMediaElement()[0];
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    reader.close();
+    SyntheticDicom.deleteDirectory(directory);
+  }
+
+  /** The header is read by each new reader, like when a series is loaded. */
+  @Benchmark
+  public boolean readHeader() {
+    DicomMediaIO io = new DicomMediaIO(file);
+    try {
+      return io.isReadableDicom();
+    } finally {
+      io.close();
+    }
+  }
+
+  @Benchmark
+  public int decodeFrame() throws Exception {
+    PlanarImage img = reader.getImageFragment(image, 0, false);
+    int width = img == null ? 0 : img.width();
+    ImageConversion.releasePlanarImage(img);
+    return width;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.opencv.core.CvType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.weasis.core.api.media.data.NativeCache;
+import org.weasis.opencv.data.ImageCV;
+
+/**
+ * Lookups and insertions in the native image cache from several threads. With 64 keys all the
+ * images fit in the budget, with 4096 keys most of the accesses evict an entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NativeCacheBenchmark {
+
+  private static final int CAPACITY = 64;
+  private static final int IMAGE_SIZE = 64;
+
+  @Param({"64", "4096"})
+  int keys;
+
+  private NativeCache<Integer, ImageCV> cache;
+  private ImageCV[] images;
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    final SplittableRandom random = new SplittableRandom();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    SyntheticDicom.loadNativeLibrary();
+    images = new ImageCV[keys];
+    for (int i = 0; i < keys; i++) {
+      images[i] = new ImageCV(IMAGE_SIZE, IMAGE_SIZE, CvType.CV_16UC1);
+    }
+    long budget = CAPACITY * images[0].physicalBytes();
+    cache =
+        new NativeCache<>("benchmark", budget) { // NON-NLS
+          @Override
+          protected void afterEntryRemove(Integer key, ImageCV img) {
+            // The images are shared by all the iterations
+          }
+        };
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    cache.clear();
+    for (ImageCV img : images) {
+      img.release();
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public ImageCV getOrPutSingleThread(ThreadState state) {
+    return getOrPut(state.random.nextInt(keys));
+  }
+
+  @Benchmark
+  @Threads(4)
+  public ImageCV getOrPutContended(ThreadState state) {
+    return getOrPut(state.random.nextInt(keys));
+  }
+
+  @Benchmark
+  @Threads(4)
+  public ImageCV putContended(ThreadState state) {
+    int key = state.random.nextInt(keys);
+    cache.put(key, images[key]);
+    return images[key];
+  }
+
+  private ImageCV getOrPut(int key) {
+    ImageCV img = cache.get(key);
+    if (img == null) {
+      img = images[key];
+      cache.put(key, img);
+    }
+    return img;
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.benchmarks;
+
+import java.awt.geom.Rectangle2D;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.weasis.core.api.gui.util.ActionW;
+import org.weasis.core.api.image.AffineTransformOp;
+import org.weasis.core.api.image.FilterOp;
+import org.weasis.core.api.image.ImageOpEvent;
+import org.weasis.core.api.image.ImageOpEvent.OpEvent;
+import org.weasis.core.api.image.PseudoColorOp;
+import org.weasis.core.api.image.SimpleOpManager;
+import org.weasis.core.api.image.WindowOp;
+import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.dicom.codec.DicomMediaIO;
+import org.weasis.dicom.codec.display.OverlayOp;
+import org.weasis.dicom.codec.display.ShutterOp;
+import org.weasis.dicom.codec.display.WindowAndPresetsOp;
+import org.weasis.opencv.data.PlanarImage;
+
+/**
+ * Rendering of a 512x512 CT image with the operation chain of the DICOM 2D viewer. Changing the
+ * window re-executes the chain from the window operation, panning re-executes only the affine
+ * transform and the full chain is the cost of the first display of an image.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpManagerBenchmark {
+
+  private static final int VIEW_SIZE = 384;
+
+  private Path directory;
+  private DicomMediaIO reader;
+  private SimpleOpManager manager;
+  private double window;
+  private boolean toggle;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    SyntheticDicom.loadNativeLibrary();
+    directory = SyntheticDicom.createTempDirectory();
+    SyntheticDicom data = new SyntheticDicom(directory, 512, 1);
+    reader = new DicomMediaIO(data.writeCtSeries().getFirst());
+    DicomImageElement image = reader.getMediaElement()[0];
+
+    // Same operations as the DICOM 2D viewer
+    manager = new SimpleOpManager();
+    manager.addImageOperationAction(new WindowAndPresetsOp());
+    manager.addImageOperationAction(new FilterOp());
+    manager.addImageOperationAction(new PseudoColorOp());
+    manager.addImageOperationAction(new ShutterOp());
+    manager.addImageOperationAction(new OverlayOp());
+    manager.addImageOperationAction(new AffineTransformOp());
+    manager.setFirstNode(image.getImage());
+    manager.handleImageOpEvent(new ImageOpEvent(OpEvent.RESET_DISPLAY, null, image, null));
+    setAffine(0.0);
+    manager.setParamValue(
+        AffineTransformOp.OP_NAME,
+        AffineTransformOp.P_DST_BOUNDS,
+        new Rectangle2D.Double(0, 0, VIEW_SIZE, VIEW_SIZE));
+    manager.process();
+    window = (Double) manager.getParamValue(WindowOp.OP_NAME, ActionW.WINDOW.cmd());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    manager.removeAllImageOperationAction();
+    reader.close();
+    SyntheticDicom.deleteDirectory(directory);
+  }
+
+  @Benchmark
+  public PlanarImage windowChange() {
+    toggle = !toggle;
+    manager.setParamValue(WindowOp.OP_NAME, ActionW.WINDOW.cmd(), toggle ? window + 1 : window);
+    return manager.process();
+  }
+
+  @Benchmark
+  public PlanarImage pan() {
+    toggle = !toggle;
+    setAffine(toggle ? 1.0 : 0.0);
+    return manager.process();
+  }
+
+  @Benchmark
+  public PlanarImage fullChain() {
+    manager.invalidateCache();
+    return manager.process();
+  }
+
+  private void setAffine(double translation) {
+    double scale = VIEW_SIZE / 512.0;
+    manager.setParamValue(
+        AffineTransformOp.OP_NAME,
+        AffineTransformOp.P_AFFINE_MATRIX,
+        List.of(scale, 0.0, translation, 0.0, scale, translation));
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.benchmarks;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.weasis.dicom.codec.DicomMediaIO;
+import org.weasis.dicom.codec.DicomSeries;
+import org.weasis.dicom.rt.Dose;
+import org.weasis.dicom.rt.Dvh;
+import org.weasis.dicom.rt.RtSet;
+import org.weasis.dicom.rt.StructRegion;
+import org.weasis.dicom.rt.StructureSet;
+
+/**
+ * Calculation of the cumulative DVH of a structure. ROI 1 is a small spherical target and ROI 2
+ * is the body outline present on every slice.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RtDvhBenchmark {
+
+  private static final int SLICES = 32;
+
+  @Param({"1", "2"})
+  int roi;
+
+  private Path directory;
+  private DicomSeries series;
+  private RtSet rtSet;
+  private Dose dose;
+  private StructRegion region;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    SyntheticDicom.loadNativeLibrary();
+    directory = SyntheticDicom.createTempDirectory();
+    SyntheticDicom data = new SyntheticDicom(directory, 512, SLICES);
+    series = SyntheticDicom.loadSeries(data.writeCtSeries());
+    StructureSet structureSet = new StructureSet(new DicomMediaIO(data.writeRtStruct()));
+    structureSet.initReferences(data.getCtSeriesUID());
+    dose = new Dose(new DicomMediaIO(data.writeRtDose()));
+
+    rtSet = new RtSet(series, List.of(structureSet, dose));
+    rtSet.reloadRtCase(false);
+    region = rtSet.getFirstStructure().getSegAttributes().get(roi);
+    if (region == null) {
+      throw new IllegalStateException("No structure for ROI " + roi);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    series.dispose();
+    dose.getSeries().dispose();
+    SyntheticDicom.deleteDirectory(directory);
+  }
+
+  @Benchmark
+  public Dvh calculateDvh() {
+    return rtSet.initCalculatedDvh(region, dose);
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.benchmarks;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.dicom.codec.DicomMediaIO;
+import org.weasis.dicom.codec.DicomSeries;
+import org.weasis.dicom.codec.SegSpecialElement;
+
+/**
+ * Extraction of the contours of a binary SEG with one frame per segment and per slice. The
+ * contours are built on demand for each image of the referenced series, as when the images are
+ * displayed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SegContourBenchmark {
+
+  private static final int SLICES = 32;
+
+  @Param({"1", "4"})
+  int segments;
+
+  private Path directory;
+  private DicomMediaIO reader;
+  private DicomSeries segSeries;
+  private DicomSeries ctSeries;
+  private SegSpecialElement seg;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    SyntheticDicom.loadNativeLibrary();
+    directory = SyntheticDicom.createTempDirectory();
+    SyntheticDicom data = new SyntheticDicom(directory, 512, SLICES);
+    ctSeries = SyntheticDicom.loadSeries(data.writeCtSeries());
+    reader = new DicomMediaIO(data.writeSeg(segments));
+    segSeries = reader.getMediaSeries();
+    seg = new SegSpecialElement(reader);
+    seg.initReferences(data.getCtSeriesUID());
+    seg.initContours(segSeries);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    segSeries.dispose();
+    ctSeries.dispose();
+    reader.close();
+    SyntheticDicom.deleteDirectory(directory);
+  }
+
+  @Benchmark
+  public int buildContours() {
+    seg.initContours(segSeries);
+    int nb = 0;
+    for (DicomImageElement img : ctSeries.copyOfMedias(null, null)) {
+      nb += seg.getContours(img).size();
+    }
+    return nb;
+  }
+}
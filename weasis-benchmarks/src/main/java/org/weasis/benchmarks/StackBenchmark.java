@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.benchmarks;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.weasis.core.api.image.cv.CvUtil;
+import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.dicom.codec.DicomSeries;
+import org.weasis.opencv.data.ImageCV;
+
+/** Projections of a stack of CT slices (MIP, MinIP and mean), the images are already decoded. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StackBenchmark {
+
+  @Param({"8", "32"})
+  int slices;
+
+  private Path directory;
+  private DicomSeries series;
+  private List<ImageElement> sources;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    SyntheticDicom.loadNativeLibrary();
+    directory = SyntheticDicom.createTempDirectory();
+    SyntheticDicom data = new SyntheticDicom(directory, 512, slices);
+    series = SyntheticDicom.loadSeries(data.writeCtSeries());
+    sources = new ArrayList<>(series.copyOfMedias(null, null));
+    // Decode and keep the images in the cache
+    sources.forEach(ImageElement::getImage);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    series.dispose();
+    SyntheticDicom.deleteDirectory(directory);
+  }
+
+  @Benchmark
+  public ImageCV maxStack() {
+    return release(CvUtil.maxStack(sources));
+  }
+
+  @Benchmark
+  public ImageCV minStack() {
+    return release(CvUtil.minStack(sources));
+  }
+
+  @Benchmark
+  public ImageCV meanStack() {
+    return release(CvUtil.meanStack(sources));
+  }
+
+  private static ImageCV release(ImageCV img) {
+    if (img != null) {
+      img.release();
+    }
+    return img;
+  }
+}
@@ -0,0 +1,497 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Sequence;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.io.DicomOutputStream;
+import org.dcm4che3.util.UIDUtils;
+import org.opencv.core.Core;
+import org.weasis.dicom.codec.DicomElement.DicomExportParameters;
+import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.dicom.codec.DicomMediaIO;
+import org.weasis.dicom.codec.DicomSeries;
+import org.weasis.dicom.codec.TransferSyntax;
+
+/**
+ * Writes a synthetic study in a directory: a CT series of a cylindrical phantom, an RTSTRUCT with
+ * a spherical target and the body outline, an RTDOSE centered on the target and a binary SEG. The
+ * content is deterministic, so the benchmarks can run offline and can be compared between runs.
+ */
+public final class SyntheticDicom {
+
+  public static final double PIXEL_SPACING = 0.9765625;
+  public static final double SLICE_SPACING = 2.5;
+  public static final int DOSE_SUBSAMPLING = 4;
+  public static final double DOSE_MAX_GY = 60.0;
+  private static final double DOSE_GRID_SCALING = 0.001;
+
+  private static volatile boolean nativeLoaded;
+
+  private final Path directory;
+  private final int size;
+  private final int slices;
+  private final String studyUID = UIDUtils.createUID();
+  private final String frameOfReferenceUID = UIDUtils.createUID();
+  private final String ctSeriesUID = UIDUtils.createUID();
+  private final List<String> ctInstanceUIDs = new ArrayList<>();
+
+  /**
+   * @param directory the directory of the DICOM files
+   * @param size the number of rows and columns of the CT images
+   * @param slices the number of CT slices
+   */
+  public SyntheticDicom(Path directory, int size, int slices) {
+    this.directory = directory;
+    this.size = size;
+    this.slices = slices;
+  }
+
+  /**
+   * Loads the OpenCV library, the benchmarks run without the OSGi framework. The library is copied
+   * by the build into the folder of {@code java.library.path}, see the pom of this module.
+   */
+  public static synchronized void loadNativeLibrary() {
+    if (!nativeLoaded) {
+      System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+      nativeLoaded = true;
+    }
+  }
+
+  public static Path createTempDirectory() throws IOException {
+    return Files.createTempDirectory("weasis-bench"); // NON-NLS
+  }
+
+  public static void deleteDirectory(Path dir) throws IOException {
+    if (dir == null || !Files.exists(dir)) {
+      return;
+    }
+    try (Stream<Path> walk = Files.walk(dir)) {
+      for (Path p : walk.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(p);
+      }
+    }
+  }
+
+  /**
+   * Reads the files of a series, as the explorer does without applying the splitting rules.
+   *
+   * @param files the files of the same series
+   * @return the series
+   */
+  public static DicomSeries loadSeries(List<Path> files) {
+    DicomSeries series = null;
+    for (Path file : files) {
+      DicomMediaIO reader = new DicomMediaIO(file);
+      if (series == null) {
+        series = reader.getMediaSeries();
+      } else {
+        for (DicomImageElement media : reader.getMediaElement()) {
+          series.addMedia(media);
+        }
+      }
+    }
+    return series;
+  }
+
+  public String getCtSeriesUID() {
+    return ctSeriesUID;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public int getSlices() {
+    return slices;
+  }
+
+  /**
+   * @return the files of the CT series in Explicit VR Little Endian
+   */
+  public List<Path> writeCtSeries() throws IOException {
+    ctInstanceUIDs.clear();
+    List<Path> files = new ArrayList<>(slices);
+    Random random = new Random(17);
+    for (int k = 0; k < slices; k++) {
+      String iuid = UIDUtils.createUID();
+      ctInstanceUIDs.add(iuid);
+      Attributes dcm = newInstance(UID.CTImageStorage, "CT", ctSeriesUID, iuid); // NON-NLS
+      dcm.setInt(Tag.InstanceNumber, VR.IS, k + 1);
+      dcm.setString(Tag.ImageType, VR.CS, "ORIGINAL", "PRIMARY", "AXIAL"); // NON-NLS
+      setPlaneGeometry(dcm, k, PIXEL_SPACING);
+      setPixelModule(dcm, size, size, 16, 12, 0);
+      dcm.setString(Tag.RescaleIntercept, VR.DS, "-1024");
+      dcm.setString(Tag.RescaleSlope, VR.DS, "1");
+      dcm.setString(Tag.WindowCenter, VR.DS, "40");
+      dcm.setString(Tag.WindowWidth, VR.DS, "400");
+      dcm.setBytes(Tag.PixelData, VR.OW, buildPhantom(k, random));
+      files.add(write(dcm, "CT" + k, UID.ExplicitVRLittleEndian)); // NON-NLS
+    }
+    return files;
+  }
+
+  /**
+   * Transcodes a file with the same path as the DICOM export.
+   *
+   * @param source the file to transcode
+   * @param syntax the output transfer syntax
+   * @return the transcoded file
+   */
+  public Path transcode(Path source, TransferSyntax syntax) throws IOException {
+    if (syntax == TransferSyntax.EXPLICIT_VR_LE) {
+      return source;
+    }
+    DicomMediaIO reader = new DicomMediaIO(source);
+    try {
+      DicomImageElement img = reader.getMediaElement()[0];
+      Path output = directory.resolve(syntax.name() + "-" + source.getFileName());
+      var params = new DicomExportParameters(syntax, false, null, 90, 0);
+      if (img.saveToFile(output.toFile(), params) == null) {
+        throw new IOException("Cannot transcode to " + syntax.getTransferSyntaxUID());
+      }
+      return output;
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * @return an RTSTRUCT with a spherical target (ROI 1) and the body outline (ROI 2) referencing
+   *     the CT series
+   */
+  public Path writeRtStruct() throws IOException {
+    checkCtSeries();
+    Attributes dcm =
+        newInstance(
+            UID.RTStructureSetStorage, "RTSTRUCT", UIDUtils.createUID(), UIDUtils.createUID());
+    dcm.setString(Tag.StructureSetLabel, VR.SH, "Synthetic"); // NON-NLS
+    dcm.setString(Tag.StructureSetDate, VR.DA, "20240101");
+    dcm.setString(Tag.StructureSetTime, VR.TM, "120000");
+
+    Attributes refFrame = new Attributes();
+    refFrame.setString(Tag.FrameOfReferenceUID, VR.UI, frameOfReferenceUID);
+    Attributes refStudy = new Attributes();
+    // Detached Study Management SOP Class, as expected by the RT objects
+    refStudy.setString(Tag.ReferencedSOPClassUID, VR.UI, "1.2.840.10008.3.1.2.3.1"); // NON-NLS
+    refStudy.setString(Tag.ReferencedSOPInstanceUID, VR.UI, studyUID);
+    Attributes refSeries = new Attributes();
+    refSeries.setString(Tag.SeriesInstanceUID, VR.UI, ctSeriesUID);
+    Sequence contourImages = refSeries.newSequence(Tag.ContourImageSequence, slices);
+    for (String iuid : ctInstanceUIDs) {
+      contourImages.add(newReference(UID.CTImageStorage, iuid));
+    }
+    refStudy.newSequence(Tag.RTReferencedSeriesSequence, 1).add(refSeries);
+    refFrame.newSequence(Tag.RTReferencedStudySequence, 1).add(refStudy);
+    dcm.newSequence(Tag.ReferencedFrameOfReferenceSequence, 1).add(refFrame);
+
+    double extent = size * PIXEL_SPACING;
+    double zCenter = (slices - 1) * SLICE_SPACING / 2.0;
+    double targetRadius = Math.min(extent / 8.0, zCenter);
+    Sequence ssRois = dcm.newSequence(Tag.StructureSetROISequence, 2);
+    Sequence observations = dcm.newSequence(Tag.RTROIObservationsSequence, 2);
+    Sequence roiContours = dcm.newSequence(Tag.ROIContourSequence, 2);
+    String[][] rois = {{"PTV", "PTV", "255\\0\\0"}, {"BODY", "EXTERNAL", "0\\255\\0"}}; // NON-NLS
+    for (int r = 0; r < rois.length; r++) {
+      int nb = r + 1;
+      Attributes ssRoi = new Attributes();
+      ssRoi.setInt(Tag.ROINumber, VR.IS, nb);
+      ssRoi.setString(Tag.ReferencedFrameOfReferenceUID, VR.UI, frameOfReferenceUID);
+      ssRoi.setString(Tag.ROIName, VR.LO, rois[r][0]);
+      ssRoi.setString(Tag.ROIGenerationAlgorithm, VR.CS, "MANUAL"); // NON-NLS
+      ssRois.add(ssRoi);
+
+      Attributes obs = new Attributes();
+      obs.setInt(Tag.ObservationNumber, VR.IS, nb);
+      obs.setInt(Tag.ReferencedROINumber, VR.IS, nb);
+      obs.setString(Tag.RTROIInterpretedType, VR.CS, rois[r][1]);
+      observations.add(obs);
+
+      Attributes roiContour = new Attributes();
+      roiContour.setInt(Tag.ReferencedROINumber, VR.IS, nb);
+      roiContour.setString(Tag.ROIDisplayColor, VR.IS, rois[r][2].split("\\\\"));
+      Sequence contours = roiContour.newSequence(Tag.ContourSequence, slices);
+      for (int k = 0; k < slices; k++) {
+        double z = k * SLICE_SPACING;
+        double radius;
+        if (r == 0) {
+          double dz = z - zCenter;
+          radius = Math.sqrt(Math.max(0.0, targetRadius * targetRadius - dz * dz));
+        } else {
+          radius = extent * 0.4;
+        }
+        if (radius < PIXEL_SPACING * 2) {
+          continue;
+        }
+        contours.add(buildCircleContour(k, z, radius, 64));
+      }
+      roiContours.add(roiContour);
+    }
+    return write(dcm, "RTSTRUCT", UID.ExplicitVRLittleEndian); // NON-NLS
+  }
+
+  /**
+   * @return a multi-frame RTDOSE with one frame per CT slice and a Gaussian dose distribution
+   *     centered on the target
+   */
+  public Path writeRtDose() throws IOException {
+    checkCtSeries();
+    Attributes dcm =
+        newInstance(UID.RTDoseStorage, "RTDOSE", UIDUtils.createUID(), UIDUtils.createUID());
+    int doseSize = size / DOSE_SUBSAMPLING;
+    double spacing = PIXEL_SPACING * DOSE_SUBSAMPLING;
+    setPlaneGeometry(dcm, 0, spacing);
+    setPixelModule(dcm, doseSize, doseSize, 16, 16, 0);
+    dcm.setInt(Tag.NumberOfFrames, VR.IS, slices);
+    dcm.setInt(Tag.FrameIncrementPointer, VR.AT, Tag.GridFrameOffsetVector);
+    double[] offsets = new double[slices];
+    for (int k = 0; k < slices; k++) {
+      offsets[k] = k * SLICE_SPACING;
+    }
+    dcm.setDouble(Tag.GridFrameOffsetVector, VR.DS, offsets);
+    dcm.setString(Tag.DoseUnits, VR.CS, "GY"); // NON-NLS
+    dcm.setString(Tag.DoseType, VR.CS, "PHYSICAL"); // NON-NLS
+    dcm.setString(Tag.DoseSummationType, VR.CS, "PLAN"); // NON-NLS
+    dcm.setDouble(Tag.DoseGridScaling, VR.DS, DOSE_GRID_SCALING);
+    Attributes refPlan = newReference(UID.RTPlanStorage, UIDUtils.createUID());
+    dcm.newSequence(Tag.ReferencedRTPlanSequence, 1).add(refPlan);
+
+    double center = (doseSize - 1) / 2.0;
+    double zCenter = (slices - 1) / 2.0;
+    double sigma = doseSize / 6.0;
+    double sigmaZ = Math.max(1.0, slices / 6.0);
+    double max = DOSE_MAX_GY / DOSE_GRID_SCALING;
+    ByteBuffer buf =
+        ByteBuffer.allocate(doseSize * doseSize * slices * 2).order(ByteOrder.LITTLE_ENDIAN);
+    for (int k = 0; k < slices; k++) {
+      double gz = Math.exp(-((k - zCenter) * (k - zCenter)) / (2 * sigmaZ * sigmaZ));
+      for (int y = 0; y < doseSize; y++) {
+        for (int x = 0; x < doseSize; x++) {
+          double d2 = (x - center) * (x - center) + (y - center) * (y - center);
+          buf.putShort((short) Math.round(max * gz * Math.exp(-d2 / (2 * sigma * sigma))));
+        }
+      }
+    }
+    dcm.setBytes(Tag.PixelData, VR.OW, buf.array());
+    return write(dcm, "RTDOSE", UID.ExplicitVRLittleEndian); // NON-NLS
+  }
+
+  /**
+   * @param segments the number of segments, each one has a frame for every CT slice
+   * @return a binary SEG referencing the CT series with one frame per segment and per slice
+   */
+  public Path writeSeg(int segments) throws IOException {
+    checkCtSeries();
+    Attributes dcm =
+        newInstance(UID.SegmentationStorage, "SEG", UIDUtils.createUID(), UIDUtils.createUID());
+    dcm.setString(Tag.ImageType, VR.CS, "DERIVED", "PRIMARY"); // NON-NLS
+    dcm.setString(Tag.SegmentationType, VR.CS, "BINARY"); // NON-NLS
+    dcm.setString(Tag.ContentLabel, VR.CS, "SYNTHETIC"); // NON-NLS
+    dcm.setInt(Tag.InstanceNumber, VR.IS, 1);
+    setPixelModule(dcm, size, size, 1, 1, 0);
+    int frames = segments * slices;
+    dcm.setInt(Tag.NumberOfFrames, VR.IS, frames);
+
+    Attributes shared = new Attributes();
+    Attributes orientation = new Attributes();
+    orientation.setDouble(Tag.ImageOrientationPatient, VR.DS, 1, 0, 0, 0, 1, 0);
+    shared.newSequence(Tag.PlaneOrientationSequence, 1).add(orientation);
+    Attributes measures = new Attributes();
+    measures.setDouble(Tag.PixelSpacing, VR.DS, PIXEL_SPACING, PIXEL_SPACING);
+    measures.setDouble(Tag.SliceThickness, VR.DS, SLICE_SPACING);
+    measures.setDouble(Tag.SpacingBetweenSlices, VR.DS, SLICE_SPACING);
+    shared.newSequence(Tag.PixelMeasuresSequence, 1).add(measures);
+    dcm.newSequence(Tag.SharedFunctionalGroupsSequence, 1).add(shared);
+
+    Attributes refSeries = new Attributes();
+    refSeries.setString(Tag.SeriesInstanceUID, VR.UI, ctSeriesUID);
+    Sequence refInstances = refSeries.newSequence(Tag.ReferencedInstanceSequence, slices);
+    for (String iuid : ctInstanceUIDs) {
+      refInstances.add(newReference(UID.CTImageStorage, iuid));
+    }
+    dcm.newSequence(Tag.ReferencedSeriesSequence, 1).add(refSeries);
+
+    Sequence segSeq = dcm.newSequence(Tag.SegmentSequence, segments);
+    for (int s = 1; s <= segments; s++) {
+      Attributes seg = new Attributes();
+      seg.setInt(Tag.SegmentNumber, VR.US, s);
+      seg.setString(Tag.SegmentLabel, VR.LO, "Segment " + s); // NON-NLS
+      seg.setString(Tag.SegmentAlgorithmType, VR.CS, "MANUAL"); // NON-NLS
+      seg.setInt(Tag.RecommendedDisplayCIELabValue, VR.US, 53000, 53000 + s * 1000, 20000);
+      segSeq.add(seg);
+    }
+
+    int frameLength = size * size;
+    byte[] pixels = new byte[(frames * frameLength + 15) / 16 * 2];
+    Sequence perFrame = dcm.newSequence(Tag.PerFrameFunctionalGroupsSequence, frames);
+    double extent = size * PIXEL_SPACING;
+    int frame = 0;
+    for (int s = 1; s <= segments; s++) {
+      // Each segment is a disk moving around the center of the phantom
+      double angle = 2 * Math.PI * s / segments;
+      double cx = size / 2.0 + Math.cos(angle) * size / 5.0;
+      double cy = size / 2.0 + Math.sin(angle) * size / 5.0;
+      for (int k = 0; k < slices; k++) {
+        Attributes item = new Attributes();
+        Attributes derivation = new Attributes();
+        derivation
+            .newSequence(Tag.SourceImageSequence, 1)
+            .add(newReference(UID.CTImageStorage, ctInstanceUIDs.get(k)));
+        item.newSequence(Tag.DerivationImageSequence, 1).add(derivation);
+        Attributes content = new Attributes();
+        content.setInt(Tag.DimensionIndexValues, VR.UL, s, k + 1);
+        item.newSequence(Tag.FrameContentSequence, 1).add(content);
+        Attributes position = new Attributes();
+        position.setDouble(
+            Tag.ImagePositionPatient, VR.DS, -extent / 2, -extent / 2, k * SLICE_SPACING);
+        item.newSequence(Tag.PlanePositionSequence, 1).add(position);
+        Attributes segId = new Attributes();
+        segId.setInt(Tag.ReferencedSegmentNumber, VR.US, s);
+        item.newSequence(Tag.SegmentIdentificationSequence, 1).add(segId);
+        perFrame.add(item);
+
+        double radius = size / 10.0 * (0.5 + 0.5 * Math.sin(Math.PI * (k + 1) / (slices + 1)));
+        long offset = (long) frame * frameLength;
+        for (int y = 0; y < size; y++) {
+          for (int x = 0; x < size; x++) {
+            if ((x - cx) * (x - cx) + (y - cy) * (y - cy) <= radius * radius) {
+              long bit = offset + (long) y * size + x;
+              pixels[(int) (bit >>> 3)] |= (byte) (1 << (bit & 7));
+            }
+          }
+        }
+        frame++;
+      }
+    }
+    dcm.setBytes(Tag.PixelData, VR.OB, pixels);
+    return write(dcm, "SEG", UID.ExplicitVRLittleEndian); // NON-NLS
+  }
+
+  private void checkCtSeries() {
+    if (ctInstanceUIDs.isEmpty()) {
+      throw new IllegalStateException("The CT series must be written first");
+    }
+  }
+
+  private Attributes newInstance(String cuid, String modality, String seriesUID, String iuid) {
+    Attributes dcm = new Attributes();
+    dcm.setString(Tag.SOPClassUID, VR.UI, cuid);
+    dcm.setString(Tag.SOPInstanceUID, VR.UI, iuid);
+    dcm.setString(Tag.StudyInstanceUID, VR.UI, studyUID);
+    dcm.setString(Tag.SeriesInstanceUID, VR.UI, seriesUID);
+    dcm.setString(Tag.FrameOfReferenceUID, VR.UI, frameOfReferenceUID);
+    dcm.setString(Tag.Modality, VR.CS, modality);
+    dcm.setString(Tag.PatientID, VR.LO, "BENCH-001"); // NON-NLS
+    dcm.setString(Tag.PatientName, VR.PN, "Benchmark^Phantom"); // NON-NLS
+    dcm.setString(Tag.StudyID, VR.SH, "1");
+    dcm.setString(Tag.StudyDate, VR.DA, "20240101");
+    dcm.setString(Tag.StudyTime, VR.TM, "120000");
+    dcm.setInt(Tag.SeriesNumber, VR.IS, 1);
+    return dcm;
+  }
+
+  private static Attributes newReference(String cuid, String iuid) {
+    Attributes ref = new Attributes();
+    ref.setString(Tag.ReferencedSOPClassUID, VR.UI, cuid);
+    ref.setString(Tag.ReferencedSOPInstanceUID, VR.UI, iuid);
+    return ref;
+  }
+
+  private void setPlaneGeometry(Attributes dcm, int slice, double spacing) {
+    double extent = size * PIXEL_SPACING;
+    // Keep the same center for the different pixel spacings
+    double origin = -extent / 2 + (spacing - PIXEL_SPACING) / 2;
+    dcm.setDouble(Tag.ImagePositionPatient, VR.DS, origin, origin, slice * SLICE_SPACING);
+    dcm.setDouble(Tag.ImageOrientationPatient, VR.DS, 1, 0, 0, 0, 1, 0);
+    dcm.setDouble(Tag.PixelSpacing, VR.DS, spacing, spacing);
+    dcm.setDouble(Tag.SliceThickness, VR.DS, SLICE_SPACING);
+    dcm.setDouble(Tag.SliceLocation, VR.DS, slice * SLICE_SPACING);
+  }
+
+  private static void setPixelModule(
+      Attributes dcm, int rows, int columns, int allocated, int stored, int signed) {
+    dcm.setInt(Tag.Rows, VR.US, rows);
+    dcm.setInt(Tag.Columns, VR.US, columns);
+    dcm.setInt(Tag.SamplesPerPixel, VR.US, 1);
+    dcm.setString(Tag.PhotometricInterpretation, VR.CS, "MONOCHROME2"); // NON-NLS
+    dcm.setInt(Tag.BitsAllocated, VR.US, allocated);
+    dcm.setInt(Tag.BitsStored, VR.US, stored);
+    dcm.setInt(Tag.HighBit, VR.US, stored - 1);
+    dcm.setInt(Tag.PixelRepresentation, VR.US, signed);
+  }
+
+  private byte[] buildPhantom(int slice, Random random) {
+    // Stored values with an intercept of -1024: air, water and a bone ring
+    double c = (size - 1) / 2.0;
+    double body = size * 0.4;
+    double ring = size * 0.3;
+    double marker = size * (0.05 + 0.05 * slice / Math.max(1, slices - 1));
+    ByteBuffer buf = ByteBuffer.allocate(size * size * 2).order(ByteOrder.LITTLE_ENDIAN);
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) {
+        double d = Math.sqrt((x - c) * (x - c) + (y - c) * (y - c));
+        int val;
+        if (d > body) {
+          val = 24;
+        } else if (Math.abs(d - ring) < size * 0.02) {
+          val = 2024;
+        } else if (d < marker) {
+          val = 1324;
+        } else {
+          val = 1064;
+        }
+        if (d <= body) {
+          val += random.nextInt(41) - 20;
+        }
+        buf.putShort((short) val);
+      }
+    }
+    return buf.array();
+  }
+
+  private Attributes buildCircleContour(int slice, double z, double radius, int points) {
+    double[] data = new double[points * 3];
+    for (int i = 0; i < points; i++) {
+      double a = 2 * Math.PI * i / points;
+      data[i * 3] = Math.cos(a) * radius;
+      data[i * 3 + 1] = Math.sin(a) * radius;
+      data[i * 3 + 2] = z;
+    }
+    Attributes contour = new Attributes();
+    contour
+        .newSequence(Tag.ContourImageSequence, 1)
+        .add(newReference(UID.CTImageStorage, ctInstanceUIDs.get(slice)));
+    contour.setString(Tag.ContourGeometricType, VR.CS, "CLOSED_PLANAR"); // NON-NLS
+    contour.setInt(Tag.NumberOfContourPoints, VR.IS, points);
+    contour.setDouble(Tag.ContourData, VR.DS, data);
+    return contour;
+  }
+
+  private Path write(Attributes dcm, String name, String tsuid) throws IOException {
+    Path file = directory.resolve(name + ".dcm");
+    try (DicomOutputStream out = new DicomOutputStream(file.toFile())) {
+      out.writeDataset(dcm.createFileMetaInformation(tsuid), dcm);
+    }
+    return file;
+  }
+}
@@ -11,11 +11,13 @@ package org.weasis.core.api.image;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import org.weasis.core.util.LangUtil;
 
 public abstract class AbstractOp implements ImageOpNode {
 
   protected HashMap<String, Object> params;
+  private long paramVersion;
 
   protected AbstractOp() {
     params = new HashMap<>();
@@ -26,15 +28,25 @@ public abstract class AbstractOp implements ImageOpNode {
     clearIOCache();
   }
 
+  private static boolean isIOParam(String key) {
+    return key.startsWith("op.input") || key.startsWith("op.output"); // NON-NLS
+  }
+
+  @Override
+  public long getParamVersion() {
+    return paramVersion;
+  }
+
   @Override
   public void clearParams() {
     params.clear();
+    paramVersion++;
   }
 
   @Override
   public void clearIOCache() {
     for (String key : params.keySet()) {
-      if (key.startsWith("op.input") || key.startsWith("op.output")) { // NON-NLS
+      if (isIOParam(key)) {
         params.put(key, null);
       }
     }
@@ -51,7 +63,11 @@ public abstract class AbstractOp implements ImageOpNode {
   @Override
   public void setParam(String key, Object value) {
     if (key != null) {
-      params.put(key, value);
+      Object old = params.put(key, value);
+      // The same instance may have been modified
+      if (!isIOParam(key) && (old == value || !Objects.equals(old, value))) {
+        paramVersion++;
+      }
     }
   }
 
@@ -59,13 +75,14 @@ public abstract class AbstractOp implements ImageOpNode {
   public void setAllParameters(Map<String, Object> map) {
     if (map != null) {
       params.putAll(map);
+      paramVersion++;
     }
   }
 
   @Override
   public void removeParam(String key) {
-    if (key != null) {
-      params.remove(key);
+    if (key != null && params.remove(key) != null && !isIOParam(key)) {
+      paramVersion++;
     }
   }
 
@@ -76,7 +93,7 @@ public abstract class AbstractOp implements ImageOpNode {
 
   @Override
   public void setEnabled(boolean enabled) {
-    params.put(Param.ENABLE, enabled);
+    setParam(Param.ENABLE, enabled);
   }
 
   @Override
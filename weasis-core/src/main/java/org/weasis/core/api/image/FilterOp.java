@@ -48,4 +48,11 @@ public class FilterOp extends AbstractOp {
     }
     params.put(Param.OUTPUT_IMG, result);
   }
+
+  @Override
+  public boolean isRegionInvariant() {
+    // The kernel is applied to the pixels of the input image, not to the displayed pixels
+    KernelData kernel = (KernelData) params.get(P_KERNEL_DATA);
+    return kernel == null || kernel.equals(KernelData.NONE);
+  }
 }
@@ -49,4 +49,27 @@ public interface ImageOpNode extends Copyable<ImageOpNode> {
   void clearIOCache();
 
   void handleImageOpEvent(ImageOpEvent event);
+
+  /**
+   * Returns the version of the parameters. It changes at each modification of a parameter, except
+   * for the input and output images. A negative value means that the modifications are not tracked
+   * and the operation must be processed at each call.
+   *
+   * @return the version of the parameters
+   */
+  default long getParamVersion() {
+    return -1L;
+  }
+
+  /**
+   * Returns true when processing a region or a decimated version of the input image gives the same
+   * pixels as processing the whole image, i.e. each output pixel depends only on the input pixel at
+   * the same location. It allows the display to process only the visible tiles of large images and
+   * the levels of a resolution pyramid.
+   *
+   * @return true if the result of the operation does not depend on the geometry of the input image
+   */
+  default boolean isRegionInvariant() {
+    return false;
+  }
 }
@@ -72,4 +72,9 @@ public class PseudoColorOp extends AbstractOp {
 
     params.put(Param.OUTPUT_IMG, result);
   }
+
+  @Override
+  public boolean isRegionInvariant() {
+    return true;
+  }
 }
@@ -11,7 +11,9 @@ package org.weasis.core.api.image;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import org.slf4j.Logger;
@@ -20,6 +22,11 @@ import org.weasis.core.Messages;
 import org.weasis.core.api.image.ImageOpNode.Param;
 import org.weasis.opencv.data.PlanarImage;
 
+/**
+ * Sequence of image operations. The output of each operation is kept and {@link #process()}
+ * executes again only the operations whose parameters ({@link ImageOpNode#getParamVersion()}) or
+ * input image have changed, and the following ones when their input is modified.
+ */
 public class SimpleOpManager implements OpManager {
   private static final Logger LOGGER = LoggerFactory.getLogger(SimpleOpManager.class);
 
@@ -32,8 +39,34 @@ public class SimpleOpManager implements OpManager {
 
   private final HashMap<String, ImageOpNode> nodes;
   private final List<ImageOpNode> operations;
+  private final Map<ImageOpNode, NodeState> nodeStates;
   private String name;
 
+  /**
+   * Processing statistics of an operation.
+   *
+   * @param name the name of the operation
+   * @param hits the number of times the previous output has been reused
+   * @param runs the number of times the operation has been processed
+   */
+  public record NodeStatistics(String name, long hits, long runs) {}
+
+  private static final class NodeState {
+    private Object input;
+    private long version = Long.MIN_VALUE;
+    private long hits;
+    private long runs;
+
+    boolean isValid(Object input, long version) {
+      return version >= 0 && this.version == version && this.input == input;
+    }
+
+    void invalidate() {
+      this.input = null;
+      this.version = Long.MIN_VALUE;
+    }
+  }
+
   public SimpleOpManager() {
     this(IMAGE_OP_NAME);
   }
@@ -41,12 +74,14 @@ public class SimpleOpManager implements OpManager {
   public SimpleOpManager(String name) {
     this.operations = new ArrayList<>();
     this.nodes = new HashMap<>();
+    this.nodeStates = new IdentityHashMap<>();
     setName(name);
   }
 
   public SimpleOpManager(SimpleOpManager som) {
     this.operations = new ArrayList<>();
     this.nodes = new HashMap<>();
+    this.nodeStates = new IdentityHashMap<>();
     setName(som.name);
 
     som.nodes.forEach(
@@ -113,6 +148,7 @@ public class SimpleOpManager implements OpManager {
 
   public void removeImageOperationAction(ImageOpNode action) {
     if (action != null) {
+      nodeStates.remove(action);
       boolean remove = operations.remove(action);
       if (nodes.remove(action.getName()) == null && remove) {
         for (Entry<String, ImageOpNode> entry : nodes.entrySet()) {
@@ -130,6 +166,7 @@ public class SimpleOpManager implements OpManager {
     clearNodeParams();
     operations.clear();
     nodes.clear();
+    nodeStates.clear();
   }
 
   @Override
@@ -144,6 +181,29 @@ public class SimpleOpManager implements OpManager {
     for (ImageOpNode node : operations) {
       node.clearIOCache();
     }
+    invalidateCache();
+  }
+
+  /**
+   * Forces the next {@link #process()} to execute all the operations, for instance when the pixels
+   * of the input image have been modified.
+   */
+  public void invalidateCache() {
+    nodeStates.values().forEach(NodeState::invalidate);
+  }
+
+  /**
+   * @return the number of outputs reused and the number of executions of each operation
+   */
+  public List<NodeStatistics> getNodeStatistics() {
+    List<NodeStatistics> list = new ArrayList<>(operations.size());
+    for (ImageOpNode op : operations) {
+      NodeState state = nodeStates.get(op);
+      list.add(
+          new NodeStatistics(
+              op.getName(), state == null ? 0L : state.hits, state == null ? 0L : state.runs));
+    }
+    return list;
   }
 
   @Override
@@ -209,29 +269,66 @@ public class SimpleOpManager implements OpManager {
   public PlanarImage process() {
     PlanarImage source = getFirstNodeInputImage();
     if (source != null && source.width() > 0) {
-      for (int i = 0; i < operations.size(); i++) {
-        ImageOpNode op = operations.get(i);
-        try {
-          if (i > 0) {
-            op.setParam(Param.INPUT_IMG, operations.get(i - 1).getParam(Param.OUTPUT_IMG));
-          }
-          if (op.isEnabled()) {
-            op.process();
-          } else {
-            // Skip this operation
-            op.setParam(Param.OUTPUT_IMG, op.getParam(Param.INPUT_IMG));
-          }
-        } catch (Exception e) {
-          LOGGER.error("Image {} failed", op.getParam(Param.NAME), e);
-          op.setParam(Param.OUTPUT_IMG, op.getParam(Param.INPUT_IMG));
-        }
-      }
+      process(0);
     } else {
       clearNodeIOCache();
     }
     return getLastNodeOutputImage();
   }
 
+  /**
+   * Executes the operations from the given node, whose input is replaced by an image already
+   * processed by the previous operations. The previous operations are not executed and their
+   * output is kept.
+   *
+   * @param node the first operation to execute
+   * @param input the input image of this operation
+   * @return the output of the last operation
+   */
+  public PlanarImage process(ImageOpNode node, PlanarImage input) {
+    int index = operations.indexOf(node);
+    if (index < 0 || input == null || input.width() < 1) {
+      return process();
+    }
+    node.setParam(Param.INPUT_IMG, input);
+    process(index);
+    return getLastNodeOutputImage();
+  }
+
+  private void process(int start) {
+    for (int i = start; i < operations.size(); i++) {
+      ImageOpNode op = operations.get(i);
+      NodeState state = nodeStates.computeIfAbsent(op, k -> new NodeState());
+      try {
+        if (i > start) {
+          op.setParam(Param.INPUT_IMG, operations.get(i - 1).getParam(Param.OUTPUT_IMG));
+        }
+        Object input = op.getParam(Param.INPUT_IMG);
+        if (state.isValid(input, op.getParamVersion()) && op.getParam(Param.OUTPUT_IMG) != null) {
+          // Neither the parameters nor the input have changed, keep the previous output
+          state.hits++;
+          continue;
+        }
+        state.runs++;
+        if (op.isEnabled()) {
+          op.process();
+        } else {
+          // Skip this operation
+          op.setParam(Param.OUTPUT_IMG, input);
+        }
+        state.input = input;
+        state.version = op.getParamVersion();
+      } catch (Exception e) {
+        LOGGER.error("Image {} failed", op.getParam(Param.NAME), e);
+        op.setParam(Param.OUTPUT_IMG, op.getParam(Param.INPUT_IMG));
+        state.invalidate();
+      }
+    }
+    if (LOGGER.isTraceEnabled()) {
+      LOGGER.trace("{} processing: {}", name, getNodeStatistics());
+    }
+  }
+
   @Override
   public Object getParamValue(String opName, String param) {
     if (opName != null && param != null) {
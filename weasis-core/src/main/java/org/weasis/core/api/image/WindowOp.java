@@ -78,6 +78,11 @@ public class WindowOp extends AbstractOp {
     params.put(Param.OUTPUT_IMG, result);
   }
 
+  @Override
+  public boolean isRegionInvariant() {
+    return true;
+  }
+
   public WlPresentation getWlPresentation() {
     boolean pixelPadding =
         LangUtil.getNULLtoTrue((Boolean) getParam(ActionW.IMAGE_PIX_PADDING.cmd()));
@@ -13,6 +13,7 @@ import java.awt.Graphics2D;
 import java.awt.GraphicsConfiguration;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
 import java.awt.image.VolatileImage;
 import java.util.List;
 import java.util.Objects;
@@ -28,6 +29,7 @@ import org.weasis.core.api.image.util.KernelData;
 import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.opencv.data.ImageCV;
 import org.weasis.opencv.data.PlanarImage;
+import org.weasis.opencv.op.ImageConversion;
 
 public class CvUtil {
   private static final Logger LOGGER = LoggerFactory.getLogger(CvUtil.class);
@@ -56,6 +58,40 @@ public class CvUtil {
     return dstImg;
   }
 
+  /**
+   * Converts an image to a BufferedImage. The pixels of the 8-bit images with one or three channels
+   * are copied into the raster of the buffer when it has the same size and type, so the displayed
+   * image can be updated without allocating a new BufferedImage.
+   *
+   * @param image the image to convert
+   * @param buffer the image to reuse, or null
+   * @return the buffer when it has been reused, otherwise a new image
+   */
+  public static BufferedImage toBufferedImage(PlanarImage image, BufferedImage buffer) {
+    if (image == null) {
+      return null;
+    }
+    Mat mat = image.toMat();
+    int type =
+        switch (mat.type()) {
+          case CvType.CV_8UC1 -> BufferedImage.TYPE_BYTE_GRAY;
+          case CvType.CV_8UC3 -> BufferedImage.TYPE_3BYTE_BGR;
+          default -> BufferedImage.TYPE_CUSTOM;
+        };
+    if (type == BufferedImage.TYPE_CUSTOM) {
+      return ImageConversion.toBufferedImage(image);
+    }
+    BufferedImage dst = buffer;
+    if (dst == null
+        || dst.getType() != type
+        || dst.getWidth() != mat.width()
+        || dst.getHeight() != mat.height()) {
+      dst = new BufferedImage(mat.width(), mat.height(), type);
+    }
+    mat.get(0, 0, ((DataBufferByte) dst.getRaster().getDataBuffer()).getData());
+    return dst;
+  }
+
   public static VolatileImage getVolatileImage(GraphicsConfiguration gc, BufferedImage src) {
     if (gc == null || src == null) {
       return null;
@@ -78,6 +78,10 @@ public class ImageCVIO implements MediaReader<ImageElement> {
   private final FileCache fileCache;
   private final Codec codec;
   private ImageElement image = null;
+  // Pixel format of the raw cache file, allows mapping the file when it is read again
+  private int rawWidth = -1;
+  private int rawHeight = -1;
+  private int rawType = -1;
 
   public ImageCVIO(URI media, String mimeType, Codec codec) {
     this.uri = Objects.requireNonNull(media);
@@ -150,7 +154,10 @@ public class ImageCVIO implements MediaReader<ImageElement> {
   private PlanarImage readImage(File file, boolean createTiledLayout) throws Exception {
     PlanarImage img;
     if (file.getPath().endsWith(".wcv")) {
-      img = new FileRawImage(file).read();
+      img = MappedRawImage.read(file, rawWidth, rawHeight, rawType);
+      rawWidth = img.width();
+      rawHeight = img.height();
+      rawType = img.type();
     } else if (codec instanceof NativeOpenCVCodec) {
       List<String> exifTags = new ArrayList<>();
       img = ImageProcessor.readImageWithCvException(file, exifTags);
@@ -364,7 +371,11 @@ public class ImageCVIO implements MediaReader<ImageElement> {
         && !mimeType.contains("dicom")) { // NON-NLS
       File outFile = imgCachePath.toFile();
       try {
-        new FileRawImage(outFile).write(img);
+        if (new FileRawImage(outFile).write(img)) {
+          rawWidth = img.width();
+          rawHeight = img.height();
+          rawType = img.type();
+        }
         PlanarImage img8 = img;
         if (CvType.depth(img.type()) > CvType.CV_8S && media instanceof ImageElement imgElement) {
           Map<String, Object> params = null;
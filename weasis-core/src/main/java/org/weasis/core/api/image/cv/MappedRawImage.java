@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.image.cv;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.opencv.data.FileRawImage;
+import org.weasis.opencv.data.ImageCV;
+import org.weasis.opencv.data.PlanarImage;
+
+/**
+ * Reads the pixel data of a raw image file (.wcv) without copying it. The pixels following the
+ * header are mapped in memory and wrapped by an OpenCV matrix, so they are held by the OS page
+ * cache and not by the native heap.
+ *
+ * <p>The mapping is private (copy-on-write): an operation writing into the image never modifies the
+ * file. The mapping is released by the garbage collector and not by {@link PlanarImage#release()},
+ * which may be called while other matrices still share the pixels. The mapped mode can be disabled
+ * with the system property {@value #P_MAPPED_MODE}.
+ */
+public final class MappedRawImage {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MappedRawImage.class);
+
+  public static final String P_MAPPED_MODE = "weasis.raw.image.mapped";
+  private static final boolean MAPPED_MODE =
+      Boolean.parseBoolean(System.getProperty(P_MAPPED_MODE, "true"));
+
+  private MappedRawImage() {}
+
+  public static boolean isMappedModeEnabled() {
+    return MAPPED_MODE;
+  }
+
+  /**
+   * Returns the image of the raw file. The image is mapped when the mapped mode is enabled and the
+   * file size matches the pixel format, otherwise the file is fully read.
+   *
+   * @param file the raw image file
+   * @param width the width of the image
+   * @param height the height of the image
+   * @param cvType the OpenCV type of the image
+   * @return the image
+   * @throws IOException if the file cannot be read
+   */
+  public static PlanarImage read(File file, int width, int height, int cvType)
+      throws IOException {
+    if (MAPPED_MODE && width > 0 && height > 0 && cvType >= 0) {
+      long dataLength = (long) width * height * CvType.ELEM_SIZE(cvType);
+      if (file.length() == FileRawImage.HEADER_LENGTH + dataLength) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+          // Unmapped by the GC when the segment is no longer reachable, never by release()
+          MemorySegment segment =
+              channel.map(
+                  MapMode.PRIVATE, FileRawImage.HEADER_LENGTH, dataLength, Arena.ofAuto());
+          return new MappedImageCV(segment.asByteBuffer(), width, height, cvType);
+        } catch (IOException | UnsupportedOperationException e) {
+          LOGGER.warn("Cannot map the raw image {}", file, e);
+        }
+      } else {
+        LOGGER.debug("The size of {} does not match with the pixel format", file);
+      }
+    }
+    return new FileRawImage(file).read();
+  }
+
+  /** An image backed by a mapped buffer. The buffer is kept as long as the image is referenced. */
+  static class MappedImageCV extends ImageCV {
+    private final ByteBuffer buffer;
+
+    MappedImageCV(ByteBuffer buffer, int width, int height, int cvType) {
+      super();
+      this.buffer = buffer;
+      Mat mat = new Mat(height, width, cvType, buffer);
+      mat.assignTo(this);
+      mat.release();
+    }
+
+    /** The pixels are held by the OS page cache, they do not use the native heap. */
+    @Override
+    public long physicalBytes() {
+      return 0L;
+    }
+
+    public ByteBuffer getBuffer() {
+      return buffer;
+    }
+  }
+}
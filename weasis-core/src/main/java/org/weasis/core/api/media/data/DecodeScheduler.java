@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.util.ThreadUtil;
+
+/**
+ * Bounded pool of decoding workers shared by all the image elements. The tasks are ordered by
+ * {@link Priority} and then by submission order. A pending task is shared by all the callers
+ * asking for the same key, so an image is never decoded twice at the same time. A shared task
+ * counts its callers and is cancelled only when none of them waits for it anymore.
+ *
+ * <p>The number of workers can be configured with the system property {@value #P_DECODER_THREADS}.
+ */
+public final class DecodeScheduler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DecodeScheduler.class);
+
+  public static final String P_DECODER_THREADS = "weasis.image.decoder.threads";
+
+  public enum Priority {
+    /** Image displayed in a view */
+    VISIBLE,
+    /** Next images of the cine or of the scrolling direction */
+    LOOK_AHEAD,
+    /** Background preloading and thumbnails */
+    PRELOAD
+  }
+
+  private static final DecodeScheduler INSTANCE = new DecodeScheduler(getDefaultThreadNumber());
+
+  private final ThreadPoolExecutor executor;
+  private final Map<Object, DecodeTask<?>> pendingTasks = new ConcurrentHashMap<>();
+  private final AtomicLong sequence = new AtomicLong();
+  private final AtomicLong decodedCount = new AtomicLong();
+  private final AtomicLong decodeTimeNanos = new AtomicLong();
+  private final AtomicLong deduplicatedCount = new AtomicLong();
+
+  DecodeScheduler(int nThreads) {
+    int workers = Math.max(1, nThreads);
+    this.executor =
+        new ThreadPoolExecutor(
+            workers,
+            workers,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new PriorityBlockingQueue<>(),
+            ThreadUtil.getThreadFactory("Image Decoder")); // NON-NLS
+  }
+
+  public static DecodeScheduler getInstance() {
+    return INSTANCE;
+  }
+
+  private static int getDefaultThreadNumber() {
+    int cores = Runtime.getRuntime().availableProcessors();
+    // Keep one core for the EDT and the rendering
+    int def = Math.min(Math.max(1, cores - 1), 8);
+    return Integer.getInteger(P_DECODER_THREADS, def);
+  }
+
+  /**
+   * Submits a decoding task. When a task with the same key is still waiting or running, its future
+   * is returned and its priority is raised if the new request is more urgent.
+   *
+   * @param key the unique identifier of the decoded object (e.g. the image element)
+   * @param callable the decoding task
+   * @param priority the priority of the request
+   * @return the future of the decoding task
+   */
+  @SuppressWarnings("unchecked")
+  public <V> Future<V> submit(Object key, Callable<V> callable, Priority priority) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(callable);
+    Priority p = priority == null ? Priority.VISIBLE : priority;
+    while (true) {
+      DecodeTask<V> newTask = new DecodeTask<>(key, callable, p, sequence.getAndIncrement());
+      DecodeTask<V> task = (DecodeTask<V>) pendingTasks.putIfAbsent(key, newTask);
+      if (task == null) {
+        executor.execute(newTask);
+        return newTask;
+      }
+      // Same lock as cancel(), which cannot miss the task while it is out of the queue
+      synchronized (task) {
+        if (task.isDone() || !task.retain()) {
+          // The task is finishing or has been cancelled, do not reuse it
+          pendingTasks.remove(key, task);
+          continue;
+        }
+        deduplicatedCount.incrementAndGet();
+        if (p.compareTo(task.priority) < 0 && executor.getQueue().remove(task)) {
+          // Still in the queue: reinsert with the higher priority
+          task.priority = p;
+          executor.execute(task);
+        }
+      }
+      return task;
+    }
+  }
+
+  /**
+   * Releases one request of the task of the given key. The task is cancelled only when no other
+   * caller waits for it and when it has not been started yet, so the other callers never receive
+   * a {@link java.util.concurrent.CancellationException}.
+   *
+   * <p>Each call must match a previous call of {@link #submit(Object, Callable, Priority)}.
+   *
+   * @param key the unique identifier of the decoded object
+   * @return true if the task has been removed from the queue
+   */
+  public boolean cancel(Object key) {
+    DecodeTask<?> task = pendingTasks.get(key);
+    if (task != null) {
+      synchronized (task) {
+        if (task.release() && executor.getQueue().remove(task)) {
+          pendingTasks.remove(key, task);
+          task.cancel(false);
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Releases the request of a caller for the given task, like {@link #cancel(Object)}. Nothing is
+   * done when the task is already done or has been replaced by another task of the same key, so a
+   * caller never releases a task it has not requested.
+   *
+   * @param future the future returned by {@link #submit(Object, Callable, Priority)}
+   * @return true if the task has been removed from the queue
+   */
+  public boolean cancel(Future<?> future) {
+    if (future instanceof DecodeTask<?> task && pendingTasks.get(task.key) == task) {
+      synchronized (task) {
+        if (task.release() && executor.getQueue().remove(task)) {
+          pendingTasks.remove(task.key, task);
+          task.cancel(false);
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Runs an action when a task is done (completed, failed or cancelled). The action is run
+   * immediately when the task is already done, otherwise by the thread completing the task.
+   *
+   * @param future the future returned by {@link #submit(Object, Callable, Priority)}
+   * @param action the action, it must be short and must not block
+   */
+  public void whenDone(Future<?> future, Runnable action) {
+    Objects.requireNonNull(action);
+    if (!(future instanceof DecodeTask<?> task) || !task.addListener(action)) {
+      action.run();
+    }
+  }
+
+  public boolean isPending(Object key) {
+    return pendingTasks.containsKey(key);
+  }
+
+  public int getWorkerNumber() {
+    return executor.getMaximumPoolSize();
+  }
+
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  public long getDecodedCount() {
+    return decodedCount.get();
+  }
+
+  public long getDeduplicatedCount() {
+    return deduplicatedCount.get();
+  }
+
+  /**
+   * @return the mean decoding time in milliseconds
+   */
+  public double getMeanDecodeTime() {
+    long nb = decodedCount.get();
+    return nb == 0 ? 0.0 : decodeTimeNanos.get() / (nb * 1_000_000.0);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "Decoder workers: %d, active: %d, queue: %d, decoded: %d, shared: %d, mean time: %.1f ms", // NON-NLS
+        getWorkerNumber(),
+        getActiveCount(),
+        getQueueDepth(),
+        getDecodedCount(),
+        getDeduplicatedCount(),
+        getMeanDecodeTime());
+  }
+
+  private final class DecodeTask<V> extends FutureTask<V> implements Comparable<DecodeTask<?>> {
+    private final Object key;
+    private final long order;
+    private volatile Priority priority;
+    // Number of callers waiting for the result, guarded by this
+    private int waiters = 1;
+    // Actions run when the task is done, guarded by this
+    private List<Runnable> listeners;
+
+    DecodeTask(Object key, Callable<V> callable, Priority priority, long order) {
+      super(callable);
+      this.key = key;
+      this.priority = priority;
+      this.order = order;
+    }
+
+    @Override
+    public void run() {
+      long start = System.nanoTime();
+      try {
+        super.run();
+      } finally {
+        decodeTimeNanos.addAndGet(System.nanoTime() - start);
+        decodedCount.incrementAndGet();
+        LOGGER.trace("Decoding time: {} ms of {}", (System.nanoTime() - start) / 1_000_000, key);
+      }
+    }
+
+    /**
+     * @return false if the task has been cancelled and cannot be shared anymore
+     */
+    synchronized boolean retain() {
+      if (isCancelled()) {
+        return false;
+      }
+      waiters++;
+      return true;
+    }
+
+    /**
+     * @return true if no caller waits for the task anymore
+     */
+    synchronized boolean release() {
+      if (waiters > 0) {
+        waiters--;
+      }
+      return waiters == 0;
+    }
+
+    /**
+     * @return false if the task is already done and the action has not been added
+     */
+    synchronized boolean addListener(Runnable action) {
+      if (isDone()) {
+        return false;
+      }
+      if (listeners == null) {
+        listeners = new ArrayList<>(2);
+      }
+      listeners.add(action);
+      return true;
+    }
+
+    @Override
+    protected void done() {
+      pendingTasks.remove(key, this);
+      List<Runnable> actions;
+      synchronized (this) {
+        actions = listeners;
+        listeners = null;
+      }
+      if (actions != null) {
+        for (Runnable action : actions) {
+          try {
+            action.run();
+          } catch (RuntimeException e) {
+            LOGGER.error("Running the action of a decoding task", e);
+          }
+        }
+      }
+    }
+
+    @Override
+    public int compareTo(DecodeTask<?> o) {
+      int c = priority.compareTo(o.priority);
+      return c != 0 ? c : Long.compare(order, o.order);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this);
+    }
+  }
+}
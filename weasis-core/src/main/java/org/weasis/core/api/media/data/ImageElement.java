@@ -13,10 +13,13 @@ import java.awt.Point;
 import java.awt.image.DataBuffer;
 import java.awt.image.IndexColorModel;
 import java.awt.image.RenderedImage;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import org.opencv.core.Core.MinMaxLocResult;
 import org.opencv.core.CvType;
@@ -30,7 +33,7 @@ import org.weasis.core.api.image.ZoomOp;
 import org.weasis.core.api.image.cv.CvUtil;
 import org.weasis.core.api.image.measure.MeasurementsAdapter;
 import org.weasis.core.api.image.util.Unit;
-import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
 import org.weasis.core.util.MathUtil;
 import org.weasis.opencv.data.ImageCV;
 import org.weasis.opencv.data.LookupTableCV;
@@ -45,29 +48,13 @@ import org.weasis.opencv.op.lut.WlPresentation;
 public class ImageElement extends MediaElement {
   private static final Logger LOGGER = LoggerFactory.getLogger(ImageElement.class);
 
-  public static final ExecutorService IMAGE_LOADER =
-      ThreadUtil.buildNewSingleThreadExecutor("Image Loader"); // NON-NLS
+  private static final List<NativeCache<ImageElement, PlanarImage>> imageCaches =
+      new CopyOnWriteArrayList<>();
 
   private static final NativeCache<ImageElement, PlanarImage> mCache =
-      new NativeCache<>(Runtime.getRuntime().maxMemory() / 2) {
-
-        @Override
-        protected void afterEntryRemove(ImageElement key, PlanarImage img) {
-          if (key != null) {
-            key.setTag(TagW.ImageCache, false);
-            MediaReader reader = key.getMediaReader();
-            if (reader != null) {
-              // Close the image stream
-              reader.close();
-            }
-          }
-          if (img != null) {
-            img.release();
-          }
-        }
-      };
+      buildImageCache("images", NativeCache.getDefaultBudget(0.5)); // NON-NLS
 
-  protected boolean readable = true;
+  protected volatile boolean readable = true;
 
   protected double pixelSizeX = 1.0;
   protected double pixelSizeY = 1.0;
@@ -82,8 +69,72 @@ public class ImageElement extends MediaElement {
     super(mediaIO, key);
   }
 
+  /**
+   * @return the budget of native memory of the cache of the original images
+   */
+  public static long getImageCacheBudget() {
+    return mCache.getMaxMemory();
+  }
+
   public static int getNumberOfImagesInCache() {
-    return mCache.size();
+    return imageCaches.stream().mapToInt(NativeCache::size).sum();
+  }
+
+  /**
+   * Builds a cache of images. The images are released and their reader is closed when they are
+   * removed from the cache.
+   *
+   * @param name the name of the cache for the configuration of its budget
+   * @param defaultMaxMemory the default budget of native memory
+   * @return the cache
+   * @see #getNativeCache()
+   */
+  public static NativeCache<ImageElement, PlanarImage> buildImageCache(
+      String name, long defaultMaxMemory) {
+    NativeCache<ImageElement, PlanarImage> cache =
+        new NativeCache<>(name, defaultMaxMemory) {
+
+          @Override
+          protected void afterEntryRemove(ImageElement key, PlanarImage img) {
+            if (key != null) {
+              key.setTag(TagW.ImageCache, false);
+              MediaReader reader = key.getMediaReader();
+              if (reader != null) {
+                // Close the image stream
+                reader.close();
+              }
+            }
+            if (img != null) {
+              img.release();
+            }
+          }
+
+        };
+    imageCaches.add(cache);
+    return cache;
+  }
+
+  /**
+   * Keeps the images in the caches, they are evicted only when the other images do not free enough
+   * memory. The images replace the ones previously pinned by the owner.
+   *
+   * @param owner the owner of the pins (e.g. the view displaying the images)
+   * @param images the images to pin, null or empty releases the pins of the owner
+   */
+  public static void pinImages(Object owner, Collection<? extends ImageElement> images) {
+    for (NativeCache<ImageElement, PlanarImage> cache : imageCaches) {
+      cache.pin(owner, images);
+    }
+  }
+
+  /**
+   * Returns the cache of the decoded image. The images which are computed (e.g. MPR) can be stored
+   * in a dedicated cache built with {@link #buildImageCache(String, long)}.
+   *
+   * @return the cache
+   */
+  protected NativeCache<ImageElement, PlanarImage> getNativeCache() {
+    return mCache;
   }
 
   protected void findMinMaxValues(PlanarImage img, boolean exclude8bitImage)
@@ -243,11 +294,29 @@ public class ImageElement extends MediaElement {
   }
 
   public boolean isImageInCache() {
-    return mCache.get(this) != null;
+    return getNativeCache().containsKey(this);
   }
 
   public void removeImageFromCache() {
-    mCache.remove(this);
+    getNativeCache().remove(this);
+  }
+
+  /**
+   * Returns the identifier of the image content used by the {@link ThumbnailStore}. By default,
+   * it is based on the location, the size and the modification date of the file.
+   *
+   * @return the identifier or null when the thumbnail must not be stored
+   */
+  public String getThumbnailKey() {
+    FileCache fileCache = getFileCache();
+    if (fileCache == null || fileCache.isElementInMemory()) {
+      return null;
+    }
+    long lastModified = fileCache.getLastModified();
+    if (lastModified <= 0) {
+      return null;
+    }
+    return getMediaURI() + "|" + lastModified + "|" + fileCache.getLength() + "|" + getKey();
   }
 
   public boolean hasSameSize(ImageElement image) {
@@ -374,25 +443,38 @@ public class ImageElement extends MediaElement {
     return getMediaURI().toString();
   }
 
-  public synchronized PlanarImage getImage(OpManager manager, boolean findMinMax) {
+  public PlanarImage getImage(OpManager manager, boolean findMinMax) {
+    return getImage(manager, findMinMax, Priority.VISIBLE);
+  }
+
+  /**
+   * Returns the full size, original image or the image processed by the manager.
+   *
+   * @param manager the operations to apply to the original image, can be null
+   * @param findMinMax true to compute the min and max pixel values of the image
+   * @param priority the decoding priority when the image is not in the cache
+   * @return the image or null if the image cannot be loaded
+   */
+  public PlanarImage getImage(OpManager manager, boolean findMinMax, Priority priority) {
     try {
-      return getCacheImage(startImageLoading(), manager, findMinMax);
+      return getCacheImage(startImageLoading(priority), manager, findMinMax);
     } catch (OutOfMemoryError e1) {
       LOGGER.warn("Out of MemoryError: {}", this, e1);
 
-      mCache.expungeStaleEntries();
+      getNativeCache().expungeStaleEntries();
       CvUtil.runGarbageCollectorAndWait(100);
 
-      return getCacheImage(startImageLoading(), manager, findMinMax);
+      return getCacheImage(startImageLoading(priority), manager, findMinMax);
     }
   }
 
-  private PlanarImage getCacheImage(PlanarImage cacheImage, OpManager manager, boolean findMinMax) {
+  private synchronized PlanarImage getCacheImage(
+      PlanarImage cacheImage, OpManager manager, boolean findMinMax) {
     if (findMinMax) {
       try {
         findMinMaxValues(cacheImage, true);
       } catch (Exception e) {
-        mCache.remove(this);
+        getNativeCache().remove(this);
         readable = false;
         LOGGER.error("Cannot read image: {}", this, e);
       }
@@ -418,42 +500,51 @@ public class ImageElement extends MediaElement {
     return getImage(null);
   }
 
-  private PlanarImage startImageLoading() throws OutOfMemoryError {
+  private PlanarImage startImageLoading(Priority priority) throws OutOfMemoryError {
     PlanarImage cacheImage;
-    if ((cacheImage = mCache.get(this)) == null && readable && setAsLoading()) {
+    if ((cacheImage = getNativeCache().get(this)) == null && readable) {
       LOGGER.debug("Asking for reading image: {}", this);
-      Load ref = new Load();
-      Future<PlanarImage> future = IMAGE_LOADER.submit(ref);
-      PlanarImage img = null;
+      // The same task is shared when the image is already being decoded by another caller
+      Future<PlanarImage> future =
+          DecodeScheduler.getInstance().submit(this, new Load(), priority);
       try {
-        img = future.get();
+        cacheImage = future.get();
       } catch (InterruptedException e) {
         // Re-assert the thread's interrupted status
         Thread.currentThread().interrupt();
-        // We don't need the result, so cancel the task too
-        future.cancel(true);
+        // Cancel the task only if it has not been started (can be shared with other callers)
+        DecodeScheduler.getInstance().cancel(future);
+      } catch (CancellationException e) {
+        // Cancelled by its last other caller just before being shared, submit a new task
+        if (!Thread.currentThread().isInterrupted()) {
+          return startImageLoading(priority);
+        }
       } catch (ExecutionException e) {
         if (e.getCause() instanceof OutOfMemoryError memoryError) {
-          setAsLoaded();
           throw memoryError;
         } else {
           readable = false;
           LOGGER.error("Cannot read pixel data!: {}", this, e);
         }
       }
-      if (img != null) {
-        readable = img.width() > 0;
-        if (readable) {
-          mCache.put(this, img);
-          cacheImage = img;
-          this.setTag(TagW.ImageCache, true);
-        }
-      }
-      setAsLoaded();
     }
     return cacheImage;
   }
 
+  /**
+   * Asks for decoding the image in background when it is not already in the cache.
+   *
+   * @param priority the decoding priority
+   * @return the future of the decoding task or null if the image is already in the cache or is not
+   *     readable
+   */
+  public Future<PlanarImage> prefetchImage(Priority priority) {
+    if (readable && !getNativeCache().containsKey(this)) {
+      return DecodeScheduler.getInstance().submit(this, new Load(), priority);
+    }
+    return null;
+  }
+
   public boolean isReadable() {
     return readable;
   }
@@ -462,7 +553,26 @@ public class ImageElement extends MediaElement {
 
     @Override
     public PlanarImage call() throws Exception {
-      return loadImage();
+      NativeCache<ImageElement, PlanarImage> cache = getNativeCache();
+      PlanarImage cacheImage = cache.peek(ImageElement.this);
+      if (cacheImage != null) {
+        return cacheImage;
+      }
+      setAsLoading();
+      try {
+        PlanarImage img = loadImage();
+        if (img != null) {
+          readable = img.width() > 0;
+          if (readable) {
+            cache.put(ImageElement.this, img);
+            setTag(TagW.ImageCache, true);
+            return img;
+          }
+        }
+        return null;
+      } finally {
+        setAsLoaded();
+      }
     }
   }
 }
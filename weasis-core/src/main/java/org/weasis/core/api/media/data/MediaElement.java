@@ -12,7 +12,6 @@ package org.weasis.core.api.media.data;
 import java.io.File;
 import java.net.URI;
 import java.nio.file.Paths;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -34,7 +33,7 @@ public class MediaElement implements Taggable {
   public <E extends MediaElement> MediaElement(MediaReader<E> mediaIO, Object key) {
     this.mediaIO = Objects.requireNonNull(mediaIO);
     this.key = key;
-    this.tags = Optional.ofNullable(mediaIO.getMediaFragmentTags(key)).orElseGet(HashMap::new);
+    this.tags = Optional.ofNullable(mediaIO.getMediaFragmentTags(key)).orElseGet(TagMap::new);
   }
 
   public MediaReader<? extends MediaElement> getMediaReader() {
@@ -85,7 +84,7 @@ public class MediaElement implements Taggable {
 
   public void dispose() {
     // Close image reader and image stream, but it should be already closed
-    mediaIO.close();
+    mediaIO.dispose();
     mediaIO.getFileCache().dispose();
   }
 
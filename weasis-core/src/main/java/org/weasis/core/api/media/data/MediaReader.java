@@ -39,6 +39,11 @@ public interface MediaReader<E extends MediaElement> extends Taggable {
 
   void close();
 
+  /** Releases all the resources of the reader, called when the media is disposed. */
+  default void dispose() {
+    close();
+  }
+
   Codec getCodec();
 
   String[] getReaderDescription();
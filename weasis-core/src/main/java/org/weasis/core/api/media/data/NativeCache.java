@@ -9,31 +9,140 @@
  */
 package org.weasis.core.api.media.data;
 
+import java.lang.management.ManagementFactory;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.util.StringUtil;
 import org.weasis.opencv.data.PlanarImage;
 
+/**
+ * Cache of images whose pixels are held in native memory. The budget is the size of the native
+ * memory used by the images, it does not depend on the Java heap.
+ *
+ * <ul>
+ *   <li>Segmented LRU: a new entry is admitted in the probation segment and is promoted to the
+ *       protected segment when it is accessed again. The eviction starts with the probation
+ *       segment, so scrolling once through a large series does not flush the images which are
+ *       displayed repeatedly.
+ *   <li>The entries are split into stripes having their own lock.
+ *   <li>The entries having a pinned key (see {@link #getPinKey(Object)}) are evicted last, only
+ *       when the other entries do not free enough memory. The budget is always enforced.
+ *   <li>The budget can be set with the system property "weasis.cache.[name].max" as a size (e.g.
+ *       "2g", "512m") or as a percentage of the physical memory (e.g. "25%").
+ * </ul>
+ */
 public abstract class NativeCache<K, V extends PlanarImage> extends AbstractMap<K, V> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(NativeCache.class);
+
+  public static final String P_CACHE_MAX = "weasis.cache.%s.max"; // NON-NLS
+
+  private static final int STRIPES = 16;
+  // Part of the budget of the stripe kept for the protected segment
+  private static final double PROTECTED_RATIO = 0.8;
+  private static final List<NativeCache<?, ?>> CACHES = new CopyOnWriteArrayList<>();
+  private static volatile long physicalMemory = -1;
 
-  protected final Map<K, V> hash;
+  private final String name;
   private final long maxNativeMemory;
   private final AtomicLong useNativeMemory;
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicInteger evictionCursor = new AtomicInteger();
+  private final List<Segment<K, V>> segments;
+  private final Map<Object, Set<Object>> pinOwners = new ConcurrentHashMap<>();
+  private volatile Set<Object> pinnedKeys = Collections.emptySet();
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
 
   protected NativeCache(long maxNativeMemory) {
-    this.maxNativeMemory = maxNativeMemory;
+    this(null, maxNativeMemory);
+  }
+
+  /**
+   * @param name the name of the cache, used for the configuration and the statistics
+   * @param defaultMaxNativeMemory the budget when the system property is not set
+   */
+  protected NativeCache(String name, long defaultMaxNativeMemory) {
+    this.name = StringUtil.hasText(name) ? name : "cache"; // NON-NLS
+    this.maxNativeMemory =
+        StringUtil.hasText(name)
+            ? getConfiguredSize(String.format(P_CACHE_MAX, name), defaultMaxNativeMemory)
+            : defaultMaxNativeMemory;
     this.useNativeMemory = new AtomicLong(0);
-    this.hash = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true));
+    long protectedMax = (long) (maxNativeMemory * PROTECTED_RATIO / STRIPES);
+    List<Segment<K, V>> list = new ArrayList<>(STRIPES);
+    for (int i = 0; i < STRIPES; i++) {
+      list.add(new Segment<>(protectedMax));
+    }
+    this.segments = List.copyOf(list);
+    CACHES.add(this);
+    LOGGER.info(
+        "Native cache {}: max {} MB", this.name, maxNativeMemory / (1024 * 1024)); // NON-NLS
+  }
+
+  private Segment<K, V> segment(Object key) {
+    int h = key == null ? 0 : key.hashCode();
+    h ^= h >>> 16;
+    return segments.get(h & (STRIPES - 1));
   }
 
   @Override
   public V get(Object key) {
-    return hash.get(key);
+    Segment<K, V> s = segment(key);
+    V val;
+    s.lock.lock();
+    try {
+      val = s.get(key);
+    } finally {
+      s.lock.unlock();
+    }
+    if (val == null) {
+      missCount.increment();
+    } else {
+      hitCount.increment();
+    }
+    return val;
+  }
+
+  /**
+   * Returns the value without updating the access order and the statistics.
+   *
+   * @param key the key
+   * @return the value or null
+   */
+  public V peek(Object key) {
+    Segment<K, V> s = segment(key);
+    s.lock.lock();
+    try {
+      Node<V> node = s.probation.get(key);
+      if (node == null) {
+        node = s.protect.get(key);
+      }
+      return node == null ? null : node.value;
+    } finally {
+      s.lock.unlock();
+    }
   }
 
   public boolean isMemoryAvailable() {
@@ -42,30 +151,54 @@ public abstract class NativeCache<K, V extends PlanarImage> extends AbstractMap<
 
   public void expungeStaleEntries() {
     if (!isMemoryAvailable()) {
-      synchronized (hash) {
-        List<K> remKeys = new ArrayList<>();
-        // 5% of max memory + diff
-        long maxfreeSize = maxNativeMemory / 20 + (useNativeMemory.get() - maxNativeMemory);
-        long freeSize = 0;
-
-        for (Map.Entry<K, V> e : hash.entrySet()) {
-          freeSize += physicalBytes(e.getValue());
-          if (freeSize > maxfreeSize) {
-            break;
-          }
-          remKeys.add(e.getKey());
-        }
+      // 5% of max memory + diff
+      evict(maxNativeMemory / 20 + (useNativeMemory.get() - maxNativeMemory));
+    }
+  }
 
-        for (K key : remKeys) {
-          V val = hash.remove(key);
-          useNativeMemory.addAndGet(-physicalBytes(val));
-          afterEntryRemove(key, val);
+  private void evict(long bytesToFree) {
+    Set<Object> pinned = pinnedKeys;
+    List<Map.Entry<K, V>> removed = new ArrayList<>();
+    long remaining = bytesToFree;
+    // Evict first the entries in probation, then the protected ones and finally the pinned ones
+    for (int pass = 0; pass < 4 && remaining > 0; pass++) {
+      boolean fromProtected = (pass & 1) == 1;
+      Predicate<K> kept = pass < 2 ? k -> isPinned(k, pinned) : k -> false;
+      if (pass == 2) {
+        if (pinned.isEmpty()) {
+          break;
+        }
+        LOGGER.debug("Native cache {}: the pinned images exceed the budget", name);
+      }
+      boolean progress = true;
+      while (remaining > 0 && progress) {
+        progress = false;
+        int start = evictionCursor.getAndIncrement();
+        for (int i = 0; i < STRIPES && remaining > 0; i++) {
+          // Share the memory to free between the stripes
+          long quota = Math.max(1L, remaining / (STRIPES - i));
+          Segment<K, V> s = segments.get((start + i) & (STRIPES - 1));
+          int nb = removed.size();
+          s.lock.lock();
+          try {
+            remaining -= s.evict(quota, fromProtected, kept, removed);
+          } finally {
+            s.lock.unlock();
+          }
+          progress |= removed.size() > nb;
         }
       }
     }
+
+    for (Map.Entry<K, V> e : removed) {
+      useNativeMemory.addAndGet(-physicalBytes(e.getValue()));
+      size.decrementAndGet();
+      evictionCount.increment();
+      afterEntryRemove(e.getKey(), e.getValue());
+    }
   }
 
-  private long physicalBytes(V val) {
+  private static long physicalBytes(PlanarImage val) {
     if (val != null) {
       return val.physicalBytes();
     }
@@ -74,62 +207,378 @@ public abstract class NativeCache<K, V extends PlanarImage> extends AbstractMap<
 
   protected abstract void afterEntryRemove(K key, V val);
 
+  /**
+   * Returns the key used for pinning the entry, by default the key itself. For instance, the images
+   * can be pinned by series.
+   *
+   * @param key the key of the entry
+   * @return the pin key or null when the entry cannot be pinned
+   */
+  protected Object getPinKey(K key) {
+    return key;
+  }
+
+  /**
+   * Keeps the entries having these pin keys in the cache, they are evicted only when the other
+   * entries do not free enough memory. The pin keys replace the previous ones of the owner.
+   *
+   * @param owner the owner of the pins (e.g. a view)
+   * @param pinKeys the pin keys, null or empty releases the pins of the owner
+   */
+  public void pin(Object owner, Collection<?> pinKeys) {
+    Objects.requireNonNull(owner);
+    if (pinKeys == null || pinKeys.isEmpty()) {
+      unpin(owner);
+    } else {
+      Set<Object> keys = Set.copyOf(pinKeys);
+      if (!keys.equals(pinOwners.put(owner, keys))) {
+        updatePinnedKeys();
+      }
+    }
+  }
+
+  public void unpin(Object owner) {
+    if (owner != null && pinOwners.remove(owner) != null) {
+      updatePinnedKeys();
+    }
+  }
+
+  private synchronized void updatePinnedKeys() {
+    Set<Object> keys = new HashSet<>();
+    pinOwners.values().forEach(keys::addAll);
+    pinnedKeys = keys.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(keys);
+  }
+
+  private boolean isPinned(K key, Set<Object> pinned) {
+    if (pinned.isEmpty()) {
+      return false;
+    }
+    Object pinKey = getPinKey(key);
+    return pinKey != null && pinned.contains(pinKey);
+  }
+
   @Override
   public V put(K key, V value) {
-    expungeStaleEntries();
-    V result = hash.put(key, value);
+    Segment<K, V> s = segment(key);
+    V result;
+    s.lock.lock();
+    try {
+      result = s.put(key, value);
+    } finally {
+      s.lock.unlock();
+    }
+    if (result == null) {
+      size.incrementAndGet();
+    }
     useNativeMemory.addAndGet(physicalBytes(value));
     useNativeMemory.addAndGet(-physicalBytes(result));
+    expungeStaleEntries();
     return result;
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public V remove(Object key) {
-    V val = hash.remove(key);
-    useNativeMemory.addAndGet(-physicalBytes(val));
+    Segment<K, V> s = segment(key);
+    V val;
+    s.lock.lock();
+    try {
+      val = s.remove(key);
+    } finally {
+      s.lock.unlock();
+    }
+    if (val != null) {
+      size.decrementAndGet();
+      useNativeMemory.addAndGet(-physicalBytes(val));
+    }
     afterEntryRemove((K) key, val);
     return val;
   }
 
   @Override
   public void clear() {
-    hash.clear();
-    useNativeMemory.set(0);
+    for (Segment<K, V> s : segments) {
+      s.lock.lock();
+      try {
+        long bytes = 0;
+        int nb = 0;
+        for (Node<V> node : s.probation.values()) {
+          bytes += physicalBytes(node.value);
+          nb++;
+        }
+        for (Node<V> node : s.protect.values()) {
+          bytes += physicalBytes(node.value);
+          nb++;
+        }
+        s.probation.clear();
+        s.protect.clear();
+        s.protectedBytes = 0;
+        useNativeMemory.addAndGet(-bytes);
+        size.addAndGet(-nb);
+      } finally {
+        s.lock.unlock();
+      }
+    }
   }
 
   @Override
   public int size() {
-    return hash.size();
+    return size.get();
   }
 
+  /** Returns a snapshot of the entries. */
   @Override
   public Set<Entry<K, V>> entrySet() {
-    return hash.entrySet();
+    Map<K, V> map = new LinkedHashMap<>();
+    for (Segment<K, V> s : segments) {
+      s.lock.lock();
+      try {
+        s.probation.forEach((k, n) -> map.put(k, n.value));
+        s.protect.forEach((k, n) -> map.put(k, n.value));
+      } finally {
+        s.lock.unlock();
+      }
+    }
+    return Collections.unmodifiableSet(map.entrySet());
   }
 
   @Override
   public boolean containsKey(Object key) {
-    return hash.containsKey(key);
+    return peek(key) != null;
   }
 
-  @Override
-  public boolean containsValue(Object value) {
-    return hash.containsValue(value);
+  public String getName() {
+    return name;
   }
 
-  @Override
-  public int hashCode() {
-    return hash.hashCode();
+  public long getMaxMemory() {
+    return maxNativeMemory;
   }
 
-  @Override
-  public boolean equals(Object obj) {
-    if (this == obj) return true;
-    if (!super.equals(obj)) return false;
-    if (getClass() != obj.getClass()) return false;
-    @SuppressWarnings("rawtypes")
-    NativeCache other = (NativeCache) obj;
-    return hash.equals(other.hash);
+  public long getUsedMemory() {
+    return useNativeMemory.get();
+  }
+
+  public Stats getStats() {
+    return new Stats(
+        name,
+        hitCount.sum(),
+        missCount.sum(),
+        evictionCount.sum(),
+        size(),
+        getUsedMemory(),
+        maxNativeMemory);
+  }
+
+  public static List<Stats> getAllStats() {
+    return CACHES.stream().map(NativeCache::getStats).toList();
+  }
+
+  /**
+   * Statistics of a cache.
+   *
+   * @param name the name of the cache
+   * @param hitCount the number of lookups returning a value
+   * @param missCount the number of lookups returning null
+   * @param evictionCount the number of entries evicted because of the budget
+   * @param size the number of entries
+   * @param usedMemory the native memory used by the entries
+   * @param maxMemory the budget
+   */
+  public record Stats(
+      String name,
+      long hitCount,
+      long missCount,
+      long evictionCount,
+      int size,
+      long usedMemory,
+      long maxMemory) {
+
+    public double hitRate() {
+      long total = hitCount + missCount;
+      return total == 0 ? 1.0 : (double) hitCount / total;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          Locale.ENGLISH,
+          "%s: %d entries, %d/%d MB, hit rate %.1f%%, %d evictions", // NON-NLS
+          name,
+          size,
+          usedMemory / (1024 * 1024),
+          maxMemory / (1024 * 1024),
+          hitRate() * 100.0,
+          evictionCount);
+    }
+  }
+
+  /**
+   * Returns the size of the physical memory of the computer.
+   *
+   * @return the size in bytes or 0 if it cannot be read
+   */
+  public static long getPhysicalMemory() {
+    if (physicalMemory < 0) {
+      long val = 0;
+      try {
+        ObjectName os = new ObjectName(ManagementFactory.OPERATING_SYSTEM_MXBEAN_NAME);
+        Object size =
+            ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(os, "TotalMemorySize"); // NON-NLS
+        if (size instanceof Number n) {
+          val = n.longValue();
+        }
+      } catch (Exception | LinkageError e) {
+        LOGGER.warn("Cannot read the size of the physical memory", e);
+      }
+      physicalMemory = val;
+    }
+    return physicalMemory;
+  }
+
+  /**
+   * Returns a budget of native memory. It is a part of the physical memory not used by the Java
+   * heap, or a part of the Java heap size when the physical memory is unknown.
+   *
+   * @param ratio the part of the available native memory
+   * @return the budget in bytes
+   */
+  public static long getDefaultBudget(double ratio) {
+    long maxHeap = Runtime.getRuntime().maxMemory();
+    long physical = getPhysicalMemory();
+    if (physical <= 0) {
+      return (long) (maxHeap * ratio);
+    }
+    long available = Math.max(physical - maxHeap, physical / 4);
+    return (long) (available * ratio);
+  }
+
+  static long getConfiguredSize(String property, long defaultValue) {
+    String val = System.getProperty(property);
+    if (!StringUtil.hasText(val)) {
+      return defaultValue;
+    }
+    try {
+      String v = val.trim().toLowerCase(Locale.ROOT);
+      if (v.endsWith("%")) {
+        double percent = Double.parseDouble(v.substring(0, v.length() - 1).trim());
+        long physical = getPhysicalMemory();
+        long base = physical > 0 ? physical : Runtime.getRuntime().maxMemory();
+        return (long) (base * percent / 100.0);
+      }
+      long unit = 1;
+      char last = v.charAt(v.length() - 1);
+      if (last == 'k' || last == 'm' || last == 'g') {
+        unit = last == 'k' ? 1024L : last == 'm' ? 1024L * 1024 : 1024L * 1024 * 1024;
+        v = v.substring(0, v.length() - 1).trim();
+      }
+      return Long.parseLong(v) * unit;
+    } catch (NumberFormatException e) {
+      LOGGER.warn("Invalid size for {}: {}", property, val);
+      return defaultValue;
+    }
+  }
+
+  private static final class Node<V extends PlanarImage> {
+    final V value;
+    final long bytes;
+
+    Node(V value) {
+      this.value = value;
+      this.bytes = physicalBytes(value);
+    }
+  }
+
+  /** A stripe of the cache, all the methods must be called with the lock held. */
+  private static final class Segment<K, V extends PlanarImage> {
+    private final ReentrantLock lock = new ReentrantLock();
+    // Access order: the eldest entry is the least recently used
+    private final LinkedHashMap<K, Node<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Node<V>> protect = new LinkedHashMap<>(16, 0.75f, true);
+    private final long protectedMax;
+    private long protectedBytes;
+
+    Segment(long protectedMax) {
+      this.protectedMax = protectedMax;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(Object key) {
+      Node<V> node = protect.get(key);
+      if (node != null) {
+        return node.value;
+      }
+      node = probation.remove(key);
+      if (node == null) {
+        return null;
+      }
+      // Second access: promote the entry
+      protect.put((K) key, node);
+      protectedBytes += node.bytes;
+      demoteProtectedOverflow();
+      return node.value;
+    }
+
+    private void demoteProtectedOverflow() {
+      Iterator<Map.Entry<K, Node<V>>> it = protect.entrySet().iterator();
+      while (protectedBytes > protectedMax && protect.size() > 1 && it.hasNext()) {
+        Map.Entry<K, Node<V>> e = it.next();
+        it.remove();
+        protectedBytes -= e.getValue().bytes;
+        // The demoted entry becomes the most recently used of the probation segment
+        probation.put(e.getKey(), e.getValue());
+      }
+    }
+
+    V put(K key, V value) {
+      Node<V> old = remove0(key);
+      probation.put(key, new Node<>(value));
+      return old == null ? null : old.value;
+    }
+
+    V remove(Object key) {
+      Node<V> old = remove0(key);
+      return old == null ? null : old.value;
+    }
+
+    private Node<V> remove0(Object key) {
+      Node<V> old = probation.remove(key);
+      if (old == null) {
+        old = protect.remove(key);
+        if (old != null) {
+          protectedBytes -= old.bytes;
+        }
+      }
+      return old;
+    }
+
+    /**
+     * Removes the least recently used entries which are not pinned.
+     *
+     * @return the size of the removed entries
+     */
+    long evict(
+        long quota,
+        boolean fromProtected,
+        Predicate<K> pinned,
+        List<Map.Entry<K, V>> removed) {
+      LinkedHashMap<K, Node<V>> map = fromProtected ? protect : probation;
+      long freed = 0;
+      Iterator<Map.Entry<K, Node<V>>> it = map.entrySet().iterator();
+      while (freed < quota && it.hasNext()) {
+        Map.Entry<K, Node<V>> e = it.next();
+        if (!pinned.test(e.getKey())) {
+          it.remove();
+          Node<V> node = e.getValue();
+          freed += node.bytes;
+          if (fromProtected) {
+            protectedBytes -= node.bytes;
+          }
+          removed.add(new SimpleImmutableEntry<>(e.getKey(), node.value));
+        }
+      }
+      return freed;
+    }
   }
 }
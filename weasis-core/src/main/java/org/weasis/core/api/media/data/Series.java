@@ -25,6 +25,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.swing.SwingUtilities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,6 +56,8 @@ public abstract class Series<E extends MediaElement> extends MediaSeriesGroupNod
   protected final Comparator<E> mediaOrder;
   protected SeriesImporter seriesLoader;
   private long fileSize;
+  private volatile TagW indexedTag;
+  private final Set<Object> indexedValues = ConcurrentHashMap.newKeySet();
 
   protected Series(TagW tagID, Object identifier, TagView displayTag) {
     this(tagID, identifier, displayTag, null);
@@ -111,27 +115,58 @@ public abstract class Series<E extends MediaElement> extends MediaSeriesGroupNod
     return medias;
   }
 
+  /**
+   * Indexes the values of a tag of the medias, so {@link #hasMediaContains(TagW, Object)} does not
+   * iterate over the medias for this tag. The value of the tag must not change once the media is
+   * added to the series.
+   *
+   * @param tag the tag to index, or null to remove the index
+   */
+  protected void setIndexedTag(TagW tag) {
+    synchronized (medias) {
+      this.indexedTag = tag;
+      indexedValues.clear();
+      if (tag != null) {
+        medias.forEach(this::indexMedia);
+      }
+    }
+  }
+
+  private void indexMedia(E media) {
+    TagW tag = indexedTag;
+    if (tag != null && media != null) {
+      Object val = media.getTagValue(tag);
+      if (val != null) {
+        indexedValues.add(val);
+      }
+    }
+  }
+
   @Override
   public void add(E media) {
     medias.add(media);
+    indexMedia(media);
     resetSortedMediasMap();
   }
 
   @Override
   public void add(int index, E media) {
     medias.add(index, media);
+    indexMedia(media);
     resetSortedMediasMap();
   }
 
   @Override
   public void addAll(Collection<? extends E> c) {
     medias.addAll(c);
+    c.forEach(this::indexMedia);
     resetSortedMediasMap();
   }
 
   @Override
   public void addAll(int index, Collection<? extends E> c) {
     medias.addAll(index, c);
+    c.forEach(this::indexMedia);
     resetSortedMediasMap();
   }
 
@@ -254,6 +289,7 @@ public abstract class Series<E extends MediaElement> extends MediaSeriesGroupNod
         });
 
     medias.clear();
+    indexedValues.clear();
     resetSortedMediasMap();
 
     Optional.ofNullable((Thumbnail) getTagValue(TagW.Thumbnail)).ifPresent(Thumbnail::dispose);
@@ -416,6 +452,9 @@ public abstract class Series<E extends MediaElement> extends MediaSeriesGroupNod
 
   public boolean hasMediaContains(TagW tag, Object val) {
     if (val != null) {
+      if (tag != null && tag.equals(indexedTag)) {
+        return indexedValues.contains(val);
+      }
       synchronized (this) {
         for (E media : medias) {
           Object val2 = media.getTagValue(tag);
@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compact map of the tag values of a media or a series.
+ *
+ * <p>Each tag receives a dense index shared by the whole application, the entries are kept in
+ * arrays sorted by this index and are found by binary search. An entry uses three array slots
+ * instead of a node of a {@link java.util.HashMap}, and copying the map of a frame is an array
+ * copy.
+ *
+ * <p>The immutable values (strings, numbers, dates and times) are deduplicated when they are put in
+ * the map, so the patient, study and series values repeated in every instance of a large series
+ * share the same objects.
+ *
+ * <p>The arrays are never modified once published: a modification publishes a new table
+ * (copy-on-write, an entry appended at the end reuses the spare capacity). Reading the map is
+ * therefore safe while another thread modifies it, for instance the EDT reading the tags of a
+ * media while a thumbnail is built. The concurrent modifications must be synchronized by the
+ * caller, like with {@link java.util.HashMap}.
+ */
+public class TagMap extends AbstractMap<TagW, Object> {
+
+  private static final Table EMPTY = new Table(0, new int[0], new TagW[0], new Object[0]);
+
+  private static final Map<TagW, Integer> INDEXES = new ConcurrentHashMap<>();
+  private static final AtomicInteger INDEX_COUNTER = new AtomicInteger();
+
+  private static final int STRIPES = 16;
+  private static final ValueInterner[] INTERNERS = new ValueInterner[STRIPES];
+
+  static {
+    for (int i = 0; i < STRIPES; i++) {
+      INTERNERS[i] = new ValueInterner();
+    }
+  }
+
+  /**
+   * Entries sorted by tag index. The slots below {@code size} are never modified, the slots above
+   * are written only before publishing the table which includes them.
+   */
+  private record Table(int size, int[] indexes, TagW[] keys, Object[] values) {
+
+    int find(int index) {
+      return Arrays.binarySearch(indexes, 0, size, index);
+    }
+  }
+
+  private volatile Table table;
+  private int modCount;
+  private Set<Entry<TagW, Object>> entrySet;
+
+  public TagMap() {
+    this.table = EMPTY;
+  }
+
+  public TagMap(Map<TagW, Object> map) {
+    if (map instanceof TagMap other) {
+      Table t = other.table;
+      this.table =
+          new Table(
+              t.size,
+              Arrays.copyOf(t.indexes, t.size),
+              Arrays.copyOf(t.keys, t.size),
+              Arrays.copyOf(t.values, t.size));
+    } else {
+      this.table = EMPTY;
+      if (map != null) {
+        putAll(map);
+      }
+    }
+  }
+
+  /**
+   * @param value the value of a tag
+   * @return the shared instance equal to the value when the value is immutable, otherwise the
+   *     value itself
+   */
+  public static Object intern(Object value) {
+    if (value instanceof String
+        || value instanceof Integer
+        || value instanceof Long
+        || value instanceof Double
+        || value instanceof Float
+        || value instanceof LocalDate
+        || value instanceof LocalTime
+        || value instanceof LocalDateTime) {
+      return INTERNERS[(value.hashCode() & 0x7fffffff) % STRIPES].intern(value);
+    }
+    return value;
+  }
+
+  static int indexOf(TagW tag) {
+    int index = tag.mapIndex;
+    if (index < 0) {
+      index = INDEXES.computeIfAbsent(tag, t -> INDEX_COUNTER.getAndIncrement());
+      tag.mapIndex = index;
+    }
+    return index;
+  }
+
+  @Override
+  public int size() {
+    return table.size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key instanceof TagW tag && table.find(indexOf(tag)) >= 0;
+  }
+
+  @Override
+  public Object get(Object key) {
+    if (key instanceof TagW tag) {
+      Table t = table;
+      int i = t.find(indexOf(tag));
+      if (i >= 0) {
+        return t.values[i];
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public Object put(TagW key, Object value) {
+    int index = indexOf(key);
+    Object val = intern(value);
+    Table t = table;
+    int size = t.size;
+    int i = t.find(index);
+    if (i >= 0) {
+      Object old = t.values[i];
+      if (old != val) {
+        Object[] newValues = Arrays.copyOf(t.values, t.values.length);
+        newValues[i] = val;
+        this.table = new Table(size, t.indexes, t.keys, newValues);
+      }
+      return old;
+    }
+    i = -(i + 1);
+    if (i == size && size < t.indexes.length) {
+      // Append in the spare capacity, invisible to the readers of the current table
+      t.indexes[i] = index;
+      t.keys[i] = key;
+      t.values[i] = val;
+      this.table = new Table(size + 1, t.indexes, t.keys, t.values);
+    } else {
+      int capacity = size < t.indexes.length ? t.indexes.length : grow(size);
+      int[] newIndexes = new int[capacity];
+      TagW[] newKeys = new TagW[capacity];
+      Object[] newValues = new Object[capacity];
+      copy(t, 0, newIndexes, newKeys, newValues, 0, i);
+      copy(t, i, newIndexes, newKeys, newValues, i + 1, size - i);
+      newIndexes[i] = index;
+      newKeys[i] = key;
+      newValues[i] = val;
+      this.table = new Table(size + 1, newIndexes, newKeys, newValues);
+    }
+    modCount++;
+    return null;
+  }
+
+  private static int grow(int size) {
+    return size < 8 ? 8 : size + (size >> 1);
+  }
+
+  private static void copy(
+      Table src, int srcPos, int[] idx, TagW[] ks, Object[] vals, int destPos, int length) {
+    System.arraycopy(src.indexes, srcPos, idx, destPos, length);
+    System.arraycopy(src.keys, srcPos, ks, destPos, length);
+    System.arraycopy(src.values, srcPos, vals, destPos, length);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    if (key instanceof TagW tag) {
+      Table t = table;
+      int i = t.find(indexOf(tag));
+      if (i >= 0) {
+        Object old = t.values[i];
+        int size = t.size - 1;
+        int[] newIndexes = new int[size];
+        TagW[] newKeys = new TagW[size];
+        Object[] newValues = new Object[size];
+        copy(t, 0, newIndexes, newKeys, newValues, 0, i);
+        copy(t, i + 1, newIndexes, newKeys, newValues, i, size - i);
+        this.table = new Table(size, newIndexes, newKeys, newValues);
+        modCount++;
+        return old;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void clear() {
+    this.table = EMPTY;
+    modCount++;
+  }
+
+  /** Reduces the capacity of the arrays to the number of entries. */
+  public void trimToSize() {
+    Table t = table;
+    if (t.size < t.indexes.length) {
+      int[] newIndexes = new int[t.size];
+      TagW[] newKeys = new TagW[t.size];
+      Object[] newValues = new Object[t.size];
+      copy(t, 0, newIndexes, newKeys, newValues, 0, t.size);
+      this.table = new Table(t.size, newIndexes, newKeys, newValues);
+    }
+  }
+
+  @Override
+  public Set<Entry<TagW, Object>> entrySet() {
+    Set<Entry<TagW, Object>> set = entrySet;
+    if (set == null) {
+      set = new EntrySet();
+      entrySet = set;
+    }
+    return set;
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<TagW, Object>> {
+
+    @Override
+    public Iterator<Entry<TagW, Object>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size() {
+      return table.size;
+    }
+
+    @Override
+    public void clear() {
+      TagMap.this.clear();
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Entry<TagW, Object>> {
+    // Snapshot of the entries
+    private final Table snapshot = table;
+    private int next = 0;
+    private int last = -1;
+    private int expectedModCount = modCount;
+
+    @Override
+    public boolean hasNext() {
+      return next < snapshot.size;
+    }
+
+    @Override
+    public Entry<TagW, Object> next() {
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (next >= snapshot.size) {
+        throw new NoSuchElementException();
+      }
+      last = next++;
+      return new TagEntry(snapshot.keys[last]);
+    }
+
+    @Override
+    public void remove() {
+      if (last < 0) {
+        throw new IllegalStateException();
+      }
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      TagMap.this.remove(snapshot.keys[last]);
+      last = -1;
+      expectedModCount = modCount;
+    }
+  }
+
+  private final class TagEntry implements Entry<TagW, Object> {
+    private final TagW key;
+
+    TagEntry(TagW key) {
+      this.key = key;
+    }
+
+    @Override
+    public TagW getKey() {
+      return key;
+    }
+
+    @Override
+    public Object getValue() {
+      return get(key);
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      return put(key, value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o instanceof Entry<?, ?> e) {
+        return key.equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return key.hashCode() ^ Objects.hashCode(getValue());
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + getValue();
+    }
+  }
+
+  private static final class ValueInterner {
+    private final WeakHashMap<Object, WeakReference<Object>> pool = new WeakHashMap<>();
+
+    synchronized Object intern(Object value) {
+      WeakReference<Object> ref = pool.get(value);
+      Object shared = ref == null ? null : ref.get();
+      if (shared != null) {
+        return shared;
+      }
+      pool.put(value, new WeakReference<>(value));
+      return value;
+    }
+  }
+}
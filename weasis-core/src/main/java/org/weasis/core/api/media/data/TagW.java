@@ -229,6 +229,8 @@ public class TagW {
   protected final int vmMin;
   protected final int vmMax;
   protected final transient Object defaultValue;
+  // Dense index of the tag in TagMap, assigned on first use
+  transient int mapIndex = -1;
 
   public TagW(
       int id,
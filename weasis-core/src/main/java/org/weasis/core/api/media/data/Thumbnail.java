@@ -56,8 +56,16 @@ public class Thumbnail extends JLabel implements Thumbnailable {
   public static final File THUMBNAIL_CACHE_DIR =
       AppProperties.buildAccessibleTempDirectory(
           AppProperties.FILE_CACHE_DIR.getName(), "thumb"); // NON-NLS
+  public static final String P_THUMB_THREADS = "weasis.thumbnail.threads";
+  // Bounded pool: the thumbnails are built in parallel without competing with the display
+  public static final int THUMB_THREADS =
+      Math.max(
+          1,
+          Integer.getInteger(
+              P_THUMB_THREADS,
+              Math.clamp(Runtime.getRuntime().availableProcessors() / 2, 1, 4)));
   public static final ExecutorService THUMB_LOADER =
-      ThreadUtil.buildNewSingleThreadExecutor("Thumbnail Loader"); // NON-NLS
+      ThreadUtil.buildNewFixedThreadExecutor(THUMB_THREADS, "Thumbnail Loader"); // NON-NLS
 
   public static final String KEY_SIZE = "explorer.thumbnail.size";
   public static final int MIN_SIZE = 48;
@@ -65,7 +73,7 @@ public class Thumbnail extends JLabel implements Thumbnailable {
   public static final int MAX_SIZE = 256;
 
   private static final NativeCache<Thumbnail, PlanarImage> mCache =
-      new NativeCache<>(30_000_000) {
+      new NativeCache<>("thumbnails", 30_000_000) { // NON-NLS
 
         @Override
         protected void afterEntryRemove(Thumbnail key, PlanarImage img) {
@@ -278,28 +286,35 @@ public class Thumbnail extends JLabel implements Thumbnailable {
           }
         }
       }
+      String storeKey = null;
+      if (noPath && opManager == null && media instanceof ImageElement image) {
+        // The thumbnail built by a previous session
+        storeKey = ThumbnailStore.buildKey(image.getThumbnailKey(), Thumbnail.MAX_SIZE);
+        File stored = ThumbnailStore.get(storeKey);
+        if (stored != null) {
+          file = stored;
+          noPath = false;
+          thumbnailPath = file;
+          image.setTag(TagW.ThumbnailPath, file.getPath());
+        }
+      }
       if (noPath) {
         if (media instanceof final ImageElement image) {
-          PlanarImage imgPl = image.getImage(opManager);
+          PlanarImage imgPl = image.getImage(opManager, true, DecodeScheduler.Priority.PRELOAD);
           if (imgPl != null) {
             PlanarImage img = image.getRenderedImage(imgPl);
             final PlanarImage thumb = createThumbnail(img);
-            if (thumb != null) {
-              try {
-                file =
-                    File.createTempFile("tumb_", ".jpg", Thumbnail.THUMBNAIL_CACHE_DIR); // NON-NLS
-              } catch (IOException e) {
-                LOGGER.error("Cannot create file for thumbnail!", e);
-              }
-            }
             try {
-              if (thumb != null && file != null && thumb.width() > 0) {
-                MatOfInt map = new MatOfInt(Imgcodecs.IMWRITE_JPEG_QUALITY, 80);
-                if (ImageProcessor.writeImage(thumb.toMat(), file, map)) {
+              if (thumb != null && thumb.width() > 0) {
+                file = ThumbnailStore.put(storeKey, thumb);
+                if (file == null) {
+                  file = writeTempThumbnail(thumb);
+                }
+                if (file != null) {
                   /*
-                   * Write the thumbnail in temp folder, better than handling the thumbnail in memory.
+                   * Write the thumbnail in a file, better than handling the thumbnail in memory.
                    *
-                   * If writeImage returns false, it could be an out of memory exception.
+                   * If the file is null, it could be an out of memory exception.
                    */
                   image.setTag(TagW.ThumbnailPath, file.getPath());
                   thumbnailPath = file;
@@ -325,8 +340,8 @@ public class Thumbnail extends JLabel implements Thumbnailable {
         }
       } else {
         Load ref = new Load(file);
-        // loading images sequentially, only one thread pool
-        Future<PlanarImage> future = ImageElement.IMAGE_LOADER.submit(ref);
+        Future<PlanarImage> future =
+            DecodeScheduler.getInstance().submit(file, ref, DecodeScheduler.Priority.PRELOAD);
         PlanarImage thumb = null;
         try {
           PlanarImage img = future.get();
@@ -361,6 +376,20 @@ public class Thumbnail extends JLabel implements Thumbnailable {
     }
   }
 
+  private static File writeTempThumbnail(PlanarImage thumb) {
+    try {
+      File file = File.createTempFile("tumb_", ".jpg", Thumbnail.THUMBNAIL_CACHE_DIR); // NON-NLS
+      MatOfInt map = new MatOfInt(Imgcodecs.IMWRITE_JPEG_QUALITY, 80);
+      if (ImageProcessor.writeImage(thumb.toMat(), file, map)) {
+        return file;
+      }
+      FileUtil.delete(file);
+    } catch (IOException e) {
+      LOGGER.error("Cannot create file for thumbnail!", e);
+    }
+    return null;
+  }
+
   protected void removeImageFromCache() {
     // Unload image from memory
     mCache.remove(this);
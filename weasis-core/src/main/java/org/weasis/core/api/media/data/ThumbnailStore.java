@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import org.opencv.core.MatOfInt;
+import org.opencv.imgcodecs.Imgcodecs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.util.AppProperties;
+import org.weasis.core.api.util.DiskLruCache;
+import org.weasis.core.util.FileUtil;
+import org.weasis.core.util.StringUtil;
+import org.weasis.opencv.data.PlanarImage;
+import org.weasis.opencv.op.ImageProcessor;
+
+/**
+ * Persistent store of the thumbnails, kept between the sessions in {@link #STORE_DIR}. A thumbnail
+ * is identified by a hash of the content key of the image (see {@link
+ * ImageElement#getThumbnailKey()}) and of the rendering parameters, so the same image gets the same
+ * file whatever its location.
+ *
+ * <p>The least recently used files are deleted when the size of the directory exceeds the limit
+ * defined by the system property {@value #P_STORE_SIZE} in MB (0 disables the store). The order of
+ * use is kept in memory, the files of the previous sessions are ordered by their creation.
+ */
+public final class ThumbnailStore {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ThumbnailStore.class);
+
+  public static final String P_STORE_SIZE = "weasis.thumbnail.store.size";
+  public static final File STORE_DIR =
+      new File(AppProperties.WEASIS_PATH, "cache" + File.separator + "thumbnails"); // NON-NLS
+
+  // Must be changed when the rendering of the thumbnails is modified
+  private static final String VERSION = "1";
+  private static final String EXTENSION = ".jpg"; // NON-NLS
+  private static final String PART = ".part"; // NON-NLS
+  private static final int JPEG_QUALITY = 80;
+
+  private static final DiskLruCache CACHE =
+      new DiskLruCache(STORE_DIR, Long.getLong(P_STORE_SIZE, 256L) * 1024L * 1024L);
+
+  static {
+    CACHE.load(name -> name.endsWith(EXTENSION) && !name.contains(PART));
+  }
+
+  private ThumbnailStore() {}
+
+  public static boolean isEnabled() {
+    return CACHE.isEnabled();
+  }
+
+  /**
+   * @param contentKey the key of the image content
+   * @param size the maximum size of the thumbnail
+   * @return the key of the thumbnail or null if the content key is null
+   */
+  public static String buildKey(String contentKey, int size) {
+    if (!StringUtil.hasText(contentKey)) {
+      return null;
+    }
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256"); // NON-NLS
+      String val = contentKey + '\n' + size + '\n' + JPEG_QUALITY + '\n' + VERSION;
+      return HexFormat.of().formatHex(digest.digest(val.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      LOGGER.error("Cannot build the thumbnail key", e);
+      return null;
+    }
+  }
+
+  /**
+   * @param key the key of the thumbnail
+   * @return the file of the thumbnail or null if it is not in the store
+   */
+  public static File get(String key) {
+    if (!isEnabled() || key == null) {
+      return null;
+    }
+    String name = key + EXTENSION;
+    if (!CACHE.contains(name)) {
+      return null;
+    }
+    File file = CACHE.getFile(name);
+    if (file.canRead()) {
+      return file;
+    }
+    CACHE.remove(name);
+    return null;
+  }
+
+  /**
+   * Writes the thumbnail in the store and deletes the least recently used files if the size limit
+   * is exceeded.
+   *
+   * @param key the key of the thumbnail
+   * @param thumbnail the thumbnail image
+   * @return the file of the thumbnail or null if it cannot be written or if it is being written by
+   *     another thread
+   */
+  public static File put(String key, PlanarImage thumbnail) {
+    if (!isEnabled() || key == null || thumbnail == null || thumbnail.width() <= 0) {
+      return null;
+    }
+    String name = key + EXTENSION;
+    File file = CACHE.getFile(name);
+    if (!CACHE.reserve(name)) {
+      return CACHE.contains(name) && file.canRead() ? file : null;
+    }
+    File tmp = null;
+    boolean written = false;
+    MatOfInt map = new MatOfInt(Imgcodecs.IMWRITE_JPEG_QUALITY, JPEG_QUALITY);
+    try {
+      // Keep the extension for selecting the encoder
+      tmp = File.createTempFile(key, PART + EXTENSION, STORE_DIR);
+      written = ImageProcessor.writeImage(thumbnail.toMat(), tmp, map) && tmp.renameTo(file);
+    } catch (Exception e) {
+      LOGGER.warn("Cannot write the thumbnail {}", file, e);
+    } finally {
+      map.release();
+      CACHE.endWrite(name, written);
+    }
+    if (written) {
+      return file;
+    }
+    if (tmp != null) {
+      FileUtil.delete(tmp);
+    }
+    return null;
+  }
+
+  public static void clear() {
+    CACHE.clear();
+  }
+
+  public static long getUsedSize() {
+    return CACHE.getUsedSize();
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.util;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.weasis.core.util.FileUtil;
+
+/**
+ * Directory of files limited in size. The least recently used files are deleted when the size of
+ * the files exceeds the limit. The access order is kept in memory, the files found by {@link
+ * #load(Predicate)} are ordered by their modification time.
+ *
+ * <p>A file is written in two steps: {@link #reserve(String)} prevents the other threads from
+ * writing the same file and {@link #endWrite(String, boolean)} adds the written file to the cache.
+ */
+public final class DiskLruCache {
+
+  private final File directory;
+  private final long maxSize;
+  // File name and size in access order, guarded by this
+  private final Map<String, Long> files = new LinkedHashMap<>(256, 0.75f, true);
+  // File names being written, guarded by this
+  private final Set<String> writing = new HashSet<>();
+  private long usedSize = 0;
+
+  /**
+   * @param directory the directory of the files
+   * @param maxSize the maximum size of the files in bytes, 0 disables the cache
+   */
+  public DiskLruCache(File directory, long maxSize) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+  }
+
+  public boolean isEnabled() {
+    return maxSize > 0;
+  }
+
+  public File getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Adds the files of the directory kept from a previous session and deletes the other files (e.g.
+   * incomplete files).
+   *
+   * @param isEntry returns true when the file name is a file of the cache
+   */
+  public synchronized void load(Predicate<String> isEntry) {
+    if (!isEnabled()) {
+      return;
+    }
+    directory.mkdirs();
+    File[] list = directory.listFiles();
+    if (list != null) {
+      Arrays.sort(list, Comparator.comparingLong(File::lastModified));
+      for (File f : list) {
+        if (f.isFile() && isEntry.test(f.getName())) {
+          Long previous = files.put(f.getName(), f.length());
+          usedSize += f.length() - (previous == null ? 0L : previous);
+        } else if (f.isFile()) {
+          FileUtil.delete(f);
+        }
+      }
+      evict();
+    }
+  }
+
+  /**
+   * @param name the file name
+   * @return the file in the directory of the cache
+   */
+  public File getFile(String name) {
+    return new File(directory, name);
+  }
+
+  /**
+   * Returns true when the file is in the cache and makes it the most recently used.
+   *
+   * @param name the file name
+   * @return true if the file is in the cache
+   */
+  public synchronized boolean contains(String name) {
+    return isEnabled() && files.get(name) != null;
+  }
+
+  /**
+   * Reserves the writing of a file. It must be followed by {@link #endWrite(String, boolean)}.
+   *
+   * @param name the file name
+   * @return false if the file is already in the cache or being written by another thread
+   */
+  public synchronized boolean reserve(String name) {
+    if (!isEnabled() || files.containsKey(name)) {
+      return false;
+    }
+    return writing.add(name);
+  }
+
+  /**
+   * Ends the writing of a reserved file and deletes the least recently used files if the size
+   * limit is exceeded.
+   *
+   * @param name the file name
+   * @param written true if the file has been written in the directory
+   */
+  public synchronized void endWrite(String name, boolean written) {
+    writing.remove(name);
+    if (written) {
+      long length = getFile(name).length();
+      Long previous = files.put(name, length);
+      usedSize += length - (previous == null ? 0L : previous);
+      evict();
+    }
+  }
+
+  /**
+   * Removes the file from the cache and deletes it.
+   *
+   * @param name the file name
+   */
+  public void remove(String name) {
+    synchronized (this) {
+      Long length = files.remove(name);
+      if (length != null) {
+        usedSize -= length;
+      }
+    }
+    FileUtil.delete(getFile(name));
+  }
+
+  public synchronized void clear() {
+    for (String name : files.keySet()) {
+      FileUtil.delete(getFile(name));
+    }
+    files.clear();
+    usedSize = 0;
+  }
+
+  public synchronized long getUsedSize() {
+    return usedSize;
+  }
+
+  public synchronized int size() {
+    return files.size();
+  }
+
+  private void evict() {
+    Iterator<Entry<String, Long>> it = files.entrySet().iterator();
+    while (usedSize > maxSize && it.hasNext()) {
+      Entry<String, Long> e = it.next();
+      usedSize -= e.getValue();
+      FileUtil.delete(getFile(e.getKey()));
+      it.remove();
+    }
+  }
+}
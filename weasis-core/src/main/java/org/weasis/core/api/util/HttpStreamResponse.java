@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient.Version;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import org.weasis.core.util.FileUtil;
+import org.weasis.core.util.StringUtil;
+
+/**
+ * Response of {@link HttpTransport}, the body is decoded according to its Content-Encoding. This is
+ * the only place where the content encoding negotiated by the transport is decoded.
+ */
+public class HttpStreamResponse implements HttpResponse {
+
+  private final java.net.http.HttpResponse<InputStream> response;
+  private final int readTimeout;
+  private InputStream stream;
+
+  public HttpStreamResponse(java.net.http.HttpResponse<InputStream> response) {
+    this(response, 0);
+  }
+
+  /**
+   * @param response the response
+   * @param readTimeout the maximum time in milliseconds of a blocked read of the body, 0 for no
+   *     timeout
+   */
+  public HttpStreamResponse(java.net.http.HttpResponse<InputStream> response, int readTimeout) {
+    this.response = Objects.requireNonNull(response);
+    this.readTimeout = readTimeout;
+  }
+
+  @Override
+  public synchronized void close() {
+    FileUtil.safeClose(stream == null ? response.body() : stream);
+  }
+
+  @Override
+  public synchronized InputStream getInputStream() throws IOException {
+    if (stream == null) {
+      InputStream body =
+          readTimeout > 0 ? new TimeoutInputStream(response.body(), readTimeout) : response.body();
+      String encoding = getHeaderField("Content-Encoding"); // NON-NLS
+      encoding = encoding == null ? "" : encoding.trim().toLowerCase(Locale.ROOT);
+      stream =
+          switch (encoding) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(body); // NON-NLS
+            case "deflate" -> new InflaterInputStream(body); // NON-NLS
+            default -> body;
+          };
+    }
+    return stream;
+  }
+
+  @Override
+  public int getResponseCode() {
+    return response.statusCode();
+  }
+
+  /** HTTP/2 has no reason phrase. */
+  @Override
+  public String getResponseMessage() {
+    return StringUtil.EMPTY_STRING;
+  }
+
+  @Override
+  public String getHeaderField(String key) {
+    return response.headers().firstValue(key).orElse(null);
+  }
+
+  public Version getProtocolVersion() {
+    return response.version();
+  }
+
+  public java.net.http.HttpResponse<InputStream> getResponse() {
+    return response;
+  }
+}
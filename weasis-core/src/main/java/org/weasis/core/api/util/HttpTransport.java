@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.util;
+
+import com.github.scribejava.core.httpclient.multipart.MultipartPayload;
+import com.github.scribejava.core.model.OAuthRequest;
+import com.github.scribejava.core.model.Verb;
+import com.github.scribejava.core.oauth.OAuth20Service;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.net.Authenticator;
+import java.net.PasswordAuthentication;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.auth.AuthMethod;
+import org.weasis.core.api.auth.BasicHttpClient;
+import org.weasis.core.api.auth.BodySupplier;
+import org.weasis.core.api.auth.OAuth2ServiceFactory;
+import org.weasis.core.api.gui.util.AppProperties;
+import org.weasis.core.util.StreamIOException;
+
+/**
+ * HTTP transport shared by the DICOMweb and WADO requests. It relies on a single {@link
+ * HttpClient} negotiating HTTP/2, so the requests to the same server are multiplexed over pooled
+ * keep-alive connections instead of opening a new connection for each instance. The gzip and
+ * deflate content encodings are decoded by {@link HttpStreamResponse}, they are requested only for
+ * the metadata (see {@link #acceptCompression(URLParameters)}) and not for the pixel data which are
+ * already compressed or too large to be compressed on the fly by the server.
+ *
+ * <p>The GET requests of {@link NetworkUtil#getHttpResponse(String, URLParameters, AuthMethod)}
+ * can be sent again with {@link java.net.HttpURLConnection} by setting the system property {@value
+ * #P_HTTP_TRANSPORT} to "legacy".
+ */
+public final class HttpTransport {
+  private static final Logger LOGGER = LoggerFactory.getLogger(HttpTransport.class);
+
+  public static final String P_HTTP_TRANSPORT = "weasis.http.transport";
+
+  private static final boolean ENABLED =
+      !"legacy".equalsIgnoreCase(System.getProperty(P_HTTP_TRANSPORT)); // NON-NLS
+
+  // Headers managed by HttpClient, they cannot be set in the request
+  private static final Set<String> RESTRICTED_HEADERS =
+      Set.of(
+          "connection", "content-length", "date", "expect", "from", "host", "upgrade", "via",
+          "warning"); // NON-NLS
+
+  private static final String ACCEPT_ENCODING = "Accept-Encoding"; // NON-NLS
+
+  private final HttpClient client;
+
+  private static final class Holder {
+    private static final HttpTransport INSTANCE = new HttpTransport();
+  }
+
+  private HttpTransport() {
+    this.client =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofMillis(NetworkUtil.getUrlConnectionTimeout()))
+            // The proxy and the credentials can be modified in the preferences
+            .proxy(new DefaultProxySelector())
+            .authenticator(new DefaultAuthenticator())
+            .executor(Executors.newCachedThreadPool(ThreadUtil.getThreadFactory("HTTP Client")))
+            .build();
+  }
+
+  public static HttpTransport getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  public static boolean isEnabled() {
+    return ENABLED;
+  }
+
+  public static boolean isHttpUrl(String url) {
+    if (url == null) {
+      return false;
+    }
+    String u = url.toLowerCase(Locale.ROOT);
+    return u.startsWith("http://") || u.startsWith("https://"); // NON-NLS
+  }
+
+  /**
+   * Sends a request and returns the response as soon as the headers are received. The body is read
+   * from {@link HttpResponse#getInputStream()} and closing the response releases the stream.
+   *
+   * @param url the URL of the request
+   * @param urlParameters the headers and the timeouts of the request
+   * @param authMethod the OAuth2 method signing the request, or null
+   * @param body the body of a POST request, or null for a GET request (or an empty POST when {@link
+   *     URLParameters#isHttpPost()} is true)
+   * @return the response
+   * @throws IOException if the request cannot be sent or if the server replies with an error
+   *     without authentication
+   */
+  public HttpResponse send(
+      String url, URLParameters urlParameters, AuthMethod authMethod, BodyPublisher body)
+      throws IOException {
+    boolean post = body != null || urlParameters.isHttpPost();
+    boolean auth = authMethod != null && !OAuth2ServiceFactory.noAuth.equals(authMethod);
+    String completeUrl = url;
+    Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    headers.putAll(urlParameters.getUnmodifiableHeaders());
+    headers.put("User-Agent", AppProperties.WEASIS_USER_AGENT); // NON-NLS
+    headers.put("Weasis-User", AppProperties.WEASIS_USER); // NON-NLS
+    if (urlParameters.getIfModifiedSince() > 0) {
+      headers.put(
+          "If-Modified-Since", // NON-NLS
+          DateTimeFormatter.RFC_1123_DATE_TIME.format(
+              Instant.ofEpochMilli(urlParameters.getIfModifiedSince()).atZone(ZoneOffset.UTC)));
+    }
+
+    if (auth) {
+      OAuthRequest request = new OAuthRequest(post ? Verb.POST : Verb.GET, url);
+      signRequest(request, authMethod);
+      completeUrl = request.getCompleteUrl();
+      headers.putAll(request.getHeaders());
+    }
+
+    HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(completeUrl));
+    // Limits the wait for the headers, the reads of the body are limited by the response
+    if (urlParameters.getReadTimeout() > 0) {
+      builder.timeout(Duration.ofMillis(urlParameters.getReadTimeout()));
+    }
+    for (Entry<String, String> h : headers.entrySet()) {
+      if (h.getValue() != null
+          && !RESTRICTED_HEADERS.contains(h.getKey().toLowerCase(Locale.ROOT))) {
+        builder.header(h.getKey(), h.getValue());
+      }
+    }
+    if (post) {
+      builder.POST(body == null ? BodyPublishers.noBody() : body);
+    } else {
+      builder.GET();
+    }
+
+    HttpStreamResponse response;
+    try {
+      response =
+          new HttpStreamResponse(
+              client.send(builder.build(), BodyHandlers.ofInputStream()),
+              urlParameters.getReadTimeout());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new StreamIOException(e);
+    } catch (IOException | RuntimeException e) {
+      throw new StreamIOException(e);
+    }
+
+    int code = response.getResponseCode();
+    LOGGER.trace("{} {} {}", response.getProtocolVersion(), code, url);
+    if (!auth && !post && (code < 200 || code >= 300)) {
+      // Same behavior as HttpURLConnection without authentication
+      response.close();
+      LOGGER.warn("http Status {} - {}", code, url);
+      throw new StreamIOException("HTTP Status " + code); // NON-NLS
+    }
+    return response;
+  }
+
+  /**
+   * Adds the gzip and deflate content encodings to the parameters of a request returning metadata
+   * (e.g. JSON or XML). The parameters are unchanged with the legacy transport, which does not
+   * decode the body.
+   *
+   * @param urlParameters the parameters of the request
+   * @return the parameters accepting a compressed response
+   */
+  public static URLParameters acceptCompression(URLParameters urlParameters) {
+    if (!ENABLED
+        || urlParameters.getUnmodifiableHeaders().keySet().stream()
+            .anyMatch(ACCEPT_ENCODING::equalsIgnoreCase)) {
+      return urlParameters;
+    }
+    Map<String, String> headers = new HashMap<>(urlParameters.getUnmodifiableHeaders());
+    headers.put(ACCEPT_ENCODING, "gzip, deflate"); // NON-NLS
+    return new URLParameters(
+        headers,
+        urlParameters.getConnectTimeout(),
+        urlParameters.getReadTimeout(),
+        urlParameters.isHttpPost(),
+        urlParameters.isUseCaches(),
+        urlParameters.getIfModifiedSince(),
+        urlParameters.isAllowUserInteraction());
+  }
+
+  private static void signRequest(OAuthRequest request, AuthMethod authMethod) throws IOException {
+    OAuth20Service service = OAuth2ServiceFactory.getService(authMethod);
+    if (service == null) {
+      throw new IllegalStateException("Not a valid authentication method: " + authMethod);
+    }
+    try {
+      service.signRequest(authMethod.getToken(), request);
+    } catch (Exception e) {
+      throw new StreamIOException(e);
+    }
+  }
+
+  /**
+   * Streams a multipart payload: the parts are read one after the other and the files are opened
+   * only when they are sent.
+   *
+   * @param multipartPayload the payload
+   * @return the body publisher with the length of the payload
+   */
+  public static BodyPublisher ofMultipart(MultipartPayload multipartPayload) {
+    List<BodySupplier<InputStream>> bodySuppliers = new ArrayList<>();
+    BasicHttpClient.prepareMultipartPayload(bodySuppliers, multipartPayload);
+    long contentLength = bodySuppliers.stream().mapToLong(BodySupplier::length).sum();
+    return BodyPublishers.fromPublisher(
+        BodyPublishers.ofInputStream(
+            () -> new SequenceInputStream(new SupplierEnumeration(bodySuppliers.iterator()))),
+        contentLength);
+  }
+
+  /** Delegates to the current default selector, which reads the proxy system properties. */
+  private static class DefaultProxySelector extends ProxySelector {
+
+    private static ProxySelector getDefault() {
+      ProxySelector selector = ProxySelector.getDefault();
+      return selector instanceof DefaultProxySelector ? null : selector;
+    }
+
+    @Override
+    public List<Proxy> select(URI uri) {
+      ProxySelector selector = getDefault();
+      return selector == null ? List.of(Proxy.NO_PROXY) : selector.select(uri);
+    }
+
+    @Override
+    public void connectFailed(URI uri, SocketAddress sa, IOException ioe) {
+      ProxySelector selector = getDefault();
+      if (selector != null) {
+        selector.connectFailed(uri, sa, ioe);
+      }
+    }
+  }
+
+  /** Delegates to the current default authenticator, which is set with the proxy preferences. */
+  private static class DefaultAuthenticator extends Authenticator {
+
+    @Override
+    protected PasswordAuthentication getPasswordAuthentication() {
+      Authenticator authenticator = Authenticator.getDefault();
+      if (authenticator == null || authenticator instanceof DefaultAuthenticator) {
+        return null;
+      }
+      return authenticator.requestPasswordAuthenticationInstance(
+          getRequestingHost(),
+          getRequestingSite(),
+          getRequestingPort(),
+          getRequestingProtocol(),
+          getRequestingPrompt(),
+          getRequestingScheme(),
+          getRequestingURL(),
+          getRequestorType());
+    }
+  }
+
+  private static class SupplierEnumeration implements Enumeration<InputStream> {
+    private final Iterator<BodySupplier<InputStream>> iterator;
+
+    SupplierEnumeration(Iterator<BodySupplier<InputStream>> iterator) {
+      this.iterator = iterator;
+    }
+
+    @Override
+    public boolean hasMoreElements() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public InputStream nextElement() {
+      try {
+        return iterator.next().get();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
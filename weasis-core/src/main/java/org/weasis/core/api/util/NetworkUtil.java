@@ -76,6 +76,12 @@ public class NetworkUtil {
   public static HttpResponse getHttpResponse(
       String url, URLParameters urlParameters, AuthMethod authMethod, OAuthRequest authRequest)
       throws IOException {
+    if (authRequest == null
+        && !urlParameters.isHttpPost()
+        && HttpTransport.isEnabled()
+        && HttpTransport.isHttpUrl(url)) {
+      return HttpTransport.getInstance().send(url, urlParameters, authMethod, null);
+    }
     if (authMethod == null || OAuth2ServiceFactory.noAuth.equals(authMethod)) {
       return prepareConnection(new URL(url).openConnection(), urlParameters);
     }
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.weasis.core.util.FileUtil;
+
+/**
+ * Read timeout of a response body. {@link java.net.http.HttpRequest.Builder#timeout} only limits
+ * the wait for the response headers, so a watchdog closes the body when a read is blocked longer
+ * than the timeout, like the read timeout of {@link java.net.HttpURLConnection}.
+ */
+final class TimeoutInputStream extends FilterInputStream {
+
+  private static final ScheduledExecutorService WATCHDOG =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread t = ThreadUtil.getThreadFactory("HTTP Read Watchdog").newThread(r);
+            t.setDaemon(true);
+            return t;
+          });
+
+  private final long timeoutNanos;
+  private final ScheduledFuture<?> watchdog;
+  // Start of the blocking read in progress, 0 when no read is in progress
+  private volatile long readStart;
+  private volatile boolean timedOut;
+
+  /**
+   * @param in the body of the response
+   * @param timeout the read timeout in milliseconds, it must be greater than 0
+   */
+  TimeoutInputStream(InputStream in, int timeout) {
+    super(in);
+    this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+    long period = Math.max(50L, timeout / 4L);
+    this.watchdog =
+        WATCHDOG.scheduleWithFixedDelay(this::check, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  private void check() {
+    long start = readStart;
+    if (start != 0L && System.nanoTime() - start > timeoutNanos) {
+      timedOut = true;
+      watchdog.cancel(false);
+      // Closing the body unblocks the read in progress
+      FileUtil.safeClose(in);
+    }
+  }
+
+  private void begin() throws IOException {
+    if (timedOut) {
+      throw new SocketTimeoutException("Read timed out");
+    }
+    readStart = System.nanoTime();
+  }
+
+  private void end() throws IOException {
+    readStart = 0L;
+    // The closed body can also return the end of the stream
+    if (timedOut) {
+      throw new SocketTimeoutException("Read timed out");
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    begin();
+    try {
+      return in.read();
+    } finally {
+      end();
+    }
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    begin();
+    try {
+      return in.read(b, off, len);
+    } finally {
+      end();
+    }
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    begin();
+    try {
+      return in.skip(n);
+    } finally {
+      end();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    watchdog.cancel(false);
+    readStart = 0L;
+    in.close();
+  }
+}
@@ -23,6 +23,7 @@ import java.awt.Rectangle;
 import java.awt.Stroke;
 import java.awt.Window;
 import java.awt.event.FocusEvent;
+import java.awt.event.HierarchyEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.geom.AffineTransform;
@@ -119,6 +120,9 @@ public abstract class DefaultView2d<E extends ImageElement> extends GraphicsPane
 
   public static final int MINIMAL_IMAGES_FOR_3D = 5;
 
+  // Number of images pinned in the cache on each side of the displayed image
+  private static final int PINNED_IMAGES = 4;
+
   public static final GraphicClipboard GRAPHIC_CLIPBOARD = new GraphicClipboard();
 
   public static final Cursor EDIT_CURSOR =
@@ -170,6 +174,12 @@ public abstract class DefaultView2d<E extends ImageElement> extends GraphicsPane
     // Must be larger to the screens to be resized correctly by the container
     setPreferredSize(new Dimension(4096, 4096));
     setMinimumSize(new Dimension(50, 50));
+    addHierarchyListener(
+        e -> {
+          if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+            updatePinnedImages();
+          }
+        });
   }
 
   @Override
@@ -580,6 +590,39 @@ public abstract class DefaultView2d<E extends ImageElement> extends GraphicsPane
         lens.updateZoom();
       }
     }
+    updatePinnedImages();
+  }
+
+  /**
+   * Pins in the cache the displayed image and its neighbors, so scrolling back and forth around
+   * the current position does not decode them again. The hidden views do not pin images.
+   */
+  protected void updatePinnedImages() {
+    E img = imageLayer.getSourceImage();
+    if (img == null || series == null || !isShowing()) {
+      ImageElement.pinImages(this, null);
+      return;
+    }
+    int index = getFrameIndex();
+    if (index < 0) {
+      ImageElement.pinImages(this, List.of(img));
+      return;
+    }
+    Filter<E> filter = (Filter<E>) actionsInView.get(ActionW.FILTERED_SERIES.cmd());
+    Comparator<E> sort = getCurrentSortComparator();
+    List<E> window = new ArrayList<>(2 * PINNED_IMAGES + 1);
+    window.add(img);
+    for (int i = 1; i <= PINNED_IMAGES; i++) {
+      E prev = series.getMedia(index - i, filter, sort);
+      if (prev != null) {
+        window.add(prev);
+      }
+      E next = series.getMedia(index + i, filter, sort);
+      if (next != null) {
+        window.add(next);
+      }
+    }
+    ImageElement.pinImages(this, window);
   }
 
   @Override
@@ -805,6 +848,7 @@ public abstract class DefaultView2d<E extends ImageElement> extends GraphicsPane
     Point2D p = getClipViewCoordinatesOffset();
     g2d.translate(p.getX(), p.getY());
     imageLayer.drawImage(g2d);
+    imageLayer.drawOverlay(g2d, affineTransform);
     drawLayers(g2d, affineTransform, inverseTransform);
     g2d.translate(-p.getX(), -p.getY());
 
@@ -909,6 +953,22 @@ public abstract class DefaultView2d<E extends ImageElement> extends GraphicsPane
     return imageLayer.getDisplayOpManager();
   }
 
+  /**
+   * Returns the image of this view nearest to the location of the image displayed in the view of
+   * the event.
+   *
+   * @param synch the event of the synchronized view
+   * @param location the slice location of the image of the synchronized view
+   * @return the nearest image or null
+   */
+  protected E getSynchNearestImage(SynchCineEvent synch, double location) {
+    return series.getNearestImage(
+        location,
+        tileOffset,
+        (Filter<E>) actionsInView.get(ActionW.FILTERED_SERIES.cmd()),
+        getCurrentSortComparator());
+  }
+
   public void propertyChange(SynchCineEvent synch) {
     E imgElement = getImage();
     graphicManager.deleteByLayerType(LayerType.CROSSLINES);
@@ -941,12 +1001,7 @@ public abstract class DefaultView2d<E extends ImageElement> extends GraphicsPane
         // if (offset != null) {
         // location += offset;
         // }
-        imgElement =
-            series.getNearestImage(
-                location,
-                tileOffset,
-                (Filter<E>) actionsInView.get(ActionW.FILTERED_SERIES.cmd()),
-                getCurrentSortComparator());
+        imgElement = getSynchNearestImage(synch, location);
 
         AuditLog.LOGGER.info("synch:series nb:{}", series.getSeriesNumber());
       }
@@ -994,6 +1049,8 @@ public abstract class DefaultView2d<E extends ImageElement> extends GraphicsPane
       }
     } else if (command.equals(ActionW.PROGRESSION.cmd())) {
       actionsInView.put(command, evt.getNewValue());
+      // The pixels of the same image have been updated
+      imageLayer.getDisplayOpManager().invalidateCache();
       imageLayer.updateDisplayOperations();
     }
 
@@ -1121,6 +1178,7 @@ public abstract class DefaultView2d<E extends ImageElement> extends GraphicsPane
     if (series != null) {
       setSeries(null);
     }
+    ImageElement.pinImages(this, null);
     super.disposeView();
   }
 
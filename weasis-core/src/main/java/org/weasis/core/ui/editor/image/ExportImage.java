@@ -31,6 +31,7 @@ import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.api.util.FontItem;
 import org.weasis.core.ui.model.graphic.Graphic;
 import org.weasis.core.ui.model.layer.LayerItem;
+import org.weasis.core.ui.model.layer.imp.RenderedImageLayer;
 
 public class ExportImage<E extends ImageElement> extends DefaultView2d<E> {
 
@@ -73,6 +74,9 @@ public class ExportImage<E extends ImageElement> extends DefaultView2d<E> {
     // Do not use setSeries() because the view will be reset
     this.series = view2d.getSeries();
     setImage(view2d.getImage());
+    if (view2d.getImageLayer() instanceof RenderedImageLayer<?> layer) {
+      imageLayer.setOverlay(layer.getOverlay());
+    }
   }
 
   public double getImagePrintingResolution() {
@@ -132,6 +136,7 @@ public class ExportImage<E extends ImageElement> extends DefaultView2d<E> {
     } else {
       imageLayer.drawImage(g2d);
     }
+    imageLayer.drawOverlay(g2d, affineTransform);
 
     drawLayers(g2d, affineTransform, inverseTransform);
     g2d.translate(-p.getX(), -p.getY());
@@ -37,6 +37,7 @@ import org.weasis.core.api.gui.util.SliderCineListener.TIME;
 import org.weasis.core.api.gui.util.ToggleButtonListener;
 import org.weasis.core.api.image.GridBagLayoutModel;
 import org.weasis.core.api.image.util.Unit;
+import org.weasis.core.api.media.data.DecodeScheduler;
 import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.api.media.data.MediaSeries;
 import org.weasis.core.api.media.data.Series;
@@ -88,6 +89,7 @@ public abstract class ImageViewerEventManager<E extends ImageElement> implements
   protected SliderCineListener getMoveTroughSliceAction(
       double speed, final TIME time, double mouseSensitivity) {
     return new SliderCineListener(ActionW.SCROLL_SERIES, 1, 2, 1, speed, time, mouseSensitivity) {
+      private int lastIndex = -1;
 
       @Override
       public void stateChanged(BoundedRangeModel model) {
@@ -106,16 +108,24 @@ public abstract class ImageViewerEventManager<E extends ImageElement> implements
           if (series != null) {
             // Model contains display value, value-1 is the index value of a sequence
             int index = model.getValue() - 1;
-            image =
-                series.getMedia(
-                    index,
-                    (Filter<ImageElement>) view2d.getActionValue(ActionW.FILTERED_SERIES.cmd()),
-                    view2d.getCurrentSortComparator());
+            Filter<ImageElement> filter =
+                (Filter<ImageElement>) view2d.getActionValue(ActionW.FILTERED_SERIES.cmd());
+            image = series.getMedia(index, filter, view2d.getCurrentSortComparator());
             mediaEvent = new SynchCineEvent(view2d, image, index);
             // Ensure to load image before calling the default preset (requires pixel min and max)
             if (image != null && !image.isImageAvailable()) {
               image.getImage();
             }
+            // Decode in advance the next image in the scrolling direction
+            int step = lastIndex < 0 ? 0 : Integer.signum(index - lastIndex);
+            lastIndex = index;
+            if (step != 0) {
+              ImageElement next =
+                  series.getMedia(index + step, filter, view2d.getCurrentSortComparator());
+              if (next != null) {
+                next.prefetchImage(DecodeScheduler.Priority.LOOK_AHEAD);
+              }
+            }
           }
         }
 
@@ -28,12 +28,15 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import javax.swing.JOptionPane;
 import org.weasis.core.Messages;
+import org.weasis.core.api.gui.Image2DViewer;
 import org.weasis.core.api.gui.util.ActionW;
+import org.weasis.core.api.gui.util.GeomUtil;
 import org.weasis.core.api.image.util.MeasurableLayer;
 import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.ui.editor.image.Canvas;
@@ -80,6 +83,17 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
   private final List<PropertyChangeListener> graphicsListeners = new ArrayList<>();
   private Boolean changeFiringSuspended = Boolean.FALSE;
 
+  // Bounds of the graphics for culling the hit tests and the drawing
+  private final GraphicSpatialIndex spatialIndex = new GraphicSpatialIndex();
+  private final PropertyChangeListener spatialIndexUpdater =
+      evt -> {
+        String name = evt.getPropertyName();
+        if (evt.getSource() instanceof Graphic graphic
+            && ("bounds".equals(name) || "graphicLabel".equals(name))) { // NON-NLS
+          spatialIndex.add(graphic);
+        }
+      };
+
   private final Function<Graphic, GraphicLayer> getLayer = Graphic::getLayer;
   private final Function<Graphic, DragGraphic> castToDragGraphic = DragGraphic.class::cast;
 
@@ -148,6 +162,7 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
   @Override
   public void setModels(List<Graphic> models) {
     if (models != null) {
+      spatialIndex.clear();
       this.models = Collections.synchronizedList(models);
       this.layers = Collections.synchronizedList(getLayerList());
     }
@@ -167,6 +182,8 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
         layers.add(layer);
       }
       models.add(graphic);
+      graphic.addPropertyChangeListener(spatialIndexUpdater);
+      spatialIndex.add(graphic);
     }
   }
 
@@ -175,6 +192,7 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
     if (graphic != null) {
       models.remove(graphic);
       graphic.removeAllPropertyChangeListener();
+      spatialIndex.remove(graphic);
 
       GraphicLayer layer = graphic.getLayer();
       if (layer != null) {
@@ -194,6 +212,36 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
     }
   }
 
+  /**
+   * Rebuilds the spatial index when the list of graphics has been modified without the methods of
+   * this class (e.g. by the deserialization). Must be called in a block synchronized on models.
+   */
+  private void syncSpatialIndex() {
+    if (spatialIndex.size() != models.size()) {
+      spatialIndex.clear();
+      for (Graphic g : models) {
+        g.addPropertyChangeListener(spatialIndexUpdater);
+        spatialIndex.add(g);
+      }
+    }
+  }
+
+  /**
+   * @param area the area in the coordinates of the image
+   * @param transform the transform of the view
+   * @return the graphics which may intersect the area, including the tolerance of the handles
+   */
+  private Set<Graphic> getCandidates(Rectangle2D area, AffineTransform transform) {
+    syncSpatialIndex();
+    // Same tolerance as AbstractGraphic.getRepaintBounds() and getHandlePointIndex()
+    double margin =
+        Math.max(Graphic.HANDLE_SIZE * 1.5, spatialIndex.getMaxLineThickness() / 2.0) + 2;
+    margin /= GeomUtil.extractScalingFactor(transform);
+    Rectangle2D bounds = area.getBounds2D();
+    GeomUtil.growRectangle(bounds, margin);
+    return spatialIndex.getCandidates(bounds, transform);
+  }
+
   private List<GraphicLayer> getLayerList() {
     return models.parallelStream().map(getLayer).distinct().collect(Collectors.toList());
   }
@@ -272,6 +320,7 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
             boolean delete = layer.equals(g.getLayer());
             if (delete) {
               g.removeAllPropertyChangeListener();
+              spatialIndex.remove(g);
             }
             return delete;
           });
@@ -289,6 +338,7 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
       for (Graphic g : models) {
         if (g.getLayer().getType().equals(type)) {
           g.removeAllPropertyChangeListener();
+          spatialIndex.remove(g);
         }
       }
       models.removeIf(g -> Objects.equals(g.getLayer().getType(), type));
@@ -305,6 +355,7 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
       for (Graphic g : models) {
         if (!g.getLayer().getSerializable()) {
           g.removeAllPropertyChangeListener();
+          spatialIndex.remove(g);
         }
       }
       models.removeIf(g -> !g.getLayer().getSerializable());
@@ -343,10 +394,11 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
     ArrayList<Graphic> selectedGraphicList = new ArrayList<>();
     if (rectangle != null) {
       synchronized (models) {
+        Set<Graphic> candidates = getCandidates(rectangle, transform);
         for (int i = models.size() - 1; i >= 0; i--) {
           Graphic graphic = models.get(i);
           GraphicLayer layer = graphic.getLayer();
-          if (layer.getVisible() && layer.getSelectable()) {
+          if (candidates.contains(graphic) && layer.getVisible() && layer.getSelectable()) {
 
             Rectangle graphBounds = graphic.getBounds(transform);
 
@@ -382,10 +434,11 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
     ArrayList<Graphic> selectedGraphicList = new ArrayList<>();
     if (rectangle != null) {
       synchronized (models) {
+        Set<Graphic> candidates = getCandidates(rectangle, transform);
         for (int i = models.size() - 1; i >= 0; i--) {
           Graphic graphic = models.get(i);
           GraphicLayer layer = graphic.getLayer();
-          if (layer.getVisible() && layer.getSelectable()) {
+          if (candidates.contains(graphic) && layer.getVisible() && layer.getSelectable()) {
 
             List<Area> selectedAreaList = new ArrayList<>();
 
@@ -436,12 +489,18 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
   @Override
   public Optional<Graphic> getFirstGraphicIntersecting(MouseEventDouble mouseEvent) {
     final Point2D mousePt = mouseEvent.getImageCoordinates();
+    AffineTransform transform =
+        mouseEvent.getSource() instanceof Image2DViewer<?> viewer
+            ? viewer.getAffineTransform()
+            : null;
     Graphic firstSelectedGraph = null;
     synchronized (models) {
+      Set<Graphic> candidates =
+          getCandidates(new Rectangle2D.Double(mousePt.getX(), mousePt.getY(), 0, 0), transform);
       for (int i = models.size() - 1; i >= 0; i--) {
         Graphic g = models.get(i);
         GraphicLayer l = g.getLayer();
-        if (l.getVisible() && l.getSelectable()) {
+        if (candidates.contains(g) && l.getVisible() && l.getSelectable()) {
           if (g.isOnGraphicLabel(mouseEvent)) {
             if (g.getSelected()) {
               return Optional.of(g);
@@ -580,6 +639,7 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
   @Override
   public void clear() {
     models.clear();
+    spatialIndex.clear();
   }
 
   @Override
@@ -600,7 +660,18 @@ public abstract class AbstractGraphicModel extends DefaultUUID implements Graphi
     Rectangle2D bound = area == null ? null : area.getBounds2D();
 
     g2d.translate(0.5, 0.5);
-    models.forEach(g -> applyPaint(g, g2d, transform, bound));
+    if (bound == null) {
+      models.forEach(g -> applyPaint(g, g2d, transform, null));
+    } else {
+      synchronized (models) {
+        Set<Graphic> candidates = getCandidates(bound, transform);
+        for (Graphic g : models) {
+          if (candidates.contains(g)) {
+            applyPaint(g, g2d, transform, bound);
+          }
+        }
+      }
+    }
     g2d.translate(-0.5, -0.5);
   }
 
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.ui.model;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.weasis.core.ui.model.graphic.Graphic;
+import org.weasis.core.ui.model.graphic.GraphicLabel;
+import org.weasis.core.ui.model.utils.bean.AdvancedShape;
+
+/**
+ * Uniform grid of the bounds of the graphics in the coordinates of the image. It returns the
+ * graphics that may intersect an area, the exact test remains to be done by the caller.
+ *
+ * <p>The size of a label depends on the view, so the labels are tested with the transform of the
+ * view in addition to the shapes. The graphics that cannot be located (advanced shapes, missing
+ * shapes) and the very large ones are always returned.
+ */
+final class GraphicSpatialIndex {
+
+  // Size of a cell in pixels of the image
+  private static final double CELL_SIZE = 64.0;
+  // Beyond this number of cells, a graphic is always returned
+  private static final int MAX_CELLS = 256;
+
+  private record Entry(Rectangle2D bounds, int minX, int minY, int maxX, int maxY) {}
+
+  private final Map<Graphic, Entry> entries = new IdentityHashMap<>();
+  private final Map<Long, List<Graphic>> cells = new HashMap<>();
+  private final Set<Graphic> unbounded = Collections.newSetFromMap(new IdentityHashMap<>());
+  private final Set<Graphic> labelled = Collections.newSetFromMap(new IdentityHashMap<>());
+  // Line thickness of each graphic and number of graphics by thickness
+  private final Map<Graphic, Float> lineThicknesses = new IdentityHashMap<>();
+  private final TreeMap<Float, Integer> thicknessCounts = new TreeMap<>();
+
+  synchronized int size() {
+    return lineThicknesses.size();
+  }
+
+  synchronized float getMaxLineThickness() {
+    if (thicknessCounts.isEmpty()) {
+      return Graphic.DEFAULT_LINE_THICKNESS;
+    }
+    return Math.max(Graphic.DEFAULT_LINE_THICKNESS, thicknessCounts.lastKey());
+  }
+
+  synchronized void add(Graphic graphic) {
+    remove(graphic);
+    Float thickness = graphic.getLineThickness();
+    thickness = thickness == null ? Graphic.DEFAULT_LINE_THICKNESS : thickness;
+    lineThicknesses.put(graphic, thickness);
+    thicknessCounts.merge(thickness, 1, Integer::sum);
+    if (graphic.getGraphicLabel() != null && graphic.getGraphicLabel().getLabels() != null) {
+      labelled.add(graphic);
+    }
+
+    Rectangle2D bounds = getBounds(graphic);
+    if (bounds == null) {
+      unbounded.add(graphic);
+      return;
+    }
+    int minX = cell(bounds.getMinX());
+    int minY = cell(bounds.getMinY());
+    int maxX = cell(bounds.getMaxX());
+    int maxY = cell(bounds.getMaxY());
+    if ((long) (maxX - minX + 1) * (maxY - minY + 1) > MAX_CELLS) {
+      unbounded.add(graphic);
+      return;
+    }
+    entries.put(graphic, new Entry(bounds, minX, minY, maxX, maxY));
+    for (int x = minX; x <= maxX; x++) {
+      for (int y = minY; y <= maxY; y++) {
+        cells.computeIfAbsent(key(x, y), _ -> new ArrayList<>(4)).add(graphic);
+      }
+    }
+  }
+
+  synchronized void remove(Graphic graphic) {
+    Float thickness = lineThicknesses.remove(graphic);
+    if (thickness != null) {
+      thicknessCounts.computeIfPresent(thickness, (_, nb) -> nb > 1 ? nb - 1 : null);
+    }
+    labelled.remove(graphic);
+    if (unbounded.remove(graphic)) {
+      return;
+    }
+    Entry e = entries.remove(graphic);
+    if (e != null) {
+      for (int x = e.minX(); x <= e.maxX(); x++) {
+        for (int y = e.minY(); y <= e.maxY(); y++) {
+          Long key = key(x, y);
+          List<Graphic> list = cells.get(key);
+          if (list != null) {
+            list.remove(graphic);
+            if (list.isEmpty()) {
+              cells.remove(key);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  synchronized void clear() {
+    entries.clear();
+    cells.clear();
+    unbounded.clear();
+    labelled.clear();
+    lineThicknesses.clear();
+    thicknessCounts.clear();
+  }
+
+  /**
+   * @param area the area in the coordinates of the image
+   * @param transform the transform of the view, or null to return all the labelled graphics
+   * @return the graphics which may intersect the area
+   */
+  synchronized Set<Graphic> getCandidates(Rectangle2D area, AffineTransform transform) {
+    Set<Graphic> result = Collections.newSetFromMap(new IdentityHashMap<>());
+    result.addAll(unbounded);
+    int minX = cell(area.getMinX());
+    int minY = cell(area.getMinY());
+    int maxX = cell(area.getMaxX());
+    int maxY = cell(area.getMaxY());
+    if ((long) (maxX - minX + 1) * (maxY - minY + 1) > cells.size()) {
+      for (Map.Entry<Long, List<Graphic>> c : cells.entrySet()) {
+        long key = c.getKey();
+        int x = (int) (key >> 32);
+        int y = (int) key;
+        if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+          addIntersecting(result, c.getValue(), area);
+        }
+      }
+    } else {
+      for (int x = minX; x <= maxX; x++) {
+        for (int y = minY; y <= maxY; y++) {
+          List<Graphic> list = cells.get(key(x, y));
+          if (list != null) {
+            addIntersecting(result, list, area);
+          }
+        }
+      }
+    }
+
+    for (Graphic g : labelled) {
+      if (!result.contains(g)) {
+        GraphicLabel label = g.getGraphicLabel();
+        Rectangle2D bounds = label == null || transform == null ? null : label.getBounds(transform);
+        if (bounds == null || intersects(bounds, area)) {
+          result.add(g);
+        }
+      }
+    }
+    return result;
+  }
+
+  private void addIntersecting(Set<Graphic> result, List<Graphic> list, Rectangle2D area) {
+    for (Graphic g : list) {
+      Entry e = entries.get(g);
+      if (e != null && intersects(e.bounds(), area)) {
+        result.add(g);
+      }
+    }
+  }
+
+  private static boolean intersects(Rectangle2D bounds, Rectangle2D area) {
+    // Inclusive test, the bounds of a line can have a null width or height
+    return bounds.getMinX() <= area.getMaxX()
+        && bounds.getMaxX() >= area.getMinX()
+        && bounds.getMinY() <= area.getMaxY()
+        && bounds.getMaxY() >= area.getMinY();
+  }
+
+  private static Rectangle2D getBounds(Graphic graphic) {
+    Shape shape = graphic.getShape();
+    if (shape == null || shape instanceof AdvancedShape) {
+      return null;
+    }
+    Rectangle2D bounds = shape.getBounds2D();
+    List<Point2D> pts = graphic.getPts();
+    if (pts != null) {
+      // Include the handles
+      for (Point2D p : pts) {
+        if (p != null) {
+          bounds.add(p);
+        }
+      }
+    }
+    return bounds;
+  }
+
+  private static int cell(double value) {
+    return (int) Math.floor(Math.clamp(value / CELL_SIZE, Integer.MIN_VALUE, Integer.MAX_VALUE));
+  }
+
+  private static Long key(int x, int y) {
+    return ((long) x << 32) | (y & 0xffffffffL);
+  }
+}
@@ -28,16 +28,12 @@ public class SegContour extends Region {
   }
 
   public SegGraphic getSegGraphic() {
-    if (segmentList.isEmpty() || !attributes.isVisible()) {
+    if (!attributes.isVisible()) {
       return null;
     }
 
-    Path2D path = new Path2D.Double(Path2D.WIND_NON_ZERO);
-    for (Segment segment : segmentList) {
-      addRecursivelySegment(path, segment);
-    }
-
-    if (path.getCurrentPoint() == null) {
+    Path2D path = getPath();
+    if (path == null) {
       return null;
     }
 
@@ -50,6 +46,21 @@ public class SegContour extends Region {
     return graphic;
   }
 
+  /**
+   * @return the outline of the segments and of their holes in the coordinates of the image or null
+   *     if there are no points
+   */
+  public Path2D getPath() {
+    if (segmentList.isEmpty()) {
+      return null;
+    }
+    Path2D path = new Path2D.Double(Path2D.WIND_NON_ZERO);
+    for (Segment segment : segmentList) {
+      addRecursivelySegment(path, segment);
+    }
+    return path.getCurrentPoint() == null ? null : path;
+  }
+
   private void addRecursivelySegment(Path2D path, Segment segment) {
     addPointsToPath(path, segment);
     for (Segment hole : segment.getChildren()) {
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.ui.model.graphic.imp.seg;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import org.weasis.opencv.seg.RegionAttributes;
+
+/**
+ * Builds the colorized raster (label map) of the contours of a segmentation in the coordinates of
+ * the source image. Drawn as an overlay of the image layer, it replaces one graphic per contour
+ * when many regions are displayed.
+ */
+public final class SegLabelMap {
+
+  private SegLabelMap() {}
+
+  /**
+   * @param width the width of the source image
+   * @param height the height of the source image
+   * @param contours the contours of the image
+   * @return the label map or null if no contour is visible
+   */
+  public static BufferedImage build(int width, int height, Collection<SegContour> contours) {
+    if (width <= 0 || height <= 0 || contours == null) {
+      return null;
+    }
+    BufferedImage labelMap = null;
+    Graphics2D g2d = null;
+    try {
+      for (SegContour c : contours) {
+        RegionAttributes attributes = c.getAttributes();
+        if (!attributes.isVisible()) {
+          continue;
+        }
+        Path2D path = c.getPath();
+        if (path == null) {
+          continue;
+        }
+        if (g2d == null) {
+          labelMap = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+          g2d = labelMap.createGraphics();
+          g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+          g2d.setStroke(new BasicStroke(1.0f));
+        }
+        // Same colors as SegGraphic
+        Color color = attributes.getColor();
+        if (attributes.isFilled()) {
+          float opacity = attributes.getInteriorOpacity();
+          g2d.setColor(
+              opacity < 1.0f
+                  ? new Color(
+                      color.getRed(),
+                      color.getGreen(),
+                      color.getBlue(),
+                      (int) (opacity * color.getAlpha()))
+                  : color);
+          g2d.fill(path);
+        }
+        g2d.setColor(color);
+        g2d.draw(path);
+      }
+    } finally {
+      if (g2d != null) {
+        g2d.dispose();
+      }
+    }
+    return labelMap;
+  }
+
+  /**
+   * @param contours the contours of the image
+   * @return the display state of the contours, equal to another state only when the same contours
+   *     are displayed with the same attributes
+   */
+  public static DisplayState getDisplayState(Collection<SegContour> contours) {
+    List<ContourDisplay> list = new ArrayList<>(contours == null ? 0 : contours.size());
+    if (contours != null) {
+      for (SegContour c : contours) {
+        RegionAttributes a = c.getAttributes();
+        list.add(
+            new ContourDisplay(
+                c, a, a.isVisible(), a.isFilled(), a.getInteriorOpacity(), a.getColor()));
+      }
+    }
+    return new DisplayState(list);
+  }
+
+  /**
+   * Contours of a label map and their display attributes.
+   *
+   * @param contours the display of each contour
+   */
+  public record DisplayState(List<ContourDisplay> contours) {
+    public DisplayState {
+      contours = List.copyOf(contours);
+    }
+  }
+
+  /**
+   * Display attributes of a contour. The contour and its region are compared by identity, as they
+   * are modified in place.
+   */
+  public record ContourDisplay(
+      SegContour contour,
+      RegionAttributes region,
+      boolean visible,
+      boolean filled,
+      float opacity,
+      Color color) {
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof ContourDisplay d
+          && contour == d.contour
+          && region == d.region
+          && visible == d.visible
+          && filled == d.filled
+          && Float.compare(opacity, d.opacity) == 0
+          && Objects.equals(color, d.color);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(
+          System.identityHashCode(contour),
+          System.identityHashCode(region),
+          visible,
+          filled,
+          opacity,
+          color);
+    }
+  }
+}
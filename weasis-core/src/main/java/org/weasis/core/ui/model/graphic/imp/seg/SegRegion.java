@@ -47,6 +47,16 @@ public class SegRegion<E extends ImageElement> extends RegionAttributes
     this.measurableLayer = region.measurableLayer;
   }
 
+  /**
+   * Adds pixels to the region without a contour, when the pixels are counted separately from the
+   * building of the contours.
+   *
+   * @param nbPixels the number of pixels to add
+   */
+  public synchronized void addPixels(long nbPixels) {
+    this.numberOfPixels += nbPixels;
+  }
+
   public SegMeasurableLayer<E> getMeasurableLayer() {
     return measurableLayer;
   }
@@ -9,15 +9,24 @@
  */
 package org.weasis.core.ui.model.layer.imp;
 
+import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import org.opencv.core.Rect;
+import org.opencv.imgproc.Imgproc;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.image.AffineTransformOp;
@@ -29,6 +38,7 @@ import org.weasis.core.api.image.SimpleOpManager;
 import org.weasis.core.api.image.WindowOp;
 import org.weasis.core.api.image.ZoomOp;
 import org.weasis.core.api.image.cv.CvUtil;
+import org.weasis.core.api.image.cv.ImageCVIO;
 import org.weasis.core.api.image.measure.MeasurementsAdapter;
 import org.weasis.core.api.image.util.ImageLayer;
 import org.weasis.core.api.image.util.Unit;
@@ -39,13 +49,23 @@ import org.weasis.core.ui.model.layer.Layer;
 import org.weasis.core.ui.model.layer.LayerType;
 import org.weasis.core.ui.model.utils.ImageLayerChangeListener;
 import org.weasis.core.ui.model.utils.imp.DefaultUUID;
+import org.weasis.opencv.data.ImageCV;
 import org.weasis.opencv.data.PlanarImage;
-import org.weasis.opencv.op.ImageConversion;
+import org.weasis.opencv.op.ImageProcessor;
 import org.weasis.opencv.op.lut.WlPresentation;
 
 /**
  * The Class RenderedImageLayer.
  *
+ * <p>When the source image is larger than {@link ImageCVIO#TILE_SIZE}, the display operations are
+ * applied only to the tiles visible in the view. For the zoomed-out views, the tiles are taken from
+ * a resolution pyramid of the source image, built on demand by decimating the raw samples, so the
+ * operations like the window/level are applied to the samples of each level. The last processed
+ * tiles are kept to be reused when panning or zooming back. This requires that all the operations
+ * before {@link AffineTransformOp} are {@link ImageOpNode#isRegionInvariant() region invariant},
+ * otherwise the whole image is processed. The tiled processing can be disabled by setting the
+ * system property {@value #P_TILED_RENDERING} to false.
+ *
  * @author Nicolas Roduit
  */
 public class RenderedImageLayer<E extends ImageElement> extends DefaultUUID
@@ -53,13 +73,32 @@ public class RenderedImageLayer<E extends ImageElement> extends DefaultUUID
 
   private static final Logger LOGGER = LoggerFactory.getLogger(RenderedImageLayer.class);
 
+  public static final String P_TILED_RENDERING = "weasis.display.tiled";
+
+  private static final boolean TILED_RENDERING =
+      Boolean.parseBoolean(System.getProperty(P_TILED_RENDERING, Boolean.TRUE.toString()));
+  // Margin in pixels for the interpolation of the border of the visible area
+  private static final int TILE_MARGIN = 2;
+  // Minimum size of the smallest level of the pyramid
+  private static final int MIN_LEVEL_SIZE = 64;
+  // Maximum number of processed tile regions kept by the layer
+  private static final int MAX_CACHED_TILES = 8;
+
   private final SimpleOpManager disOpManager;
   private final List<ImageLayerChangeListener<E>> listenerList;
   private final List<OpEventListener> opListeners;
+  // Processed tile regions in access order
+  private final Map<TileKey, TileRegion> tileCache;
 
   private OpManager preprocessing;
   private E sourceImage;
   private PlanarImage displayImage;
+  private BufferedImage displayBuffer;
+  // Previous buffer, its raster is reused when the new display image has the same size and type
+  private BufferedImage reusableBuffer;
+  private ImagePyramid pyramid;
+  // Raster in the coordinates of the source image drawn over the image (e.g. a segmentation)
+  private BufferedImage overlay;
   private Boolean visible = true;
   private boolean enableDispOperations = true;
   private Point offset;
@@ -72,6 +111,7 @@ public class RenderedImageLayer<E extends ImageElement> extends DefaultUUID
     this.disOpManager = Optional.ofNullable(disOpManager).orElseGet(SimpleOpManager::new);
     this.listenerList = new ArrayList<>();
     this.opListeners = new ArrayList<>();
+    this.tileCache = new LinkedHashMap<>(16, 0.75f, true);
     addEventListener(this.disOpManager);
   }
 
@@ -186,6 +226,11 @@ public class RenderedImageLayer<E extends ImageElement> extends DefaultUUID
             || (image == null && sourceImage != null);
     this.sourceImage = image;
     this.preprocessing = preprocessing;
+    if (init) {
+      // The overlay belongs to the previous image
+      this.overlay = null;
+      releaseTiles();
+    }
     // Rectify non-square pixel image in the first operation
     if (sourceImage != null) {
       ZoomOp node = sourceImage.getRectifyAspectRatioZoomOp();
@@ -234,7 +279,7 @@ public class RenderedImageLayer<E extends ImageElement> extends DefaultUUID
         g2d.setRenderingHint(
             RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
       }
-      g2d.drawImage(ImageConversion.toBufferedImage(displayImage), 0, 0, null);
+      g2d.drawImage(getDisplayBuffer(), 0, 0, null);
     } catch (Exception e) {
       LOGGER.error("Cannot draw the image", e);
       if ("java.io.IOException: closed".equals(e.getMessage())) { // NON-NLS
@@ -387,17 +432,79 @@ public class RenderedImageLayer<E extends ImageElement> extends DefaultUUID
       g2d.setRenderingHint(
           RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
     }
-    g2d.drawImage(
-        ImageConversion.toBufferedImage(displayImage),
-        AffineTransform.getScaleInstance(rx, ry),
-        null);
+    g2d.drawImage(getDisplayBuffer(), AffineTransform.getScaleInstance(rx, ry), null);
 
     g2d.setClip(clip);
   }
 
+  /**
+   * @return the display image converted for Java2D, the conversion is done only once for each
+   *     display image
+   */
+  private BufferedImage getDisplayBuffer() {
+    BufferedImage buffer = displayBuffer;
+    if (buffer == null) {
+      buffer = CvUtil.toBufferedImage(displayImage, reusableBuffer);
+      reusableBuffer = null;
+      displayBuffer = buffer;
+    }
+    return buffer;
+  }
+
+  private void setDisplayImage(PlanarImage image) {
+    if (displayBuffer != null) {
+      reusableBuffer = displayBuffer;
+    }
+    this.displayBuffer = null;
+    this.displayImage = image;
+    if (image == null) {
+      reusableBuffer = null;
+    }
+  }
+
+  public BufferedImage getOverlay() {
+    return overlay;
+  }
+
+  /**
+   * @param overlay the raster drawn over the image, it must have the size of the source image. Null
+   *     removes the overlay.
+   */
+  public void setOverlay(BufferedImage overlay) {
+    this.overlay = overlay;
+  }
+
+  /**
+   * Draws the overlay with the transform of the graphic layers.
+   *
+   * @param g2d the graphics of the view
+   * @param transform the transform from the coordinates of the source image to the view
+   */
+  public void drawOverlay(Graphics2D g2d, AffineTransform transform) {
+    BufferedImage img = overlay;
+    if (!visible || img == null || displayImage == null || transform == null) {
+      return;
+    }
+    Object oldHint = g2d.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+    // Keep the borders of the labels sharp
+    g2d.setRenderingHint(
+        RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+    try {
+      g2d.drawImage(img, transform, null);
+    } catch (Exception e) {
+      LOGGER.error("Cannot draw the overlay", e);
+    } finally {
+      if (oldHint != null) {
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, oldHint);
+      }
+    }
+  }
+
   public void dispose() {
     sourceImage = null;
-    displayImage = null;
+    overlay = null;
+    setDisplayImage(null);
+    releaseTiles();
     listenerList.clear();
     opListeners.clear();
   }
@@ -455,11 +562,183 @@ public class RenderedImageLayer<E extends ImageElement> extends DefaultUUID
       if (source != null && source.width() < 1) {
         disOpManager.setFirstNode(getSourceRenderedImage());
       }
-      displayImage = disOpManager.process();
+      setDisplayImage(processDisplayOperations());
       fireImageChanged();
     }
   }
 
+  private PlanarImage processDisplayOperations() {
+    PlanarImage source = disOpManager.getFirstNodeInputImage();
+    ImageOpNode affineNode = disOpManager.getNode(AffineTransformOp.OP_NAME);
+    if (!TILED_RENDERING
+        || source == null
+        || (source.width() <= ImageCVIO.TILE_SIZE && source.height() <= ImageCVIO.TILE_SIZE)
+        || !isRegionInvariant(affineNode)) {
+      releaseTiles();
+      return disOpManager.process();
+    }
+
+    List<Double> matrix = (List<Double>) affineNode.getParam(AffineTransformOp.P_AFFINE_MATRIX);
+    Rectangle2D bound = (Rectangle2D) affineNode.getParam(AffineTransformOp.P_DST_BOUNDS);
+    if (matrix == null || matrix.size() != 6 || bound == null || bound.isEmpty()) {
+      return disOpManager.process();
+    }
+
+    // OpenCV matrix to Java2D transform
+    AffineTransform transform =
+        new AffineTransform(
+            matrix.get(0), matrix.get(3), matrix.get(1), matrix.get(4), matrix.get(2),
+            matrix.get(5));
+    if (pyramid == null || pyramid.source != source) {
+      releaseTiles();
+      pyramid = new ImagePyramid(source);
+    }
+    int levelIndex = pyramid.getLevelIndex(Math.sqrt(Math.abs(transform.getDeterminant())));
+    PlanarImage level = pyramid.getLevel(levelIndex);
+
+    // Map the pixel centers of the level to the pixel centers of the source image
+    double sx = source.width() / (double) level.width();
+    double sy = source.height() / (double) level.height();
+    transform.concatenate(
+        new AffineTransform(sx, 0.0, 0.0, sy, (sx - 1.0) / 2.0, (sy - 1.0) / 2.0));
+
+    Rectangle tiles = getVisibleTiles(transform, bound, level.width(), level.height());
+    if (tiles == null
+        || (level == source && tiles.width == source.width() && tiles.height == source.height())) {
+      return disOpManager.process();
+    }
+
+    transform.translate(tiles.x, tiles.y);
+    TileKey key = new TileKey(levelIndex, tiles);
+    TileRegion tile = tileCache.get(key);
+    if (tile == null) {
+      tile =
+          new TileRegion(
+              ImageCV.toImageCV(
+                  level.toMat().submat(new Rect(tiles.x, tiles.y, tiles.width, tiles.height))));
+      tileCache.put(key, tile);
+      Iterator<TileRegion> it = tileCache.values().iterator();
+      while (tileCache.size() > MAX_CACHED_TILES && it.hasNext()) {
+        it.next().release();
+        it.remove();
+      }
+    }
+
+    affineNode.setParam(
+        AffineTransformOp.P_AFFINE_MATRIX,
+        List.of(
+            transform.getScaleX(),
+            transform.getShearX(),
+            transform.getTranslateX(),
+            transform.getShearY(),
+            transform.getScaleY(),
+            transform.getTranslateY()));
+    try {
+      List<Long> versions = getParamVersions(affineNode);
+      if (tile.processed != null && versions != null && versions.equals(tile.versions)) {
+        // The operations before the affine transformation have already been applied to the tiles
+        return disOpManager.process(affineNode, tile.processed);
+      }
+      disOpManager.setFirstNode(tile.input);
+      PlanarImage result = disOpManager.process();
+      tile.setProcessed((PlanarImage) affineNode.getParam(ImageOpNode.Param.INPUT_IMG), versions);
+      // The tiles processed with other parameters are obsolete
+      Iterator<TileRegion> it = tileCache.values().iterator();
+      while (it.hasNext()) {
+        TileRegion t = it.next();
+        if (t != tile && (versions == null || !versions.equals(t.versions))) {
+          t.release();
+          it.remove();
+        }
+      }
+      return result;
+    } finally {
+      // Restore the parameters of the whole image for the other users of the operations
+      affineNode.setParam(AffineTransformOp.P_AFFINE_MATRIX, matrix);
+      disOpManager.setFirstNode(source);
+    }
+  }
+
+  private boolean isRegionInvariant(ImageOpNode affineNode) {
+    if (affineNode == null || !affineNode.isEnabled()) {
+      return false;
+    }
+    for (ImageOpNode op : disOpManager.getOperations()) {
+      if (op == affineNode) {
+        return true;
+      }
+      if (op.isEnabled() && !op.isRegionInvariant()) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the parameter versions of the operations before the affine transformation, or null
+   *     when the modifications of an operation are not tracked
+   */
+  private List<Long> getParamVersions(ImageOpNode affineNode) {
+    List<Long> versions = new ArrayList<>();
+    for (ImageOpNode op : disOpManager.getOperations()) {
+      if (op == affineNode) {
+        break;
+      }
+      long version = op.getParamVersion();
+      if (version < 0) {
+        return null;
+      }
+      versions.add(version);
+    }
+    return versions;
+  }
+
+  private void releaseTiles() {
+    tileCache.values().forEach(TileRegion::release);
+    tileCache.clear();
+    if (pyramid != null) {
+      pyramid.release();
+      pyramid = null;
+    }
+  }
+
+  /**
+   * @param transform the transformation from the image to the view
+   * @param bound the bounds of the view
+   * @param width the width of the image
+   * @param height the height of the image
+   * @return the region of the image covered by the visible tiles, or null if nothing is visible
+   */
+  private static Rectangle getVisibleTiles(
+      AffineTransform transform, Rectangle2D bound, int width, int height) {
+    Rectangle2D area;
+    try {
+      area =
+          transform
+              .createInverse()
+              .createTransformedShape(
+                  new Rectangle2D.Double(0.0, 0.0, bound.getWidth(), bound.getHeight()))
+              .getBounds2D();
+    } catch (NoninvertibleTransformException e) {
+      return null;
+    }
+    int x1 = toTile(area.getMinX() - TILE_MARGIN, width, false);
+    int y1 = toTile(area.getMinY() - TILE_MARGIN, height, false);
+    int x2 = toTile(area.getMaxX() + TILE_MARGIN, width, true);
+    int y2 = toTile(area.getMaxY() + TILE_MARGIN, height, true);
+    if (x2 <= x1 || y2 <= y1) {
+      return null;
+    }
+    return new Rectangle(x1, y1, x2 - x1, y2 - y1);
+  }
+
+  private static int toTile(double val, int size, boolean upper) {
+    double v = Math.clamp(val, 0.0, size);
+    int tile = ImageCVIO.TILE_SIZE;
+    int index = upper ? (int) Math.ceil(v / tile) : (int) Math.floor(v / tile);
+    return Math.min(size, index * tile);
+  }
+
   @Override
   public MeasurementsAdapter getMeasurementAdapter(Unit displayUnit) {
     if (hasContent()) {
@@ -537,4 +816,85 @@ public class RenderedImageLayer<E extends ImageElement> extends DefaultUUID
     }
     return 0;
   }
+
+  private record TileKey(int level, Rectangle area) {}
+
+  /** Region of a pyramid level and its image processed by the operations before the zoom. */
+  private static final class TileRegion {
+    private final ImageCV input;
+    private PlanarImage processed;
+    private List<Long> versions;
+
+    TileRegion(ImageCV input) {
+      this.input = input;
+    }
+
+    void setProcessed(PlanarImage image, List<Long> versions) {
+      if (processed != image) {
+        releaseProcessed();
+      }
+      this.processed = image;
+      this.versions = versions;
+    }
+
+    private void releaseProcessed() {
+      // When all the operations are disabled, the processed image is the input
+      if (processed != null && processed != input) {
+        processed.release();
+      }
+      processed = null;
+    }
+
+    void release() {
+      releaseProcessed();
+      versions = null;
+      input.release();
+    }
+  }
+
+  /** Levels of the source image, each level is decimated by two from the previous one. */
+  private static final class ImagePyramid {
+    private final PlanarImage source;
+    private final List<PlanarImage> levels = new ArrayList<>();
+
+    ImagePyramid(PlanarImage source) {
+      this.source = source;
+    }
+
+    /**
+     * @param scale the scale of the source image in the view
+     * @return the index of the smallest level displayed with a scale greater than 0.5, 0 being the
+     *     source image
+     */
+    int getLevelIndex(double scale) {
+      PlanarImage img = source;
+      double s = scale;
+      int index = 0;
+      while (s <= 0.5) {
+        int w = img.width() / 2;
+        int h = img.height() / 2;
+        if (w < MIN_LEVEL_SIZE || h < MIN_LEVEL_SIZE) {
+          break;
+        }
+        if (index >= levels.size()) {
+          // Keep the raw samples: the padding values and the modality LUT stay unchanged
+          levels.add(
+              ImageProcessor.scale(img.toMat(), new Dimension(w, h), Imgproc.INTER_NEAREST));
+        }
+        img = levels.get(index);
+        index++;
+        s *= 2.0;
+      }
+      return index;
+    }
+
+    PlanarImage getLevel(int index) {
+      return index == 0 ? source : levels.get(index - 1);
+    }
+
+    void release() {
+      levels.forEach(PlanarImage::release);
+      levels.clear();
+    }
+  }
 }
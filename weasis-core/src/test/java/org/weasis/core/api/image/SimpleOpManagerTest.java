@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.image;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.weasis.core.api.image.SimpleOpManager.NodeStatistics;
+import org.weasis.opencv.data.PlanarImage;
+
+class SimpleOpManagerTest {
+
+  private static final String FACTOR = "factor"; // NON-NLS
+
+  /** Returns a new image at each execution. */
+  static class TestOp extends AbstractOp {
+
+    TestOp(String name) {
+      setName(name);
+    }
+
+    TestOp(TestOp op) {
+      super(op);
+    }
+
+    @Override
+    public TestOp copy() {
+      return new TestOp(this);
+    }
+
+    @Override
+    public void process() {
+      params.put(Param.OUTPUT_IMG, image());
+    }
+  }
+
+  private static PlanarImage image() {
+    PlanarImage img = Mockito.mock(PlanarImage.class);
+    Mockito.when(img.width()).thenReturn(10);
+    return img;
+  }
+
+  private static SimpleOpManager manager(TestOp... ops) {
+    SimpleOpManager manager = new SimpleOpManager();
+    for (TestOp op : ops) {
+      manager.addImageOperationAction(op);
+    }
+    manager.setFirstNode(image());
+    return manager;
+  }
+
+  private static void assertRuns(SimpleOpManager manager, long... runs) {
+    List<NodeStatistics> stats = manager.getNodeStatistics();
+    assertEquals(runs.length, stats.size());
+    for (int i = 0; i < runs.length; i++) {
+      assertEquals(runs[i], stats.get(i).runs(), stats.get(i).name());
+    }
+  }
+
+  @Test
+  void test_unchanged_chain_reuses_the_output() {
+    SimpleOpManager manager = manager(new TestOp("a"), new TestOp("b"), new TestOp("c"));
+    PlanarImage output = manager.process();
+    assertNotNull(output);
+    assertRuns(manager, 1, 1, 1);
+
+    assertSame(output, manager.process());
+    assertRuns(manager, 1, 1, 1);
+    for (NodeStatistics stat : manager.getNodeStatistics()) {
+      assertEquals(1, stat.hits());
+    }
+
+    // An equal parameter value does not change the version
+    manager.setParamValue("b", FACTOR, 2.0);
+    manager.process();
+    manager.setParamValue("b", FACTOR, 2.0);
+    assertSame(manager.getLastNodeOutputImage(), manager.process());
+    assertRuns(manager, 1, 2, 2);
+  }
+
+  @Test
+  void test_changed_parameter_runs_the_following_operations() {
+    SimpleOpManager manager = manager(new TestOp("a"), new TestOp("b"), new TestOp("c"));
+    PlanarImage output = manager.process();
+
+    assertTrue(manager.setParamValue("b", FACTOR, 2));
+    PlanarImage output2 = manager.process();
+    assertNotSame(output, output2);
+    assertRuns(manager, 1, 2, 2);
+
+    manager.getNode("c").setEnabled(false);
+    manager.process();
+    assertRuns(manager, 1, 2, 3);
+    // The disabled operation returns its input
+    assertSame(
+        manager.getNode("b").getParam(ImageOpNode.Param.OUTPUT_IMG),
+        manager.getLastNodeOutputImage());
+
+    // A new source image runs all the operations
+    manager.setFirstNode(image());
+    manager.process();
+    assertRuns(manager, 2, 3, 4);
+
+    manager.invalidateCache();
+    manager.process();
+    assertRuns(manager, 3, 4, 5);
+  }
+
+  @Test
+  void test_added_or_removed_operation_invalidates_the_output() {
+    TestOp a = new TestOp("a");
+    TestOp c = new TestOp("c");
+    SimpleOpManager manager = manager(a, c);
+    PlanarImage output = manager.process();
+    assertRuns(manager, 1, 1);
+
+    TestOp b = new TestOp("b");
+    manager.addImageOperationAction(b, SimpleOpManager.Position.BEFORE, c);
+    PlanarImage output2 = manager.process();
+    assertNotSame(output, output2);
+    assertRuns(manager, 1, 1, 2);
+
+    manager.removeImageOperationAction(b);
+    PlanarImage output3 = manager.process();
+    assertNotSame(output2, output3);
+    assertRuns(manager, 1, 3);
+
+    manager.addImageOperationAction(new TestOp("d"));
+    PlanarImage output4 = manager.process();
+    assertNotSame(output3, output4);
+    assertRuns(manager, 1, 3, 1);
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
+
+class DecodeSchedulerTest {
+
+  private DecodeScheduler scheduler;
+  private CountDownLatch started;
+  private CountDownLatch release;
+  private Future<String> blocking;
+
+  @BeforeEach
+  void setUp() throws InterruptedException {
+    scheduler = new DecodeScheduler(1);
+    started = new CountDownLatch(1);
+    release = new CountDownLatch(1);
+    // Keep the only worker busy, so the next tasks stay in the queue
+    blocking =
+        scheduler.submit(
+            "blocking", // NON-NLS
+            () -> {
+              started.countDown();
+              release.await();
+              return "blocking"; // NON-NLS
+            },
+            Priority.VISIBLE);
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+  }
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+  }
+
+  @Test
+  void test_same_key_shares_the_task() throws Exception {
+    Future<String> f1 = scheduler.submit("a", () -> "first", Priority.PRELOAD); // NON-NLS
+    Future<String> f2 = scheduler.submit("a", () -> "second", Priority.VISIBLE); // NON-NLS
+    assertSame(f1, f2);
+    assertEquals(1, scheduler.getDeduplicatedCount());
+    assertTrue(scheduler.isPending("a"));
+
+    release.countDown();
+    assertEquals("first", f1.get(5, TimeUnit.SECONDS));
+    assertEquals("blocking", blocking.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void test_cancel_waits_for_the_last_caller() throws Exception {
+    Future<String> f1 = scheduler.submit("a", () -> "a", Priority.PRELOAD); // NON-NLS
+    scheduler.submit("a", () -> "a", Priority.PRELOAD); // NON-NLS
+
+    // Another caller still waits for the task
+    assertFalse(scheduler.cancel("a"));
+    assertFalse(f1.isCancelled());
+    assertEquals(1, scheduler.getQueueDepth());
+
+    assertTrue(scheduler.cancel("a"));
+    assertTrue(f1.isCancelled());
+    assertFalse(scheduler.isPending("a"));
+    assertEquals(0, scheduler.getQueueDepth());
+
+    // A new request after the cancellation creates a new task
+    Future<String> f3 = scheduler.submit("a", () -> "new", Priority.PRELOAD); // NON-NLS
+    assertNotSame(f1, f3);
+    release.countDown();
+    assertEquals("new", f3.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void test_running_task_is_not_cancelled() {
+    assertFalse(scheduler.cancel("blocking")); // NON-NLS
+    assertFalse(blocking.isCancelled());
+  }
+
+  @Test
+  void test_priority_order() throws Exception {
+    List<String> order = new CopyOnWriteArrayList<>();
+    Future<?> preload = scheduler.submit("p", () -> order.add("p"), Priority.PRELOAD);
+    Future<?> lookAhead = scheduler.submit("l", () -> order.add("l"), Priority.LOOK_AHEAD);
+    Future<?> visible = scheduler.submit("v", () -> order.add("v"), Priority.VISIBLE);
+    // Raise the priority of a queued task
+    assertSame(preload, scheduler.submit("p", () -> order.add("x"), Priority.VISIBLE));
+
+    release.countDown();
+    preload.get(5, TimeUnit.SECONDS);
+    lookAhead.get(5, TimeUnit.SECONDS);
+    visible.get(5, TimeUnit.SECONDS);
+    // Same priority as "v" but submitted before
+    assertEquals(List.of("p", "v", "l"), order);
+  }
+
+  @Test
+  void test_cancel_after_raising_the_priority() throws Exception {
+    Future<String> f1 = scheduler.submit("a", () -> "a", Priority.PRELOAD); // NON-NLS
+    assertSame(f1, scheduler.submit("a", () -> "a", Priority.VISIBLE)); // NON-NLS
+    // The raised task is back in the queue and can still be cancelled by the last caller
+    assertEquals(1, scheduler.getQueueDepth());
+    assertFalse(scheduler.cancel(f1));
+    assertTrue(scheduler.cancel(f1));
+    assertTrue(f1.isCancelled());
+    assertFalse(scheduler.isPending("a"));
+    assertEquals(0, scheduler.getQueueDepth());
+  }
+}
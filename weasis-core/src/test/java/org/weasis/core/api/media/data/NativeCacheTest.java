@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.weasis.opencv.data.PlanarImage;
+
+class NativeCacheTest {
+
+  private static final long IMAGE_SIZE = 100;
+  // Room for 64 images
+  private static final long BUDGET = 64 * IMAGE_SIZE;
+
+  private final List<String> removedKeys = new ArrayList<>();
+
+  private final NativeCache<String, PlanarImage> cache =
+      new NativeCache<>(BUDGET) {
+        @Override
+        protected void afterEntryRemove(String key, PlanarImage val) {
+          removedKeys.add(key);
+        }
+      };
+
+  private static PlanarImage image() {
+    PlanarImage img = Mockito.mock(PlanarImage.class);
+    Mockito.when(img.physicalBytes()).thenReturn(IMAGE_SIZE);
+    return img;
+  }
+
+  private void scan(String prefix, int nb) {
+    for (int i = 0; i < nb; i++) {
+      cache.put(prefix + i, image());
+    }
+  }
+
+  @Test
+  void test_reused_entry_survives_a_scan() {
+    cache.put("reused", image()); // NON-NLS
+    // Second access: promoted to the protected segment
+    assertNotNull(cache.get("reused")); // NON-NLS
+
+    scan("scan", 200); // NON-NLS
+    assertTrue(cache.containsKey("reused")); // NON-NLS
+    assertTrue(cache.getUsedMemory() <= BUDGET);
+    assertFalse(removedKeys.isEmpty());
+    assertEquals(removedKeys.size(), cache.getStats().evictionCount());
+  }
+
+  @Test
+  void test_peek_does_not_promote() {
+    cache.put("peeked", image()); // NON-NLS
+    assertNotNull(cache.peek("peeked")); // NON-NLS
+    assertTrue(cache.containsKey("peeked")); // NON-NLS
+    assertEquals(0, cache.getStats().hitCount());
+
+    scan("scan", 200); // NON-NLS
+    // Still in probation, evicted as the eldest entry
+    assertFalse(cache.containsKey("peeked")); // NON-NLS
+  }
+
+  @Test
+  void test_pinned_entries_are_evicted_last() {
+    cache.put("pinned", image()); // NON-NLS
+    cache.pin(this, List.of("pinned")); // NON-NLS
+
+    scan("scan", 200); // NON-NLS
+    assertTrue(cache.containsKey("pinned")); // NON-NLS
+
+    cache.unpin(this);
+    scan("other", 200); // NON-NLS
+    assertFalse(cache.containsKey("pinned")); // NON-NLS
+  }
+
+  @Test
+  void test_budget_is_enforced_with_pins() {
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      keys.add("pinned" + i); // NON-NLS
+    }
+    // Pin more images than the budget
+    cache.pin(this, keys);
+    for (String key : keys) {
+      cache.put(key, image());
+    }
+    assertTrue(cache.getUsedMemory() <= BUDGET);
+    assertEquals(100 - removedKeys.size(), cache.size());
+  }
+
+  @Test
+  void test_remove_and_clear() {
+    scan("a", 10); // NON-NLS
+    assertEquals(10, cache.size());
+    assertEquals(10 * IMAGE_SIZE, cache.getUsedMemory());
+
+    assertNotNull(cache.remove("a0")); // NON-NLS
+    assertEquals(9, cache.size());
+    assertEquals(9 * IMAGE_SIZE, cache.getUsedMemory());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.getUsedMemory());
+  }
+}
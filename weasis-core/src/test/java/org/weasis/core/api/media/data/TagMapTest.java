@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.media.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import org.junit.jupiter.api.Test;
+import org.weasis.core.api.media.data.TagW.TagType;
+
+class TagMapTest {
+
+  private static final TagW TAG_1 = new TagW("TagMapTest1", TagType.STRING); // NON-NLS
+  private static final TagW TAG_2 = new TagW("TagMapTest2", TagType.INTEGER); // NON-NLS
+  private static final TagW TAG_3 = new TagW("TagMapTest3", TagType.STRING); // NON-NLS
+
+  static {
+    // Assign the indexes in this order
+    TagMap.indexOf(TAG_1);
+    TagMap.indexOf(TAG_2);
+    TagMap.indexOf(TAG_3);
+  }
+
+  @Test
+  void test_insert_in_the_middle() {
+    TagMap map = new TagMap();
+    map.put(TAG_3, "c");
+    map.put(TAG_1, "a");
+    map.put(TAG_2, 2);
+
+    assertEquals(3, map.size());
+    assertEquals("a", map.get(TAG_1));
+    assertEquals(2, map.get(TAG_2));
+    assertEquals("c", map.get(TAG_3));
+
+    List<TagW> keys = new ArrayList<>(map.keySet());
+    assertEquals(List.of(TAG_1, TAG_2, TAG_3), keys);
+  }
+
+  @Test
+  void test_replace_and_remove() {
+    TagMap map = new TagMap();
+    map.put(TAG_1, "a");
+    map.put(TAG_2, 2);
+    map.put(TAG_3, "c");
+
+    assertEquals(2, map.put(TAG_2, 5));
+    assertEquals(5, map.get(TAG_2));
+
+    assertEquals(5, map.remove(TAG_2));
+    assertNull(map.remove(TAG_2));
+    assertEquals(2, map.size());
+    assertFalse(map.containsKey(TAG_2));
+    assertEquals("a", map.get(TAG_1));
+    assertEquals("c", map.get(TAG_3));
+
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertNull(map.get(TAG_1));
+  }
+
+  @Test
+  void test_iterator_keeps_its_snapshot() {
+    TagMap map = new TagMap();
+    map.put(TAG_1, "a");
+    map.put(TAG_3, "c");
+
+    Iterator<Entry<TagW, Object>> it = map.entrySet().iterator();
+    assertEquals(TAG_1, it.next().getKey());
+    it.remove();
+    // The removal by the iterator does not skip the next entry
+    assertTrue(it.hasNext());
+    assertEquals(TAG_3, it.next().getKey());
+    assertFalse(it.hasNext());
+    assertEquals(1, map.size());
+
+    Iterator<Entry<TagW, Object>> it2 = map.entrySet().iterator();
+    map.put(TAG_2, 2);
+    assertThrows(ConcurrentModificationException.class, it2::next);
+  }
+
+  @Test
+  void test_copy_is_independent() {
+    TagMap map = new TagMap();
+    map.put(TAG_1, "a");
+    map.put(TAG_2, 2);
+
+    TagMap copy = new TagMap(map);
+    copy.put(TAG_1, "b");
+    copy.put(TAG_3, "c");
+    map.remove(TAG_2);
+
+    assertEquals("a", map.get(TAG_1));
+    assertNull(map.get(TAG_3));
+    assertEquals("b", copy.get(TAG_1));
+    assertEquals(2, copy.get(TAG_2));
+    assertEquals("c", copy.get(TAG_3));
+  }
+
+  @Test
+  void test_values_are_interned() {
+    TagMap m1 = new TagMap();
+    TagMap m2 = new TagMap();
+    m1.put(TAG_1, new String("value")); // NON-NLS
+    m2.put(TAG_1, new String("value")); // NON-NLS
+    assertSame(m1.get(TAG_1), m2.get(TAG_1));
+  }
+
+  @Test
+  void test_read_while_writing() throws InterruptedException {
+    TagMap map = new TagMap();
+    map.put(TAG_2, 0);
+    Thread writer =
+        new Thread(
+            () -> {
+              for (int i = 0; i < 100_000; i++) {
+                map.put(TAG_1, "a");
+                map.put(TAG_3, "c");
+                map.remove(TAG_1);
+                map.remove(TAG_3);
+              }
+            });
+    writer.start();
+    // The value of a tag never moves to another tag
+    while (writer.isAlive()) {
+      assertEquals(0, map.get(TAG_2));
+      Object v1 = map.get(TAG_1);
+      assertTrue(v1 == null || v1.equals("a"));
+    }
+    writer.join();
+  }
+}
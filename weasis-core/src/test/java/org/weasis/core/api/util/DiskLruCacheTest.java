@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.api.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DiskLruCacheTest {
+
+  @TempDir Path dir;
+
+  private static boolean write(DiskLruCache cache, String name, int length) throws IOException {
+    if (!cache.reserve(name)) {
+      return false;
+    }
+    Files.write(cache.getFile(name).toPath(), new byte[length]);
+    cache.endWrite(name, true);
+    return true;
+  }
+
+  @Test
+  void test_least_recently_used_files_are_deleted() throws IOException {
+    DiskLruCache cache = new DiskLruCache(dir.toFile(), 25);
+    assertTrue(write(cache, "a", 10));
+    assertTrue(write(cache, "b", 10));
+    assertEquals(20, cache.getUsedSize());
+    // "a" becomes the most recently used
+    assertTrue(cache.contains("a"));
+    assertTrue(write(cache, "c", 10));
+
+    assertEquals(2, cache.size());
+    assertEquals(20, cache.getUsedSize());
+    assertTrue(cache.contains("a"));
+    assertFalse(cache.contains("b"));
+    assertFalse(cache.getFile("b").exists());
+    assertTrue(cache.contains("c"));
+  }
+
+  @Test
+  void test_reservation() throws IOException {
+    DiskLruCache cache = new DiskLruCache(dir.toFile(), 100);
+    assertTrue(cache.reserve("a"));
+    // Being written by another thread
+    assertFalse(cache.reserve("a"));
+    assertFalse(cache.contains("a"));
+    cache.endWrite("a", false);
+    assertFalse(cache.contains("a"));
+
+    assertTrue(write(cache, "a", 5));
+    // Already in the cache
+    assertFalse(cache.reserve("a"));
+
+    cache.remove("a");
+    assertFalse(cache.contains("a"));
+    assertFalse(cache.getFile("a").exists());
+    assertEquals(0, cache.getUsedSize());
+  }
+
+  @Test
+  void test_load_previous_files() throws IOException {
+    File root = dir.toFile();
+    Files.write(new File(root, "old.jpg").toPath(), new byte[10]);
+    Files.write(new File(root, "new.jpg").toPath(), new byte[10]);
+    Files.write(new File(root, "tmp.part.jpg").toPath(), new byte[10]);
+    assertTrue(new File(root, "old.jpg").setLastModified(1000L));
+    assertTrue(new File(root, "new.jpg").setLastModified(2000L));
+
+    DiskLruCache cache = new DiskLruCache(root, 15);
+    cache.load(name -> name.endsWith(".jpg") && !name.contains(".part"));
+
+    // The incomplete file is deleted and the oldest file is evicted
+    assertFalse(new File(root, "tmp.part.jpg").exists());
+    assertFalse(cache.contains("old.jpg"));
+    assertFalse(new File(root, "old.jpg").exists());
+    assertTrue(cache.contains("new.jpg"));
+    assertEquals(10, cache.getUsedSize());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertFalse(new File(root, "new.jpg").exists());
+  }
+
+  @Test
+  void test_disabled_cache() throws IOException {
+    DiskLruCache cache = new DiskLruCache(dir.toFile(), 0);
+    assertFalse(cache.isEnabled());
+    assertFalse(cache.reserve("a"));
+    assertFalse(write(cache, "a", 10));
+    assertFalse(cache.contains("a"));
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.core.ui.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.weasis.core.ui.model.graphic.Graphic;
+import org.weasis.core.ui.model.graphic.GraphicLabel;
+
+class GraphicSpatialIndexTest {
+
+  private static final AffineTransform VIEW = new AffineTransform();
+
+  private final GraphicSpatialIndex index = new GraphicSpatialIndex();
+
+  private static Graphic graphic(Shape shape, float thickness) {
+    Graphic g = Mockito.mock(Graphic.class);
+    Mockito.when(g.getShape()).thenReturn(shape);
+    Mockito.when(g.getLineThickness()).thenReturn(thickness);
+    return g;
+  }
+
+  private static Rectangle2D area(double x, double y) {
+    return new Rectangle2D.Double(x, y, 1, 1);
+  }
+
+  @Test
+  void test_shape_bounds() {
+    Graphic g = graphic(new Rectangle2D.Double(100, 100, 20, 10), 1f);
+    index.add(g);
+    assertEquals(1, index.size());
+
+    assertTrue(index.getCandidates(area(110, 105), VIEW).contains(g));
+    // Inclusive test on the border
+    assertTrue(index.getCandidates(area(120, 110), VIEW).contains(g));
+    assertFalse(index.getCandidates(area(300, 300), VIEW).contains(g));
+
+    index.remove(g);
+    assertEquals(0, index.size());
+    assertFalse(index.getCandidates(area(110, 105), VIEW).contains(g));
+  }
+
+  @Test
+  void test_label_is_tested_with_the_view_transform() {
+    Graphic g = graphic(new Rectangle2D.Double(1000, 1000, 10, 10), 1f);
+    GraphicLabel label = Mockito.mock(GraphicLabel.class);
+    Mockito.when(label.getLabels()).thenReturn(new String[] {"label"}); // NON-NLS
+    Mockito.when(label.getBounds(VIEW)).thenReturn(new Rectangle2D.Double(50, 50, 40, 10));
+    Mockito.when(g.getGraphicLabel()).thenReturn(label);
+    index.add(g);
+
+    // The shape and the label are both located
+    assertTrue(index.getCandidates(area(1005, 1005), VIEW).contains(g));
+    assertTrue(index.getCandidates(area(60, 55), VIEW).contains(g));
+    assertFalse(index.getCandidates(area(500, 500), VIEW).contains(g));
+    // Without the transform, the label cannot be located
+    assertTrue(index.getCandidates(area(500, 500), null).contains(g));
+  }
+
+  @Test
+  void test_unbounded_graphics_are_always_returned() {
+    Graphic noShape = graphic(null, 1f);
+    Graphic large = graphic(new Rectangle2D.Double(0, 0, 100_000, 100_000), 1f);
+    index.add(noShape);
+    index.add(large);
+    assertEquals(2, index.size());
+    assertTrue(index.getCandidates(area(-5000, -5000), VIEW).contains(noShape));
+    assertTrue(index.getCandidates(area(-5000, -5000), VIEW).contains(large));
+  }
+
+  @Test
+  void test_max_line_thickness_follows_the_graphics() {
+    Graphic thin = graphic(new Rectangle2D.Double(0, 0, 10, 10), 2f);
+    Graphic thick = graphic(new Rectangle2D.Double(0, 0, 10, 10), 12f);
+    index.add(thin);
+    index.add(thick);
+    assertEquals(12f, index.getMaxLineThickness());
+
+    // The thickness is changed and the graphic is indexed again
+    Mockito.when(thick.getLineThickness()).thenReturn(4f);
+    index.add(thick);
+    assertEquals(4f, index.getMaxLineThickness());
+
+    index.remove(thick);
+    assertEquals(2f, index.getMaxLineThickness());
+    index.clear();
+    assertEquals(Graphic.DEFAULT_LINE_THICKNESS.floatValue(), index.getMaxLineThickness());
+  }
+}
@@ -34,6 +34,7 @@ import net.miginfocom.swing.MigLayout;
 import org.dcm4che3.data.Tag;
 import org.weasis.core.api.gui.Insertable;
 import org.weasis.core.api.gui.util.ComboItemListener;
+import org.weasis.core.api.gui.util.GuiExecutor;
 import org.weasis.core.api.gui.util.GuiUtils;
 import org.weasis.core.api.image.util.MeasurableLayer;
 import org.weasis.core.api.media.data.MediaSeries;
@@ -158,12 +159,19 @@ public class SegmentationTool extends PluginTool implements SeriesViewerListener
   public void computeStatistics(SegRegion<?> region) {
     ViewCanvas<DicomImageElement> view = EventManager.getInstance().getSelectedViewPane();
     DicomImageElement imageElement = getImageElement(view);
-    if (imageElement != null) {
-      SegContour c = getContour(imageElement, region);
-      if (c != null) {
-        MeasurableLayer layer = view.getMeasurableLayer();
-        tree.showStatistics(c, layer);
-      }
+    if (imageElement != null && comboSeg.getSelectedItem() instanceof SpecialElementRegion seg) {
+      // The contours of the image may still be built in background
+      seg.buildContoursAsync(imageElement)
+          .thenRun(
+              () ->
+                  GuiExecutor.execute(
+                      () -> {
+                        SegContour c = getContour(imageElement, region);
+                        if (c != null) {
+                          MeasurableLayer layer = view.getMeasurableLayer();
+                          tree.showStatistics(c, layer);
+                        }
+                      }));
     }
   }
 
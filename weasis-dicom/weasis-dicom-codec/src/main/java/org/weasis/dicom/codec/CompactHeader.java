@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.BulkData;
+import org.dcm4che3.data.Fragments;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.img.DicomMetaData;
+import org.dcm4che3.io.DicomInputStream;
+import org.dcm4che3.io.DicomOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Encoded copy of a DICOM header kept outside the Java heap. It allows rebuilding the header
+ * without reading the file again when the soft reference cache of {@link DicomMediaIO} has been
+ * flushed by the garbage collector.
+ *
+ * <p>The pixel data element only references the file, so it is kept as is and not encoded. The
+ * headers containing other bulk data references are not stored.
+ *
+ * <p>The native memory is freed by {@link #release()}, the calls must be synchronized by the owner.
+ *
+ * <p>Enabled by the system property {@value #P_OFF_HEAP}.
+ */
+final class CompactHeader {
+  private static final Logger LOGGER = LoggerFactory.getLogger(CompactHeader.class);
+
+  static final String P_OFF_HEAP = "weasis.dicom.header.offheap";
+  static final boolean ENABLED = Boolean.getBoolean(P_OFF_HEAP);
+
+  private static final int[] PIXEL_TAGS = {
+    Tag.PixelData, Tag.FloatPixelData, Tag.DoubleFloatPixelData
+  };
+
+  private final Arena arena;
+  private final MemorySegment segment;
+  private final String transferSyntaxUID;
+  private final int pixelTag;
+  private final VR pixelVR;
+  private final Object pixelData;
+
+  private CompactHeader(
+      Arena arena,
+      MemorySegment segment,
+      String transferSyntaxUID,
+      int pixelTag,
+      VR pixelVR,
+      Object pixelData) {
+    this.arena = arena;
+    this.segment = segment;
+    this.transferSyntaxUID = transferSyntaxUID;
+    this.pixelTag = pixelTag;
+    this.pixelVR = pixelVR;
+    this.pixelData = pixelData;
+  }
+
+  /**
+   * @param md the header read from the file
+   * @return the compact copy of the header or null if it cannot be encoded
+   */
+  static CompactHeader of(DicomMetaData md) {
+    Attributes dcm = md == null ? null : md.getDicomObject();
+    if (dcm == null) {
+      return null;
+    }
+    Attributes copy = new Attributes(dcm);
+    int pixelTag = 0;
+    VR.Holder pixelVR = new VR.Holder();
+    Object pixelData = null;
+    for (int tag : PIXEL_TAGS) {
+      pixelData = copy.getValue(tag, pixelVR);
+      if (pixelData != null) {
+        pixelTag = tag;
+        copy.remove(tag);
+        break;
+      }
+    }
+
+    try {
+      if (hasBulkData(copy)) {
+        return null;
+      }
+      ByteArrayOutputStream bos = new ByteArrayOutputStream(8192);
+      try (DicomOutputStream out = new DicomOutputStream(bos, UID.ExplicitVRLittleEndian)) {
+        out.writeDataset(null, copy);
+      }
+      byte[] bytes = bos.toByteArray();
+      // Allow to be released from another thread
+      Arena arena = Arena.ofShared();
+      try {
+        MemorySegment segment = arena.allocate(bytes.length);
+        MemorySegment.copy(bytes, 0, segment, ValueLayout.JAVA_BYTE, 0, bytes.length);
+        return new CompactHeader(
+            arena, segment, md.getTransferSyntaxUID(), pixelTag, pixelVR.vr, pixelData);
+      } catch (RuntimeException | OutOfMemoryError e) {
+        arena.close();
+        throw e;
+      }
+    } catch (Exception | OutOfMemoryError e) {
+      LOGGER.debug("Cannot build the compact header", e);
+      return null;
+    }
+  }
+
+  private static boolean hasBulkData(Attributes dcm) throws Exception {
+    return !dcm.accept(
+        (attrs, tag, vr, value) -> !(value instanceof BulkData || value instanceof Fragments),
+        true);
+  }
+
+  /**
+   * @return the header decoded from the compact copy or null if it cannot be decoded
+   */
+  DicomMetaData toMetaData() {
+    if (!segment.scope().isAlive()) {
+      return null;
+    }
+    byte[] bytes = segment.toArray(ValueLayout.JAVA_BYTE);
+    try (DicomInputStream in =
+        new DicomInputStream(new ByteArrayInputStream(bytes), UID.ExplicitVRLittleEndian)) {
+      Attributes dcm = in.readDataset();
+      if (pixelData != null) {
+        dcm.setValue(pixelTag, pixelVR, pixelData);
+      }
+      return new DicomMetaData(dcm, transferSyntaxUID);
+    } catch (Exception e) {
+      LOGGER.error("Cannot read the compact header", e);
+      return null;
+    }
+  }
+
+  /** Frees the native memory, the header cannot be decoded anymore. */
+  void release() {
+    if (segment.scope().isAlive()) {
+      arena.close();
+    }
+  }
+}
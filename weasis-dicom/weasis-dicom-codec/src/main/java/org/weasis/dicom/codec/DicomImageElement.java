@@ -13,6 +13,7 @@ import java.awt.image.RenderedImage;
 import java.io.File;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -67,8 +68,45 @@ public class DicomImageElement extends ImageElement implements DicomElement {
   public static final List<LutShape> DEFAULT_LUT_FUNCTIONS =
       List.of(
           LutShape.LINEAR, LutShape.SIGMOID, LutShape.SIGMOID_NORM, LutShape.LOG, LutShape.LOG_INV);
+  private static final int MAX_VOI_LUTS = 4;
+
   private DicomImageAdapter adapter = null;
   private Collection<LutShape> lutShapeCollection = null;
+  // Last VOI LUTs, they depend on the adapter and must be cleared when it changes
+  private final Map<VoiLutKey, LookupTableCV> voiLutCache =
+      new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<VoiLutKey, LookupTableCV> eldest) {
+          return size() > MAX_VOI_LUTS;
+        }
+      };
+
+  private record VoiLutKey(
+      double window,
+      double level,
+      double levelMin,
+      double levelMax,
+      LutShape shape,
+      boolean pixelPadding,
+      boolean inverseLut,
+      boolean fillOutsideLutRange,
+      boolean allowWinLevelOnColorImage,
+      PresentationStateLut presentationState) {
+
+    VoiLutKey(WlParams wl) {
+      this(
+          wl.getWindow(),
+          wl.getLevel(),
+          wl.getLevelMin(),
+          wl.getLevelMax(),
+          wl.getLutShape(),
+          wl.isPixelPadding(),
+          wl.isInverseLut(),
+          wl.isFillOutsideLutRange(),
+          wl.isAllowWinLevelOnColorImage(),
+          wl.getPresentationState());
+    }
+  }
 
   public DicomImageElement(DcmMediaReader mediaIO, Object key) {
     super(mediaIO, key);
@@ -263,6 +301,19 @@ public class DicomImageElement extends ImageElement implements DicomElement {
     return TagD.getTagValue(this, Tag.SOPInstanceUID, String.class);
   }
 
+  /**
+   * The thumbnail of a DICOM image is identified by the SOP Instance UID and the frame, so it is
+   * found again when the same instance is loaded from another location.
+   */
+  @Override
+  public String getThumbnailKey() {
+    String sopUID = TagD.getTagValue(this, Tag.SOPInstanceUID, String.class);
+    if (sopUID == null) {
+      return super.getThumbnailKey();
+    }
+    return sopUID + "|" + getKey();
+  }
+
   @Override
   public DcmMediaReader getMediaReader() {
     return (DcmMediaReader) super.getMediaReader();
@@ -324,7 +375,20 @@ public class DicomImageElement extends ImageElement implements DicomElement {
   @Override
   public LookupTableCV getVOILookup(WlParams wl) {
     if (isImageInitialized()) {
-      return adapter.getVOILookup(wl);
+      if (wl == null) {
+        return adapter.getVOILookup(null);
+      }
+      VoiLutKey key = new VoiLutKey(wl);
+      synchronized (voiLutCache) {
+        LookupTableCV lut = voiLutCache.get(key);
+        if (lut == null) {
+          lut = adapter.getVOILookup(wl);
+          if (lut != null) {
+            voiLutCache.put(key, lut);
+          }
+        }
+        return lut;
+      }
     }
     return null;
   }
@@ -390,6 +454,9 @@ public class DicomImageElement extends ImageElement implements DicomElement {
       DicomMetaData meta = getMediaReader().getDicomMetaData();
       if (meta != null) {
         adapter = new DicomImageAdapter(img, meta.getImageDescriptor());
+        synchronized (voiLutCache) {
+          voiLutCache.clear();
+        }
         MinMaxLocResult val = adapter.getMinMax();
         if (val != null) {
           this.minPixelValue = val.minVal;
@@ -18,7 +18,6 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -53,6 +52,7 @@ import org.weasis.core.api.media.data.Codec;
 import org.weasis.core.api.media.data.FileCache;
 import org.weasis.core.api.media.data.MediaElement;
 import org.weasis.core.api.media.data.SimpleTaggable;
+import org.weasis.core.api.media.data.TagMap;
 import org.weasis.core.api.media.data.TagView;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.api.service.BundleTools;
@@ -295,10 +295,12 @@ public class DicomMediaIO implements DcmMediaReader {
   // the dcmMetadata is
   // created within the application and is given to the ImageReader constructor
   private DicomMetaData dcmMetadata = null;
+  // Copy of the header outside the heap, when the above HEADER_CACHE has been flushed
+  private CompactHeader compactHeader = null;
 
   private URI uri;
   private int numberOfFrame;
-  private final Map<TagW, Object> tags;
+  private final TagMap tags;
   private DicomImageElement[] image = null;
   private String mimeType;
   private boolean hasPixel = false;
@@ -308,7 +310,7 @@ public class DicomMediaIO implements DcmMediaReader {
   public DicomMediaIO(URI uri) {
     this.uri = Objects.requireNonNull(uri);
     this.numberOfFrame = 0;
-    this.tags = new HashMap<>();
+    this.tags = new TagMap();
     this.mimeType = DICOM_MIMETYPE;
     this.fileCache = new FileCache(this);
   }
@@ -525,6 +527,7 @@ public class DicomMediaIO implements DcmMediaReader {
     DicomMediaUtils.computeSlicePositionVector(this);
     DicomMediaUtils.setShutter(this, header);
     DicomMediaUtils.computeSUVFactor(header, this, 0);
+    tags.trimToSize();
   }
 
   private void writeSharedFunctionalGroupsSequence(Attributes header) {
@@ -656,15 +659,26 @@ public class DicomMediaIO implements DcmMediaReader {
       FileCache cache = media.getFileCache();
       Optional<File> original = cache.getOriginalFile();
       if (original.isPresent()) {
-        LOGGER.debug(
-            "Start reading dicom image frame: {} sopUID: {}",
-            frame,
-            TagD.getTagValue(this, Tag.SOPInstanceUID));
+        String sopUID = TagD.getTagValue(this, Tag.SOPInstanceUID, String.class);
+        String rawKey = getRawCacheKey(original.get(), sopUID, frame);
+        if (rawKey != null) {
+          PlanarImage img = DicomRawCache.read(rawKey);
+          if (img != null) {
+            return noEmbeddedOverlay
+                ? ImageRendering.getImageWithoutEmbeddedOverlay(
+                    img, readMetaData().getImageDescriptor())
+                : img;
+          }
+        }
+        LOGGER.debug("Start reading dicom image frame: {} sopUID: {}", frame, sopUID);
         DicomImageReader reader = new DicomImageReader(Transcoder.dicomImageReaderSpi);
         try (DicomFileInputStream inputStream = new DicomFileInputStream(original.get().toPath())) {
           reader.setInput(inputStream);
           ImageDescriptor desc = reader.getImageDescriptor();
           PlanarImage img = reader.getPlanarImage(frame, null);
+          if (rawKey != null) {
+            DicomRawCache.write(rawKey, img);
+          }
           if (img.width() != desc.getColumns() || img.height() != desc.getRows()) {
             LOGGER.error(
                 "The native image size ({}x{}) does not match with the DICOM attributes({}x{})",
@@ -682,6 +696,23 @@ public class DicomMediaIO implements DcmMediaReader {
     return null;
   }
 
+  /**
+   * Only the frames that require to be decompressed are written in the raw cache. The native
+   * transfer syntaxes are read directly from the original file.
+   *
+   * @return the key of the frame in the raw cache, or null if the frame must not be cached
+   */
+  private String getRawCacheKey(File source, String sopUID, int frame) {
+    String tsuid = TagD.getTagValue(this, Tag.TransferSyntaxUID, String.class);
+    if (DicomRawCache.isEnabled()
+        && tsuid != null
+        && !DicomUtils.isNative(tsuid)
+        && !UID.RLELossless.equals(tsuid)) {
+      return DicomRawCache.getKey(source, sopUID, tsuid, frame);
+    }
+    return null;
+  }
+
   private static Mat getMatBuffer(ExtendSegmentedInputImageStream extParams) throws IOException {
     try (RandomAccessFile raf = new RandomAccessFile(extParams.getFile(), "r")) {
 
@@ -844,7 +875,7 @@ public class DicomMediaIO implements DcmMediaReader {
   public Map<TagW, Object> getMediaFragmentTags(Object key) {
     if (key instanceof Integer val && val > 0) {
       // Clone the shared tag
-      Map<TagW, Object> tagList = new HashMap<>(tags);
+      Map<TagW, Object> tagList = new TagMap(tags);
       SimpleTaggable taggable = new SimpleTaggable(tagList);
       if (DicomMediaUtils.writePerFrameFunctionalGroupsSequence(taggable, getDicomObject(), val)) {
         DicomMediaUtils.computeSlicePositionVector(taggable);
@@ -859,6 +890,15 @@ public class DicomMediaIO implements DcmMediaReader {
     HEADER_CACHE.remove(this);
   }
 
+  @Override
+  public synchronized void dispose() {
+    close();
+    if (compactHeader != null) {
+      compactHeader.release();
+      compactHeader = null;
+    }
+  }
+
   @Override
   public Codec getCodec() {
     return BundleTools.getCodec(DicomMediaIO.DICOM_MIMETYPE, DicomCodec.NAME);
@@ -925,6 +965,14 @@ public class DicomMediaIO implements DcmMediaReader {
     } else if (dcmMetadata != null) {
       return dcmMetadata;
     }
+    if (compactHeader != null) {
+      header = compactHeader.toMetaData();
+      if (header != null) {
+        HEADER_CACHE.put(this, header);
+        return header;
+      }
+      compactHeader = null;
+    }
 
     Optional<File> file = fileCache.getOriginalFile();
     if (file.isEmpty()) {
@@ -955,6 +1003,9 @@ public class DicomMediaIO implements DcmMediaReader {
         this.numberOfFrame = 1;
       }
       HEADER_CACHE.put(this, dicomMetaData);
+      if (CompactHeader.ENABLED) {
+        compactHeader = CompactHeader.of(dicomMetaData);
+      }
       return dicomMetaData;
     } finally {
       reader.dispose();
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.opencv.core.Rect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.util.DiskLruCache;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.core.util.FileUtil;
+import org.weasis.core.util.StringUtil;
+import org.weasis.opencv.data.FileRawImage;
+import org.weasis.opencv.data.ImageCV;
+import org.weasis.opencv.data.PlanarImage;
+
+/**
+ * Disk cache of the decoded DICOM frames. The frames of compressed transfer syntaxes are written
+ * once in {@link DicomMediaIO#CACHE_UNCOMPRESSED_DIR} as raw images (.wcv) and read again instead
+ * of being decoded when the image has been removed from the memory cache. This directory is in the
+ * temporary directory of the application, which is emptied at startup, so the files are only
+ * reused during the current session.
+ *
+ * <p>The files are identified by the SOP Instance UID, the frame number, the transfer syntax and
+ * the path, size and modification time of the source file (see {@link #getKey(File, String,
+ * String, int)}), so a modified or another copy of the instance is not read from a stale frame. The
+ * least recently used files are deleted when the size of the directory exceeds the limit defined by
+ * the system property {@value #P_CACHE_SIZE} in MB (0 disables the cache).
+ *
+ * <p>The files are written by a background thread, so the decoding thread does not wait for the
+ * disk. When too many writes are pending, the frame is not cached and will be decoded again.
+ */
+public final class DicomRawCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DicomRawCache.class);
+
+  public static final String P_CACHE_SIZE = "weasis.dicom.raw.cache.size";
+  private static final String EXTENSION = ".wcv"; // NON-NLS
+  private static final String PART_EXTENSION = ".part"; // NON-NLS
+
+  private static final int MAX_PENDING_WRITES = 16;
+
+  private static final DiskLruCache CACHE =
+      new DiskLruCache(
+          DicomMediaIO.CACHE_UNCOMPRESSED_DIR,
+          Long.getLong(P_CACHE_SIZE, 4096L) * 1024L * 1024L);
+
+  private static final ExecutorService WRITER =
+      new ThreadPoolExecutor(
+          1,
+          1,
+          0L,
+          TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<>(MAX_PENDING_WRITES),
+          ThreadUtil.getThreadFactory("DICOM Raw Cache Writer")); // NON-NLS
+
+  private DicomRawCache() {}
+
+  public static boolean isEnabled() {
+    return CACHE.isEnabled();
+  }
+
+  /**
+   * @param source the source file of the instance
+   * @param sopUID the SOP Instance UID
+   * @param tsuid the transfer syntax of the source file
+   * @param frame the frame index
+   * @return the key of the frame in the cache, or null if the instance cannot be identified
+   */
+  public static String getKey(File source, String sopUID, String tsuid, int frame) {
+    if (source == null || !StringUtil.hasText(sopUID)) {
+      return null;
+    }
+    String id =
+        String.join(
+            "|", // NON-NLS
+            sopUID,
+            tsuid,
+            source.getAbsolutePath(),
+            Long.toString(source.length()),
+            Long.toString(source.lastModified()));
+    return UUID.nameUUIDFromBytes(id.getBytes(StandardCharsets.UTF_8)) + "-" + frame + EXTENSION;
+  }
+
+  /**
+   * @param key the key of the frame, see {@link #getKey(File, String, String, int)}
+   * @return the decoded image or null if it is not in the cache
+   */
+  public static PlanarImage read(String key) {
+    if (key == null || !CACHE.contains(key)) {
+      return null;
+    }
+    File file = CACHE.getFile(key);
+    try {
+      PlanarImage img = new FileRawImage(file).read();
+      if (img != null && img.width() > 0) {
+        LOGGER.trace("Read decoded frame {} from the disk cache", key);
+        return img;
+      }
+    } catch (Exception e) {
+      LOGGER.warn("Cannot read the cached frame {}", file, e);
+    }
+    CACHE.remove(key);
+    return null;
+  }
+
+  /**
+   * Writes the decoded image in the cache in the background and deletes the least recently used
+   * files if the size limit is exceeded. Nothing is written when the frame is already in the cache,
+   * being written or when too many writes are pending.
+   *
+   * @param key the key of the frame, see {@link #getKey(File, String, String, int)}
+   * @param img the decoded image, its pixels must not be modified afterward
+   */
+  public static void write(String key, PlanarImage img) {
+    if (key == null || img == null || img.width() <= 0 || !CACHE.reserve(key)) {
+      return;
+    }
+    // New header on the same pixels, they are kept when the image is released by the memory cache
+    ImageCV pixels =
+        ImageCV.toImageCV(img.toMat().submat(new Rect(0, 0, img.width(), img.height())));
+    try {
+      WRITER.execute(() -> writeFile(key, pixels));
+    } catch (RejectedExecutionException e) {
+      LOGGER.trace("Too many pending writes, the frame {} is not cached", key);
+      pixels.release();
+      CACHE.endWrite(key, false);
+    }
+  }
+
+  private static void writeFile(String key, ImageCV img) {
+    File file = CACHE.getFile(key);
+    File tmp = CACHE.getFile(key + PART_EXTENSION);
+    boolean written = false;
+    try {
+      written = new FileRawImage(tmp).write(img) && tmp.renameTo(file);
+    } catch (Exception e) {
+      LOGGER.warn("Cannot write the decoded frame {}", file, e);
+    } finally {
+      img.release();
+      CACHE.endWrite(key, written);
+    }
+    if (!written) {
+      FileUtil.delete(tmp);
+    }
+  }
+
+  public static void clear() {
+    CACHE.clear();
+  }
+
+  public static long getUsedSize() {
+    return CACHE.getUsedSize();
+  }
+}
@@ -13,7 +13,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.dcm4che3.data.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,14 +24,12 @@ import org.weasis.core.api.explorer.ObservableEvent;
 import org.weasis.core.api.explorer.model.DataExplorerModel;
 import org.weasis.core.api.gui.util.Filter;
 import org.weasis.core.api.gui.util.GuiUtils;
-import org.weasis.core.api.image.cv.CvUtil;
 import org.weasis.core.api.media.data.Series;
 import org.weasis.core.api.media.data.SeriesEvent;
 import org.weasis.core.api.media.data.TagView;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.ui.editor.image.DefaultView2d;
 import org.weasis.core.util.FileUtil;
-import org.weasis.core.util.MathUtil;
 import org.weasis.core.util.StringUtil;
 import org.weasis.dicom.codec.TagD.Level;
 import org.weasis.dicom.codec.utils.SeriesInstanceList;
@@ -36,10 +37,21 @@ import org.weasis.dicom.codec.utils.SeriesInstanceList;
 public class DicomSeries extends Series<DicomImageElement> {
   private static final Logger LOGGER = LoggerFactory.getLogger(DicomSeries.class);
 
+  private static final int MAX_POSITION_INDEXES = 8;
+
   static final TagView defaultTagView =
       new TagView(TagD.getTagFromIDs(Tag.SeriesDescription, Tag.SeriesNumber, Tag.SeriesTime));
 
-  private static PreloadingTask preloadingTask;
+  private final Map<IndexKey, SlicePositionIndex> positionIndexes = new ConcurrentHashMap<>();
+  // Incremented when the media list changes, an index built from an older list is not stored
+  private final AtomicLong indexVersion = new AtomicLong();
+
+  private record IndexKey(Filter<DicomImageElement> filter, Comparator<DicomImageElement> sort) {}
+
+  // Number of the open batches deferring the add events, guarded by this
+  private int addingBatches;
+  // Last image added during the batches, guarded by this
+  private DicomImageElement batchMedia;
 
   public DicomSeries(String subseriesInstanceUID) {
     this(subseriesInstanceUID, null, defaultTagView);
@@ -52,6 +64,7 @@ public class DicomSeries extends Series<DicomImageElement> {
         displayTag,
         c,
         SortSeriesStack.instanceNumber);
+    setIndexedTag(TagD.get(Tag.SOPInstanceUID));
   }
 
   public boolean[] getImageInMemoryList() {
@@ -70,10 +83,11 @@ public class DicomSeries extends Series<DicomImageElement> {
   @Override
   public void addMedia(DicomImageElement media) {
     if (media != null && media.getMediaReader() != null) {
-      int insertIndex;
+      boolean deferred;
       synchronized (this) {
         // add image or multi-frame sorted by Instance Number (0020,0013) order
         int index = Collections.binarySearch(medias, media, SortSeriesStack.instanceNumber);
+        int insertIndex;
         if (index < 0) {
           insertIndex = -(index + 1);
         } else {
@@ -84,19 +98,64 @@ public class DicomSeries extends Series<DicomImageElement> {
           insertIndex = medias.size();
         }
         add(insertIndex, media);
+        deferred = addingBatches > 0;
+        if (deferred) {
+          batchMedia = media;
+        }
       }
-      DataExplorerModel model = (DataExplorerModel) getTagValue(TagW.ExplorerModel);
-      if (model != null) {
-        model.firePropertyChange(
-            new ObservableEvent(
-                ObservableEvent.BasicAction.ADD,
-                model,
-                null,
-                new SeriesEvent(SeriesEvent.Action.ADD_IMAGE, this, media)));
+      PreloadScheduler.getInstance().seriesChanged(this);
+      if (!deferred) {
+        fireAddEvent(media);
       }
     }
   }
 
+  /**
+   * Defers the add events of the images until {@link #endAddingBatch()}, which fires a single event
+   * for all the images added in between. The batches can be nested or opened by several threads.
+   */
+  public synchronized void beginAddingBatch() {
+    addingBatches++;
+  }
+
+  /**
+   * Closes a batch opened by {@link #beginAddingBatch()}. When no other batch is open, fires the
+   * add event of the images added during the batches.
+   *
+   * @return true if images have been added since the previous event
+   */
+  public boolean endAddingBatch() {
+    DicomImageElement media;
+    synchronized (this) {
+      if (addingBatches == 0) {
+        return false;
+      }
+      addingBatches--;
+      if (addingBatches > 0) {
+        return batchMedia != null;
+      }
+      media = batchMedia;
+      batchMedia = null;
+    }
+    if (media != null) {
+      fireAddEvent(media);
+      return true;
+    }
+    return false;
+  }
+
+  private void fireAddEvent(DicomImageElement media) {
+    DataExplorerModel model = (DataExplorerModel) getTagValue(TagW.ExplorerModel);
+    if (model != null) {
+      model.firePropertyChange(
+          new ObservableEvent(
+              ObservableEvent.BasicAction.ADD,
+              model,
+              null,
+              new SeriesEvent(SeriesEvent.Action.ADD_IMAGE, this, media)));
+    }
+  }
+
   @Override
   public String getToolTips() {
     StringBuilder toolTips = getToolTips(this);
@@ -151,7 +210,7 @@ public class DicomSeries extends Series<DicomImageElement> {
 
   @Override
   public void dispose() {
-    stopPreloading(this);
+    PreloadScheduler.getInstance().removeSeries(this);
     String seriesUID = (String) getTagValue(getTagID());
     String modality = TagD.getTagValue(this, Tag.Modality, String.class);
     if (DicomMediaIO.isHiddenModality(modality)) {
@@ -174,38 +233,54 @@ public class DicomSeries extends Series<DicomImageElement> {
     super.dispose();
   }
 
+  @Override
+  protected void resetSortedMediasMap() {
+    super.resetSortedMediasMap();
+    indexVersion.incrementAndGet();
+    positionIndexes.clear();
+  }
+
+  /**
+   * Returns the index of the slice locations of the media list. The index is cached until the
+   * series is modified.
+   *
+   * @param filter the filter of the media list, or null
+   * @param sort the order of the media list, or null
+   * @return the index
+   */
+  public SlicePositionIndex getSlicePositionIndex(
+      Filter<DicomImageElement> filter, Comparator<DicomImageElement> sort) {
+    IndexKey key = new IndexKey(filter, sort);
+    SlicePositionIndex index = positionIndexes.get(key);
+    if (index == null) {
+      long version = indexVersion.get();
+      synchronized (this) {
+        index = new SlicePositionIndex(copyOfMedias(filter, sort));
+      }
+      if (positionIndexes.size() >= MAX_POSITION_INDEXES) {
+        positionIndexes.clear();
+      }
+      positionIndexes.put(key, index);
+      // The list has changed while building the index, the next call builds it again
+      if (indexVersion.get() != version) {
+        positionIndexes.remove(key, index);
+      }
+    }
+    return index;
+  }
+
   @Override
   public DicomImageElement getNearestImage(
       double location,
       int offset,
       Filter<DicomImageElement> filter,
       Comparator<DicomImageElement> sort) {
-    Iterable<DicomImageElement> mediaList = getMedias(filter, sort);
-    DicomImageElement nearest = null;
-    int index = 0;
-    int bestIndex = -1;
-    synchronized (this) {
-      double bestDiff = Double.MAX_VALUE;
-      for (DicomImageElement dcm : mediaList) {
-        double[] val = (double[]) dcm.getTagValue(TagW.SlicePosition);
-        if (val != null) {
-          double diff = Math.abs(location - (val[0] + val[1] + val[2]));
-          if (diff < bestDiff) {
-            bestDiff = diff;
-            nearest = dcm;
-            bestIndex = index;
-            if (MathUtil.isEqualToZero(diff)) {
-              break;
-            }
-          }
-        }
-        index++;
-      }
+    SlicePositionIndex index = getSlicePositionIndex(filter, sort);
+    int bestIndex = index.getNearestIndex(location);
+    if (bestIndex < 0) {
+      return null;
     }
-    if (offset > 0) {
-      return getMedia(bestIndex + offset, filter, sort);
-    }
-    return nearest;
+    return index.getImage(offset > 0 ? bestIndex + offset : bestIndex);
   }
 
   @Override
@@ -214,40 +289,15 @@ public class DicomSeries extends Series<DicomImageElement> {
       int offset,
       Filter<DicomImageElement> filter,
       Comparator<DicomImageElement> sort) {
-    Iterable<DicomImageElement> mediaList = getMedias(filter, sort);
-    int index = 0;
-    int bestIndex = -1;
-    synchronized (this) {
-      double bestDiff = Double.MAX_VALUE;
-      for (DicomImageElement dcm : mediaList) {
-        double[] val = (double[]) dcm.getTagValue(TagW.SlicePosition);
-        if (val != null) {
-          double diff = Math.abs(location - (val[0] + val[1] + val[2]));
-          if (diff < bestDiff) {
-            bestDiff = diff;
-            bestIndex = index;
-            if (MathUtil.isEqualToZero(diff)) {
-              break;
-            }
-          }
-        }
-        index++;
-      }
-    }
-
+    int bestIndex = getSlicePositionIndex(filter, sort).getNearestIndex(location);
     return (offset > 0) ? (bestIndex + offset) : bestIndex;
   }
 
   @Override
   public boolean hasMediaContains(TagW tag, Object val) {
     if (val != null) {
-      synchronized (this) {
-        for (DicomImageElement media : medias) {
-          Object val2 = media.getTagValue(tag);
-          if (val.equals(val2)) {
-            return true;
-          }
-        }
+      if (super.hasMediaContains(tag, val)) {
+        return true;
       }
       if (medias.isEmpty()) {
         List<? extends DicomSpecialElement> list = getAllDicomSpecialElement();
@@ -299,133 +349,4 @@ public class DicomSeries extends Series<DicomImageElement> {
     }
     return size(null) >= DefaultView2d.MINIMAL_IMAGES_FOR_3D;
   }
-
-  public static synchronized void startPreloading(
-      DicomSeries series, List<DicomImageElement> imageList, int currentIndex) {
-    if (series != null && imageList != null) {
-      if (preloadingTask != null) {
-        if (preloadingTask.getSeries() == series) {
-          return;
-        }
-        stopPreloading(preloadingTask.getSeries());
-      }
-      preloadingTask = new PreloadingTask(series, imageList, currentIndex);
-      preloadingTask.start();
-    }
-  }
-
-  public static synchronized void stopPreloading(DicomSeries series) {
-    if (preloadingTask != null && preloadingTask.getSeries() == series) {
-      PreloadingTask moribund = preloadingTask;
-      preloadingTask = null;
-      moribund.setPreloading(false);
-      moribund.interrupt();
-    }
-  }
-
-  static class PreloadingTask extends Thread {
-    private volatile boolean preloading = true;
-    private final int index;
-    private final List<DicomImageElement> imageList;
-    private final DicomSeries series;
-
-    public PreloadingTask(DicomSeries series, List<DicomImageElement> imageList, int currentIndex) {
-      this.series = series;
-      this.imageList = imageList;
-      this.index = currentIndex;
-    }
-
-    public synchronized boolean isPreloading() {
-      return preloading;
-    }
-
-    public DicomSeries getSeries() {
-      return series;
-    }
-
-    public List<DicomImageElement> getImageList() {
-      return imageList;
-    }
-
-    public synchronized void setPreloading(boolean preloading) {
-      this.preloading = preloading;
-    }
-
-    private static long evaluateImageSize(DicomImageElement image) {
-      Integer allocated = TagD.getTagValue(image, Tag.BitsAllocated, Integer.class);
-      Integer sample = TagD.getTagValue(image, Tag.SamplesPerPixel, Integer.class);
-      Integer rows = TagD.getTagValue(image, Tag.Rows, Integer.class);
-      Integer columns = TagD.getTagValue(image, Tag.Columns, Integer.class);
-      if (allocated != null && sample != null && rows != null && columns != null) {
-        return ((long) rows * columns * sample * allocated) / 8L;
-      }
-      return 0L;
-    }
-
-    private void loadArrays(DicomImageElement img, DataExplorerModel model) {
-      // Do not load an image if another process already loading it
-      if (preloading && !img.isLoading()) {
-        Boolean cache = (Boolean) img.getTagValue(TagW.ImageCache);
-        if (cache == null || !cache) {
-          long start = System.currentTimeMillis();
-          try {
-            img.getImage();
-          } catch (OutOfMemoryError e) {
-            LOGGER.error("Out of memory when loading image: {}", img, e);
-            CvUtil.runGarbageCollectorAndWait(50);
-            return;
-          }
-          long stop = System.currentTimeMillis();
-          LOGGER.debug("Reading time: {} ms of image: {}", stop - start, img);
-          if (model != null) {
-            model.firePropertyChange(
-                new ObservableEvent(
-                    ObservableEvent.BasicAction.ADD,
-                    model,
-                    null,
-                    new SeriesEvent(SeriesEvent.Action.PRELOADING, series, img)));
-          }
-        }
-      }
-    }
-
-    @Override
-    public void run() {
-      if (imageList != null) {
-        DataExplorerModel model = (DataExplorerModel) series.getTagValue(TagW.ExplorerModel);
-        int size = imageList.size();
-        if (model == null || index < 0 || index >= size) {
-          return;
-        }
-        long imgSize = evaluateImageSize(imageList.get(index)) * size + 5000;
-        long heapSize = Runtime.getRuntime().totalMemory();
-        long heapFreeSize = Runtime.getRuntime().freeMemory();
-        if (imgSize > heapSize / 3) {
-          if (imgSize > heapFreeSize) {
-            CvUtil.runGarbageCollectorAndWait(50);
-          }
-          double val = (double) heapFreeSize / imgSize;
-          int adjustSize = (int) (size * val) / 2;
-          int start = index - adjustSize;
-          if (start < 0) {
-            adjustSize -= start;
-            start = 0;
-          }
-          if (adjustSize > size) {
-            adjustSize = size;
-          }
-          for (int i = start; i < adjustSize; i++) {
-            loadArrays(imageList.get(i), model);
-          }
-        } else {
-          if (imgSize > heapFreeSize) {
-            CvUtil.runGarbageCollectorAndWait(50);
-          }
-          for (DicomImageElement img : imageList) {
-            loadArrays(img, model);
-          }
-        }
-      }
-    }
-  }
 }
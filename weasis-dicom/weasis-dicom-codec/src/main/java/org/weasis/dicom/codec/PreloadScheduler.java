@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import javax.swing.SwingUtilities;
+import org.dcm4che3.data.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.explorer.ObservableEvent;
+import org.weasis.core.api.explorer.model.DataExplorerModel;
+import org.weasis.core.api.gui.util.Filter;
+import org.weasis.core.api.gui.util.GuiExecutor;
+import org.weasis.core.api.media.data.DecodeScheduler;
+import org.weasis.core.api.media.data.DecodeScheduler.Priority;
+import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.core.api.media.data.SeriesEvent;
+import org.weasis.core.api.media.data.TagW;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.opencv.data.PlanarImage;
+
+/**
+ * Preloads the images of all the visible views. The views are served in turn, one image at a time,
+ * and the number of preloading requests waiting in the {@link DecodeScheduler} is bounded by its
+ * number of workers. A series displayed in a view cannot starve the series of the other views.
+ *
+ * <p>For each view, the window of preloaded images is a share of the image cache budget. The
+ * images are decoded first in the scrolling direction, beyond the images reached by the user
+ * during the decoding time, and then behind the current image. The preloading of a view stops as
+ * soon as it is hidden or it displays another series.
+ *
+ * <p>The worker blocks on a queue of events: a decoding task done, a view or a series modified.
+ * The visibility of the views is evaluated on the EDT. Only the requests of the preloader are
+ * cancelled, a view waiting for the same image keeps its decoding task.
+ */
+public final class PreloadScheduler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(PreloadScheduler.class);
+
+  // Part of the image cache budget used for preloading
+  private static final double CACHE_RATIO = 0.7;
+  // Part of the window preloaded in the scrolling direction
+  private static final double AHEAD_RATIO = 0.75;
+  // Minimum delay between two evaluations of the visibility of the views
+  private static final long VISIBILITY_DELAY_NS = TimeUnit.MILLISECONDS.toNanos(100);
+  // Event waking up the worker
+  private static final Object WAKE_UP = new Object();
+
+  private static final PreloadScheduler INSTANCE = new PreloadScheduler();
+
+  private final Map<Object, ViewState> views = new LinkedHashMap<>();
+  private final List<InFlight> inFlight = new ArrayList<>();
+  // Events of the worker: the preloading tasks done or WAKE_UP
+  private final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+  private final AtomicBoolean visibilityCheck = new AtomicBoolean();
+  private volatile Set<DicomSeries> displayedSeries = Set.of();
+  private long lastVisibilityCheck;
+  private Thread worker;
+  private int turn;
+
+  private PreloadScheduler() {}
+
+  public static PreloadScheduler getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Updates the position of a view. The preloading starts if the view was not yet known.
+   *
+   * @param view the view displaying the series
+   * @param series the series
+   * @param filter the filter of the displayed images, or null
+   * @param sort the order of the displayed images, or null
+   * @param image the image displayed in the view
+   * @param visible returns false when the view is hidden
+   */
+  public synchronized void update(
+      Object view,
+      DicomSeries series,
+      Filter<DicomImageElement> filter,
+      Comparator<DicomImageElement> sort,
+      DicomImageElement image,
+      BooleanSupplier visible) {
+    Objects.requireNonNull(view);
+    if (series == null || image == null) {
+      remove(view);
+      return;
+    }
+    ViewState state = views.get(view);
+    if (state == null || state.series != series) {
+      if (state != null) {
+        cancel(state);
+      }
+      state = new ViewState(series, visible);
+      views.put(view, state);
+      updateDisplayedSeries();
+    }
+    state.filter = filter;
+    state.sort = sort;
+    state.setImage(image);
+    if (SwingUtilities.isEventDispatchThread()) {
+      state.shown = state.isVisible();
+    }
+    startWorker();
+    events.offer(WAKE_UP);
+  }
+
+  /**
+   * Wakes up the preloading when images are added to a displayed series.
+   *
+   * @param series the series
+   */
+  public void seriesChanged(DicomSeries series) {
+    if (displayedSeries.contains(series)) {
+      events.offer(WAKE_UP);
+    }
+  }
+
+  private void updateDisplayedSeries() {
+    Set<DicomSeries> set = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (ViewState state : views.values()) {
+      set.add(state.series);
+    }
+    displayedSeries = set;
+  }
+
+  /**
+   * Stops the preloading of a view.
+   *
+   * @param view the view
+   */
+  public synchronized void remove(Object view) {
+    ViewState state = views.remove(view);
+    if (state != null) {
+      cancel(state);
+      updateDisplayedSeries();
+    }
+  }
+
+  /**
+   * Stops the preloading of the series in all the views.
+   *
+   * @param series the series
+   */
+  public synchronized void removeSeries(DicomSeries series) {
+    Iterator<ViewState> it = views.values().iterator();
+    while (it.hasNext()) {
+      ViewState state = it.next();
+      if (state.series == series) {
+        it.remove();
+        cancel(state);
+      }
+    }
+    updateDisplayedSeries();
+  }
+
+  private void cancel(ViewState state) {
+    // Release the requests of the preloader, the tasks requested by a view are kept
+    Iterator<InFlight> it = inFlight.iterator();
+    while (it.hasNext()) {
+      InFlight f = it.next();
+      if (f.state == state) {
+        it.remove();
+        DecodeScheduler.getInstance().cancel(f.future);
+      }
+    }
+  }
+
+  private void startWorker() {
+    if (worker == null || !worker.isAlive()) {
+      worker = ThreadUtil.getThreadFactory("Image Preloading").newThread(this::run); // NON-NLS
+      worker.setDaemon(true);
+      worker.start();
+    }
+  }
+
+  private void run() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        synchronized (this) {
+          schedule();
+        }
+        // Block until a task is done or a view is modified
+        List<Object> batch = new ArrayList<>();
+        batch.add(events.take());
+        events.drainTo(batch);
+
+        List<InFlight> done = new ArrayList<>();
+        synchronized (this) {
+          for (Object event : batch) {
+            // The cancelled requests have already been removed
+            if (event instanceof InFlight f && inFlight.remove(f) && !f.future.isCancelled()) {
+              done.add(f);
+            }
+          }
+        }
+        // Notify outside the lock
+        for (InFlight f : done) {
+          fireLoaded(f);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Submits the next images in turn for each view. */
+  private void schedule() {
+    requestVisibilityCheck();
+    removeHiddenViews();
+    int budget = DecodeScheduler.getInstance().getWorkerNumber() - inFlight.size();
+    if (budget <= 0 || views.isEmpty()) {
+      return;
+    }
+    List<ViewState> states = new ArrayList<>(views.values());
+    long viewBudget = (long) (ImageElement.getImageCacheBudget() * CACHE_RATIO / states.size());
+    int idle = 0;
+    // Round-robin between the views, one image each time
+    while (budget > 0 && idle < states.size()) {
+      ViewState state = states.get(Math.floorMod(turn++, states.size()));
+      DicomImageElement img = state.nextImage(viewBudget);
+      if (img == null) {
+        idle++;
+        continue;
+      }
+      idle = 0;
+      Future<PlanarImage> future = img.prefetchImage(Priority.PRELOAD);
+      if (future != null) {
+        InFlight f = new InFlight(state, img, future);
+        inFlight.add(f);
+        DecodeScheduler.getInstance().whenDone(future, () -> events.offer(f));
+        budget--;
+      }
+    }
+  }
+
+  private void removeHiddenViews() {
+    boolean removed = false;
+    Iterator<ViewState> it = views.values().iterator();
+    while (it.hasNext()) {
+      ViewState state = it.next();
+      if (!state.shown) {
+        it.remove();
+        cancel(state);
+        removed = true;
+      }
+    }
+    if (removed) {
+      updateDisplayedSeries();
+    }
+  }
+
+  /** Evaluates the visibility of the views on the EDT, at most every 100 ms. */
+  private void requestVisibilityCheck() {
+    long now = System.nanoTime();
+    if (now - lastVisibilityCheck >= VISIBILITY_DELAY_NS
+        && visibilityCheck.compareAndSet(false, true)) {
+      lastVisibilityCheck = now;
+      GuiExecutor.execute(this::checkVisibility);
+    }
+  }
+
+  private void checkVisibility() {
+    visibilityCheck.set(false);
+    List<ViewState> states;
+    synchronized (this) {
+      states = new ArrayList<>(views.values());
+    }
+    boolean hidden = false;
+    for (ViewState state : states) {
+      boolean shown = state.isVisible();
+      if (shown != state.shown) {
+        state.shown = shown;
+        hidden |= !shown;
+      }
+    }
+    if (hidden) {
+      events.offer(WAKE_UP);
+    }
+  }
+
+  private static void fireLoaded(InFlight f) {
+    DataExplorerModel model = (DataExplorerModel) f.state.series.getTagValue(TagW.ExplorerModel);
+    if (model != null) {
+      model.firePropertyChange(
+          new ObservableEvent(
+              ObservableEvent.BasicAction.ADD,
+              model,
+              null,
+              new SeriesEvent(SeriesEvent.Action.PRELOADING, f.state.series, f.image)));
+    }
+  }
+
+  static long evaluateImageSize(DicomImageElement image) {
+    Integer allocated = TagD.getTagValue(image, Tag.BitsAllocated, Integer.class);
+    Integer sample = TagD.getTagValue(image, Tag.SamplesPerPixel, Integer.class);
+    Integer rows = TagD.getTagValue(image, Tag.Rows, Integer.class);
+    Integer columns = TagD.getTagValue(image, Tag.Columns, Integer.class);
+    if (allocated != null && sample != null && rows != null && columns != null) {
+      return ((long) rows * columns * sample * allocated) / 8L;
+    }
+    return 0L;
+  }
+
+  private record InFlight(ViewState state, DicomImageElement image, Future<PlanarImage> future) {}
+
+  /**
+   * Position and speed of a view, all the methods are called with the scheduler lock held except
+   * {@link #isVisible()} which is called on the EDT.
+   */
+  private static final class ViewState {
+    private final DicomSeries series;
+    private final BooleanSupplier visible;
+    // Last visibility evaluated on the EDT
+    private volatile boolean shown = true;
+    private Filter<DicomImageElement> filter;
+    private Comparator<DicomImageElement> sort;
+
+    private List<DicomImageElement> images;
+    private Map<DicomImageElement, Integer> positions;
+    private int snapshotSize = -1;
+    private Filter<DicomImageElement> snapshotFilter;
+    private Comparator<DicomImageElement> snapshotSort;
+
+    private DicomImageElement image;
+    private int index = -1;
+    private int direction = 1;
+    // Scrolling speed in images per second
+    private double speed;
+    private long lastTime;
+    // Position in the preloading order of the current window
+    private int cursor;
+
+    ViewState(DicomSeries series, BooleanSupplier visible) {
+      this.series = series;
+      this.visible = visible;
+    }
+
+    boolean isVisible() {
+      try {
+        return visible == null || visible.getAsBoolean();
+      } catch (Exception e) {
+        LOGGER.debug("Cannot get the visibility of the view", e);
+        return false;
+      }
+    }
+
+    void setImage(DicomImageElement img) {
+      if (img != image) {
+        image = img;
+        cursor = 0;
+        int oldIndex = index;
+        index = -1;
+        long now = System.nanoTime();
+        if (oldIndex >= 0 && positions != null) {
+          Integer newIndex = positions.get(img);
+          if (newIndex != null) {
+            updateSpeed(newIndex - oldIndex, now);
+            index = newIndex;
+          }
+        }
+        lastTime = now;
+      }
+    }
+
+    private void updateSpeed(int delta, long now) {
+      double seconds = (now - lastTime) / 1.0e9;
+      if (delta == 0) {
+        return;
+      }
+      if (seconds > 1.0 || seconds <= 0.0) {
+        speed = 0.0;
+      } else {
+        // Exponential moving average of the instant speed
+        speed = 0.7 * speed + 0.3 * (Math.abs(delta) / seconds);
+      }
+      direction = Integer.signum(delta);
+    }
+
+    private void refreshSnapshot() {
+      int size = series.size(null);
+      if (images == null
+          || size != snapshotSize
+          || filter != snapshotFilter
+          || sort != snapshotSort) {
+        images = series.copyOfMedias(filter, sort);
+        positions = new IdentityHashMap<>(images.size() * 2);
+        for (int i = 0; i < images.size(); i++) {
+          positions.put(images.get(i), i);
+        }
+        snapshotSize = size;
+        snapshotFilter = filter;
+        snapshotSort = sort;
+        index = -1;
+        cursor = 0;
+      }
+      if (index < 0 && image != null) {
+        index = positions.getOrDefault(image, -1);
+      }
+    }
+
+    /**
+     * Returns the next image to preload in the window of the view.
+     *
+     * @param memoryBudget the size of the images of the window
+     * @return the image or null if the window is fully loaded
+     */
+    DicomImageElement nextImage(long memoryBudget) {
+      refreshSnapshot();
+      int size = images.size();
+      if (index < 0 || size < 2) {
+        return null;
+      }
+      long imgSize = Math.max(1L, evaluateImageSize(images.get(index)));
+      int window = (int) Math.min(size - 1L, memoryBudget / imgSize);
+      if (window <= 0) {
+        return null;
+      }
+      boolean scrolling = speed > 0.0;
+      int ahead = scrolling ? (int) Math.ceil(window * AHEAD_RATIO) : (window + 1) / 2;
+      int behind = window - ahead;
+      // Images reached by the user during the decoding time are read by the view itself
+      double decodeSeconds = DecodeScheduler.getInstance().getMeanDecodeTime() / 1000.0;
+      int lead = scrolling ? Math.min(ahead - 1, (int) (speed * decodeSeconds)) : 0;
+
+      int count = ahead + behind;
+      while (cursor < count) {
+        int pos = positionInWindow(cursor++, ahead, lead);
+        int k = index + pos;
+        if (k >= 0 && k < size) {
+          DicomImageElement img = images.get(k);
+          if (img.isReadable()
+              && !img.isImageInCache()
+              && !DecodeScheduler.getInstance().isPending(img)) {
+            return img;
+          }
+        }
+      }
+      return null;
+    }
+
+    /** Returns the offset from the current image of the n-th image of the preloading order. */
+    private int positionInWindow(int n, int ahead, int lead) {
+      if (n < ahead - lead) {
+        // Ahead, beyond the lead
+        return direction * (lead + 1 + n);
+      } else if (n < ahead) {
+        // Ahead, within the lead
+        return direction * (n - (ahead - lead) + 1);
+      }
+      // Behind
+      return -direction * (n - ahead + 1);
+    }
+  }
+}
@@ -14,12 +14,21 @@ import java.awt.Point;
 import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import javax.swing.SwingUtilities;
 import javax.swing.tree.DefaultMutableTreeNode;
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Sequence;
@@ -28,11 +37,14 @@ import org.dcm4che3.img.data.CIELab;
 import org.dcm4che3.img.util.DicomUtils;
 import org.joml.Vector3d;
 import org.opencv.core.Core;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.weasis.core.api.gui.util.DecFormatter;
 import org.weasis.core.api.gui.util.GuiUtils;
 import org.weasis.core.api.image.measure.MeasurementsAdapter;
 import org.weasis.core.api.util.ResourceUtil.OtherIcon;
 import org.weasis.core.api.util.ResourceUtil.ResourceIconPath;
+import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.ui.model.graphic.imp.seg.SegContour;
 import org.weasis.core.ui.model.graphic.imp.seg.SegMeasurableLayer;
 import org.weasis.core.ui.model.graphic.imp.seg.SegRegion;
@@ -57,8 +69,36 @@ public class SegSpecialElement extends HiddenSpecialElement
     roundDouble.setGroupingUsed(false);
   }
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegSpecialElement.class);
+
+  // Bounded pool building the contours of the segments of the displayed slices
+  private static final int CONTOUR_THREADS =
+      Math.clamp(Runtime.getRuntime().availableProcessors() - 1, 1, 8);
+  private static final ExecutorService CONTOUR_EXECUTOR =
+      ThreadUtil.buildNewFixedThreadExecutor(CONTOUR_THREADS, "SEG Contour Builder"); // NON-NLS
+  // Requests of the displayed images, each one builds the contours of an image with the pool above
+  private static final ExecutorService CONTOUR_REQUESTS =
+      ThreadUtil.buildNewSingleThreadExecutor("SEG Contour Request"); // NON-NLS
+  private static final ExecutorService STATISTICS_EXECUTOR =
+      ThreadUtil.buildNewSingleThreadExecutor("SEG Statistics"); // NON-NLS
+
+  /**
+   * Frame of the SEG containing the binary mask of a segment
+   *
+   * @param index the frame number (starting at 1)
+   * @param region the segment
+   */
+  private record SegFrame(int index, SegRegion<?> region) {}
+
   private final Map<String, Map<String, Set<SegContour>>> refMap = new HashMap<>();
-  private final Map<Integer, Set<SegContour>> roiMap = new HashMap<>();
+  // Cache of the contours by frame number, built on demand
+  private final Map<Integer, Set<SegContour>> roiMap = new ConcurrentHashMap<>();
+  // Frames of the segments by referenced SOP Instance UID, replaced when fully built
+  private volatile Map<String, List<SegFrame>> frameRefs = Map.of();
+  private final Set<String> builtReferences = ConcurrentHashMap.newKeySet();
+  private final Map<String, CompletableFuture<Void>> pendingBuilds = new ConcurrentHashMap<>();
+  private final AtomicInteger generation = new AtomicInteger();
+  private volatile DicomSeries segSeries;
   private final Map<String, Set<SegContour>> postitionMap = new HashMap<>();
   private final Map<Integer, SegRegion<DicomImageElement>> segAttributes = new HashMap<>();
 
@@ -203,8 +243,20 @@ public class SegSpecialElement extends HiddenSpecialElement
     return OtherIcon.SEGMENTATION;
   }
 
+  /**
+   * Reads the segments and the frames referencing each image. The contours are built on demand for
+   * the displayed images (see {@link #buildContoursAsync(DicomImageElement)}) and the number of
+   * pixels of each segment is computed in background.
+   *
+   * @param series the series of the SEG containing the binary masks
+   */
   public void initContours(DicomSeries series) {
+    int currentGeneration = generation.incrementAndGet();
+    this.segSeries = series;
     roiMap.clear();
+    builtReferences.clear();
+    // Remove the contours of a previous initialization
+    refMap.values().forEach(map -> map.replaceAll((_, _) -> new LinkedHashSet<>()));
 
     Attributes dicom = ((DicomMediaIO) mediaIO).getDicomObject();
     String segmentType = dicom.getString(Tag.SegmentationType);
@@ -250,66 +302,170 @@ public class SegSpecialElement extends HiddenSpecialElement
       }
     }
 
+    List<SegFrame> frames = new ArrayList<>();
+    Map<String, List<SegFrame>> refs = new HashMap<>();
     Sequence perFrameSeq = dicom.getSequence(Tag.PerFrameFunctionalGroupsSequence);
-    if (perFrameSeq != null) {
+    if (perFrameSeq != null && series != null) {
       int index = 0;
       for (Attributes frame : perFrameSeq) {
         index++;
-        List<String> sopUIDList = new ArrayList<>();
+        Attributes refSeqNb = frame.getNestedDataset(Tag.SegmentIdentificationSequence);
+        Integer nb =
+            refSeqNb == null
+                ? null
+                : DicomUtils.getIntegerFromDicomElement(
+                    refSeqNb, Tag.ReferencedSegmentNumber, null);
+        SegRegion<?> c = nb == null ? null : segAttributes.get(nb);
+        if (c == null || series.getMedia(index - 1, null, null) == null) {
+          continue;
+        }
+
+        SegFrame segFrame = new SegFrame(index, c);
+        frames.add(segFrame);
         Sequence derivationSeq = frame.getSequence(Tag.DerivationImageSequence);
         if (derivationSeq != null) {
+          List<String> sopUIDList = new ArrayList<>();
           for (Attributes derivation : derivationSeq) {
             HiddenSeriesManager.addSourceImage(derivation, sopUIDList);
           }
+          sopUIDList.forEach(
+              sopUID -> refs.computeIfAbsent(sopUID, _ -> new ArrayList<>()).add(segFrame));
         }
 
-        DicomImageElement binaryMask = series.getMedia(index - 1, null, null);
-        if (binaryMask != null) {
-          Attributes refSeqNb = frame.getNestedDataset(Tag.SegmentIdentificationSequence);
-          if (refSeqNb != null) {
-            Integer nb =
-                DicomUtils.getIntegerFromDicomElement(refSeqNb, Tag.ReferencedSegmentNumber, null);
-            if (nb != null) {
-              SegRegion<?> c = segAttributes.get(nb);
-              if (c != null) {
-                buildGraphic(binaryMask, index, c);
-                Point p = regionPosition.get(c);
-                if (p != null) {
-                  if (p.x == -1) {
-                    p.x = index - 1;
-                  } else {
-                    p.y = index - 1;
-                  }
-                }
-              }
-            }
+        Point p = regionPosition.get(c);
+        if (p != null) {
+          if (p.x == -1) {
+            p.x = index - 1;
+          } else {
+            p.y = index - 1;
           }
         }
-
-        Set<SegContour> contour = roiMap.get(index);
-        if (contour != null && !contour.isEmpty()) {
-          refMap.forEach(
-              (key, _) -> {
-                Map<String, Set<SegContour>> map = refMap.get(key);
-                if (map != null) {
-                  sopUIDList.forEach(
-                      sopUID -> {
-                        Set<SegContour> list = map.get(sopUID);
-                        if (list != null) {
-                          list.addAll(contour);
-                        }
-                      });
-                }
-              });
-        }
       }
     }
 
+    // Publish the references once built, they are read by the threads building the contours
+    frameRefs = Map.copyOf(refs);
+
     regionPosition.forEach(
         (region, p) -> {
           SegMeasurableLayer<DicomImageElement> measurableLayer = getMeasurableLayer(series, p);
           region.setMeasurableLayer(measurableLayer);
         });
+
+    if (!frames.isEmpty()) {
+      STATISTICS_EXECUTOR.execute(() -> computePixelCount(series, frames, currentGeneration));
+    }
+  }
+
+  /** Computes the number of pixels of each segment over the whole volume. */
+  private void computePixelCount(DicomSeries series, List<SegFrame> frames, int gen) {
+    for (SegFrame frame : frames) {
+      if (gen != generation.get()) {
+        // The contours have been initialized again
+        return;
+      }
+      DicomImageElement binaryMask = series.getMedia(frame.index() - 1, null, null);
+      PlanarImage binary = binaryMask == null ? null : binaryMask.getImage();
+      if (binary != null) {
+        frame.region().addPixels(Core.countNonZero(binary.toMat()));
+        ImageConversion.releasePlanarImage(binary);
+      }
+    }
+  }
+
+  /**
+   * Returns the contours of the image. Outside the EDT, waits until the contours are built. In the
+   * EDT, returns the contours already built, see {@link #buildContoursAsync(DicomImageElement)}.
+   */
+  @Override
+  public Collection<SegContour> getContours(DicomImageElement img) {
+    CompletableFuture<Void> build = buildContoursAsync(img);
+    if (!build.isDone() && !SwingUtilities.isEventDispatchThread()) {
+      build.join();
+    }
+    return SpecialElementRegion.super.getContours(img);
+  }
+
+  @Override
+  public CompletableFuture<Void> buildContoursAsync(DicomImageElement img) {
+    String sopUID = TagD.getTagValue(img, Tag.SOPInstanceUID, String.class);
+    if (sopUID == null || builtReferences.contains(sopUID)) {
+      return CompletableFuture.completedFuture(null);
+    }
+    CompletableFuture<Void> future =
+        pendingBuilds.computeIfAbsent(
+            sopUID, uid -> CompletableFuture.runAsync(() -> buildContours(uid), CONTOUR_REQUESTS));
+    future.whenComplete((_, _) -> pendingBuilds.remove(sopUID, future));
+    return future;
+  }
+
+  /**
+   * Builds, in parallel across the segments, the contours of the frames referencing an image.
+   *
+   * @param sopUID the SOP Instance UID of the referenced image
+   */
+  private void buildContours(String sopUID) {
+    if (builtReferences.contains(sopUID)) {
+      return;
+    }
+    Map<String, List<SegFrame>> refs = frameRefs;
+    List<SegFrame> frames = refs.get(sopUID);
+    DicomSeries series = segSeries;
+    if (frames == null || frames.isEmpty() || series == null) {
+      builtReferences.add(sopUID);
+      return;
+    }
+
+    int gen = generation.get();
+    List<Callable<Set<SegContour>>> tasks = new ArrayList<>(frames.size());
+    for (SegFrame frame : frames) {
+      tasks.add(() -> getFrameContours(series, frame));
+    }
+    Set<SegContour> contours = new LinkedHashSet<>();
+    try {
+      for (Future<Set<SegContour>> future : CONTOUR_EXECUTOR.invokeAll(tasks)) {
+        contours.addAll(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    } catch (ExecutionException e) {
+      LOGGER.error("Cannot build the contours of the segmentation", e);
+    }
+
+    synchronized (refMap) {
+      if (gen == generation.get() && builtReferences.add(sopUID) && !contours.isEmpty()) {
+        // Replace the set instead of modifying the one that can be painted
+        refMap.forEach(
+            (_, map) -> {
+              Set<SegContour> list = map.get(sopUID);
+              if (list != null) {
+                Set<SegContour> set = new LinkedHashSet<>(list);
+                set.addAll(contours);
+                map.put(sopUID, set);
+              }
+            });
+      }
+    }
+  }
+
+  private Set<SegContour> getFrameContours(DicomSeries series, SegFrame frame) {
+    Set<SegContour> contours = roiMap.get(frame.index());
+    if (contours == null) {
+      DicomImageElement binaryMask = series.getMedia(frame.index() - 1, null, null);
+      contours = new LinkedHashSet<>();
+      if (binaryMask != null) {
+        SegContour contour = buildGraphic(binaryMask, frame.index(), frame.region());
+        if (contour != null) {
+          contours.add(contour);
+        }
+      }
+      Set<SegContour> previous = roiMap.putIfAbsent(frame.index(), contours);
+      if (previous != null) {
+        contours = previous;
+      }
+    }
+    return contours;
   }
 
   private void addPositionMap(Attributes frame, Set<SegContour> contour) {
@@ -359,16 +515,21 @@ public class SegSpecialElement extends HiddenSpecialElement
     return null;
   }
 
-  private void buildGraphic(DicomImageElement binaryMask, int id, SegRegion<?> region) {
+  private static SegContour buildGraphic(
+      DicomImageElement binaryMask, int id, SegRegion<?> region) {
     PlanarImage binary = binaryMask.getImage();
+    if (binary == null) {
+      return null;
+    }
     List<Segment> segmentList = Region.buildSegmentList(binary);
     int nbPixels = Core.countNonZero(binary.toMat());
     ImageConversion.releasePlanarImage(binary);
-    if (!segmentList.isEmpty()) {
-      SegContour contour = new SegContour(String.valueOf(id), segmentList, nbPixels);
-      region.addPixels(contour);
-      contour.setAttributes(region);
-      roiMap.computeIfAbsent(id, _ -> new LinkedHashSet<>()).add(contour);
+    if (segmentList.isEmpty()) {
+      return null;
     }
+    // The pixels of the region are counted by computePixelCount()
+    SegContour contour = new SegContour(String.valueOf(id), segmentList, nbPixels);
+    contour.setAttributes(region);
+    return contour;
   }
 }
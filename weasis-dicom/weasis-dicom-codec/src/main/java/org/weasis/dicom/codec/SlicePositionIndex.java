@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import org.dcm4che3.data.Tag;
+import org.weasis.core.api.media.data.TagW;
+
+/**
+ * Immutable index of the slice locations of a media list (sum of the {@link TagW#SlicePosition}
+ * components). The locations are sorted, so the nearest image of a location is found by binary
+ * search instead of iterating over the tags of all the images.
+ *
+ * @see DicomSeries#getSlicePositionIndex(org.weasis.core.api.gui.util.Filter,
+ *     java.util.Comparator)
+ */
+public final class SlicePositionIndex {
+
+  private final List<DicomImageElement> images;
+  private final int listSize;
+  private final String frameOfReferenceUID;
+  // Locations in ascending order and their index in the media list
+  private final double[] sortedLocations;
+  private final int[] listIndexes;
+  // Location by index in the media list, NaN when unknown
+  private final double[] locations;
+
+  /**
+   * @param images a copy of the media list, it must not be modified afterward
+   */
+  SlicePositionIndex(List<DicomImageElement> images) {
+    this.images = images;
+    int size = images.size();
+    this.listSize = size;
+    this.locations = new double[size];
+    int nb = 0;
+    String fruid = null;
+    for (int i = 0; i < size; i++) {
+      DicomImageElement img = images.get(i);
+      double[] val = (double[]) img.getTagValue(TagW.SlicePosition);
+      if (val == null) {
+        locations[i] = Double.NaN;
+      } else {
+        locations[i] = val[0] + val[1] + val[2];
+        nb++;
+        if (fruid == null) {
+          fruid = TagD.getTagValue(img, Tag.FrameOfReferenceUID, String.class);
+        }
+      }
+    }
+    this.frameOfReferenceUID = fruid;
+
+    Integer[] order = new Integer[nb];
+    int k = 0;
+    for (int i = 0; i < size; i++) {
+      if (!Double.isNaN(locations[i])) {
+        order[k++] = i;
+      }
+    }
+    // Stable sort: the same locations keep the order of the media list
+    Arrays.sort(order, (a, b) -> Double.compare(locations[a], locations[b]));
+    this.sortedLocations = new double[nb];
+    this.listIndexes = new int[nb];
+    for (int i = 0; i < nb; i++) {
+      listIndexes[i] = order[i];
+      sortedLocations[i] = locations[order[i]];
+    }
+  }
+
+  /**
+   * @return the size of the indexed media list
+   */
+  public int getListSize() {
+    return listSize;
+  }
+
+  /**
+   * @param index the index in the media list
+   * @return the image or null if the index is out of bounds
+   */
+  public DicomImageElement getImage(int index) {
+    if (index < 0 || index >= listSize) {
+      return null;
+    }
+    return images.get(index);
+  }
+
+  public String getFrameOfReferenceUID() {
+    return frameOfReferenceUID;
+  }
+
+  public boolean isEmpty() {
+    return sortedLocations.length == 0;
+  }
+
+  /**
+   * @param index the index in the media list
+   * @return the slice location or NaN when unknown
+   */
+  public double getLocation(int index) {
+    if (index < 0 || index >= listSize) {
+      return Double.NaN;
+    }
+    return locations[index];
+  }
+
+  /**
+   * Returns the index in the media list of the image nearest to the location. When several images
+   * are at the same distance, the first one of the media list is returned.
+   *
+   * @param location the slice location
+   * @return the index in the media list or -1 when no image has a location
+   */
+  public int getNearestIndex(double location) {
+    int n = sortedLocations.length;
+    if (n == 0 || Double.isNaN(location)) {
+      return -1;
+    }
+    int pos = Arrays.binarySearch(sortedLocations, location);
+    if (pos < 0) {
+      pos = -(pos + 1);
+    }
+    double bestDiff = Double.MAX_VALUE;
+    if (pos < n) {
+      bestDiff = Math.abs(sortedLocations[pos] - location);
+    }
+    if (pos > 0) {
+      bestDiff = Math.min(bestDiff, Math.abs(sortedLocations[pos - 1] - location));
+    }
+    // Select the first image of the media list among the nearest ones
+    int best = Integer.MAX_VALUE;
+    for (int i = pos - 1; i >= 0 && Math.abs(sortedLocations[i] - location) == bestDiff; i--) {
+      best = Math.min(best, listIndexes[i]);
+    }
+    for (int i = pos; i < n && Math.abs(sortedLocations[i] - location) == bestDiff; i++) {
+      best = Math.min(best, listIndexes[i]);
+    }
+    return best == Integer.MAX_VALUE ? -1 : best;
+  }
+
+  /**
+   * Returns true when the locations of both indexes can be compared, i.e. they have the same
+   * frame of reference.
+   *
+   * @param other the other index
+   * @return true if the locations share the same frame of reference
+   */
+  public boolean hasSameFrameOfReference(SlicePositionIndex other) {
+    return other != null
+        && frameOfReferenceUID != null
+        && Objects.equals(frameOfReferenceUID, other.frameOfReferenceUID);
+  }
+
+  /**
+   * Maps an image of this media list to the nearest image of another media list.
+   *
+   * @param index the index in this media list
+   * @param target the index of the other media list
+   * @return the index in the other media list or -1 when the frames of reference are different or
+   *     when the image has no location
+   */
+  public int mapIndex(int index, SlicePositionIndex target) {
+    if (!hasSameFrameOfReference(target)) {
+      return -1;
+    }
+    return target.getNearestIndex(getLocation(index));
+  }
+}
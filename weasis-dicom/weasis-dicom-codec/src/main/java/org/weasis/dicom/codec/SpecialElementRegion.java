@@ -15,6 +15,7 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import org.dcm4che3.data.Tag;
 import org.joml.Vector3d;
 import org.weasis.core.api.media.data.Series;
@@ -87,6 +88,17 @@ public interface SpecialElementRegion {
     return Collections.emptyList();
   }
 
+  /**
+   * Builds in background the contours of the image when they are not ready yet.
+   *
+   * @param img the image
+   * @return a future completed when {@link #getContours(DicomImageElement)} returns all the
+   *     contours of the image
+   */
+  default CompletableFuture<Void> buildContoursAsync(DicomImageElement img) {
+    return CompletableFuture.completedFuture(null);
+  }
+
   default void updateOpacityInSegAttributes(float opacity) {
     int opacityValue = (int) (opacity * 255f);
     getSegAttributes()
@@ -23,6 +23,7 @@ import org.weasis.core.api.image.AbstractOp;
 import org.weasis.core.api.image.ImageOpEvent;
 import org.weasis.core.api.image.ImageOpEvent.OpEvent;
 import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.core.util.LangUtil;
 import org.weasis.dicom.codec.DicomMediaIO;
 import org.weasis.dicom.codec.PRSpecialElement;
 import org.weasis.opencv.data.PlanarImage;
@@ -97,4 +98,10 @@ public class OverlayOp extends AbstractOp {
     }
     params.put(Param.OUTPUT_IMG, result);
   }
+
+  @Override
+  public boolean isRegionInvariant() {
+    // The overlays are defined in the coordinates of the whole image
+    return !LangUtil.getNULLtoFalse((Boolean) params.get(P_SHOW));
+  }
 }
@@ -142,6 +142,13 @@ public class ShutterOp extends AbstractOp {
     params.put(Param.OUTPUT_IMG, result);
   }
 
+  @Override
+  public boolean isRegionInvariant() {
+    // The shutter shapes are defined in the coordinates of the whole image
+    return !LangUtil.getNULLtoFalse((Boolean) params.get(P_SHOW))
+        || (params.get(P_SHAPE) == null && params.get(WindowAndPresetsOp.P_PR_ELEMENT) == null);
+  }
+
   private Color getShutterColor() {
     Color color = (Color) params.get(P_RGB_COLOR);
     if (color == null) {
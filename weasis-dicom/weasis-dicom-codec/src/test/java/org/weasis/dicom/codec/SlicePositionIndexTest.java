@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.codec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.dcm4che3.data.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.weasis.core.api.media.data.TagW;
+
+class SlicePositionIndexTest {
+
+  private static DicomImageElement image(Double location, String frameOfReferenceUID) {
+    DicomImageElement img = Mockito.mock(DicomImageElement.class);
+    double[] position = location == null ? null : new double[] {1.0, -1.0, location};
+    Mockito.when(img.getTagValue(TagW.SlicePosition)).thenReturn(position);
+    Mockito.when(img.getTagValue(TagD.get(Tag.FrameOfReferenceUID)))
+        .thenReturn(frameOfReferenceUID);
+    return img;
+  }
+
+  private static List<DicomImageElement> images(Double... locations) {
+    return imagesOf(null, locations);
+  }
+
+  private static List<DicomImageElement> imagesOf(
+      String frameOfReferenceUID, Double... locations) {
+    List<DicomImageElement> list = new ArrayList<>();
+    for (Double location : locations) {
+      list.add(image(location, frameOfReferenceUID));
+    }
+    return list;
+  }
+
+  @Test
+  void test_nearest_index_in_unsorted_list() {
+    List<DicomImageElement> list = images(30.0, 10.0, 20.0, 0.0);
+    SlicePositionIndex index = new SlicePositionIndex(list);
+
+    assertEquals(4, index.getListSize());
+    assertFalse(index.isEmpty());
+    assertEquals(1, index.getNearestIndex(10.0));
+    assertEquals(1, index.getNearestIndex(12.0));
+    assertEquals(2, index.getNearestIndex(18.0));
+    // Out of the range of the locations
+    assertEquals(3, index.getNearestIndex(-50.0));
+    assertEquals(0, index.getNearestIndex(100.0));
+    assertSame(list.get(2), index.getImage(2));
+    assertNull(index.getImage(4));
+    assertEquals(20.0, index.getLocation(2));
+  }
+
+  @Test
+  void test_same_distance_returns_the_first_image_of_the_list() {
+    SlicePositionIndex index = new SlicePositionIndex(images(20.0, 10.0, 10.0, 0.0));
+    assertEquals(1, index.getNearestIndex(10.0));
+    // 10 and 20 are at the same distance, 0 is the first index of the list
+    assertEquals(0, index.getNearestIndex(15.0));
+    assertEquals(1, index.getNearestIndex(5.0 + 1e-9));
+  }
+
+  @Test
+  void test_images_without_location() {
+    SlicePositionIndex index = new SlicePositionIndex(images(null, 5.0, null));
+    assertEquals(3, index.getListSize());
+    assertTrue(Double.isNaN(index.getLocation(0)));
+    assertEquals(1, index.getNearestIndex(-10.0));
+    assertEquals(-1, index.getNearestIndex(Double.NaN));
+
+    SlicePositionIndex empty = new SlicePositionIndex(images(null, null));
+    assertTrue(empty.isEmpty());
+    assertEquals(-1, empty.getNearestIndex(0.0));
+  }
+
+  @Test
+  void test_map_index_with_the_same_frame_of_reference() {
+    SlicePositionIndex source = new SlicePositionIndex(imagesOf("1.2.3", 0.0, 5.0, 10.0, null));
+    SlicePositionIndex target = new SlicePositionIndex(imagesOf("1.2.3", 9.0, 6.0, 3.0, 0.0));
+    SlicePositionIndex other = new SlicePositionIndex(imagesOf("1.2.4", 0.0, 5.0, 10.0));
+
+    assertEquals("1.2.3", source.getFrameOfReferenceUID());
+    assertTrue(source.hasSameFrameOfReference(target));
+    assertEquals(3, source.mapIndex(0, target));
+    assertEquals(1, source.mapIndex(1, target));
+    assertEquals(0, source.mapIndex(2, target));
+    // No location
+    assertEquals(-1, source.mapIndex(3, target));
+
+    assertFalse(source.hasSameFrameOfReference(other));
+    assertEquals(-1, source.mapIndex(0, other));
+    // Without frame of reference, the locations cannot be compared
+    SlicePositionIndex unknown = new SlicePositionIndex(images(0.0, 5.0));
+    assertFalse(unknown.hasSameFrameOfReference(new SlicePositionIndex(images(0.0, 5.0))));
+    assertEquals(-1, source.mapIndex(0, null));
+  }
+}
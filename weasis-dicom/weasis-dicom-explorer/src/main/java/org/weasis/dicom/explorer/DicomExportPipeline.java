@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.swing.tree.DefaultMutableTreeNode;
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.media.DicomDirWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.task.CircularProgressBar;
+import org.weasis.core.api.gui.util.AppProperties;
+import org.weasis.core.api.gui.util.GuiExecutor;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.core.util.FileUtil;
+
+/**
+ * Writes the DICOM files of an export. The instances are transformed (attribute editors and
+ * transcoding) in parallel, while the output and the DICOMDIR records are written by the calling
+ * thread in the order of submission.
+ *
+ * <p>In a folder, each instance is written directly at its final location. In a ZIP file, each
+ * instance is spooled into a temporary file which is streamed into the archive and deleted as soon
+ * as it is written, so the spool never holds more than the instances in progress.
+ *
+ * <p>The progress is reported in bytes of the source files.
+ */
+final class DicomExportPipeline implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DicomExportPipeline.class);
+
+  private static final int N_THREADS =
+      Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 4));
+  // Number of instances transformed ahead of the writer
+  private static final int MAX_PENDING = N_THREADS * 2;
+
+  private record Pending(
+      Future<Attributes> result, DefaultMutableTreeNode node, File file, long length) {}
+
+  private final ExplorerTask<?, ?> task;
+  private final File baseDir;
+  private final File zipFile;
+  private final ZipOutputStream zip;
+  private final DicomDirWriter dicomDir;
+  private final ExecutorService executor;
+  private final Deque<Pending> pending = new ArrayDeque<>();
+  private final long totalLength;
+  private long doneLength;
+  private int lastPercent = -1;
+  private boolean dicomDirClosed;
+  private boolean completed;
+
+  private DicomExportPipeline(
+      ExplorerTask<?, ?> task, File baseDir, File zipFile, boolean dicomdir, long totalLength)
+      throws IOException {
+    this.task = task;
+    this.baseDir = baseDir;
+    this.zipFile = zipFile;
+    this.totalLength = totalLength;
+    ZipOutputStream out = null;
+    try {
+      if (zipFile != null) {
+        out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile), 65536));
+        // Most of the pixel data cannot be compressed much, favor the speed
+        out.setLevel(Deflater.BEST_SPEED);
+      }
+      this.dicomDir = dicomdir ? DicomDirLoader.open(new File(baseDir, "DICOMDIR")) : null;
+    } catch (IOException e) {
+      FileUtil.safeClose(out);
+      throw e;
+    }
+    this.zip = out;
+    this.executor = ThreadUtil.buildNewFixedThreadExecutor(N_THREADS, "DICOM Exporter"); // NON-NLS
+  }
+
+  /**
+   * @param task the export task
+   * @param exportDir the output folder
+   * @param dicomdir true to write a DICOMDIR at the root of the folder
+   * @param totalLength the size of the source files
+   */
+  static DicomExportPipeline toFolder(
+      ExplorerTask<?, ?> task, File exportDir, boolean dicomdir, long totalLength)
+      throws IOException {
+    return new DicomExportPipeline(task, exportDir, null, dicomdir, totalLength);
+  }
+
+  /**
+   * @param task the export task
+   * @param zipFile the output ZIP file
+   * @param dicomdir true to write a DICOMDIR at the root of the archive
+   * @param totalLength the size of the source files
+   */
+  static DicomExportPipeline toZip(
+      ExplorerTask<?, ?> task, File zipFile, boolean dicomdir, long totalLength)
+      throws IOException {
+    File spoolDir =
+        FileUtil.createTempDir(
+            AppProperties.buildAccessibleTempDirectory(
+                "tmp", LocalExport.Format.DICOM_ZIP.getExtension())); // NON-NLS
+    try {
+      return new DicomExportPipeline(task, spoolDir, zipFile, dicomdir, totalLength);
+    } catch (IOException e) {
+      FileUtil.recursiveDelete(spoolDir);
+      throw e;
+    }
+  }
+
+  /**
+   * Submits an instance for writing. When too many instances are in progress, waits for the
+   * oldest ones and writes them.
+   *
+   * @param node the node of the export tree
+   * @param path the relative path of the folder of the instance
+   * @param fileName the name of the file
+   * @param length the size of the source file
+   * @param writer writes the instance into the given file and returns its attributes, or null when
+   *     the instance cannot be written
+   */
+  void submit(
+      DefaultMutableTreeNode node,
+      String path,
+      String fileName,
+      long length,
+      Function<File, Attributes> writer)
+      throws IOException {
+    File file = new File(new File(baseDir, path), fileName);
+    Future<Attributes> result =
+        executor.submit(
+            () -> {
+              if (task.isCancelled()) {
+                return null;
+              }
+              file.getParentFile().mkdirs();
+              return writer.apply(file);
+            });
+    pending.add(new Pending(result, node, file, length));
+    while (pending.size() > MAX_PENDING) {
+      store(pending.poll());
+    }
+  }
+
+  /** Writes the remaining instances, the DICOMDIR and completes the output. */
+  void finish() throws IOException {
+    while (!pending.isEmpty()) {
+      store(pending.poll());
+    }
+    if (dicomDir != null) {
+      // Commit DICOMDIR changes and close the file
+      dicomDirClosed = true;
+      dicomDir.close();
+      if (zip != null) {
+        writeEntry(dicomDir.getFile());
+      }
+    }
+    if (zip != null) {
+      zip.finish();
+    }
+    completed = true;
+  }
+
+  private void store(Pending p) throws IOException {
+    Attributes attributes;
+    try {
+      attributes = p.result().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("DICOM export interrupted");
+    } catch (ExecutionException e) {
+      LOGGER.error("Cannot export DICOM file: {}", p.file(), e.getCause());
+      attributes = null;
+    }
+
+    if (attributes != null) {
+      LocalExport.writeInDicomDir(dicomDir, attributes, p.node(), p.file().getName(), p.file());
+      if (zip != null) {
+        writeEntry(p.file());
+      }
+    } else if (zip != null) {
+      Files.deleteIfExists(p.file().toPath());
+    }
+    updateProgress(p.length());
+  }
+
+  private void writeEntry(File file) throws IOException {
+    if (!file.isFile()) {
+      return;
+    }
+    String name = baseDir.toPath().relativize(file.toPath()).toString();
+    zip.putNextEntry(new ZipEntry(name.replace(File.separatorChar, '/')));
+    Files.copy(file.toPath(), zip);
+    zip.closeEntry();
+    Files.delete(file.toPath());
+  }
+
+  private void updateProgress(long length) {
+    doneLength += length;
+    if (totalLength > 0) {
+      int percent = (int) Math.min(100L, doneLength * 100L / totalLength);
+      if (percent != lastPercent) {
+        boolean first = lastPercent < 0;
+        lastPercent = percent;
+        CircularProgressBar bar = task.getBar();
+        GuiExecutor.execute(
+            () -> {
+              if (first) {
+                // The bar is indeterminate until the first value
+                task.stopProgress();
+              }
+              bar.setValue(percent);
+            });
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    pending.forEach(p -> p.result().cancel(true));
+    pending.clear();
+    executor.shutdownNow();
+    try {
+      executor.awaitTermination(30, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    if (dicomDir != null && !dicomDirClosed) {
+      try {
+        dicomDir.close();
+      } catch (IOException e) {
+        LOGGER.error("Cannot close DICOMDIR", e);
+      }
+    }
+    if (zip != null) {
+      FileUtil.safeClose(zip);
+      FileUtil.recursiveDelete(baseDir);
+      if (!completed) {
+        // Do not leave an incomplete archive
+        try {
+          Files.deleteIfExists(zipFile.toPath());
+        } catch (IOException e) {
+          LOGGER.error("Cannot delete the incomplete archive: {}", zipFile, e);
+        }
+      }
+    }
+  }
+}
@@ -29,6 +29,7 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
@@ -139,6 +140,11 @@ public class DicomModel implements TreeModel, DataExplorerModel {
   private final Tree<MediaSeriesGroup> model;
   private PropertyChangeSupport propertyChange = null;
   private final SplittingRules splittingRules;
+  // Indexes of the nodes by UID, maintained by addHierarchyNode() and removeHierarchyNode()
+  private final Map<Object, MediaSeriesGroup> studyIndex = new ConcurrentHashMap<>();
+  private final Map<Object, MediaSeriesGroup> seriesIndex = new ConcurrentHashMap<>();
+  // UIDs shared by several nodes (e.g. the same study with inconsistent patient attributes)
+  private final Set<Object> sharedUIDs = ConcurrentHashMap.newKeySet();
 
   public DicomModel() {
     model = new Tree<>(MediaSeriesGroupNode.rootNode);
@@ -248,41 +254,79 @@ public class DicomModel implements TreeModel, DataExplorerModel {
 
   public MediaSeriesGroup getStudyNode(String studyUID) {
     Objects.requireNonNull(studyUID);
-    for (MediaSeriesGroup pt : getChildren(MediaSeriesGroupNode.rootNode)) {
-      for (MediaSeriesGroup st : getChildren(pt)) {
-        if (st.matchIdValue(studyUID)) {
-          return st;
-        }
-      }
-    }
-    return null;
+    return studyIndex.get(studyUID);
   }
 
   public MediaSeriesGroup getSeriesNode(String seriesUID) {
     Objects.requireNonNull(seriesUID);
-    for (MediaSeriesGroup pt : getChildren(MediaSeriesGroupNode.rootNode)) {
-      for (MediaSeriesGroup st : getChildren(pt)) {
-        for (MediaSeriesGroup item : getChildren(st)) {
-          if (item.matchIdValue(seriesUID)) {
-            return item;
-          }
-        }
-      }
-    }
-    return null;
+    return seriesIndex.get(seriesUID);
   }
 
   @Override
   public void addHierarchyNode(MediaSeriesGroup root, MediaSeriesGroup leaf) {
     model.addLeaf(root, leaf);
+    Map<Object, MediaSeriesGroup> index = getIndex(leaf);
+    Object uid = leaf.getTagValue(leaf.getTagID());
+    if (index != null && uid != null) {
+      MediaSeriesGroup previous = index.putIfAbsent(uid, leaf);
+      if (previous != null && previous != leaf) {
+        sharedUIDs.add(uid);
+      }
+    }
   }
 
   @Override
   public void removeHierarchyNode(MediaSeriesGroup root, MediaSeriesGroup leaf) {
     Tree<MediaSeriesGroup> tree = model.getTree(root);
     if (tree != null) {
+      // The leaf is removed with its subtree
+      List<MediaSeriesGroup> removed = new ArrayList<>();
+      collectIndexedNodes(leaf, removed);
       tree.removeLeaf(leaf);
+      for (MediaSeriesGroup node : removed) {
+        Map<Object, MediaSeriesGroup> index = getIndex(node);
+        Object uid = node.getTagValue(node.getTagID());
+        if (index.remove(uid, node) && sharedUIDs.contains(uid)) {
+          findNode(node.getTagID(), uid, MediaSeriesGroupNode.rootNode)
+              .ifPresentOrElse(n -> index.put(uid, n), () -> sharedUIDs.remove(uid));
+        }
+      }
+    }
+  }
+
+  private Map<Object, MediaSeriesGroup> getIndex(MediaSeriesGroup node) {
+    TagW tagID = node.getTagID();
+    if (TagD.getUID(Level.STUDY).equals(tagID)) {
+      return studyIndex;
+    } else if (TagD.getUID(Level.SERIES).equals(tagID)) {
+      return seriesIndex;
+    }
+    return null;
+  }
+
+  private void collectIndexedNodes(MediaSeriesGroup node, List<MediaSeriesGroup> nodes) {
+    for (MediaSeriesGroup child : getChildren(node)) {
+      collectIndexedNodes(child, nodes);
+    }
+    if (getIndex(node) != null && node.getTagValue(node.getTagID()) != null) {
+      nodes.add(node);
+    }
+  }
+
+  private Optional<MediaSeriesGroup> findNode(TagW tagID, Object uid, MediaSeriesGroup parent) {
+    for (MediaSeriesGroup node : getChildren(parent)) {
+      if (tagID.equals(node.getTagID())) {
+        if (node.matchIdValue(uid)) {
+          return Optional.of(node);
+        }
+      } else {
+        Optional<MediaSeriesGroup> n = findNode(tagID, uid, node);
+        if (n.isPresent()) {
+          return n;
+        }
+      }
     }
+    return Optional.empty();
   }
 
   @Override
@@ -317,6 +361,9 @@ public class DicomModel implements TreeModel, DataExplorerModel {
       }
     }
     model.clear();
+    studyIndex.clear();
+    seriesIndex.clear();
+    sharedUIDs.clear();
   }
 
   @Override
@@ -19,14 +19,12 @@ import org.dcm4che3.data.Tag;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.explorer.ObservableEvent;
 import org.weasis.core.api.explorer.model.DataExplorerModel;
-import org.weasis.core.api.gui.util.GuiExecutor;
 import org.weasis.core.api.gui.util.GuiUtils;
 import org.weasis.core.api.media.data.MediaSeriesGroup;
 import org.weasis.core.api.media.data.MediaSeriesGroupNode;
 import org.weasis.core.api.media.data.Series;
 import org.weasis.core.api.media.data.SeriesThumbnail;
 import org.weasis.core.api.media.data.TagW;
-import org.weasis.core.api.media.data.Thumbnail;
 import org.weasis.dicom.codec.DicomImageElement;
 import org.weasis.dicom.codec.DicomMediaIO;
 import org.weasis.dicom.codec.DicomSeries;
@@ -46,6 +44,8 @@ public abstract class LoadDicom extends ExplorerTask<Boolean, String> {
 
   protected final PluginOpeningStrategy openingStrategy;
 
+  protected final ModelUpdateQueue modelUpdates;
+
   protected LoadDicom(
       DataExplorerModel explorerModel, boolean interruptible, OpeningViewer openingMode) {
     this(explorerModel, interruptible, new PluginOpeningStrategy(openingMode));
@@ -63,6 +63,7 @@ public abstract class LoadDicom extends ExplorerTask<Boolean, String> {
     this.openingStrategy =
         Optional.ofNullable(openingStrategy)
             .orElseGet(() -> new PluginOpeningStrategy(OpeningViewer.ONE_PATIENT));
+    this.modelUpdates = new ModelUpdateQueue(dicomModel);
   }
 
   protected void startLoadingEvent() {
@@ -74,6 +75,7 @@ public abstract class LoadDicom extends ExplorerTask<Boolean, String> {
 
   @Override
   protected void done() {
+    modelUpdates.flush();
     openingStrategy.reset();
     if (openingStrategy.isFullImportSession()) {
       dicomModel.firePropertyChange(
@@ -174,22 +176,11 @@ public abstract class LoadDicom extends ExplorerTask<Boolean, String> {
           return null;
         }
 
-        DicomImageElement[] medias = getDicomImageElements(dicomReader, dicomSeries, editableDicom);
-        if (medias != null && medias.length > 0) {
-          // Refresh the number of images on the thumbnail
-          Thumbnail t = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
-          if (t != null) {
-            GuiExecutor.execute(t::repaint);
-          }
-        }
-
-        // If Split series or special DICOM element update the explorer view and View2DContainer
-        Integer splitNb = (Integer) dicomSeries.getTagValue(TagW.SplitSeriesNumber);
-        if (splitNb != null) {
-          dicomModel.firePropertyChange(
-              new ObservableEvent(
-                  ObservableEvent.BasicAction.UPDATE, dicomModel, null, dicomSeries));
-        }
+        // Refresh the number of images on the thumbnail, the explorer view (split series) and
+        // View2DContainer once for all the images loaded in the same batch. Nothing is notified
+        // when no image is added.
+        modelUpdates.add(dicomSeries);
+        getDicomImageElements(dicomReader, dicomSeries, editableDicom);
         openingStrategy.openViewerPlugin(patient, dicomModel, dicomSeries);
       }
     } catch (Exception e) {
@@ -10,9 +10,24 @@
 package org.weasis.dicom.explorer;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.weasis.core.api.explorer.ObservableEvent;
 import org.weasis.core.api.explorer.model.DataExplorerModel;
 import org.weasis.core.api.gui.util.AppProperties;
@@ -23,6 +38,7 @@ import org.weasis.core.api.media.data.MediaSeries;
 import org.weasis.core.api.media.data.SeriesEvent;
 import org.weasis.core.api.media.data.SeriesThumbnail;
 import org.weasis.core.api.media.data.TagW;
+import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.ui.model.GraphicModel;
 import org.weasis.core.ui.serialize.XmlSerializer;
 import org.weasis.core.util.FileUtil;
@@ -32,6 +48,10 @@ import org.weasis.dicom.codec.DicomMediaIO.Reading;
 import org.weasis.dicom.explorer.HangingProtocols.OpeningViewer;
 
 public class LoadLocalDicom extends LoadDicom {
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoadLocalDicom.class);
+
+  /** Number of threads reading the DICOM headers */
+  public static final String P_PARSER_THREADS = "weasis.import.threads";
 
   private final File[] files;
   private final boolean recursive;
@@ -66,50 +86,154 @@ public class LoadLocalDicom extends LoadDicom {
       return;
     }
 
-    ArrayList<SeriesThumbnail> thumbs = new ArrayList<>();
-    ArrayList<File> folders = new ArrayList<>();
-    for (File value : file) {
-      if (isCancelled()) {
-        return;
+    long startTime = System.nanoTime();
+    int nThreads = getParserThreadNumber();
+    ExecutorService parser =
+        ThreadUtil.buildNewFixedThreadExecutor(nThreads, "DICOM Header Parser"); // NON-NLS
+    Importer importer = new Importer(new ExecutorCompletionService<>(parser), nThreads * 8);
+    try {
+      for (File value : file) {
+        if (isCancelled()) {
+          break;
+        }
+        if (value == null) {
+          continue;
+        }
+        if (value.isDirectory()) {
+          if (firstLevel || recursive) {
+            Files.walkFileTree(
+                value.toPath(),
+                EnumSet.of(FileVisitOption.FOLLOW_LINKS),
+                recursive ? Integer.MAX_VALUE : 1,
+                importer);
+          }
+        } else {
+          importer.submit(value.toPath());
+        }
       }
-      if (value == null) {
-        continue;
+      importer.drain();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      LOGGER.error("Walking the DICOM files", e);
+    } finally {
+      parser.shutdownNow();
+    }
+    updateSeriesThumbnail(importer.thumbs, dicomModel);
+
+    long time = Math.max(1L, (System.nanoTime() - startTime) / 1_000_000);
+    LOGGER.info(
+        "{} files parsed in {} ms with {} threads: {} files/s",
+        importer.nbFiles,
+        time,
+        nThreads,
+        importer.nbFiles * 1000L / time);
+  }
+
+  private static int getParserThreadNumber() {
+    int def = Math.max(2, Runtime.getRuntime().availableProcessors());
+    return Math.max(1, Integer.getInteger(P_PARSER_THREADS, def));
+  }
+
+  /** Reads the header of the file, up to the pixel data. It is called by the parser threads. */
+  private ParsedFile parseHeader(File value) {
+    if (value.canRead() && FileUtil.isFileExtensionMatching(value, DicomCodec.FILE_EXTENSIONS)
+        || MimeInspector.isMatchingMimeTypeFromMagicNumber(value, DicomMediaIO.DICOM_MIMETYPE)) {
+      DicomMediaIO loader = new DicomMediaIO(value);
+      Reading reading = loader.getReadingStatus();
+      if (reading == Reading.READABLE) {
+        if (value.getPath().startsWith(AppProperties.APP_TEMP_DIR.getPath())) {
+          loader.getFileCache().setOriginalTempFile(value);
+        }
+        File gpxFile = new File(value.getPath() + ".xml");
+        return new ParsedFile(loader, XmlSerializer.readPresentationModel(gpxFile));
+      } else if (reading == Reading.ERROR) {
+        errors.incrementAndGet();
       }
+    }
+    return null;
+  }
+
+  private record ParsedFile(DicomMediaIO loader, GraphicModel graphicModel) {}
+
+  /**
+   * Walks the files and submits them to the parser threads. The parsed files are merged into the
+   * DICOM model only from the walking thread, which is the single writer of the model.
+   */
+  private class Importer extends SimpleFileVisitor<Path> {
+    private final CompletionService<ParsedFile> completion;
+    private final int maxPending;
+    private final List<SeriesThumbnail> thumbs = new ArrayList<>();
+    private int pending = 0;
+    private int nbFiles = 0;
+
+    Importer(CompletionService<ParsedFile> completion, int maxPending) {
+      this.completion = completion;
+      this.maxPending = maxPending;
+    }
 
-      if (value.isDirectory()) {
-        if (firstLevel || recursive) {
-          folders.add(value);
+    @Override
+    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+      if (isCancelled()) {
+        return FileVisitResult.TERMINATE;
+      }
+      if (attrs.isRegularFile()) {
+        try {
+          submit(file);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return FileVisitResult.TERMINATE;
         }
-      } else if (value.canRead()
-              && FileUtil.isFileExtensionMatching(value, DicomCodec.FILE_EXTENSIONS)
-          || MimeInspector.isMatchingMimeTypeFromMagicNumber(value, DicomMediaIO.DICOM_MIMETYPE)) {
-        DicomMediaIO loader = new DicomMediaIO(value);
-        Reading reading = loader.getReadingStatus();
-        if (reading == Reading.READABLE) {
-          if (value.getPath().startsWith(AppProperties.APP_TEMP_DIR.getPath())) {
-            loader.getFileCache().setOriginalTempFile(value);
-          }
+      }
+      return FileVisitResult.CONTINUE;
+    }
+
+    @Override
+    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+      LOGGER.warn("Cannot read {}", file, exc);
+      return FileVisitResult.CONTINUE;
+    }
+
+    void submit(Path path) throws InterruptedException {
+      File value = path.toFile();
+      completion.submit(() -> parseHeader(value));
+      pending++;
+      nbFiles++;
+      // Bound the number of parsed files waiting to be merged
+      while (pending >= maxPending) {
+        merge(completion.take());
+      }
+      Future<ParsedFile> done;
+      while ((done = completion.poll()) != null) {
+        merge(done);
+      }
+    }
+
+    void drain() throws InterruptedException {
+      while (pending > 0 && !isCancelled()) {
+        merge(completion.take());
+      }
+    }
+
+    private void merge(Future<ParsedFile> future) throws InterruptedException {
+      pending--;
+      try {
+        ParsedFile parsed = future.get();
+        if (parsed != null) {
           // Issue: must handle adding image to viewer and building thumbnail (middle image)
-          SeriesThumbnail t = buildDicomStructure(loader);
+          SeriesThumbnail t = buildDicomStructure(parsed.loader());
           if (t != null) {
             thumbs.add(t);
           }
-
-          File gpxFile = new File(value.getPath() + ".xml");
-          GraphicModel graphicModel = XmlSerializer.readPresentationModel(gpxFile);
-          if (graphicModel != null) {
-            loader.setTag(TagW.PresentationModel, graphicModel);
+          if (parsed.graphicModel() != null) {
+            parsed.loader().setTag(TagW.PresentationModel, parsed.graphicModel());
           }
-        } else if (reading == Reading.ERROR) {
-          errors.incrementAndGet();
         }
+      } catch (ExecutionException e) {
+        errors.incrementAndGet();
+        LOGGER.error("Parsing DICOM file", e.getCause());
       }
     }
-    updateSeriesThumbnail(thumbs, dicomModel);
-
-    for (File folder : folders) {
-      addSelectionAndNotify(folder.listFiles(), false);
-    }
   }
 
   public static void updateSeriesThumbnail(List<SeriesThumbnail> thumbs, DicomModel dicomModel) {
@@ -20,9 +20,11 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.Set;
 import java.util.Vector;
 import javax.swing.BorderFactory;
 import javax.swing.DefaultComboBoxModel;
@@ -58,7 +60,6 @@ import org.slf4j.LoggerFactory;
 import org.weasis.core.api.explorer.ObservableEvent;
 import org.weasis.core.api.gui.util.AbstractItemDialogPage;
 import org.weasis.core.api.gui.util.ActionW;
-import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.gui.util.FileFormatFilter;
 import org.weasis.core.api.gui.util.GuiUtils;
 import org.weasis.core.api.gui.util.WinUtil;
@@ -470,17 +471,10 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
               } else if (format == Format.DICOM_ZIP) {
                 pref.setProperty(INC_DICOMDIR, Boolean.TRUE.toString());
                 pref.setProperty(CD_COMPATIBLE, Boolean.TRUE.toString());
-                File writeDir =
-                    FileUtil.createTempDir(
-                        AppProperties.buildAccessibleTempDirectory(
-                            "tmp", Format.DICOM_ZIP.extension)); // NON-NLS
-                writeDicom(this, writeDir, model, pref);
                 try {
-                  FileUtil.zip(writeDir, exportDir);
-                } catch (Exception e) {
+                  writeDicom(this, exportDir, true, model, pref);
+                } catch (IOException e) {
                   LOGGER.error("Cannot export DICOM ZIP file: {}", exportDir, e);
-                } finally {
-                  FileUtil.recursiveDelete(writeDir);
                 }
               } else {
                 writeOther(this, exportDir, model, format, pref);
@@ -624,12 +618,27 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
         Tag.SeriesInstanceUID, VR.UI, TagD.getTagValue(dcm, Tag.SeriesInstanceUID, String.class));
     uidTags.setString(
         Tag.SOPInstanceUID, VR.UI, TagD.getTagValue(dcm, Tag.SOPInstanceUID, String.class));
-    editor.apply(uidTags, null);
+    synchronized (editor) {
+      editor.apply(uidTags, null);
+    }
     return uidTags;
   }
 
   protected void writeDicom(
       ExplorerTask task, File exportDir, CheckTreeModel model, Properties pref) throws IOException {
+    writeDicom(task, exportDir, false, model, pref);
+  }
+
+  /**
+   * @param task the export task
+   * @param output the output folder, or the output file when zip is true
+   * @param zip true to stream the files into a ZIP archive
+   * @param model the export tree
+   * @param pref the export preferences
+   */
+  protected void writeDicom(
+      ExplorerTask task, File output, boolean zip, CheckTreeModel model, Properties pref)
+      throws IOException {
     boolean keepNames;
     boolean writeDicomdir;
     boolean cdCompatible;
@@ -647,6 +656,11 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
       onlyRaw = false;
     }
     DefaultAttributeEditor editor = new DefaultAttributeEditor(newUID, null);
+    List<AttributeEditor> dicomEditors = getAttributeEditors(editor);
+    DicomExportParameters imageParameters =
+        new DicomExportParameters(tsuid, onlyRaw, dicomEditors, jpegQuality, compressionRatio);
+    DicomExportParameters otherParameters =
+        new DicomExportParameters(null, onlyRaw, dicomEditors, jpegQuality, compressionRatio);
 
     writeDicomdir = Boolean.parseBoolean(pref.getProperty(INC_DICOMDIR, Boolean.TRUE.toString()));
     keepNames =
@@ -654,16 +668,14 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
             && Boolean.parseBoolean(pref.getProperty(KEEP_INFO_DIR, Boolean.TRUE.toString()));
     cdCompatible = Boolean.parseBoolean(pref.getProperty(CD_COMPATIBLE, Boolean.FALSE.toString()));
 
-    DicomDirWriter writer = null;
-    try {
-      if (writeDicomdir) {
-        File dcmdirFile = new File(exportDir, "DICOMDIR");
-        writer = DicomDirLoader.open(dcmdirFile);
-      }
-
-      synchronized (exportTree) {
-        ArrayList<String> uids = new ArrayList<>();
-        TreePath[] paths = model.getCheckingPaths();
+    synchronized (exportTree) {
+      TreePath[] paths = model.getCheckingPaths();
+      long totalLength = getSourceLength(paths);
+      try (DicomExportPipeline pipeline =
+          zip
+              ? DicomExportPipeline.toZip(task, output, writeDicomdir, totalLength)
+              : DicomExportPipeline.toFolder(task, output, writeDicomdir, totalLength)) {
+        Set<String> uids = new HashSet<>();
         for (TreePath treePath : paths) {
           if (task.isCancelled()) {
             return;
@@ -673,10 +685,7 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
           if (node.getUserObject() instanceof DicomImageElement img) {
             Attributes uidTags = getUIDs(editor, img);
             String iuid = uidTags.getString(Tag.SOPInstanceUID);
-            int index = uids.indexOf(iuid);
-            if (index == -1) {
-              uids.add(iuid);
-            } else {
+            if (!uids.add(iuid)) {
               // Write only once the file for multiframe
               continue;
             }
@@ -685,38 +694,19 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
             }
 
             String path = buildPath(img, keepNames, cdCompatible, node, uidTags);
-            File destinationDir = new File(exportDir, path);
-            destinationDir.mkdirs();
-
-            List<AttributeEditor> dicomEditors = getAttributeEditors(editor);
-            File destinationFile = new File(destinationDir, iuid);
-
-            DicomExportParameters dicomExportParameters =
-                new DicomExportParameters(
-                    tsuid, onlyRaw, dicomEditors, jpegQuality, compressionRatio);
-            Attributes attributes = img.saveToFile(destinationFile, dicomExportParameters);
-            if (attributes != null) {
-              writeInDicomDir(writer, attributes, node, iuid, destinationFile);
-            }
+            pipeline.submit(
+                node, path, iuid, img.getLength(), f -> img.saveToFile(f, imageParameters));
           } else if (node.getUserObject() instanceof DicomElement dcm) {
-            Attributes uidTags = getUIDs(editor, (MediaElement) dcm);
+            MediaElement media = (MediaElement) dcm;
+            Attributes uidTags = getUIDs(editor, media);
             String iuid = uidTags.getString(Tag.SOPInstanceUID);
             if (!keepNames) {
               iuid = makeFileIDs(iuid);
             }
 
-            String path = buildPath((MediaElement) dcm, keepNames, cdCompatible, node, uidTags);
-            File destinationDir = new File(exportDir, path);
-            destinationDir.mkdirs();
-
-            File destinationFile = new File(destinationDir, iuid);
-            DicomExportParameters dicomExportParameters =
-                new DicomExportParameters(
-                    null, onlyRaw, getAttributeEditors(editor), jpegQuality, compressionRatio);
-            Attributes attributes = dcm.saveToFile(destinationFile, dicomExportParameters);
-            if (attributes != null) {
-              writeInDicomDir(writer, attributes, node, iuid, destinationFile);
-            }
+            String path = buildPath(media, keepNames, cdCompatible, node, uidTags);
+            pipeline.submit(
+                node, path, iuid, media.getLength(), f -> dcm.saveToFile(f, otherParameters));
           } else if (node.getUserObject() instanceof Series) {
             MediaSeries<?> s = (MediaSeries<?>) node.getUserObject();
             if (LangUtil.getNULLtoFalse((Boolean) s.getTagValue(TagW.ObjectToSave))) {
@@ -728,30 +718,51 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
                   if (grModel != null && grModel.hasSerializableGraphics()) {
                     String path =
                         buildPath(dcm, keepNames, cdCompatible, node, getUIDs(editor, dcm));
-                    buildAndWritePR(
-                        dcm, keepNames, new File(exportDir, path), writer, node, seriesInstanceUID);
+                    String prUid = UIDUtils.createUID();
+                    pipeline.submit(
+                        node,
+                        path,
+                        keepNames ? prUid : makeFileIDs(prUid),
+                        0,
+                        f -> writePR(dcm, f, seriesInstanceUID, prUid));
                   }
                 }
               }
             }
           }
         }
+        pipeline.finish();
+      } catch (IOException e) {
+        throw e;
+      } catch (Exception e) {
+        LOGGER.error("Cannot export DICOM", e);
       }
-    } catch (IOException e) {
-      throw e;
-    } catch (Exception e) {
-      LOGGER.error("Cannot export DICOM", e);
-    } finally {
-      if (writer != null) {
-        // Commit DICOMDIR changes and close the file
-        writer.close();
+    }
+  }
+
+  private static long getSourceLength(TreePath[] paths) {
+    Set<String> uids = new HashSet<>();
+    long length = 0;
+    for (TreePath treePath : paths) {
+      DefaultMutableTreeNode node = (DefaultMutableTreeNode) treePath.getLastPathComponent();
+      if (node.getUserObject() instanceof DicomElement
+          && node.getUserObject() instanceof MediaElement media
+          && uids.add(TagD.getTagValue(media, Tag.SOPInstanceUID, String.class))) {
+        length += media.getLength();
       }
     }
+    return length;
   }
 
   private static List<AttributeEditor> getAttributeEditors(DefaultAttributeEditor editor) {
     if (editor.isGenerateUIDs() || editor.getTagToOverride() != null) {
-      return List.of(editor);
+      // The instances are written in parallel and the editor keeps the generated UIDs
+      return List.of(
+          (data, context) -> {
+            synchronized (editor) {
+              editor.apply(data, context);
+            }
+          });
     }
     return Collections.emptyList();
   }
@@ -771,9 +782,7 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
         String prUid = UIDUtils.createUID();
         File outputFile = new File(destinationDir, keepNames ? prUid : makeFileIDs(prUid));
         destinationDir.mkdirs();
-        Attributes prAttributes =
-            DicomPrSerializer.writePresentation(
-                grModel, imgAttributes, outputFile, seriesInstanceUID, prUid);
+        Attributes prAttributes = writePR(img, outputFile, seriesInstanceUID, prUid);
         if (prAttributes != null) {
           try {
             writeInDicomDir(writer, prAttributes, node, outputFile.getName(), outputFile);
@@ -786,6 +795,18 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
     return imgAttributes;
   }
 
+  private static Attributes writePR(
+      MediaElement img, File outputFile, String seriesInstanceUID, String prUid) {
+    Attributes imgAttributes =
+        img.getMediaReader() instanceof DcmMediaReader reader ? reader.getDicomObject() : null;
+    GraphicModel grModel = (GraphicModel) img.getTagValue(TagW.PresentationModel);
+    if (imgAttributes == null || grModel == null || !grModel.hasSerializableGraphics()) {
+      return null;
+    }
+    return DicomPrSerializer.writePresentation(
+        grModel, imgAttributes, outputFile, seriesInstanceUID, prUid);
+  }
+
   public static String buildPath(
       MediaElement img,
       boolean preservePath,
@@ -865,7 +886,7 @@ public class LocalExport extends AbstractItemDialogPage implements ExportDicom {
     return value.endsWith(".") ? value.substring(0, value.length() - 1) : value;
   }
 
-  private static boolean writeInDicomDir(
+  static boolean writeInDicomDir(
       DicomDirWriter writer,
       Attributes dataset,
       DefaultMutableTreeNode node,
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.explorer.ObservableEvent;
+import org.weasis.core.api.gui.util.GuiExecutor;
+import org.weasis.core.api.media.data.MediaSeries;
+import org.weasis.core.api.media.data.SeriesEvent;
+import org.weasis.core.api.media.data.TagW;
+import org.weasis.core.api.media.data.Thumbnail;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.dicom.codec.DicomSeries;
+
+/**
+ * Coalesces the updates of the DICOM model produced by the loading threads. The updates are
+ * queued without waiting for the EDT and are applied in batches, at most every {@value
+ * #P_BATCH_DELAY} milliseconds or as soon as {@link #MAX_BATCH_SIZE} updates are pending.
+ *
+ * <p>The add events of the images of a DICOM series are deferred from the registration of the series
+ * until the next batch. After each batch, every series which received images is notified only
+ * once: its thumbnail is repainted and a single {@link SeriesEvent.Action#ADD_IMAGE} event is
+ * fired.
+ */
+public class ModelUpdateQueue {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ModelUpdateQueue.class);
+
+  public static final String P_BATCH_DELAY = "weasis.model.update.delay";
+  public static final int MAX_BATCH_SIZE = 256;
+
+  private static final long BATCH_DELAY = Math.max(1L, Long.getLong(P_BATCH_DELAY, 100L));
+
+  private static final ScheduledExecutorService TIMER =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread t = ThreadUtil.getThreadFactory("Model Update").newThread(r); // NON-NLS
+            t.setDaemon(true);
+            return t;
+          });
+
+  private final DicomModel dicomModel;
+  private final Queue<Runnable> updates = new ConcurrentLinkedQueue<>();
+  private final Set<MediaSeries<?>> modifiedSeries = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger pendingSize = new AtomicInteger();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  public ModelUpdateQueue(DicomModel dicomModel) {
+    this.dicomModel = Objects.requireNonNull(dicomModel);
+  }
+
+  /**
+   * Notifies the modification of the series with the next batch. Must be called before adding the
+   * images to the series.
+   *
+   * @param series the modified series
+   */
+  public void add(MediaSeries<?> series) {
+    add(series, null);
+  }
+
+  /**
+   * Runs the update in the EDT with the next batch.
+   *
+   * @param series the series modified by the update, or null
+   * @param update the update to run in the EDT, or null
+   */
+  public void add(MediaSeries<?> series, Runnable update) {
+    if (series == null && update == null) {
+      return;
+    }
+    if (update != null) {
+      updates.add(update);
+    }
+    if (series != null && modifiedSeries.add(series) && series instanceof DicomSeries dcm) {
+      dcm.beginAddingBatch();
+    }
+    if (pendingSize.incrementAndGet() == MAX_BATCH_SIZE) {
+      GuiExecutor.execute(this::flush);
+    } else if (scheduled.compareAndSet(false, true)) {
+      TIMER.schedule(() -> GuiExecutor.execute(this::flush), BATCH_DELAY, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** Applies all the pending updates and waits until they are done. */
+  public void flushAndWait() {
+    GuiExecutor.invokeAndWait(this::flush);
+  }
+
+  /** Applies all the pending updates, must be called from the EDT. */
+  public void flush() {
+    scheduled.set(false);
+    pendingSize.set(0);
+
+    Runnable update;
+    while ((update = updates.poll()) != null) {
+      try {
+        update.run();
+      } catch (Exception e) {
+        LOGGER.error("Updating DICOM model", e);
+      }
+    }
+
+    Iterator<MediaSeries<?>> it = modifiedSeries.iterator();
+    while (it.hasNext()) {
+      MediaSeries<?> series = it.next();
+      it.remove();
+      // Fires the add event of the images of the batch
+      if (series instanceof DicomSeries dcm && !dcm.endAddingBatch()) {
+        continue;
+      }
+      Thumbnail thumb = (Thumbnail) series.getTagValue(TagW.Thumbnail);
+      if (thumb != null) {
+        thumb.repaint();
+      }
+      if (series.getTagValue(TagW.SplitSeriesNumber) != null) {
+        // Update the explorer view and the viewers of the split series
+        dicomModel.firePropertyChange(
+            new ObservableEvent(ObservableEvent.BasicAction.UPDATE, dicomModel, null, series));
+      }
+    }
+  }
+}
@@ -34,6 +34,7 @@ import org.weasis.core.api.media.data.MediaSeriesGroupNode;
 import org.weasis.core.api.media.data.Series;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.api.util.HttpResponse;
+import org.weasis.core.api.util.HttpTransport;
 import org.weasis.core.api.util.NetworkUtil;
 import org.weasis.core.api.util.URLParameters;
 import org.weasis.core.util.LangUtil;
@@ -137,7 +138,9 @@ public class RsQueryResult extends AbstractQueryResult {
   public static List<Attributes> parseJSON(
       String url, AuthMethod authMethod, URLParameters urlParameters) throws Exception {
     List<Attributes> items = new ArrayList<>();
-    try (HttpResponse response = NetworkUtil.getHttpResponse(url, urlParameters, authMethod);
+    try (HttpResponse response =
+            NetworkUtil.getHttpResponse(
+                url, HttpTransport.acceptCompression(urlParameters), authMethod);
         InputStreamReader instream =
             new InputStreamReader(response.getInputStream(), StandardCharsets.UTF_8)) {
       int code = response.getResponseCode();
@@ -12,6 +12,7 @@ package org.weasis.dicom.explorer.wado;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
@@ -52,14 +53,14 @@ import org.weasis.core.api.gui.util.AppProperties;
 import org.weasis.core.api.gui.util.GuiExecutor;
 import org.weasis.core.api.gui.util.GuiUtils;
 import org.weasis.core.api.gui.util.WinUtil;
-import org.weasis.core.api.media.MimeInspector;
 import org.weasis.core.api.media.data.MediaSeriesGroup;
 import org.weasis.core.api.media.data.MediaSeriesGroupNode;
 import org.weasis.core.api.media.data.TagUtil;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.api.media.data.Thumbnail;
 import org.weasis.core.api.util.BiConsumerWithException;
-import org.weasis.core.api.util.ClosableURLConnection;
+import org.weasis.core.api.util.HttpResponse;
+import org.weasis.core.api.util.HttpTransport;
 import org.weasis.core.api.util.NetworkUtil;
 import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.api.util.URLParameters;
@@ -276,6 +277,18 @@ public class DownloadManager {
     void handle(LoadSeries loadSeries);
   }
 
+  private static InputStream decodeGzipFile(InputStream in) throws IOException {
+    BufferedInputStream stream = new BufferedInputStream(in);
+    stream.mark(2);
+    int b1 = stream.read();
+    int b2 = stream.read();
+    stream.reset();
+    if (b1 >= 0 && b2 >= 0 && ((b2 << 8) | b1) == GZIPInputStream.GZIP_MAGIC) {
+      return new BufferedInputStream(new GZIPInputStream(stream));
+    }
+    return stream;
+  }
+
   public static Collection<LoadSeries> buildDicomSeriesFromXml(URI uri, final DicomModel model)
       throws DownloadException {
     Map<String, LoadSeries> seriesMap = new HashMap<>();
@@ -289,31 +302,24 @@ public class DownloadManager {
 
       String path = uri.getPath();
       URLParameters urlParameters =
-          new URLParameters(
-              null,
-              StringUtil.getInt(System.getProperty("UrlConnectionTimeout"), 7000),
-              StringUtil.getInt(System.getProperty("UrlReadTimeout"), 15000) * 2);
+          HttpTransport.acceptCompression(
+              new URLParameters(
+                  null,
+                  StringUtil.getInt(System.getProperty("UrlConnectionTimeout"), 7000),
+                  StringUtil.getInt(System.getProperty("UrlReadTimeout"), 15000) * 2));
 
-      ClosableURLConnection urlConnection =
-          NetworkUtil.getUrlConnection(uri.toURL(), urlParameters);
+      HttpResponse response = NetworkUtil.getHttpResponse(uri.toString(), urlParameters, null);
 
       LOGGER.info("Downloading XML manifest: {}", path);
-      InputStream urlInputStream = urlConnection.getInputStream();
+      InputStream urlInputStream = response.getInputStream();
 
-      if (path.endsWith(".gz")) {
-        stream = new BufferedInputStream(new GZIPInputStream(urlInputStream));
-      } else if (path.endsWith(".xml")) {
+      if (path.endsWith(".xml")) {
         stream = urlInputStream;
       } else {
-        // In case wado file has no extension
-        File outFile = File.createTempFile("wado_", "", AppProperties.APP_TEMP_DIR); // NON-NLS
-        FileUtil.writeStreamWithIOException(urlInputStream, outFile);
-        if (MimeInspector.isMatchingMimeTypeFromMagicNumber(
-            outFile, "application/x-gzip")) { // NON-NLS
-          stream = new BufferedInputStream(new GZIPInputStream(new FileInputStream(outFile)));
-        } else {
-          stream = new FileInputStream(outFile);
-        }
+        // The content encoding is already decoded by the HTTP transport: detect the gzip format
+        // from the content, so a .gz manifest served with "Content-Encoding: gzip" is not decoded
+        // twice.
+        stream = decodeGzipFile(urlInputStream);
       }
 
       File tempFile;
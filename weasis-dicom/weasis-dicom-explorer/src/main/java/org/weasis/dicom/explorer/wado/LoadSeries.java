@@ -26,10 +26,11 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -67,7 +68,6 @@ import org.weasis.core.api.media.data.TagW.TagType;
 import org.weasis.core.api.media.data.Thumbnail;
 import org.weasis.core.api.model.PerformanceModel;
 import org.weasis.core.api.service.AuditLog;
-import org.weasis.core.api.util.AuthResponse;
 import org.weasis.core.api.util.ClosableURLConnection;
 import org.weasis.core.api.util.HttpResponse;
 import org.weasis.core.api.util.NetworkUtil;
@@ -88,6 +88,7 @@ import org.weasis.dicom.codec.utils.SeriesInstanceList;
 import org.weasis.dicom.explorer.DicomModel;
 import org.weasis.dicom.explorer.ExplorerTask;
 import org.weasis.dicom.explorer.Messages;
+import org.weasis.dicom.explorer.ModelUpdateQueue;
 import org.weasis.dicom.explorer.PluginOpeningStrategy;
 import org.weasis.dicom.explorer.ThumbnailMouseAndKeyAdapter;
 import org.weasis.dicom.mf.HttpTag;
@@ -111,6 +112,16 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
   public static final String LOAD_TYPE_LOCAL = "local"; // NON-NLS
   public static final String LOAD_TYPE_WADO = "WADO";
 
+  /**
+   * Retrieves the WADO-RS series with one multipart request instead of one request per instance,
+   * can be disabled with the system property "weasis.wado.rs.bulk".
+   *
+   * <p>The request is not split in chunks of instances: WADO-RS has no standard resource for an
+   * arbitrary list of instances, so a series is always requested as a whole.
+   */
+  private static final boolean BULK_RETRIEVE =
+      Boolean.parseBoolean(System.getProperty("weasis.wado.rs.bulk", "true")); // NON-NLS
+
   private PluginOpeningStrategy openingStrategy;
 
   public void setPOpeningStrategy(PluginOpeningStrategy openingStrategy) {
@@ -137,6 +148,7 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
   private final boolean writeInCache;
   private final boolean startDownloading;
   private final AuthMethod authMethod;
+  private final ModelUpdateQueue modelUpdates;
 
   private final AtomicInteger errors;
   private volatile boolean hasError = false;
@@ -222,11 +234,17 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
       downloadErrors = 0;
     }
     this.errors = new AtomicInteger(downloadErrors);
+    this.modelUpdates = new ModelUpdateQueue(dicomModel);
   }
 
   @Override
   protected Boolean doInBackground() {
-    return startDownload();
+    try {
+      return startDownload();
+    } finally {
+      // The dicomSeries must be updated in the dicomModel before reaching done() of SwingWorker
+      modelUpdates.flushAndWait();
+    }
   }
 
   @Override
@@ -468,9 +486,8 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
 
     List<SopInstance> sopList = seriesInstanceList.getSortedList();
 
-    ExecutorService imageDownloader =
-        ThreadUtil.buildNewFixedThreadExecutor(concurrentDownloads, "Image Downloader"); // NON-NLS
-    ArrayList<Callable<Boolean>> tasks = new ArrayList<>(sopList.size());
+    // Download tasks by SOP Instance UID
+    Map<String, Callable<Boolean>> tasks = new LinkedHashMap<>(sopList.size());
     int[] dindex = generateDownloadOrder(sopList.size());
     GuiExecutor.execute(
         () -> {
@@ -531,12 +548,30 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
 
       LOGGER.debug("Download DICOM instance {} index {}.", url, k);
       Download ref = new Download(url);
-      tasks.add(ref);
+      tasks.put(instance.getSopInstanceUID(), ref);
+    }
+
+    dicomSeries.setTag(DOWNLOAD_START_TIME, System.currentTimeMillis());
+    String seriesURL = TagD.getTagValue(dicomSeries, Tag.RetrieveURL, String.class);
+    if (isBulkRetrieve(wado, seriesURL, tasks.size(), sopList.size())) {
+      Set<String> received =
+          downloadSeriesInBulk(seriesURL + wado.getAdditionnalParameters(), tasks.keySet());
+      tasks.keySet().removeAll(received);
+      if (isCancelled()) {
+        return true;
+      }
+      if (!tasks.isEmpty()) {
+        LOGGER.info("Retrieve {} missing instances one by one", tasks.size());
+      }
+    }
+    if (tasks.isEmpty()) {
+      return true;
     }
 
+    ExecutorService imageDownloader =
+        ThreadUtil.buildNewFixedThreadExecutor(concurrentDownloads, "Image Downloader"); // NON-NLS
     try {
-      dicomSeries.setTag(DOWNLOAD_START_TIME, System.currentTimeMillis());
-      imageDownloader.invokeAll(tasks);
+      imageDownloader.invokeAll(tasks.values());
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
     }
@@ -545,6 +580,92 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
     return true;
   }
 
+  private boolean isBulkRetrieve(
+      WadoParameters wado, String seriesURL, int nbInstances, int nbSeriesInstances) {
+    return BULK_RETRIEVE
+        && writeInCache
+        && wado.isWadoRS()
+        && StringUtil.hasText(seriesURL)
+        && wado.getOverrideDicomTagIDList() == null
+        && !seriesInstanceList.isContainsMultiframes()
+        && nbInstances > 1
+        // Not worth downloading again the whole series for a few missing instances
+        && nbInstances * 2 >= nbSeriesInstances;
+  }
+
+  /**
+   * Retrieves the whole series with a single WADO-RS request. The multipart response is parsed
+   * while it is received: each part is written in the cache and imported before reading the next
+   * one, so the memory used does not depend on the size of the series. When the response is
+   * interrupted, the parts already received are kept and the caller downloads the missing
+   * instances one by one.
+   *
+   * @param seriesURL the WADO-RS URL of the series
+   * @param sopInstanceUIDs the instances to import, the other parts are ignored
+   * @return the SOP Instance UIDs imported
+   */
+  private Set<String> downloadSeriesInBulk(String seriesURL, Set<String> sopInstanceUIDs) {
+    Set<String> received = new HashSet<>();
+    LOGGER.debug("Start to download the DICOM series {}.", seriesURL);
+    try (HttpResponse response = NetworkUtil.getHttpResponse(seriesURL, urlParams, authMethod)) {
+      int code = response.getResponseCode();
+      if (code >= HttpURLConnection.HTTP_BAD_REQUEST) {
+        if (authMethod != null && code == HttpURLConnection.HTTP_UNAUTHORIZED) {
+          authMethod.resetToken();
+          authMethod.getToken();
+        }
+        LOGGER.warn("Cannot retrieve the series {}, response code: {}", seriesURL, code);
+        return received;
+      }
+      progressBar.setIndeterminate(false);
+      Multipart.Handler handler =
+          (multipartReader, partNumber, headers) -> {
+            if (isCancelled()) {
+              throw new InterruptedIOException("Series download has been cancelled");
+            }
+            File tempFile = File.createTempFile("image_", ".dcm", getDicomTmpDir());
+            try (InputStream in = multipartReader.newPartInputStream()) {
+              FileUtil.writeStream(new SeriesProgressMonitor(dicomSeries, in), tempFile, false);
+            }
+            tempFile = moveToExportDir(tempFile);
+            DicomMediaIO reader = new DicomMediaIO(tempFile);
+            String sopUID =
+                reader.isReadableDicom()
+                    ? TagD.getTagValue(reader, Tag.SOPInstanceUID, String.class)
+                    : null;
+            if (sopUID != null && sopInstanceUIDs.contains(sopUID) && received.add(sopUID)) {
+              new Download(seriesURL).importFile(reader, tempFile);
+            } else {
+              LOGGER.debug("Skip the part {} of the series {}", partNumber, seriesURL);
+              reader.close();
+              FileUtil.delete(tempFile);
+            }
+          };
+      Multipart.parseMultipartRelated(
+          response.getHeaderField("Content-Type"), // NON-NLS
+          response.getInputStream(),
+          handler);
+      LOGGER.info("End of downloading {}, {} instances", seriesURL, received.size());
+    } catch (Exception e) {
+      LOGGER.error("Downloading the series {}", seriesURL, e);
+    }
+    return received;
+  }
+
+  private static File getDicomTmpDir() {
+    // Solves missing tmp folder problem (on Windows).
+    if (!DICOM_TMP_DIR.exists()) {
+      LOGGER.info("DICOM tmp dir not found. Re-creating it!");
+      AppProperties.buildAccessibleTempDirectory("downloading"); // NON-NLS
+    }
+    return DICOM_TMP_DIR;
+  }
+
+  private static File moveToExportDir(File file) {
+    File renameFile = new File(DicomMediaIO.DICOM_EXPORT_DIR, file.getName());
+    return file.renameTo(renameFile) ? renameFile : file;
+  }
+
   private static Map<String, String> getHttpTags(WadoParameters wadoParams) {
     boolean hasWadoTags = wadoParams != null && wadoParams.getHttpTaglist() != null;
     boolean hasWadoLogin = wadoParams != null && wadoParams.getWebLogin() != null;
@@ -847,20 +968,10 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
       return Boolean.TRUE;
     }
 
-    // Solves missing tmp folder problem (on Windows).
-    private File getDicomTmpDir() {
-      if (!DICOM_TMP_DIR.exists()) {
-        LOGGER.info("DICOM tmp dir not found. Re-creating it!");
-        AppProperties.buildAccessibleTempDirectory("downloading"); // NON-NLS
-      }
-      return DICOM_TMP_DIR;
-    }
-
     /** Download file. */
     private boolean process() throws IOException, URISyntaxException {
       boolean cache = true;
       File tempFile = null;
-      DicomMediaIO dicomReader = null;
       HttpResponse urlcon = NetworkUtil.getHttpResponse(url, urlParams, authMethod);
       int code = urlcon.getResponseCode();
       if (code >= HttpURLConnection.HTTP_BAD_REQUEST) {
@@ -892,64 +1003,79 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
             } else if (bytesTransferred >= 0) {
               return false;
             }
-
-            File renameFile = new File(DicomMediaIO.DICOM_EXPORT_DIR, tempFile.getName());
-            if (tempFile.renameTo(renameFile)) {
-              tempFile = renameFile;
-            }
+            tempFile = moveToExportDir(tempFile);
           } else {
             tempFile = new File(NetworkUtil.getURI(url));
           }
-          // Ensure the stream is closed if image is not written in cache
-          FileUtil.safeClose(stream);
-
-          dicomReader = new DicomMediaIO(tempFile);
-          if (dicomReader.isReadableDicom() && dicomSeries.size(null) == 0) {
-            // Override the group (patient, study and series) by the dicom fields except the UID of
-            // the group
-            MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
-            dicomReader.writeMetaData(patient);
-            MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
-            dicomReader.writeMetaData(study);
-            dicomReader.writeMetaData(dicomSeries);
-            GuiExecutor.invokeAndWait(
-                () -> {
-                  Thumbnail thumb = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
-                  if (thumb != null) {
-                    thumb.repaint();
-                  }
-                  dicomModel.firePropertyChange(
-                      new ObservableEvent(
-                          ObservableEvent.BasicAction.UPDATE_PARENT,
-                          dicomModel,
-                          null,
-                          dicomSeries));
-                });
-          }
         }
       }
 
+      DicomMediaIO dicomReader =
+          tempFile == null || dicomSeries == null ? null : new DicomMediaIO(tempFile);
+      importFile(dicomReader, tempFile);
+      return true;
+    }
+
+    /**
+     * Adds the downloaded file to the series and increments the progress bar.
+     *
+     * @param dicomReader the reader of the file, or null when there is nothing to import
+     * @param tempFile the downloaded file
+     */
+    private void importFile(DicomMediaIO dicomReader, File tempFile) {
+      boolean firstInstance =
+          dicomReader != null && dicomReader.isReadableDicom() && dicomSeries.size(null) == 0;
+      if (firstInstance) {
+        // Override the group (patient, study and series) by the dicom fields except the UID of
+        // the group
+        MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
+        dicomReader.writeMetaData(patient);
+        MediaSeriesGroup study = dicomModel.getParent(dicomSeries, DicomModel.study);
+        dicomReader.writeMetaData(study);
+        dicomReader.writeMetaData(dicomSeries);
+      }
+
+      Runnable update = null;
       // Change status to complete if this point was reached because downloading has finished.
       if (status == Status.DOWNLOADING) {
         status = Status.COMPLETE;
-        if (tempFile != null && dicomSeries != null) {
+        if (dicomReader != null) {
           Reading reading = dicomReader.getReadingStatus();
           if (reading == Reading.READABLE) {
             if (tempFile.getPath().startsWith(AppProperties.APP_TEMP_DIR.getPath())) {
               dicomReader.getFileCache().setOriginalTempFile(tempFile);
             }
             final DicomMediaIO reader = dicomReader;
-            // Necessary to wait the runnable because the dicomSeries must be added to the
-            // dicomModel before reaching done() of SwingWorker
-            GuiExecutor.invokeAndWait(() -> updateUI(reader));
+            update = () -> updateUI(reader);
           } else if (reading == Reading.ERROR) {
             errors.incrementAndGet();
           }
         }
       }
+
+      if (firstInstance) {
+        // The first instance initializes the series synchronously, so the next instances are
+        // not considered as the first one while their updates are pending
+        final Runnable firstUpdate = update;
+        GuiExecutor.invokeAndWait(
+            () -> {
+              if (firstUpdate != null) {
+                firstUpdate.run();
+              }
+              Thumbnail thumb = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
+              if (thumb != null) {
+                thumb.repaint();
+              }
+              dicomModel.firePropertyChange(
+                  new ObservableEvent(
+                      ObservableEvent.BasicAction.UPDATE_PARENT, dicomModel, null, dicomSeries));
+            });
+      } else if (update != null) {
+        // Applied in the EDT with the next batch of updates
+        modelUpdates.add(dicomSeries, update);
+      }
       // Increment progress bar in EDT and repaint when downloaded
       incrementProgressBarValue();
-      return true;
     }
 
     private int downloadInFileCache(HttpResponse response, File tempFile) throws IOException {
@@ -981,9 +1107,8 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
                 response.getInputStream(),
                 handler);
           } else {
-            AuthResponse authResponse = (AuthResponse) response;
             Multipart.parseMultipartRelated(
-                authResponse.getResponse().getHeader("Content-Type"), // NON-NLS
+                response.getHeaderField("Content-Type"), // NON-NLS
                 response.getInputStream(),
                 handler);
           }
@@ -1138,11 +1263,6 @@ public class LoadSeries extends ExplorerTask<Boolean, String> implements SeriesI
         dicomModel.applySplittingRules(dicomSeries, result.getSpecialElement());
       }
 
-      Thumbnail thumb = (Thumbnail) dicomSeries.getTagValue(TagW.Thumbnail);
-      if (thumb != null) {
-        thumb.repaint();
-      }
-
       MediaSeriesGroup patient = dicomModel.getParent(dicomSeries, DicomModel.patient);
       if (patient != null) {
         PluginOpeningStrategy open = openingStrategy;
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.explorer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.weasis.core.api.media.data.MediaSeriesGroup;
+import org.weasis.core.api.media.data.MediaSeriesGroupNode;
+import org.weasis.dicom.codec.TagD;
+import org.weasis.dicom.codec.TagD.Level;
+
+/** Checks that the study and series indexes follow the changes of the hierarchy. */
+class DicomModelTest {
+
+  private final DicomModel model = new DicomModel();
+
+  private static MediaSeriesGroup node(Level level, String uid) {
+    return new MediaSeriesGroupNode(TagD.getUID(level), uid, null);
+  }
+
+  private MediaSeriesGroup addPatient(String uid) {
+    MediaSeriesGroup pt = node(Level.PATIENT, uid);
+    model.addHierarchyNode(MediaSeriesGroupNode.rootNode, pt);
+    return pt;
+  }
+
+  private MediaSeriesGroup add(MediaSeriesGroup parent, Level level, String uid) {
+    MediaSeriesGroup node = node(level, uid);
+    model.addHierarchyNode(parent, node);
+    return node;
+  }
+
+  @Test
+  void test_add_and_remove_nodes() {
+    MediaSeriesGroup pt = addPatient("pt1");
+    MediaSeriesGroup st = add(pt, Level.STUDY, "1.1");
+    MediaSeriesGroup s1 = add(st, Level.SERIES, "1.1.1");
+    MediaSeriesGroup s2 = add(st, Level.SERIES, "1.1.2");
+
+    assertSame(st, model.getStudyNode("1.1"));
+    assertSame(s1, model.getSeriesNode("1.1.1"));
+    assertSame(s2, model.getSeriesNode("1.1.2"));
+    assertNull(model.getStudyNode("1.2"));
+
+    model.removeHierarchyNode(st, s1);
+    assertNull(model.getSeriesNode("1.1.1"));
+    assertSame(s2, model.getSeriesNode("1.1.2"));
+
+    // The series of the study are removed with the study
+    model.removeHierarchyNode(pt, st);
+    assertNull(model.getStudyNode("1.1"));
+    assertNull(model.getSeriesNode("1.1.2"));
+
+    add(pt, Level.STUDY, "1.2");
+    model.removeHierarchyNode(MediaSeriesGroupNode.rootNode, pt);
+    assertNull(model.getStudyNode("1.2"));
+  }
+
+  @Test
+  void test_same_uid_in_another_patient() {
+    MediaSeriesGroup st = add(addPatient("pt1"), Level.STUDY, "1.1");
+    MediaSeriesGroup pt2 = addPatient("pt2");
+    MediaSeriesGroup st2 = add(pt2, Level.STUDY, "1.1");
+
+    // The first node remains indexed
+    assertSame(st, model.getStudyNode("1.1"));
+    model.removeHierarchyNode(pt2, st2);
+    assertSame(st, model.getStudyNode("1.1"));
+  }
+
+  @Test
+  void test_merge_patient_uid() {
+    MediaSeriesGroup pt = addPatient("pt1");
+    MediaSeriesGroup st1 = add(pt, Level.STUDY, "1.1");
+    MediaSeriesGroup st2 = add(pt, Level.STUDY, "1.2");
+    MediaSeriesGroup s1 = add(st1, Level.SERIES, "1.1.1");
+    MediaSeriesGroup s2 = add(st2, Level.SERIES, "1.2.1");
+
+    model.mergePatientUID("pt1", "pt2");
+
+    MediaSeriesGroup pt2 = model.getHierarchyNode(MediaSeriesGroupNode.rootNode, "pt2");
+    assertNotNull(pt2);
+    assertNull(model.getHierarchyNode(MediaSeriesGroupNode.rootNode, "pt1"));
+    assertSame(st1, model.getStudyNode("1.1"));
+    assertSame(st2, model.getStudyNode("1.2"));
+    assertSame(s1, model.getSeriesNode("1.1.1"));
+    assertSame(s2, model.getSeriesNode("1.2.1"));
+    assertSame(pt2, model.getParent(s1, DicomModel.patient));
+    assertTrue(model.getChildren(st1).contains(s1));
+  }
+
+  @Test
+  void test_merge_study_uid() {
+    MediaSeriesGroup pt = addPatient("pt1");
+    MediaSeriesGroup st = add(pt, Level.STUDY, "1.1");
+    MediaSeriesGroup s1 = add(st, Level.SERIES, "1.1.1");
+    MediaSeriesGroup s2 = add(st, Level.SERIES, "1.1.2");
+
+    model.mergeStudyUID("1.1", "1.2");
+
+    MediaSeriesGroup st2 = model.getStudyNode("1.2");
+    assertNotNull(st2);
+    assertNotSame(st, st2);
+    assertNull(model.getStudyNode("1.1"));
+    assertSame(s1, model.getSeriesNode("1.1.1"));
+    assertSame(s2, model.getSeriesNode("1.1.2"));
+    assertSame(st2, model.getParent(s1, DicomModel.study));
+    assertTrue(model.getChildren(pt).contains(st2));
+    assertFalse(model.getChildren(pt).contains(st));
+
+    // Merge into an existing study
+    MediaSeriesGroup st3 = add(pt, Level.STUDY, "1.3");
+    MediaSeriesGroup s3 = add(st3, Level.SERIES, "1.3.1");
+    model.mergeStudyUID("1.3", "1.2");
+    assertNull(model.getStudyNode("1.3"));
+    assertSame(s3, model.getSeriesNode("1.3.1"));
+    assertSame(st2, model.getParent(s3, DicomModel.study));
+  }
+}
@@ -17,7 +17,10 @@ import java.awt.*;
 import java.awt.geom.Point2D;
 import java.util.*;
 import java.util.List;
-import java.util.stream.DoubleStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Sequence;
 import org.dcm4che3.data.Tag;
@@ -32,10 +35,12 @@ import org.opencv.imgproc.Imgproc;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.media.data.MediaElement;
+import org.weasis.core.api.util.ThreadUtil;
 import org.weasis.core.ui.model.graphic.imp.seg.SegContour;
 import org.weasis.dicom.codec.*;
 import org.weasis.dicom.codec.geometry.GeometryOfSlice;
 import org.weasis.opencv.data.ImageCV;
+import org.weasis.opencv.data.PlanarImage;
 import org.weasis.opencv.op.ImageConversion;
 import org.weasis.opencv.seg.Segment;
 
@@ -45,7 +50,20 @@ import org.weasis.opencv.seg.Segment;
  */
 public class Dose extends RtSpecialElement implements SpecialElementRegion {
   private static final Logger LOGGER = LoggerFactory.getLogger(Dose.class);
-  private final Map<String, Map<String, Set<SegContour>>> refMap = new HashMap<>();
+
+  public static final String P_ISODOSE_CACHE_SIZE = "weasis.rt.isodose.cache.size";
+  private static final int ISODOSE_CACHE_SIZE = Integer.getInteger(P_ISODOSE_CACHE_SIZE, 4096);
+  private static final ExecutorService ISODOSE_EXECUTOR =
+      ThreadUtil.buildNewFixedThreadExecutor(
+          Math.clamp(Runtime.getRuntime().availableProcessors() / 2, 1, 4),
+          "RT Isodose Builder"); // NON-NLS
+
+  // Contour of an isodose in the coordinates of the patient image
+  private record IsoDoseGeometry(List<Segment> segments, int nbPixels) {}
+
+  private record IsoDoseKey(KeyDouble slicePosition, double threshold) {}
+
+  private static final IsoDoseGeometry NO_CONTOUR = new IsoDoseGeometry(List.of(), 0);
 
   private volatile float opacity = 1.0f;
   private volatile boolean visible = false;
@@ -64,7 +82,29 @@ public class Dose extends RtSpecialElement implements SpecialElementRegion {
 
   private final Map<Integer, IsoDoseRegion> isoDoseSet = new LinkedHashMap<>();
 
-  private final Map<Integer, Dvh> dvhMap = new HashMap<>();
+  // Contours of the isodoses by slice position and dose threshold
+  private final Map<IsoDoseKey, IsoDoseGeometry> isoDoseCache =
+      Collections.synchronizedMap(
+          new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IsoDoseKey, IsoDoseGeometry> eldest) {
+              return size() > ISODOSE_CACHE_SIZE;
+            }
+          });
+  // Isodoses already added to the number of pixels of their region
+  private final Set<IsoDoseKey> countedIsoDoses = ConcurrentHashMap.newKeySet();
+  // Slice position of the images of the patient series inside the dose grid
+  private final Map<String, KeyDouble> slicePositions = new ConcurrentHashMap<>();
+  private final AtomicInteger isoDoseGeneration = new AtomicInteger();
+  private volatile RtSet isoDoseRtSet;
+
+  // Filled concurrently by the DVH calculation of the structures
+  private final Map<Integer, Dvh> dvhMap = new ConcurrentHashMap<>();
+
+  // Z coordinate (in patient coordinates) of each dose plane
+  private final double[] dosePlanesZ;
+  // Dose planes interpolated between two frames, kept while the RT objects are computed
+  private final Map<KeyDouble, PlanarImage> interpolatedPlanes = new ConcurrentHashMap<>();
 
   // Dose LUTs
   private AbstractMap.SimpleImmutableEntry<double[], double[]> doseMmLUT;
@@ -86,6 +126,7 @@ public class Dose extends RtSpecialElement implements SpecialElementRegion {
     this.doseSummationType = dcmItems.getString(Tag.DoseSummationType);
     this.gridFrameOffsetVector = dcmItems.getDoubles(Tag.GridFrameOffsetVector);
     this.doseGridScaling = dcmItems.getDouble(Tag.DoseGridScaling, 0.0);
+    this.dosePlanesZ = buildDosePlanesZ(imagePositionPatient, gridFrameOffsetVector);
     initDvh(dcmItems.getSequence(Tag.DVHSequence));
   }
 
@@ -113,58 +154,9 @@ public class Dose extends RtSpecialElement implements SpecialElementRegion {
 
             LOGGER.info("Not supported: converting differential DVH to cumulative");
 
-            double[] data = dvhAttributes.getDoubles(Tag.DVHData);
-            if (data != null && data.length % 2 == 0) {
-
-              // X of histogram
-              double[] doseX = new double[data.length / 2];
-
-              // Y of histogram
-              double[] volume = new double[data.length / 2];
-
-              // Separate the dose and volume values into distinct arrays
-              for (int i = 0; i < data.length; i = i + 2) {
-                doseX[i] = data[i];
-                volume[i] = data[i + 1];
-              }
-
-              // Get the min and max dose in cGy
-              int minDose = (int) (doseX[0] * 100);
-              int maxDose = (int) DoubleStream.of(doseX).sum();
-
-              // Get volume values
-              double maxVolume = DoubleStream.of(volume).sum();
-
-              // Determine the dose values that are missing from the original data
-              double[] missingDose = new double[minDose];
-              Arrays.fill(missingDose, maxVolume);
-
-              // Cumulative dose - x of histogram
-              // Cumulative volume data - y of histogram
-              double[] cumVolume = new double[doseX.length];
-              double[] cumDose = new double[doseX.length];
-              for (int k = 0; k < doseX.length; k++) {
-                cumVolume[k] = DoubleStream.of(Arrays.copyOfRange(volume, k, doseX.length)).sum();
-                cumDose[k] = DoubleStream.of(Arrays.copyOfRange(doseX, 0, k)).sum() * 100;
-              }
-
-              // Interpolated dose data for 1 cGy bins (between min and max)
-              int[] interpDose = new int[maxDose + 1 - minDose];
-              int m = 0;
-              for (int l = minDose; l < maxDose + 1; l++) {
-                interpDose[m] = l;
-                m++;
-              }
-
-              // Interpolated volume data
-              double[] interpCumVolume = interpolate(interpDose, cumDose, cumVolume);
-
-              // Append the interpolated values to the missing dose values
-              double[] cumDvhData = new double[missingDose.length + interpCumVolume.length];
-              System.arraycopy(missingDose, 0, cumDvhData, 0, cumDvhData.length);
-              System.arraycopy(
-                  interpCumVolume, 0, cumDvhData, missingDose.length, interpCumVolume.length);
-
+            double[] cumDvhData =
+                convertDifferentialToCumulativeDvh(dvhAttributes.getDoubles(Tag.DVHData));
+            if (cumDvhData != null) {
               rtDvh.setDvhData(cumDvhData);
               rtDvh.setDvhNumberOfBins(cumDvhData.length);
             }
@@ -205,6 +197,74 @@ public class Dose extends RtSpecialElement implements SpecialElementRegion {
     }
   }
 
+  /**
+   * Converts a differential DVH to a cumulative DVH with bins of 1 cGy.
+   *
+   * @param data the DVH data of a differential DVH: the pairs of bin width (in Gy) and volume
+   * @return the volume receiving at least the dose of each bin, or null if the data is not valid
+   */
+  static double[] convertDifferentialToCumulativeDvh(double[] data) {
+    if (data == null || data.length % 2 != 0 || data.length < 4) {
+      return null;
+    }
+    int nbBins = data.length / 2;
+
+    // X of histogram
+    double[] doseX = new double[nbBins];
+
+    // Y of histogram
+    double[] volume = new double[nbBins];
+
+    // Separate the dose and volume values into distinct arrays
+    for (int i = 0; i < nbBins; i++) {
+      doseX[i] = data[2 * i];
+      volume[i] = data[2 * i + 1];
+    }
+
+    // Cumulative dose - x of histogram (prefix sum of the bin widths)
+    // Cumulative volume data - y of histogram (suffix sum of the volumes)
+    double[] cumVolume = new double[nbBins];
+    double[] cumDose = new double[nbBins];
+    double sumDose = 0.0;
+    for (int k = 0; k < nbBins; k++) {
+      cumDose[k] = sumDose * 100;
+      sumDose += doseX[k];
+    }
+    double sumVolume = 0.0;
+    for (int k = nbBins - 1; k >= 0; k--) {
+      sumVolume += volume[k];
+      cumVolume[k] = sumVolume;
+    }
+
+    // Get the min and max dose in cGy
+    int minDose = (int) (doseX[0] * 100);
+    int maxDose = (int) cumDose[nbBins - 1];
+
+    // Get volume values
+    double maxVolume = cumVolume[0];
+
+    // Determine the dose values that are missing from the original data
+    double[] missingDose = new double[minDose];
+    Arrays.fill(missingDose, maxVolume);
+
+    // Interpolated dose data for 1 cGy bins (between min and max)
+    int[] interpDose = new int[maxDose + 1 - minDose];
+    int m = 0;
+    for (int l = minDose; l < maxDose + 1; l++) {
+      interpDose[m] = l;
+      m++;
+    }
+
+    // Interpolated volume data
+    double[] interpCumVolume = interpolate(interpDose, cumDose, cumVolume);
+
+    // Append the interpolated values to the missing dose values
+    double[] cumDvhData = new double[missingDose.length + interpCumVolume.length];
+    System.arraycopy(missingDose, 0, cumDvhData, 0, missingDose.length);
+    System.arraycopy(interpCumVolume, 0, cumDvhData, missingDose.length, interpCumVolume.length);
+    return cumDvhData;
+  }
+
   public DicomSeries getSeries() {
     return series;
   }
@@ -214,7 +274,8 @@ public class Dose extends RtSpecialElement implements SpecialElementRegion {
   }
 
   public Map<String, Map<String, Set<SegContour>>> getRefMap() {
-    return refMap;
+    // The isodoses are built by slice position, see getContours()
+    return Collections.emptyMap();
   }
 
   @Override
@@ -332,69 +393,199 @@ public class Dose extends RtSpecialElement implements SpecialElementRegion {
     this.dosePixLUT = lut;
   }
 
+  /**
+   * Builds the isodose levels of the prescribed dose. The contours are computed when a slice is
+   * displayed (see {@link #getContours(DicomImageElement)}) and the other slices are computed in
+   * the background.
+   *
+   * <p>Calling this method again with another prescribed dose keeps the computed contours whose
+   * dose threshold is still used.
+   *
+   * @param rxDose the prescribed dose in cGy
+   * @param rtSet the RT objects of the patient
+   */
   public void initDoseSet(double rxDose, RtSet rtSet) {
+    int generation = isoDoseGeneration.incrementAndGet();
     int doseMaxLevel =
         (int) Dose.calculateRelativeDose((getDoseMax() * getDoseGridScaling() * 100), rxDose);
 
     // Max and standard levels 102, 100, 98, 95, 90, 80, 70, 50, 30
     if (doseMaxLevel > 0) {
-      String seriesUID =
-          TagD.getTagValue(rtSet.getPatientImage().getImage(), Tag.SeriesInstanceUID, String.class);
-      isoDoseSet.put(
+      Map<Integer, IsoDoseRegion> regions = new LinkedHashMap<>();
+      regions.put(
           doseMaxLevel,
           new IsoDoseRegion(
               doseMaxLevel,
               new Color(120 / 255f, 0, 0, opacity),
               "Max", // NON-NLS
               rxDose)); // NON-NLS
-      isoDoseSet.put(102, new IsoDoseRegion(102, new Color(170 / 255f, 0, 0, opacity), "", rxDose));
-      isoDoseSet.put(
+      regions.put(102, new IsoDoseRegion(102, new Color(170 / 255f, 0, 0, opacity), "", rxDose));
+      regions.put(
           100, new IsoDoseRegion(100, new Color(238 / 255f, 69 / 255f, 0, opacity), "", rxDose));
-      isoDoseSet.put(98, new IsoDoseRegion(98, new Color(1f, 165 / 255f, 0, opacity), "", rxDose));
-      isoDoseSet.put(95, new IsoDoseRegion(95, new Color(1f, 1f, 0, opacity), "", rxDose));
-      isoDoseSet.put(90, new IsoDoseRegion(90, new Color(0, 1f, 0, opacity), "", rxDose));
-      isoDoseSet.put(80, new IsoDoseRegion(80, new Color(0, 139 / 255f, 0, opacity), "", rxDose));
-      isoDoseSet.put(70, new IsoDoseRegion(70, new Color(0, 1f, 1f, opacity), "", rxDose));
-      isoDoseSet.put(50, new IsoDoseRegion(50, new Color(0, 0, 1f, opacity), "", rxDose));
-      isoDoseSet.put(30, new IsoDoseRegion(30, new Color(0, 0, 128 / 255f, opacity), "", rxDose));
+      regions.put(98, new IsoDoseRegion(98, new Color(1f, 165 / 255f, 0, opacity), "", rxDose));
+      regions.put(95, new IsoDoseRegion(95, new Color(1f, 1f, 0, opacity), "", rxDose));
+      regions.put(90, new IsoDoseRegion(90, new Color(0, 1f, 0, opacity), "", rxDose));
+      regions.put(80, new IsoDoseRegion(80, new Color(0, 139 / 255f, 0, opacity), "", rxDose));
+      regions.put(70, new IsoDoseRegion(70, new Color(0, 1f, 1f, opacity), "", rxDose));
+      regions.put(50, new IsoDoseRegion(50, new Color(0, 0, 1f, opacity), "", rxDose));
+      regions.put(30, new IsoDoseRegion(30, new Color(0, 0, 128 / 255f, opacity), "", rxDose));
 
       // Commented level just for testing
       //           isoDoseSet.put(2, new IsoDoseLayer(new IsoDose(2, new Color(0, 0,
       // 111/255f,
       //           opacity), "", rxDose)));
-      Map<String, Set<SegContour>> map = refMap.computeIfAbsent(seriesUID, _ -> new HashMap<>());
+      Map<String, KeyDouble> positions = new LinkedHashMap<>();
       Set<KeyDouble> zSet = new LinkedHashSet<>();
       // Go through whole imaging grid (CT)
       for (DicomImageElement image : rtSet.getSeries().getMedias(null, null)) {
-        Set<SegContour> contours = new LinkedHashSet<>();
+        if (rtSet.isCancelled()) {
+          // Computed again at the next loading
+          clearIsoDoses();
+          return;
+        }
         // Image slice UID and position
         String sopUID = TagD.getTagValue(image, Tag.SOPInstanceUID, String.class);
         KeyDouble z = new KeyDouble(image.getSliceGeometry().getTLHC().z);
+        zSet.add(z);
+        if (sopUID != null && findDosePlanePosition(z.getValue()) != null) {
+          positions.put(sopUID, z);
+        }
+      }
 
-        List<IsoDoseRegion> reverseValues = new ArrayList<>(isoDoseSet.values());
-        Collections.reverse(reverseValues);
-        for (IsoDoseRegion doseRegion : reverseValues) {
-          zSet.add(z);
-          double isoDoseThreshold = doseRegion.getAbsoluteDose();
+      double thickness = RtSet.calculatePlaneThickness(zSet);
+      Set<Double> thresholds = new HashSet<>();
+      for (IsoDoseRegion isoDoseLayer : regions.values()) {
+        isoDoseLayer.setThickness(thickness);
+        thresholds.add(isoDoseLayer.getAbsoluteDose());
+      }
 
-          StructContour isoContour = getIsoDoseContour(z, isoDoseThreshold, doseRegion, rtSet);
-          if (isoContour == null) {
-            continue;
-          }
-          contours.add(isoContour);
-        }
-        if (contours.isEmpty()) {
-          map.remove(sopUID);
-        } else {
-          map.put(sopUID, contours);
-        }
+      synchronized (isoDoseCache) {
+        // Only the contours of the thresholds that are no longer used are invalidated
+        isoDoseCache.keySet().removeIf(k -> !thresholds.contains(k.threshold()));
+      }
+      // The new regions have no pixels
+      countedIsoDoses.clear();
+      synchronized (isoDoseSet) {
+        isoDoseSet.clear();
+        isoDoseSet.putAll(regions);
+      }
+      slicePositions.clear();
+      slicePositions.putAll(positions);
+      this.isoDoseRtSet = rtSet;
+      scheduleIsoDoses(rtSet, generation, positions.values());
+    }
+  }
+
+  /**
+   * Updates the isodose levels with a new prescribed dose, only the contours of the dose thresholds
+   * that are no longer used are computed again.
+   *
+   * @param rxDose the prescribed dose in cGy
+   */
+  public void setPrescribedDose(double rxDose) {
+    RtSet rtSet = isoDoseRtSet;
+    if (rtSet != null) {
+      initDoseSet(rxDose, rtSet);
+    }
+  }
+
+  private void clearIsoDoses() {
+    isoDoseGeneration.incrementAndGet();
+    synchronized (isoDoseSet) {
+      isoDoseSet.clear();
+    }
+    slicePositions.clear();
+    isoDoseCache.clear();
+    countedIsoDoses.clear();
+    this.isoDoseRtSet = null;
+  }
+
+  /** Pre-computes in the background the isodoses of the slices which are not displayed yet. */
+  private void scheduleIsoDoses(RtSet rtSet, int generation, Collection<KeyDouble> positions) {
+    for (KeyDouble z : new LinkedHashSet<>(positions)) {
+      ISODOSE_EXECUTOR.execute(
+          () -> {
+            if (generation == isoDoseGeneration.get() && !rtSet.isCancelled()) {
+              try {
+                getIsoDoseContours(z, rtSet);
+              } catch (Exception e) {
+                LOGGER.error("Cannot build the isodoses at {}", z.getValue(), e);
+              }
+            }
+          });
+    }
+  }
+
+  @Override
+  public boolean containsSopInstanceUIDReference(DicomImageElement img) {
+    String sopUID = img == null ? null : TagD.getTagValue(img, Tag.SOPInstanceUID, String.class);
+    return sopUID != null && slicePositions.containsKey(sopUID);
+  }
+
+  @Override
+  public Collection<SegContour> getContours(DicomImageElement img) {
+    String sopUID = img == null ? null : TagD.getTagValue(img, Tag.SOPInstanceUID, String.class);
+    KeyDouble z = sopUID == null ? null : slicePositions.get(sopUID);
+    RtSet rtSet = isoDoseRtSet;
+    if (z == null || rtSet == null) {
+      return Collections.emptyList();
+    }
+    return getIsoDoseContours(z, rtSet);
+  }
+
+  /**
+   * @param z the slice position
+   * @param rtSet the RT objects of the patient
+   * @return the isodose contours of the slice, computed only for the levels missing in the cache
+   */
+  private Set<SegContour> getIsoDoseContours(KeyDouble z, RtSet rtSet) {
+    List<IsoDoseRegion> reverseValues;
+    synchronized (isoDoseSet) {
+      reverseValues = new ArrayList<>(isoDoseSet.values());
+    }
+    Collections.reverse(reverseValues);
+
+    Map<Double, IsoDoseGeometry> geometries = new HashMap<>();
+    List<Double> missing = new ArrayList<>();
+    for (IsoDoseRegion doseRegion : reverseValues) {
+      double threshold = doseRegion.getAbsoluteDose();
+      IsoDoseGeometry geometry = isoDoseCache.get(new IsoDoseKey(z, threshold));
+      if (geometry == null) {
+        missing.add(threshold);
+      } else {
+        geometries.put(threshold, geometry);
       }
+    }
+    if (!missing.isEmpty()) {
+      // All the levels share the same dose plane
+      applyToDosePlane(
+          z.getValue(),
+          dosePlane -> {
+            for (Double threshold : missing) {
+              IsoDoseGeometry geometry = buildIsoDoseGeometry(dosePlane, z, threshold, rtSet);
+              isoDoseCache.put(new IsoDoseKey(z, threshold), geometry);
+              geometries.put(threshold, geometry);
+            }
+            return null;
+          });
+    }
 
-      // When finished creation of iso contours plane data calculate the plane thickness
-      for (IsoDoseRegion isoDoseLayer : isoDoseSet.values()) {
-        isoDoseLayer.setThickness(RtSet.calculatePlaneThickness(zSet));
+    Set<SegContour> contours = new LinkedHashSet<>();
+    for (IsoDoseRegion doseRegion : reverseValues) {
+      IsoDoseGeometry geometry = geometries.get(doseRegion.getAbsoluteDose());
+      if (geometry == null || geometry.segments().isEmpty()) {
+        continue;
       }
+      StructContour segContour =
+          new StructContour(String.valueOf(z.getKey()), geometry.segments(), geometry.nbPixels());
+      segContour.setPositionZ(z.getValue());
+      if (countedIsoDoses.add(new IsoDoseKey(z, doseRegion.getAbsoluteDose()))) {
+        doseRegion.addPixels(segContour);
+      }
+      segContour.setAttributes(doseRegion);
+      contours.add(segContour);
     }
+    return contours;
   }
 
   void initPlan(RtSet rtSet) {
@@ -435,87 +626,179 @@ public class Dose extends RtSpecialElement implements SpecialElementRegion {
     }
   }
 
-  public MediaElement getDosePlaneBySlice(double slicePosition) {
-    MediaElement dosePlane = null;
+  private static double[] buildDosePlanesZ(double[] imagePositionPatient, double[] offsets) {
+    if (imagePositionPatient == null || imagePositionPatient.length < 3 || offsets == null) {
+      return new double[0];
+    }
+    // Add initial image patient position Z to the offset vector to determine the Z coordinate of
+    // each dose plane
+    double[] planesZ = new double[offsets.length];
+    for (int i = 0; i < planesZ.length; i++) {
+      planesZ[i] = offsets[i] + imagePositionPatient[2];
+    }
+    return planesZ;
+  }
 
-    // If dose contains a multi-frame dose pixel array
-    if (this.gridFrameOffsetVector.length > 0) {
+  /**
+   * Position of a slice in the dose grid
+   *
+   * @param upperIndex the index of the closest dose plane
+   * @param lowerIndex the index of the second-closest dose plane, or -1 when the closest plane is
+   *     at the slice position
+   * @param fractionalDistance the position between the lower (0) and the upper (1) plane
+   */
+  private record DosePlanePosition(int upperIndex, int lowerIndex, double fractionalDistance) {}
 
-      // Initial dose grid position Z (in patient coordinates)
-      double imagePatientPositionZ = this.imagePositionPatient[2];
+  private DosePlanePosition findDosePlanePosition(double slicePosition) {
+    double[] planesZ = this.dosePlanesZ;
+    if (planesZ.length == 0) {
+      return null;
+    }
 
-      // Add initial image patient position Z to the offset vector to determine the Z coordinate of
-      // each dose
-      // plane
-      double[] dosePlanesZ = new double[this.gridFrameOffsetVector.length];
-      for (int i = 0; i < dosePlanesZ.length; i++) {
-        dosePlanesZ[i] = this.gridFrameOffsetVector[i] + imagePatientPositionZ;
-      }
+    // Check whether the requested plane is within the dose grid boundaries
+    double min = Double.MAX_VALUE;
+    double max = -Double.MAX_VALUE;
+    for (double z : planesZ) {
+      min = Math.min(min, z);
+      max = Math.max(max, z);
+    }
+    if (slicePosition < min || slicePosition > max) {
+      return null;
+    }
 
-      // Check whether the requested plane is within the dose grid boundaries
-      if (Arrays.stream(dosePlanesZ).min().getAsDouble() <= slicePosition
-          && slicePosition <= Arrays.stream(dosePlanesZ).max().getAsDouble()) {
+    // Calculate the absolute distance vector between dose planes and requested slice position
+    double[] absoluteDistance = new double[planesZ.length];
+    double minDistance = Double.MAX_VALUE;
+    double maxDistance = 0.0;
+    for (int i = 0; i < absoluteDistance.length; i++) {
+      absoluteDistance[i] = Math.abs(planesZ[i] - slicePosition);
+      minDistance = Math.min(minDistance, absoluteDistance[i]);
+      maxDistance = Math.max(maxDistance, absoluteDistance[i]);
+    }
 
-        // Calculate the absolute distance vector between dose planes and requested slice position
-        double[] absoluteDistance = new double[dosePlanesZ.length];
-        for (int i = 0; i < absoluteDistance.length; i++) {
-          absoluteDistance[i] = Math.abs(dosePlanesZ[i] - slicePosition);
-        }
+    // First minimum distance - upper boundary
+    int upperBoundaryIndex = firstIndexOf(absoluteDistance, minDistance, 0.001);
 
-        // Check to see if the requested plane exists in the array (or is close enough)
-        int doseSlicePosition = -1;
-        double minDistance = Arrays.stream(absoluteDistance).min().getAsDouble();
-        if (minDistance < this.doseSlicePositionThreshold) {
-          doseSlicePosition = firstIndexOf(absoluteDistance, minDistance, 0.001);
-        }
+    // Check to see if the requested plane exists in the array (or is close enough)
+    if (minDistance < this.doseSlicePositionThreshold) {
+      return new DosePlanePosition(upperBoundaryIndex, -1, 1.0);
+    }
 
-        // Dose slice position found return the plane
-        if (doseSlicePosition != -1) {
-          dosePlane = series.getMedia(doseSlicePosition, null, null);
-        }
-        // There is no dose plane for such slice position, so interpolate between planes
-        else {
-
-          // First minimum distance - upper boundary
-          int upperBoundaryIndex = firstIndexOf(absoluteDistance, minDistance, 0.001);
-
-          // Prepare modified absolute distance vector to find the second minimum
-          double[] modifiedAbsoluteDistance =
-              Arrays.copyOf(absoluteDistance, absoluteDistance.length);
-          modifiedAbsoluteDistance[upperBoundaryIndex] =
-              Arrays.stream(absoluteDistance).max().getAsDouble();
-
-          // Second minimum distance - lower boundary
-          minDistance = Arrays.stream(modifiedAbsoluteDistance).min().getAsDouble();
-          int lowerBoundaryIndex = firstIndexOf(modifiedAbsoluteDistance, minDistance, 0.001);
-
-          // Fractional distance of dose plane between upper and lower boundary (from bottom to top)
-          // E.g. if = 1, the plane is at the upper plane, = 0, it is at the lower plane.
-          double fractionalDistance =
-              (slicePosition - dosePlanesZ[lowerBoundaryIndex])
-                  / (dosePlanesZ[upperBoundaryIndex] - dosePlanesZ[lowerBoundaryIndex]);
-
-          dosePlane =
-              this.interpolateDosePlanes(
-                  upperBoundaryIndex, lowerBoundaryIndex, fractionalDistance);
-        }
-      }
+    // Second minimum distance - lower boundary
+    absoluteDistance[upperBoundaryIndex] = maxDistance;
+    minDistance = Arrays.stream(absoluteDistance).min().orElse(maxDistance);
+    int lowerBoundaryIndex = firstIndexOf(absoluteDistance, minDistance, 0.001);
+
+    // Fractional distance of dose plane between upper and lower boundary (from bottom to top)
+    // E.g. if = 1, the plane is at the upper plane, = 0, it is at the lower plane.
+    double fractionalDistance =
+        (slicePosition - planesZ[lowerBoundaryIndex])
+            / (planesZ[upperBoundaryIndex] - planesZ[lowerBoundaryIndex]);
+    return new DosePlanePosition(upperBoundaryIndex, lowerBoundaryIndex, fractionalDistance);
+  }
+
+  /**
+   * @param slicePosition the Z coordinate in patient coordinates
+   * @return the dose frame at this position, or null if the position is between two frames or
+   *     outside the dose grid
+   * @see #getDosePlaneImage(double)
+   */
+  public MediaElement getDosePlaneBySlice(double slicePosition) {
+    DosePlanePosition position = findDosePlanePosition(slicePosition);
+    if (position == null || position.lowerIndex() >= 0) {
+      return null;
     }
+    return series.getMedia(position.upperIndex(), null, null);
+  }
 
-    return dosePlane;
+  /**
+   * @param slicePosition the Z coordinate in patient coordinates
+   * @return the dose plane at this position, interpolated between the two closest frames when
+   *     required, or null if the position is outside the dose grid
+   */
+  public PlanarImage getDosePlaneImage(double slicePosition) {
+    DosePlanePosition position = findDosePlanePosition(slicePosition);
+    if (position == null) {
+      return null;
+    }
+    if (position.lowerIndex() < 0) {
+      DicomImageElement dosePlane = series.getMedia(position.upperIndex(), null, null);
+      return dosePlane == null ? null : dosePlane.getImage();
+    }
+    // The same planes are required by the isodoses and by the DVH of each structure
+    return interpolatedPlanes.computeIfAbsent(
+        new KeyDouble(slicePosition),
+        _ ->
+            interpolateDosePlanes(
+                position.upperIndex(), position.lowerIndex(), position.fractionalDistance()));
+  }
+
+  /**
+   * Applies a function to the dose plane at a slice position. Unlike {@link
+   * #getDosePlaneImage(double)}, an interpolated plane is released after the call.
+   *
+   * @return the result of the function or null if the position is outside the dose grid
+   */
+  private <R> R applyToDosePlane(double slicePosition, Function<PlanarImage, R> function) {
+    DosePlanePosition position = findDosePlanePosition(slicePosition);
+    if (position == null) {
+      return null;
+    }
+    if (position.lowerIndex() < 0) {
+      DicomImageElement dosePlane = series.getMedia(position.upperIndex(), null, null);
+      PlanarImage img = dosePlane == null ? null : dosePlane.getImage();
+      return img == null ? null : function.apply(img);
+    }
+    PlanarImage img = interpolatedPlanes.get(new KeyDouble(slicePosition));
+    if (img != null) {
+      return function.apply(img);
+    }
+    img =
+        interpolateDosePlanes(
+            position.upperIndex(), position.lowerIndex(), position.fractionalDistance());
+    if (img == null) {
+      return null;
+    }
+    try {
+      return function.apply(img);
+    } finally {
+      ImageConversion.releasePlanarImage(img);
+    }
+  }
+
+  /** Releases the interpolated dose planes computed while initializing the RT objects. */
+  public void clearDosePlaneCache() {
+    for (PlanarImage img : interpolatedPlanes.values()) {
+      ImageConversion.releasePlanarImage(img);
+    }
+    interpolatedPlanes.clear();
   }
 
   public Mat getMaskedDosePlaneHist(double slicePosition, Mat mask, int maxDose) {
+    return getMaskedDosePlaneHist(getDosePlaneImage(slicePosition), mask, maxDose);
+  }
 
-    DicomImageElement dosePlane = (DicomImageElement) this.getDosePlaneBySlice(slicePosition);
+  public Mat getMaskedDosePlaneHist(PlanarImage dosePlane, Mat mask, int maxDose) {
+    return getMaskedDosePlaneHist(dosePlane.toMat(), doseGridScaling, mask, maxDose);
+  }
 
-    int rows = dosePlane.getImage().toMat().rows();
-    int cols = dosePlane.getImage().toMat().cols();
+  /**
+   * Computes the histogram of the dose inside the mask, with bins of 1 cGy.
+   *
+   * @param doseMat the raw values of the dose plane
+   * @param doseGridScaling the factor converting the raw values in Gy
+   * @param mask the mask of the structure
+   * @param maxDose the number of bins, the greater doses are ignored
+   * @return the number of pixels of each bin
+   */
+  static Mat getMaskedDosePlaneHist(Mat doseMat, double doseGridScaling, Mat mask, int maxDose) {
+    int rows = doseMat.rows();
+    int cols = doseMat.cols();
 
     // Calculate dose matrix for OpenCV
     Mat src = new Mat(rows, cols, CvType.CV_32FC1);
-    dosePlane.getImage().toMat().convertTo(src, CvType.CV_32FC1);
-    Scalar scalar = new Scalar(this.doseGridScaling * 100);
+    doseMat.convertTo(src, CvType.CV_32FC1);
+    Scalar scalar = new Scalar(doseGridScaling * 100);
     Mat doseMatrix = new Mat(rows, cols, CvType.CV_32FC1);
     multiply(src, scalar, doseMatrix);
     ImageConversion.releaseMat(src);
@@ -532,33 +815,35 @@ public class Dose extends RtSpecialElement implements SpecialElementRegion {
     MatOfInt channels = new MatOfInt(0);
 
     // Ned to change the structure dose mask type vor OpenCV histogram calculation
-    Mat maskSrc = new Mat(mask.rows(), mask.cols(), CvType.CV_8U);
-    mask.convertTo(maskSrc, CvType.CV_8U);
+    Mat maskSrc = mask;
+    if (mask.type() != CvType.CV_8U) {
+      maskSrc = new Mat(mask.rows(), mask.cols(), CvType.CV_8U);
+      mask.convertTo(maskSrc, CvType.CV_8U);
+    }
 
     Imgproc.calcHist(doseMatrixVector, channels, maskSrc, hist, histSize, histRange);
-    ImageConversion.releaseMat(maskSrc);
+    if (maskSrc != mask) {
+      ImageConversion.releaseMat(maskSrc);
+    }
     ImageConversion.releaseMat(doseMatrix);
+    histSize.release();
+    histRange.release();
+    channels.release();
     return hist;
   }
 
-  public StructContour getIsoDoseContour(
-      KeyDouble slicePosition, double isoDoseThreshold, IsoDoseRegion region, RtSet rtSet) {
-    if (region.getMeasurableLayer() == null) {
-      //  region.setMeasurableLayer(getMeasurableLayer(img, contour));
-    }
-
+  private IsoDoseGeometry buildIsoDoseGeometry(
+      PlanarImage dosePlane, KeyDouble slicePosition, double isoDoseThreshold, RtSet rtSet) {
     // Convert from threshold in cCy to raw pixel value threshold
     double rawThreshold = (isoDoseThreshold / 100) / this.doseGridScaling;
-    DicomImageElement dosePlane =
-        (DicomImageElement) this.getDosePlaneBySlice(slicePosition.getValue());
-
-    int rows = dosePlane.getImage().toMat().rows();
-    int cols = dosePlane.getImage().toMat().cols();
+    Mat doseMat = dosePlane.toMat();
+    int rows = doseMat.rows();
+    int cols = doseMat.cols();
 
     Mat src = new Mat(rows, cols, CvType.CV_32FC1);
     Mat thr = new Mat(rows, cols, CvType.CV_32FC1);
 
-    dosePlane.getImage().toMat().convertTo(src, CvType.CV_32FC1);
+    doseMat.convertTo(src, CvType.CV_32FC1);
 
     Imgproc.threshold(src, thr, rawThreshold, 255, Imgproc.THRESH_BINARY);
     ImageConversion.releaseMat(src);
@@ -569,7 +854,7 @@ public class Dose extends RtSpecialElement implements SpecialElementRegion {
     List<Segment> segmentList = SegContour.buildSegmentList(ImageCV.toImageCV(thrSrc));
     if (segmentList.isEmpty()) {
       ImageConversion.releaseMat(thrSrc);
-      return null;
+      return NO_CONTOUR;
     }
 
     int nbPixels = Core.countNonZero(thrSrc);
@@ -578,18 +863,11 @@ public class Dose extends RtSpecialElement implements SpecialElementRegion {
     GeometryOfSlice geometry = rtSet.getPatientImage().getImage().getDispSliceGeometry();
     Vector3d voxelSpacing = geometry.getVoxelSpacing();
     if (voxelSpacing.x < 0.00001 || voxelSpacing.y < 0.00001) {
-      return null;
+      return NO_CONTOUR;
     }
 
-    double z = slicePosition.getValue();
-    transformGeometry(geometry, z, segmentList);
-
-    StructContour segContour =
-        new StructContour(String.valueOf(slicePosition.getKey()), segmentList, nbPixels);
-    segContour.setPositionZ(z);
-    region.addPixels(segContour);
-    segContour.setAttributes(region);
-    return segContour;
+    transformGeometry(geometry, slicePosition.getValue(), segmentList);
+    return new IsoDoseGeometry(segmentList, nbPixels);
   }
 
   private void transformGeometry(GeometryOfSlice geometry, double z, List<Segment> segmentList) {
@@ -638,26 +916,27 @@ public class Dose extends RtSpecialElement implements SpecialElementRegion {
     this.dosePixLUT = new AbstractMap.SimpleImmutableEntry<>(x, y);
   }
 
-  private MediaElement interpolateDosePlanes(
+  private PlanarImage interpolateDosePlanes(
       int upperBoundaryIndex, int lowerBoundaryIndex, double fractionalDistance) {
-    MediaElement dosePlane = null;
-
     DicomImageElement upperPlane = series.getMedia(upperBoundaryIndex, null, null);
     DicomImageElement lowerPlane = series.getMedia(lowerBoundaryIndex, null, null);
+    PlanarImage upperImage = upperPlane == null ? null : upperPlane.getImage();
+    PlanarImage lowerImage = lowerPlane == null ? null : lowerPlane.getImage();
+    if (upperImage == null || lowerImage == null) {
+      return null;
+    }
 
-    // A simple linear interpolation (lerp)
-    Mat dosePlaneMat = new Mat();
+    // A simple linear interpolation (lerp), in float to keep the fraction of the raw values
+    ImageCV dosePlaneMat = new ImageCV();
     addWeighted(
-        lowerPlane.getImage().toMat(),
+        lowerImage.toMat(),
         1.0 - fractionalDistance,
-        upperPlane.getImage().toMat(),
+        upperImage.toMat(),
         fractionalDistance,
         0.0,
-        dosePlaneMat);
-
-    // TODO: dosePlaneMat should be an image for new dosePlane MediaElement
-
-    return dosePlane;
+        dosePlaneMat,
+        CvType.CV_32F);
+    return dosePlaneMat;
   }
 
   private static int firstIndexOf(double[] array, double valueToFind, double tolerance) {
@@ -675,8 +954,8 @@ public class Dose extends RtSpecialElement implements SpecialElementRegion {
 
     PolynomialSplineFunction psf = interpolate(xCoordinates, yCoordinates);
 
-    for (int i = 0; i <= interpolatedX.length; ++i) {
-      interpolatedY[0] = psf.value(interpolatedX[i]);
+    for (int i = 0; i < interpolatedX.length; ++i) {
+      interpolatedY[i] = psf.value(interpolatedX[i]);
     }
 
     return interpolatedY;
@@ -100,6 +100,8 @@ public class RtDisplayTool extends PluginTool implements SeriesViewerListener, S
   private final GroupTreeNode nodeStructures;
   private final GroupTreeNode nodeIsodoses;
   private final CircularProgressBar progressBar = new CircularProgressBar();
+  // RT set being loaded, the load button cancels the loading
+  private RtSet loadingRtSet = null;
   private RtSet rtSet;
   private final transient ItemListener structureChangeListener =
       e -> {
@@ -164,18 +166,24 @@ public class RtDisplayTool extends PluginTool implements SeriesViewerListener, S
   }
 
   private void loadData() {
+    if (loadingRtSet != null) {
+      // The button cancels the current loading
+      loadingRtSet.cancelLoading();
+      btnLoad.setEnabled(false);
+      return;
+    }
     final RtSet rt = this.rtSet;
     if (rt.getPatientImage() == null) {
       return;
     }
+    loadingRtSet = rt;
     SwingWorker<Boolean, Boolean> loadTask =
         new SwingWorker<>() {
 
           @Override
           protected Boolean doInBackground() {
             // Reload RT case data objects for GUI
-            rt.reloadRtCase(cbDvhRecalculate.isSelected());
-            return true;
+            return rt.reloadRtCase(cbDvhRecalculate.isSelected(), this::setProgress);
           }
         };
 
@@ -183,17 +191,26 @@ public class RtDisplayTool extends PluginTool implements SeriesViewerListener, S
         evt -> {
           if ("progress".equals(evt.getPropertyName())) {
             int progress = (Integer) evt.getNewValue();
+            progressBar.setIndeterminate(false);
             progressBar.setValue(progress);
 
           } else if ("state".equals(evt.getPropertyName())) {
             if (StateValue.STARTED == evt.getNewValue()) {
-              btnLoad.setEnabled(false);
+              btnLoad.setText(org.weasis.core.Messages.getString("cancel"));
+              btnLoad.setToolTipText(null);
               progressBar.setVisible(true);
               progressBar.setIndeterminate(true);
 
             } else if (StateValue.DONE == evt.getNewValue()) {
+              loadingRtSet = null;
               progressBar.setIndeterminate(false);
               progressBar.setVisible(false);
+              btnLoad.setText(Messages.getString("load.rt"));
+              if (rt.isCancelled()) {
+                btnLoad.setEnabled(true);
+                btnLoad.setToolTipText(Messages.getString("populate.rt.objects"));
+                return;
+              }
               btnLoad.setEnabled(false);
               btnLoad.setToolTipText(Messages.getString("rt.objects.from.loaded"));
               cbDvhRecalculate.setEnabled(false);
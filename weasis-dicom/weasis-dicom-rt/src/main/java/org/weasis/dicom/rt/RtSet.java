@@ -14,6 +14,7 @@ import static org.opencv.core.Core.multiply;
 
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -21,11 +22,14 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Sequence;
 import org.dcm4che3.data.Tag;
 import org.dcm4che3.img.util.DicomUtils;
 import org.joml.Vector3d;
+import org.opencv.core.Core;
 import org.opencv.core.CvType;
 import org.opencv.core.Mat;
 import org.opencv.core.MatOfPoint2f;
@@ -41,6 +45,8 @@ import org.weasis.core.util.MathUtil;
 import org.weasis.core.util.StringUtil;
 import org.weasis.dicom.codec.DicomImageElement;
 import org.weasis.dicom.codec.DicomSeries;
+import org.weasis.opencv.data.PlanarImage;
+import org.weasis.opencv.op.ImageConversion;
 
 /**
  * RtSet is a collection of linked DICOM-RT entities that form the whole treatment case (Plans,
@@ -60,6 +66,7 @@ public class RtSet {
   private Image patientImage;
 
   boolean forceRecalculateDvh = false;
+  private volatile boolean cancelled = false;
 
   public RtSet(DicomSeries series, List<RtSpecialElement> rtElements) {
     this.series = Objects.requireNonNull(series);
@@ -80,7 +87,20 @@ public class RtSet {
   }
 
   public void reloadRtCase(boolean forceRecalculateDvh) {
+    reloadRtCase(forceRecalculateDvh, null);
+  }
+
+  /**
+   * Initializes the RT objects and calculates the DVHs. The DVHs of the structures are calculated
+   * in parallel.
+   *
+   * @param forceRecalculateDvh true to recalculate the DVHs provided by the RTDOSE objects
+   * @param progress receives the progression of the DVH calculation in percent, can be null
+   * @return false if the loading has been cancelled by {@link #cancelLoading()}
+   */
+  public boolean reloadRtCase(boolean forceRecalculateDvh, IntConsumer progress) {
     this.forceRecalculateDvh = forceRecalculateDvh;
+    this.cancelled = false;
 
     // First initialise all RTSTRUCT
     for (MediaElement rt : this.rtElements) {
@@ -107,7 +127,24 @@ public class RtSet {
 
     // Plans and doses are loaded
     if (!plans.isEmpty()) {
+      StructureSet structureSet = getFirstStructure();
+      Collection<StructRegion> regions =
+          structureSet == null ? List.of() : structureSet.getSegAttributes().values();
+      int nbDvh = 0;
       for (Plan plan : plans) {
+        for (Dose dose : plan.getDoses()) {
+          if (dose.getDoseMax() > 0) {
+            nbDvh += regions.size();
+          }
+        }
+      }
+      final int total = Math.max(1, nbDvh);
+      AtomicInteger done = new AtomicInteger();
+
+      for (Plan plan : plans) {
+        if (cancelled) {
+          break;
+        }
 
         // Init Dose LUTs
         for (Dose dose : plan.getDoses()) {
@@ -123,12 +160,31 @@ public class RtSet {
         // Re-init DVHs
         for (Dose dose : plan.getDoses()) {
           if (dose.getDoseMax() > 0) {
-            getFirstStructure().getSegAttributes().values().parallelStream()
-                .forEach(region -> computeDvh(plan, dose, region));
+            regions.parallelStream()
+                .forEach(
+                    region -> {
+                      if (!cancelled) {
+                        computeDvh(plan, dose, region);
+                      }
+                      if (progress != null) {
+                        progress.accept(Math.min(100, done.incrementAndGet() * 100 / total));
+                      }
+                    });
           }
+          dose.clearDosePlaneCache();
         }
       }
     }
+    return !cancelled;
+  }
+
+  /** Stops the current {@link #reloadRtCase(boolean, IntConsumer)} as soon as possible. */
+  public void cancelLoading() {
+    this.cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
   }
 
   private void computeDvh(Plan plan, Dose dose, StructRegion region) {
@@ -140,6 +196,10 @@ public class RtSet {
     if (structureDvh == null
         || (structureDvh.getDvhSource().equals(DataSource.PROVIDED) && this.forceRecalculateDvh)) {
       structureDvh = this.initCalculatedDvh(region, dose);
+      if (cancelled) {
+        // Incomplete DVH
+        return;
+      }
       dose.getDvhMap().put(region.getId(), structureDvh);
     }
     // Otherwise, read provided DVH
@@ -400,6 +460,7 @@ public class RtSet {
 
     // Convert differential DVH to cumulative DVH
     double[] cumHistogram = convertDifferentialToCumulativeDvh(difHistogram);
+    ImageConversion.releaseMat(difHistogram);
     dvh.setDvhData(cumHistogram);
     dvh.setDvhNumberOfBins(cumHistogram.length);
 
@@ -412,6 +473,7 @@ public class RtSet {
     }
     DicomImageElement doseImage = dose.getSeries().getMedia(MEDIA_POSITION.FIRST, null, null);
     Vector3d doseImageSpacing = doseImage.getSliceGeometry().getVoxelSpacing();
+    double voxelVolume = doseImageSpacing.x * doseImageSpacing.y * region.getThickness();
     double maxDose = dose.getDoseMax() * dose.getDoseGridScaling() * 100;
 
     double volume = 0.0;
@@ -421,53 +483,41 @@ public class RtSet {
 
     // Go through all structure plane slices
     for (Entry<KeyDouble, List<StructContour>> entry : region.getPlanes().entrySet()) {
+      if (cancelled) {
+        ImageConversion.releaseMat(histogram);
+        return null;
+      }
       KeyDouble z = entry.getKey();
-
-      // Calculate the area for each contour in the current plane
-      AbstractMap.SimpleImmutableEntry<Integer, Double> maxContour =
-          region.calculateLargestContour(entry.getValue());
-      int maxContourIndex = maxContour.getKey();
+      List<StructContour> contours = entry.getValue();
 
       // If dose plane does not exist for z, continue with next plane
-      MediaElement dosePlane = dose.getDosePlaneBySlice(z.getValue());
-      if (dosePlane == null) {
+      PlanarImage dosePlane = dose.getDosePlaneImage(z.getValue());
+      if (dosePlane == null || contours.isEmpty()) {
         continue;
       }
 
-      // Calculate histogram for each contour on the plane
-      for (int c = 0; c < entry.getValue().size(); c++) {
-
-        SegContour contour = entry.getValue().get(c);
-
-        Mat contourMask = calculateContourMask(dose.getDoseMmLUT(), contour);
-        Mat hist = dose.getMaskedDosePlaneHist(z.getValue(), contourMask, (int) maxDose);
-
-        double vol = 0;
-        for (int i = 0; i < hist.rows(); i++) {
-          vol +=
-              hist.get(i, 0)[0] * (doseImageSpacing.x * doseImageSpacing.y * region.getThickness());
-        }
+      // Calculate the area for each contour in the current plane
+      AbstractMap.SimpleImmutableEntry<Integer, Double> maxContour =
+          region.calculateLargestContour(contours);
+      int maxContourIndex = maxContour.getKey();
 
-        // If this is the largest contour
-        if (c == maxContourIndex) {
-          volume += vol;
-          add(histogram, hist, histogram);
-        }
-        // TODO: Otherwise add or subtract depending on contour location
-        else {
+      // Calculate histogram only for the largest contour
+      // TODO: Otherwise add or subtract depending on contour location
+      SegContour contour = contours.get(maxContourIndex);
+      Mat contourMask = calculateContourMask(dose.getDoseMmLUT(), contour);
+      Mat hist = dose.getMaskedDosePlaneHist(dosePlane, contourMask, (int) maxDose);
+      ImageConversion.releaseMat(contourMask);
 
-        }
-      }
+      volume += Core.sumElems(hist).val[0] * voxelVolume;
+      add(histogram, hist, histogram);
+      ImageConversion.releaseMat(hist);
     }
 
     // Volume units are given in cm^3
     volume /= 1000;
 
     // Rescale the histogram to reflect the total volume
-    double sumHistogram = 0.0;
-    for (int i = 0; i < histogram.rows(); i++) {
-      sumHistogram += histogram.get(i, 0)[0];
-    }
+    double sumHistogram = Core.sumElems(histogram).val[0];
     Scalar scalar = new Scalar(volume / (sumHistogram == 0.0 ? 1.0 : sumHistogram));
     multiply(histogram, scalar, histogram);
 
@@ -476,20 +526,21 @@ public class RtSet {
     return histogram;
   }
 
-  private double[] convertDifferentialToCumulativeDvh(Mat difHistogram) {
+  static double[] convertDifferentialToCumulativeDvh(Mat difHistogram) {
     if (difHistogram == null) {
       return new double[0];
     }
     int size = difHistogram.rows();
-    double[] cumDvh = new double[size];
+    float[] bins = new float[size];
+    difHistogram.get(0, 0, bins);
 
-    for (int i = 0; i < size; i++) {
-      cumDvh[i] = 0;
-      for (int j = i; j < size; j++) {
-        cumDvh[i] += difHistogram.get(j, 0)[0];
-      }
+    // Cumulative volume is the sum of the bins from the current dose, computed backwards
+    double[] cumDvh = new double[size];
+    double sum = 0.0;
+    for (int i = size - 1; i >= 0; i--) {
+      sum += bins[i];
+      cumDvh[i] = sum;
     }
-
     return cumDvh;
   }
 
@@ -594,25 +645,46 @@ public class RtSet {
         }
       }
     }
-    MatOfPoint2f mop = new MatOfPoint2f();
-    mop.fromList(list);
-
-    Mat binaryMask = new Mat(rows, cols, CvType.CV_32FC1);
-
-    for (int i = 0; i < rows; i++) {
-      for (int j = 0; j < cols; j++) {
-        double distance =
-            Imgproc.pointPolygonTest(
-                mop, new Point(doseMmLUT.getKey()[j], doseMmLUT.getValue()[i]), false);
-        // TODO: Include the border line as well?
-        if (distance > 0) {
-          binaryMask.put(i, j, 255);
-        } else {
-          binaryMask.put(i, j, 0);
+    byte[] mask = new byte[rows * cols];
+    if (!list.isEmpty()) {
+      MatOfPoint2f mop = new MatOfPoint2f();
+      mop.fromList(list);
+
+      // Only the pixels within the bounds of the contour can be inside
+      double minX = Double.MAX_VALUE;
+      double maxX = -Double.MAX_VALUE;
+      double minY = Double.MAX_VALUE;
+      double maxY = -Double.MAX_VALUE;
+      for (Point p : list) {
+        minX = Math.min(minX, p.x);
+        maxX = Math.max(maxX, p.x);
+        minY = Math.min(minY, p.y);
+        maxY = Math.max(maxY, p.y);
+      }
+      double[] xs = doseMmLUT.getKey();
+      double[] ys = doseMmLUT.getValue();
+      Point pt = new Point();
+      for (int i = 0; i < rows; i++) {
+        if (ys[i] < minY || ys[i] > maxY) {
+          continue;
+        }
+        for (int j = 0; j < cols; j++) {
+          if (xs[j] < minX || xs[j] > maxX) {
+            continue;
+          }
+          pt.x = xs[j];
+          pt.y = ys[i];
+          // TODO: Include the border line as well?
+          if (Imgproc.pointPolygonTest(mop, pt, false) > 0) {
+            mask[i * cols + j] = (byte) 255;
+          }
         }
       }
+      mop.release();
     }
 
+    Mat binaryMask = new Mat(rows, cols, CvType.CV_8UC1);
+    binaryMask.put(0, 0, mask);
     return binaryMask;
   }
 }
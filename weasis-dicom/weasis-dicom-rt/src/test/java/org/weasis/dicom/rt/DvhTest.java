@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.rt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+
+/** Compares the cumulative DVHs with a direct computation on synthetic data. */
+class DvhTest {
+
+  private static final double DELTA = 1e-9;
+
+  // Raw values of two dose planes (one row per line)
+  private static final int[][][] DOSE_GRID = {
+    {
+      {0, 1, 2, 3, 4},
+      {5, 4, 3, 2, 1},
+      {1, 1, 5, 5, 0},
+      {2, 3, 2, 3, 2}
+    },
+    {
+      {4, 4, 4, 4, 4},
+      {0, 5, 0, 5, 0},
+      {3, 2, 1, 2, 3},
+      {5, 5, 5, 5, 5}
+    }
+  };
+  // Structure inside rows 1-3 and columns 1-3 of the first plane, rows 0-2 of the second
+  private static final int[][] STRUCTURE = {{1, 3, 1, 3}, {0, 2, 0, 4}};
+  // 1 raw value = 2 cGy
+  private static final double DOSE_GRID_SCALING = 0.02;
+  private static final int MAX_DOSE = 12;
+
+  private static boolean nativeLoaded;
+
+  @BeforeAll
+  static void loadNativeLibrary() {
+    try {
+      System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+      nativeLoaded = true;
+    } catch (UnsatisfiedLinkError e) {
+      nativeLoaded = false;
+    }
+  }
+
+  private static boolean inStructure(int plane, int row, int col) {
+    int[] s = STRUCTURE[plane];
+    return row >= s[0] && row <= s[1] && col >= s[2] && col <= s[3];
+  }
+
+  private static double[] computeCumulativeDvh() {
+    Mat histogram = new Mat(MAX_DOSE, 1, CvType.CV_32FC1, new Scalar(0.0));
+    for (int p = 0; p < DOSE_GRID.length; p++) {
+      int[][] plane = DOSE_GRID[p];
+      Mat dose = new Mat(plane.length, plane[0].length, CvType.CV_16UC1);
+      Mat mask = new Mat(plane.length, plane[0].length, CvType.CV_8UC1);
+      for (int i = 0; i < plane.length; i++) {
+        for (int j = 0; j < plane[i].length; j++) {
+          dose.put(i, j, plane[i][j]);
+          mask.put(i, j, inStructure(p, i, j) ? 255 : 0);
+        }
+      }
+      Mat hist = Dose.getMaskedDosePlaneHist(dose, DOSE_GRID_SCALING, mask, MAX_DOSE);
+      Core.add(histogram, hist, histogram);
+      dose.release();
+      mask.release();
+      hist.release();
+    }
+    double[] cumDvh = RtSet.convertDifferentialToCumulativeDvh(histogram);
+    histogram.release();
+    return cumDvh;
+  }
+
+  @Test
+  void test_cumulative_dvh_of_a_dose_grid() {
+    Assumptions.assumeTrue(nativeLoaded, "OpenCV library not available");
+    double[] cumDvh = computeCumulativeDvh();
+
+    assertEquals(MAX_DOSE, cumDvh.length);
+    for (int d = 0; d < MAX_DOSE; d++) {
+      // Number of voxels of the structure receiving at least d cGy
+      int count = 0;
+      for (int p = 0; p < DOSE_GRID.length; p++) {
+        for (int i = 0; i < DOSE_GRID[p].length; i++) {
+          for (int j = 0; j < DOSE_GRID[p][i].length; j++) {
+            double cGy = DOSE_GRID[p][i][j] * DOSE_GRID_SCALING * 100;
+            if (inStructure(p, i, j) && cGy >= d) {
+              count++;
+            }
+          }
+        }
+      }
+      assertEquals(count, cumDvh[d], DELTA, "dose " + d);
+    }
+    // All the voxels of the structure
+    assertEquals(24, cumDvh[0], DELTA);
+    assertEquals(0, RtSet.convertDifferentialToCumulativeDvh(null).length);
+  }
+
+  @Test
+  void test_cumulative_dvh_of_a_provided_differential_dvh() {
+    // Pairs of bin width in Gy and volume
+    double[] data = {0.5, 2.0, 1.0, 3.0, 0.5, 1.0, 1.0, 0.5};
+    double[] cumDvh = Dose.convertDifferentialToCumulativeDvh(data);
+
+    // Bins of 1 cGy until the beginning of the last bin (200 cGy)
+    assertNotNull(cumDvh);
+    assertEquals(201, cumDvh.length);
+    for (int d = 0; d < cumDvh.length; d++) {
+      // The volume of a bin is uniformly distributed between its doses
+      double expected = 0.0;
+      double start = 0.0;
+      for (int k = 0; k < data.length; k += 2) {
+        double end = start + data[k] * 100;
+        expected += data[k + 1] * Math.clamp((end - d) / (end - start), 0.0, 1.0);
+        start = end;
+      }
+      // The doses of the first bin receive the whole volume
+      if (d < data[0] * 100) {
+        expected = 6.5;
+      }
+      assertEquals(expected, cumDvh[d], DELTA, "dose " + d);
+    }
+    assertEquals(6.5, cumDvh[0], DELTA);
+    assertEquals(4.5, cumDvh[50], DELTA);
+    assertEquals(1.5, cumDvh[150], DELTA);
+    assertEquals(0.5, cumDvh[200], DELTA);
+
+    assertNull(Dose.convertDifferentialToCumulativeDvh(null));
+    assertNull(Dose.convertDifferentialToCumulativeDvh(new double[] {1.0, 2.0}));
+    assertNull(Dose.convertDifferentialToCumulativeDvh(new double[] {1.0, 2.0, 1.0}));
+  }
+}
@@ -10,8 +10,6 @@
 package org.weasis.dicom.send;
 
 import com.github.scribejava.core.httpclient.multipart.MultipartPayload;
-import com.github.scribejava.core.model.OAuthRequest;
-import com.github.scribejava.core.model.Verb;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -33,13 +31,11 @@ import org.dcm4che3.net.Status;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.auth.AuthMethod;
-import org.weasis.core.api.auth.BasicHttpClient;
 import org.weasis.core.api.auth.BodySupplier;
 import org.weasis.core.api.auth.FileBodyPartPayload;
 import org.weasis.core.api.auth.OAuth2ServiceFactory;
-import org.weasis.core.api.util.ClosableURLConnection;
 import org.weasis.core.api.util.HttpResponse;
-import org.weasis.core.api.util.NetworkUtil;
+import org.weasis.core.api.util.HttpTransport;
 import org.weasis.core.api.util.URLParameters;
 import org.weasis.core.util.FileUtil;
 import org.weasis.dicom.param.DicomProgress;
@@ -63,13 +59,6 @@ public class StowRS extends DicomStowRS {
     super(requestURL, contentType, agentName, headers);
   }
 
-  private OAuthRequest prepareAuthConnection(List<String> filesOrFolders, boolean recursive) {
-    OAuthRequest authRequest = new OAuthRequest(Verb.POST, getRequestURL());
-    MultipartPayload multipart = getMultipartPayload(filesOrFolders, recursive);
-    authRequest.setMultipartPayload(multipart);
-    return authRequest;
-  }
-
   private MultipartPayload getMultipartPayload(List<String> filesOrFolders, boolean recursive) {
     Map<String, String> headers = new HashMap<>();
     headers.put(
@@ -118,41 +107,39 @@ public class StowRS extends DicomStowRS {
   public DicomState uploadDicom(
       List<String> filesOrFolders, boolean recursive, AuthMethod authMethod) {
     DicomState state = new DicomState(new DicomProgress());
-    Attributes error = null;
-    int nbFile = 0;
-    boolean auth = authMethod != null && !OAuth2ServiceFactory.noAuth.equals(authMethod);
-
-    String url = getRequestURL();
-    OAuthRequest authRequest = null;
-    if (auth) {
-      authRequest = prepareAuthConnection(filesOrFolders, recursive);
-      nbFile = authRequest.getMultipartPayload().getBodyParts().size();
-    }
+    MultipartPayload multipartPayload = getMultipartPayload(filesOrFolders, recursive);
+    int nbFile = multipartPayload.getBodyParts().size();
+    Map<String, String> headers = new HashMap<>();
+    Optional.ofNullable(getHeaders()).ifPresent(headers::putAll);
+    headers.putAll(multipartPayload.getHeaders());
 
     try (HttpResponse httpCon =
-        NetworkUtil.getHttpResponse(
-            url, new URLParameters(getHeaders(), true), authMethod, authRequest)) {
-      if (auth) {
-        int code = httpCon.getResponseCode();
-        if (code >= HttpURLConnection.HTTP_OK && code < HttpURLConnection.HTTP_BAD_REQUEST) {
-          error = getResponseOutput(httpCon);
-        } else if (code == HttpURLConnection.HTTP_UNAUTHORIZED) {
-          authMethod.resetToken();
-          authMethod.getToken();
-        }
-      } else if (httpCon instanceof ClosableURLConnection urlConnection
-          && urlConnection.getUrlConnection() instanceof HttpURLConnection http) {
-        MultipartPayload multipartPayload = getMultipartPayload(filesOrFolders, recursive);
-        nbFile = multipartPayload.getBodyParts().size();
-        BasicHttpClient.addBody(http, multipartPayload, true);
-        int code = httpCon.getResponseCode();
-        if (code >= HttpURLConnection.HTTP_OK && code < HttpURLConnection.HTTP_BAD_REQUEST) {
-          error = getResponseOutput(httpCon);
-        }
-      } else {
-        throw new IllegalStateException("HttpResponse type: not implemented");
+        HttpTransport.getInstance()
+            .send(
+                getRequestURL(),
+                new URLParameters(headers, true),
+                authMethod,
+                HttpTransport.ofMultipart(multipartPayload))) {
+      int code = httpCon.getResponseCode();
+      // 409 (Conflict) returns the list of the failed instances
+      if ((code >= HttpURLConnection.HTTP_OK && code < HttpURLConnection.HTTP_BAD_REQUEST)
+          || code == HttpURLConnection.HTTP_CONFLICT) {
+        Attributes error = getResponseOutput(httpCon);
+        return buildErrorMessage(error, state, nbFile);
       }
-      return buildErrorMessage(error, state, nbFile);
+      if (code == HttpURLConnection.HTTP_UNAUTHORIZED
+          && authMethod != null
+          && !OAuth2ServiceFactory.noAuth.equals(authMethod)) {
+        authMethod.resetToken();
+        authMethod.getToken();
+      }
+      String message =
+          String.format(
+              "STOW-RS server response message: HTTP Status-Code %d: %s", // NON-NLS
+              code, httpCon.getResponseMessage());
+      LOGGER.error(message);
+      state.setStatus(Status.ProcessingFailure);
+      return DicomState.buildMessage(state, message, null);
     } catch (Exception e) {
       LOGGER.error("STOW-RS: error when posting data", e);
       return DicomState.buildMessage(state, e.getMessage(), null);
@@ -20,16 +20,19 @@ import java.awt.event.FocusEvent;
 import java.awt.event.MouseEvent;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.JDialog;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
@@ -44,6 +47,7 @@ import org.weasis.core.api.gui.util.ActionState;
 import org.weasis.core.api.gui.util.ActionW;
 import org.weasis.core.api.gui.util.Feature;
 import org.weasis.core.api.gui.util.Filter;
+import org.weasis.core.api.gui.util.GuiExecutor;
 import org.weasis.core.api.gui.util.GuiUtils;
 import org.weasis.core.api.gui.util.MouseActionAdapter;
 import org.weasis.core.api.image.AffineTransformOp;
@@ -66,6 +70,7 @@ import org.weasis.core.ui.editor.image.ImageViewerEventManager;
 import org.weasis.core.ui.editor.image.ImageViewerPlugin;
 import org.weasis.core.ui.editor.image.MouseActions;
 import org.weasis.core.ui.editor.image.PixelInfo;
+import org.weasis.core.ui.editor.image.SynchCineEvent;
 import org.weasis.core.ui.editor.image.SynchData;
 import org.weasis.core.ui.editor.image.SynchData.Mode;
 import org.weasis.core.ui.editor.image.SynchEvent;
@@ -79,6 +84,7 @@ import org.weasis.core.ui.model.graphic.imp.area.RectangleGraphic;
 import org.weasis.core.ui.model.graphic.imp.line.LineGraphic;
 import org.weasis.core.ui.model.graphic.imp.line.LineWithGapGraphic;
 import org.weasis.core.ui.model.graphic.imp.seg.SegContour;
+import org.weasis.core.ui.model.graphic.imp.seg.SegLabelMap;
 import org.weasis.core.ui.model.layer.GraphicLayer;
 import org.weasis.core.ui.model.layer.LayerType;
 import org.weasis.core.ui.model.utils.bean.PanPoint;
@@ -91,10 +97,13 @@ import org.weasis.core.ui.util.TitleMenuItem;
 import org.weasis.core.util.LangUtil;
 import org.weasis.core.util.MathUtil;
 import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.dicom.codec.DicomSeries;
 import org.weasis.dicom.codec.HiddenSeriesManager;
 import org.weasis.dicom.codec.KOSpecialElement;
 import org.weasis.dicom.codec.PRSpecialElement;
+import org.weasis.dicom.codec.PreloadScheduler;
 import org.weasis.dicom.codec.PresentationStateReader;
+import org.weasis.dicom.codec.SlicePositionIndex;
 import org.weasis.dicom.codec.SortSeriesStack;
 import org.weasis.dicom.codec.SpecialElementRegion;
 import org.weasis.dicom.codec.TagD;
@@ -116,6 +125,7 @@ import org.weasis.dicom.viewer2d.KOComponentFactory.KOViewButton.eState;
 import org.weasis.dicom.viewer2d.mpr.MprView.SliceOrientation;
 import org.weasis.opencv.data.PlanarImage;
 import org.weasis.opencv.op.lut.WlPresentation;
+import org.weasis.opencv.seg.RegionAttributes;
 
 public class View2d extends DefaultView2d<DicomImageElement> {
 
@@ -123,8 +133,26 @@ public class View2d extends DefaultView2d<DicomImageElement> {
 
   public static final String P_CROSSHAIR_CENTER_GAP = "mpr.crosshair.center.gap";
   public static final String P_CROSSHAIR_MODE = "mpr.crosshair.mode";
+  public static final String P_SEG_LABEL_MAP = "weasis.seg.labelmap";
+
+  private static final int LABEL_MAP_CACHE_SIZE = 16;
+
+  // Label map of a frame for a display state of the regions
+  private record LabelMapKey(
+      String sopInstanceUID, Object frame, SegLabelMap.DisplayState state) {}
+
   private final Dimension oldSize;
   private final ContextMenuHandler contextMenuHandler;
+  // Label maps of the last displayed images
+  private final Map<LabelMapKey, BufferedImage> labelMapCache =
+      new LinkedHashMap<>(LABEL_MAP_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Entry<LabelMapKey, BufferedImage> eldest) {
+          return size() > LABEL_MAP_CACHE_SIZE;
+        }
+      };
+  // Region displayed with graphics in the label map mode
+  private RegionAttributes segGraphicRegion;
 
   protected final KOViewButton koStarButton;
 
@@ -335,6 +363,31 @@ public class View2d extends DefaultView2d<DicomImageElement> {
     }
   }
 
+  @Override
+  protected DicomImageElement getSynchNearestImage(SynchCineEvent synch, double location) {
+    ViewCanvas<DicomImageElement> view = (ViewCanvas<DicomImageElement>) synch.getView();
+    if (series instanceof DicomSeries dicomSeries
+        && view != null
+        && view.getSeries() instanceof DicomSeries synchSeries) {
+      SlicePositionIndex source =
+          synchSeries.getSlicePositionIndex(
+              (Filter<DicomImageElement>) view.getActionValue(ActionW.FILTERED_SERIES.cmd()),
+              view.getCurrentSortComparator());
+      // The media list may have been modified since the event, then the location is used
+      if (source.getImage(synch.getSeriesIndex()) == synch.getMedia()) {
+        SlicePositionIndex target =
+            dicomSeries.getSlicePositionIndex(
+                (Filter<DicomImageElement>) actionsInView.get(ActionW.FILTERED_SERIES.cmd()),
+                getCurrentSortComparator());
+        int index = source.mapIndex(synch.getSeriesIndex(), target);
+        if (index >= 0) {
+          return target.getImage(tileOffset > 0 ? index + tileOffset : index);
+        }
+      }
+    }
+    return super.getSynchNearestImage(synch, location);
+  }
+
   public static void crosshairAction(
       GeometryOfSlice sliceGeometry,
       ImageViewerPlugin<DicomImageElement> container,
@@ -588,6 +641,10 @@ public class View2d extends DefaultView2d<DicomImageElement> {
 
   @Override
   public void setSeries(MediaSeries<DicomImageElement> series, DicomImageElement selectedDicom) {
+    if (!Objects.equals(this.series, series)) {
+      labelMapCache.clear();
+      segGraphicRegion = null;
+    }
     super.setSeries(series, selectedDicom);
 
     // TODO
@@ -625,6 +682,7 @@ public class View2d extends DefaultView2d<DicomImageElement> {
       PrGraphicUtil.applyPresentationModel(img);
     }
     super.setImage(img);
+    updatePreloading();
 
     if (newImg) {
       updateSegmentation(img);
@@ -633,6 +691,22 @@ public class View2d extends DefaultView2d<DicomImageElement> {
     }
   }
 
+  private void updatePreloading() {
+    DicomImageElement img = imageLayer.getSourceImage();
+    if (series instanceof DicomSeries dicomSeries && img != null) {
+      PreloadScheduler.getInstance()
+          .update(
+              this,
+              dicomSeries,
+              (Filter<DicomImageElement>) actionsInView.get(ActionW.FILTERED_SERIES.cmd()),
+              getCurrentSortComparator(),
+              img,
+              this::isShowing);
+    } else {
+      PreloadScheduler.getInstance().remove(this);
+    }
+  }
+
   @Override
   public void reset() {
     super.reset();
@@ -680,8 +754,27 @@ public class View2d extends DefaultView2d<DicomImageElement> {
     updateSegmentation(imageLayer.getSourceImage());
   }
 
+  /**
+   * In the label map mode, displays the contours of a region with graphics (for selecting or
+   * measuring them) and the other regions in the label map.
+   *
+   * @param region the region to display with graphics or null
+   */
+  public void setSegGraphicRegion(RegionAttributes region) {
+    if (!Objects.equals(segGraphicRegion, region)) {
+      this.segGraphicRegion = region;
+      updateSegmentation();
+      repaint();
+    }
+  }
+
+  public static boolean isSegLabelMap() {
+    return GuiUtils.getUICore().getSystemPreferences().getBooleanProperty(P_SEG_LABEL_MAP, false);
+  }
+
   private void updateSegmentation(DicomImageElement img) {
     graphicManager.deleteByLayerType(LayerType.DICOM_SEG);
+    imageLayer.setOverlay(null);
     if (series != null && img != null) {
       String patientPseudoUID = DicomModel.getPatientPseudoUID(series);
       List<SpecialElementRegion> segList =
@@ -691,11 +784,37 @@ public class View2d extends DefaultView2d<DicomImageElement> {
         List<SegContour> contours = new ArrayList<>();
         for (SpecialElementRegion seg : segList) {
           if (seg.isVisible() && seg.containsSopInstanceUIDReference(img)) {
+            CompletableFuture<Void> build = seg.buildContoursAsync(img);
+            if (!build.isDone()) {
+              // Repaint when the contours built in background are ready
+              build.thenRun(
+                  () ->
+                      GuiExecutor.execute(
+                          () -> {
+                            if (img == imageLayer.getSourceImage()) {
+                              updateSegmentation(img);
+                              repaint();
+                            }
+                          }));
+            }
             contours.addAll(seg.getContours(img));
           }
         }
 
+        boolean labelMap = isSegLabelMap();
+        if (labelMap) {
+          imageLayer.setOverlay(
+              getLabelMap(
+                  img,
+                  contours.stream()
+                      .filter(c -> !c.getAttributes().equals(segGraphicRegion))
+                      .toList()));
+        }
+
         for (SegContour c : contours) {
+          if (labelMap && !c.getAttributes().equals(segGraphicRegion)) {
+            continue;
+          }
           // Structure graphics
           Graphic graphic = c.getSegGraphic();
           if (graphic != null) {
@@ -709,6 +828,21 @@ public class View2d extends DefaultView2d<DicomImageElement> {
     }
   }
 
+  private BufferedImage getLabelMap(DicomImageElement img, List<SegContour> contours) {
+    Integer width = TagD.getTagValue(img, Tag.Columns, Integer.class);
+    Integer height = TagD.getTagValue(img, Tag.Rows, Integer.class);
+    if (width == null || height == null || contours.isEmpty()) {
+      return null;
+    }
+    String sopUID = TagD.getTagValue(img, Tag.SOPInstanceUID, String.class);
+    if (sopUID == null) {
+      return SegLabelMap.build(width, height, contours);
+    }
+    // The state changes with the contours, the visibility and the colors of the regions
+    LabelMapKey key = new LabelMapKey(sopUID, img.getKey(), SegLabelMap.getDisplayState(contours));
+    return labelMapCache.computeIfAbsent(key, _ -> SegLabelMap.build(width, height, contours));
+  }
+
   protected void sortStack(Comparator<DicomImageElement> sortComparator) {
     if (sortComparator != null) {
       // Only refresh UI components, Fix WEA-222
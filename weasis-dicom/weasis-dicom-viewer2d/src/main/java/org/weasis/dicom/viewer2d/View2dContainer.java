@@ -382,14 +382,6 @@ public class View2dContainer extends DicomViewerPlugin implements PropertyChange
   @Override
   public void setSelectedImagePaneFromFocus(ViewCanvas<DicomImageElement> viewCanvas) {
     setSelectedImagePane(viewCanvas);
-    if (viewCanvas != null && viewCanvas.getSeries() instanceof DicomSeries series) {
-      DicomSeries.startPreloading(
-          series,
-          series.copyOfMedias(
-              (Filter<DicomImageElement>) viewCanvas.getActionValue(ActionW.FILTERED_SERIES.cmd()),
-              viewCanvas.getCurrentSortComparator()),
-          viewCanvas.getFrameIndex());
-    }
   }
 
   @Override
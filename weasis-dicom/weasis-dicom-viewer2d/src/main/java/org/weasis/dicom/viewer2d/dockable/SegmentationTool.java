@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.JComboBox;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
@@ -32,6 +33,7 @@ import net.miginfocom.swing.MigLayout;
 import org.dcm4che3.data.Tag;
 import org.weasis.core.api.gui.util.ActionW;
 import org.weasis.core.api.gui.util.Filter;
+import org.weasis.core.api.gui.util.GuiExecutor;
 import org.weasis.core.api.gui.util.GuiUtils;
 import org.weasis.core.api.gui.util.JSliderW;
 import org.weasis.core.api.gui.util.SliderCineListener;
@@ -138,39 +140,72 @@ public class SegmentationTool extends PluginTool implements SeriesViewerListener
     ViewCanvas<DicomImageElement> view = EventManager.getInstance().getSelectedViewPane();
     DicomSeries series = (DicomSeries) view.getSeries();
     if (series != null) {
-      long max = Long.MIN_VALUE;
-      DicomImageElement bestImage = null;
-      for (DicomImageElement dcm : series.getMedias(null, null)) {
-        SegContour c = getContour(dcm, region);
-        if (c != null) {
-          if (c.getNumberOfPixels() > max) {
-            max = c.getNumberOfPixels();
-            bestImage = dcm;
-          }
-        }
+      if (comboSeg.getSelectedItem() instanceof SegSpecialElement seg) {
+        List<DicomImageElement> images = series.copyOfMedias(null, null);
+        // Select the image once the contours of the series are built in background
+        CompletableFuture.allOf(
+                images.stream()
+                    .map(seg::buildContoursAsync)
+                    .toArray(CompletableFuture<?>[]::new))
+            .thenRun(() -> GuiExecutor.execute(() -> show(view, series, images, region)));
+      } else {
+        showSegGraphic(view, region);
       }
-      if (bestImage != null) {
-        Optional<SliderCineListener> action =
-            EventManager.getInstance().getAction(ActionW.SCROLL_SERIES);
-        if (action.isPresent()) {
-          Filter<DicomImageElement> filter =
-              (Filter<DicomImageElement>) view.getActionValue(ActionW.FILTERED_SERIES.cmd());
-          int imgIndex = series.getImageIndex(bestImage, filter, view.getCurrentSortComparator());
-          action.get().setSliderValue(imgIndex + 1);
+    }
+  }
+
+  private void show(
+      ViewCanvas<DicomImageElement> view,
+      DicomSeries series,
+      List<DicomImageElement> images,
+      SegRegion<?> region) {
+    long max = Long.MIN_VALUE;
+    DicomImageElement bestImage = null;
+    for (DicomImageElement dcm : images) {
+      SegContour c = getContour(dcm, region);
+      if (c != null) {
+        if (c.getNumberOfPixels() > max) {
+          max = c.getNumberOfPixels();
+          bestImage = dcm;
         }
       }
     }
+    if (bestImage != null) {
+      Optional<SliderCineListener> action =
+          EventManager.getInstance().getAction(ActionW.SCROLL_SERIES);
+      if (action.isPresent()) {
+        Filter<DicomImageElement> filter =
+            (Filter<DicomImageElement>) view.getActionValue(ActionW.FILTERED_SERIES.cmd());
+        int imgIndex = series.getImageIndex(bestImage, filter, view.getCurrentSortComparator());
+        action.get().setSliderValue(imgIndex + 1);
+      }
+    }
+    showSegGraphic(view, region);
+  }
+
+  private static void showSegGraphic(ViewCanvas<DicomImageElement> view, SegRegion<?> region) {
+    if (view instanceof View2d view2d && View2d.isSegLabelMap()) {
+      view2d.setSegGraphicRegion(region);
+    }
   }
 
   public void computeStatistics(SegRegion<?> region) {
     ViewCanvas<DicomImageElement> view = EventManager.getInstance().getSelectedViewPane();
     DicomImageElement imageElement = getImageElement(view);
-    if (imageElement != null) {
-      SegContour c = getContour(imageElement, region);
-      if (c != null) {
-        MeasurableLayer layer = view.getMeasurableLayer();
-        tree.showStatistics(c, layer);
-      }
+    if (imageElement != null && comboSeg.getSelectedItem() instanceof SegSpecialElement seg) {
+      // The contours of the image may still be built in background
+      seg.buildContoursAsync(imageElement)
+          .thenRun(
+              () ->
+                  GuiExecutor.execute(
+                      () -> {
+                        SegContour c = getContour(imageElement, region);
+                        if (c != null) {
+                          showSegGraphic(view, region);
+                          MeasurableLayer layer = view.getMeasurableLayer();
+                          tree.showStatistics(c, layer);
+                        }
+                      }));
     }
   }
 
@@ -13,7 +13,6 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import org.dcm4che3.data.Attributes;
@@ -63,13 +62,12 @@ public class SeriesBuilder {
       Integer extend,
       boolean fullSeries) {
 
-    PlanarImage curImage;
     if (series != null) {
       SeriesComparator sort = (SeriesComparator) view.getActionValue(ActionW.SORT_STACK.cmd());
       Boolean reverse = (Boolean) view.getActionValue(ActionW.INVERSE_STACK.cmd());
       Comparator sortFilter = (reverse != null && reverse) ? sort.getReversOrderComparator() : sort;
       Filter filter = (Filter) view.getActionValue(ActionW.FILTERED_SERIES.cmd());
-      Iterable<DicomImageElement> medias = series.copyOfMedias(filter, sortFilter);
+      List<DicomImageElement> medias = series.copyOfMedias(filter, sortFilter);
 
       int curImg = extend - 1;
       Optional<SliderCineListener> sequence =
@@ -88,105 +86,120 @@ public class SeriesBuilder {
       adaptWindowLevel(view, cpTags);
       String seriesUID = UIDUtils.createUID();
 
-      for (int index = minImg; index <= maxImg; index++) {
-        Iterator<DicomImageElement> iter = medias.iterator();
-        final List<ImageElement> sources = new ArrayList<>();
-        int startIndex = index - extend;
-        if (startIndex < 0) {
-          startIndex = 0;
-        }
-        int stopIndex = index + extend;
-        int k = 0;
-        while (iter.hasNext()) {
-          DicomImageElement dcm = iter.next();
-          if (k >= startIndex) {
-            sources.add(dcm);
-          }
+      File dir = MIP_CACHE_DIR;
+      if (fullSeries) {
+        dir = new File(MIP_CACHE_DIR, seriesUID);
+        dir.mkdirs();
+      }
+      final File outDir = dir;
 
-          if (k >= stopIndex) {
-            break;
+      if (fullSeries) {
+        DicomImageElement[] results = new DicomImageElement[Math.max(0, maxImg - minImg + 1)];
+        SlabProjection.compute(
+            mipType,
+            medias,
+            extend,
+            minImg,
+            maxImg,
+            Thread.currentThread(),
+            (index, sources, image) ->
+                results[index - minImg] =
+                    buildRawImage(index, sources, image, img, cpTags, seriesUID, outDir));
+        for (DicomImageElement dcm : results) {
+          if (dcm != null) {
+            dicoms.add(dcm);
           }
-          k++;
         }
-
+      } else {
+        int startIndex = Math.max(0, curImg - extend);
+        int stopIndex = Math.min(medias.size() - 1, curImg + extend);
+        final List<ImageElement> sources =
+            startIndex <= stopIndex
+                ? new ArrayList<>(medias.subList(startIndex, stopIndex + 1))
+                : new ArrayList<>();
         if (sources.size() > 1) {
-          curImage = addCollectionOperation(mipType, sources);
-        } else {
-          curImage = null;
-        }
-
-        if (curImage != null) {
-          DicomImageElement imgRef = (DicomImageElement) sources.get(sources.size() / 2);
-          FileRawImage raw = null;
-          try {
-            File dir = MIP_CACHE_DIR;
-            if (fullSeries) {
-              dir = new File(MIP_CACHE_DIR, seriesUID);
-              dir.mkdirs();
+          PlanarImage curImage = addCollectionOperation(mipType, sources);
+          if (curImage != null) {
+            DicomImageElement dcm =
+                buildRawImage(curImg, sources, curImage, img, cpTags, seriesUID, outDir);
+            if (dcm != null) {
+              dicoms.add(dcm);
             }
-            raw = new FileRawImage(File.createTempFile("mip_", ".wcv", dir)); // NON-NLS
-            if (!raw.write(curImage)) {
-              raw = null;
-            }
-          } catch (Exception e) {
-            if (raw != null) {
-              FileUtil.delete(raw.file());
-              raw = null;
-            }
-            LOGGER.error("Writing MIP", e);
-          }
-          if (raw == null) {
-            return;
           }
-          RawImageIO rawIO = new RawImageIO(raw, null);
-          rawIO.getFileCache().setOriginalTempFile(raw.file());
-          rawIO.setBaseAttributes(cpTags);
+        }
+      }
+    }
+  }
 
-          // Tags with same values for all the Series
-          rawIO.setTag(TagD.get(Tag.Columns), curImage.width());
-          rawIO.setTag(TagD.get(Tag.Rows), curImage.height());
-          rawIO.setTag(TagD.get(Tag.BitsAllocated), imgRef.getBitsAllocated());
-          rawIO.setTag(TagD.get(Tag.BitsStored), imgRef.getBitsStored());
+  private static DicomImageElement buildRawImage(
+      int index,
+      List<ImageElement> sources,
+      PlanarImage curImage,
+      DicomImageElement img,
+      Attributes cpTags,
+      String seriesUID,
+      File dir) {
+    DicomImageElement imgRef = (DicomImageElement) sources.get(sources.size() / 2);
+    FileRawImage raw = null;
+    try {
+      raw = new FileRawImage(File.createTempFile("mip_", ".wcv", dir)); // NON-NLS
+      if (!raw.write(curImage)) {
+        raw = null;
+      }
+    } catch (Exception e) {
+      if (raw != null) {
+        FileUtil.delete(raw.file());
+        raw = null;
+      }
+      LOGGER.error("Writing MIP", e);
+    }
+    if (raw == null) {
+      return null;
+    }
+    RawImageIO rawIO = new RawImageIO(raw, null);
+    rawIO.getFileCache().setOriginalTempFile(raw.file());
+    rawIO.setBaseAttributes(cpTags);
+    rawIO.setPixelType(curImage.type());
 
-          int lastIndex = sources.size() - 1;
-          double thickness =
-              DicomMediaUtils.getThickness(sources.getFirst(), sources.get(lastIndex));
-          if (thickness <= 0.0) {
-            thickness = sources.size();
-          }
-          rawIO.setTag(TagD.get(Tag.SliceThickness), thickness);
-          double[] loc = (double[]) imgRef.getTagValue(TagW.SlicePosition);
-          if (loc != null) {
-            rawIO.setTag(TagW.SlicePosition, loc);
-            rawIO.setTag(TagD.get(Tag.SliceLocation), loc[0] + loc[1] + loc[2]);
-          }
+    // Tags with same values for all the Series
+    rawIO.setTag(TagD.get(Tag.Columns), curImage.width());
+    rawIO.setTag(TagD.get(Tag.Rows), curImage.height());
+    rawIO.setTag(TagD.get(Tag.BitsAllocated), imgRef.getBitsAllocated());
+    rawIO.setTag(TagD.get(Tag.BitsStored), imgRef.getBitsStored());
 
-          rawIO.setTag(TagD.get(Tag.SeriesInstanceUID), seriesUID);
+    int lastIndex = sources.size() - 1;
+    double thickness = DicomMediaUtils.getThickness(sources.getFirst(), sources.get(lastIndex));
+    if (thickness <= 0.0) {
+      thickness = sources.size();
+    }
+    rawIO.setTag(TagD.get(Tag.SliceThickness), thickness);
+    double[] loc = (double[]) imgRef.getTagValue(TagW.SlicePosition);
+    if (loc != null) {
+      rawIO.setTag(TagW.SlicePosition, loc);
+      rawIO.setTag(TagD.get(Tag.SliceLocation), loc[0] + loc[1] + loc[2]);
+    }
 
-          // Mandatory tags
-          org.weasis.dicom.viewer2d.mpr.SeriesBuilder.copyMandatoryTags(img, rawIO);
-          TagW[] tagList2;
+    rawIO.setTag(TagD.get(Tag.SeriesInstanceUID), seriesUID);
 
-          tagList2 =
-              TagD.getTagFromIDs(
-                  Tag.ImageOrientationPatient,
-                  Tag.ImagePositionPatient,
-                  Tag.PixelPaddingValue,
-                  Tag.PixelPaddingRangeLimit,
-                  Tag.PixelSpacing,
-                  Tag.ImagerPixelSpacing,
-                  Tag.NominalScannedPixelSpacing,
-                  Tag.PixelSpacingCalibrationDescription,
-                  Tag.PixelAspectRatio);
-          rawIO.copyTags(tagList2, imgRef, false);
+    // Mandatory tags
+    org.weasis.dicom.viewer2d.mpr.SeriesBuilder.copyMandatoryTags(img, rawIO);
+    TagW[] tagList2 =
+        TagD.getTagFromIDs(
+            Tag.ImageOrientationPatient,
+            Tag.ImagePositionPatient,
+            Tag.PixelPaddingValue,
+            Tag.PixelPaddingRangeLimit,
+            Tag.PixelSpacing,
+            Tag.ImagerPixelSpacing,
+            Tag.NominalScannedPixelSpacing,
+            Tag.PixelSpacingCalibrationDescription,
+            Tag.PixelAspectRatio);
+    rawIO.copyTags(tagList2, imgRef, false);
 
-          // Image specific tags
-          rawIO.setTag(TagD.get(Tag.SOPInstanceUID), UIDUtils.createUID());
-          rawIO.setTag(TagD.get(Tag.InstanceNumber), index + 1);
-          dicoms.add(org.weasis.dicom.viewer2d.mpr.SeriesBuilder.buildDicomImageElement(rawIO));
-        }
-      }
-    }
+    // Image specific tags
+    rawIO.setTag(TagD.get(Tag.SOPInstanceUID), UIDUtils.createUID());
+    rawIO.setTag(TagD.get(Tag.InstanceNumber), index + 1);
+    return org.weasis.dicom.viewer2d.mpr.SeriesBuilder.buildDicomImageElement(rawIO);
   }
 
   private static Attributes getBaseAttributes(Attributes attributes) {
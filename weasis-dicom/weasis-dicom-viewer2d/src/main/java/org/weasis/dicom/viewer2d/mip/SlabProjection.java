@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.viewer2d.mip;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.weasis.core.api.gui.task.TaskInterruptionException;
+import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.dicom.viewer2d.mip.MipView.Type;
+import org.weasis.opencv.data.ImageCV;
+import org.weasis.opencv.data.PlanarImage;
+
+/**
+ * Computes the thick-slab projections of a whole stack with a sliding window of (2 * extend + 1)
+ * images, instead of projecting again all the images of the window for each output.
+ *
+ * <ul>
+ *   <li>Mean: a running sum adds the incoming image and subtracts the outgoing one.
+ *   <li>Min and max: block decomposition (van Herk/Gil-Werman). The stack is split into blocks of
+ *       the window length, a window is then the combination of the suffix of a block and the prefix
+ *       of the next block.
+ * </ul>
+ *
+ * The output range is split into chunks processed in parallel.
+ */
+final class SlabProjection {
+
+  private static final int N_THREADS =
+      Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 4));
+
+  @FunctionalInterface
+  interface SlabConsumer {
+    /**
+     * @param index the index of the output image
+     * @param sources the images of the window
+     * @param image the projection, it is released after this call
+     */
+    void accept(int index, List<ImageElement> sources, PlanarImage image);
+  }
+
+  private SlabProjection() {}
+
+  /**
+   * @param type the projection type
+   * @param medias the sorted images of the stack
+   * @param extend the number of images on each side of the window center
+   * @param minIndex the index of the first output image
+   * @param maxIndex the index of the last output image (inclusive)
+   * @param thread the thread of the process, its interruption cancels the computation
+   * @param consumer receives the projections (can be called concurrently)
+   */
+  static void compute(
+      Type type,
+      List<? extends ImageElement> medias,
+      int extend,
+      int minIndex,
+      int maxIndex,
+      Thread thread,
+      SlabConsumer consumer) {
+    int window = 2 * extend + 1;
+    int nbOutputs = maxIndex - minIndex + 1;
+    if (nbOutputs <= 0 || medias.size() < 2) {
+      return;
+    }
+    // Chunks of several windows to amortize the initialization of each chunk
+    int chunkSize = Math.max(window, (nbOutputs + N_THREADS * 2 - 1) / (N_THREADS * 2));
+    ExecutorService executor = ThreadUtil.buildNewFixedThreadExecutor(N_THREADS, "MIP Builder");
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int start = minIndex; start <= maxIndex; start += chunkSize) {
+        final int c0 = start;
+        final int c1 = Math.min(maxIndex, start + chunkSize - 1);
+        futures.add(
+            executor.submit(
+                () -> {
+                  Chunk chunk = new Chunk(medias, extend, thread, consumer);
+                  if (Type.MEAN.equals(type)) {
+                    chunk.computeMean(c0, c1);
+                  } else {
+                    chunk.computeMinMax(c0, c1, Type.MIN.equals(type));
+                  }
+                }));
+      }
+      for (Future<?> f : futures) {
+        f.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TaskInterruptionException("MIP building has been interrupted");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static final class Chunk {
+    private final List<? extends ImageElement> medias;
+    private final int extend;
+    private final int window;
+    private final Thread thread;
+    private final SlabConsumer consumer;
+    private int width = -1;
+    private int height = -1;
+
+    Chunk(List<? extends ImageElement> medias, int extend, Thread thread, SlabConsumer consumer) {
+      this.medias = medias;
+      this.extend = extend;
+      this.window = 2 * extend + 1;
+      this.thread = thread;
+      this.consumer = consumer;
+    }
+
+    private int first(int index) {
+      return Math.max(0, index - extend);
+    }
+
+    private int last(int index) {
+      return Math.min(medias.size() - 1, index + extend);
+    }
+
+    private void checkInterruption() {
+      if (thread.isInterrupted()) {
+        throw new TaskInterruptionException("MIP building has been interrupted");
+      }
+    }
+
+    /** Returns the image or null when its size is different from the first image of the chunk. */
+    private Mat getImage(int index) {
+      PlanarImage img = medias.get(index).getImage(null, false);
+      if (img == null) {
+        return null;
+      }
+      if (width < 0) {
+        width = img.width();
+        height = img.height();
+      }
+      return img.width() == width && img.height() == height ? img.toMat() : null;
+    }
+
+    private void publish(int index, PlanarImage image) {
+      List<ImageElement> sources = new ArrayList<>(medias.subList(first(index), last(index) + 1));
+      try {
+        consumer.accept(index, sources, image);
+      } finally {
+        image.release();
+      }
+    }
+
+    void computeMean(int c0, int c1) {
+      Mat sum = null;
+      int type = -1;
+      int count = 0;
+      // Images from a to b (inclusive) are in the running sum
+      int a = first(c0);
+      int b = a - 1;
+      try {
+        for (int i = c0; i <= c1; i++) {
+          checkInterruption();
+          int na = first(i);
+          int nb = last(i);
+          while (b < nb) {
+            b++;
+            Mat img = getImage(b);
+            if (img != null) {
+              if (sum == null) {
+                type = img.type();
+                sum = Mat.zeros(img.size(), CvType.CV_64FC(img.channels()));
+              }
+              addToSum(sum, img, true);
+              count++;
+            }
+          }
+          while (a < na) {
+            Mat img = getImage(a);
+            if (img != null && sum != null) {
+              addToSum(sum, img, false);
+              count--;
+            }
+            a++;
+          }
+          if (sum != null && count > 1) {
+            ImageCV dst = new ImageCV();
+            sum.convertTo(dst, type, 1.0 / count);
+            publish(i, dst);
+          }
+        }
+      } finally {
+        if (sum != null) {
+          sum.release();
+        }
+      }
+    }
+
+    private static void addToSum(Mat sum, Mat img, boolean add) {
+      Mat val = new Mat();
+      img.convertTo(val, sum.type());
+      if (add) {
+        Core.add(sum, val, sum);
+      } else {
+        Core.subtract(sum, val, sum);
+      }
+      val.release();
+    }
+
+    void computeMinMax(int c0, int c1, boolean min) {
+      int s0 = first(c0);
+      int s1 = last(c1);
+      // Suffix of the block containing the first index of the window
+      Mat[] suffix = null;
+      int suffixStart = -1;
+      // Prefix of the next block
+      Mat[] prefix = null;
+      int prefixStart = -1;
+      try {
+        for (int i = c0; i <= c1; i++) {
+          checkInterruption();
+          int a = first(i);
+          int b = last(i);
+          int blockA = s0 + ((a - s0) / window) * window;
+          int blockB = s0 + ((b - s0) / window) * window;
+          if (suffixStart != blockA) {
+            release(suffix);
+            suffix = buildSuffix(blockA, Math.min(s1, blockA + window - 1), min);
+            suffixStart = blockA;
+          }
+          PlanarImage result;
+          if (blockA == blockB) {
+            int blockEnd = Math.min(s1, blockA + window - 1);
+            result =
+                b == blockEnd ? copy(suffix[a - blockA]) : project(a, b, min); // clipped window
+          } else {
+            if (prefixStart != blockB) {
+              release(prefix);
+              prefix = buildPrefix(blockB, Math.min(s1, blockB + window - 1), min);
+              prefixStart = blockB;
+            }
+            result = combine(suffix[a - blockA], prefix[b - blockB], min);
+          }
+          if (result != null) {
+            publish(i, result);
+          }
+        }
+      } finally {
+        release(suffix);
+        release(prefix);
+      }
+    }
+
+    private Mat[] buildSuffix(int start, int end, boolean min) {
+      Mat[] res = new Mat[end - start + 1];
+      for (int t = end; t >= start; t--) {
+        checkInterruption();
+        res[t - start] = accumulate(t < end ? res[t - start + 1] : null, getImage(t), min);
+      }
+      return res;
+    }
+
+    private Mat[] buildPrefix(int start, int end, boolean min) {
+      Mat[] res = new Mat[end - start + 1];
+      for (int t = start; t <= end; t++) {
+        checkInterruption();
+        res[t - start] = accumulate(t > start ? res[t - start - 1] : null, getImage(t), min);
+      }
+      return res;
+    }
+
+    private static Mat accumulate(Mat previous, Mat img, boolean min) {
+      Mat res = new Mat();
+      if (previous == null) {
+        if (img != null) {
+          img.copyTo(res);
+          return res;
+        }
+        return null;
+      }
+      if (img == null) {
+        previous.copyTo(res);
+      } else if (min) {
+        Core.min(previous, img, res);
+      } else {
+        Core.max(previous, img, res);
+      }
+      return res;
+    }
+
+    private PlanarImage project(int a, int b, boolean min) {
+      Mat res = null;
+      for (int t = a; t <= b; t++) {
+        Mat next = accumulate(res, getImage(t), min);
+        if (res != null) {
+          res.release();
+        }
+        res = next;
+      }
+      return res == null ? null : ImageCV.toImageCV(res);
+    }
+
+    private static PlanarImage copy(Mat m) {
+      if (m == null) {
+        return null;
+      }
+      ImageCV dst = new ImageCV();
+      m.copyTo(dst);
+      return dst;
+    }
+
+    private static PlanarImage combine(Mat m1, Mat m2, boolean min) {
+      if (m1 == null || m2 == null) {
+        return copy(m1 == null ? m2 : m1);
+      }
+      ImageCV dst = new ImageCV();
+      if (min) {
+        Core.min(m1, m2, dst);
+      } else {
+        Core.max(m1, m2, dst);
+      }
+      return dst;
+    }
+
+    private static void release(Mat[] mats) {
+      if (mats != null) {
+        for (Mat m : mats) {
+          if (m != null) {
+            m.release();
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.viewer2d.mpr;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+import javax.imageio.IIOException;
+import javax.swing.JProgressBar;
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.imgproc.Imgproc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.weasis.core.api.gui.util.GuiExecutor;
+import org.weasis.core.api.media.data.TagW;
+import org.weasis.core.api.util.ThreadUtil;
+import org.weasis.core.util.FileUtil;
+import org.weasis.core.util.MathUtil;
+import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.dicom.viewer2d.Messages;
+import org.weasis.opencv.data.FileRawImage;
+import org.weasis.opencv.data.ImageCV;
+import org.weasis.opencv.data.PlanarImage;
+import org.weasis.opencv.op.ImageProcessor;
+
+/**
+ * Volume of the source series stored in one contiguous native block. The source images are decoded
+ * once and in parallel, then the orthogonal stacks are extracted in parallel from the block.
+ *
+ * <p>The block is a matrix of (depth x sliceHeight) rows and sliceWidth columns, the slice k
+ * occupies the rows from k * sliceHeight to (k + 1) * sliceHeight.
+ */
+final class MprVolumeBuilder implements AutoCloseable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MprVolumeBuilder.class);
+
+  private static final int N_THREADS =
+      Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 8));
+
+  private final ImageCV block;
+  private final int depth;
+  private final int sliceWidth;
+  private final int sliceHeight;
+  private final double sliceSpace;
+
+  MprVolumeBuilder(ImageCV block, int depth, double sliceSpace) {
+    this.block = block;
+    this.depth = depth;
+    this.sliceHeight = block.height() / depth;
+    this.sliceWidth = block.width();
+    this.sliceSpace = sliceSpace;
+  }
+
+  public double getSliceSpace() {
+    return sliceSpace;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  @Override
+  public void close() {
+    block.release();
+  }
+
+  /**
+   * Decodes all the images of the stack in the volume block.
+   *
+   * @param medias the images sorted by slice position
+   * @param views the views displaying a progress bar, can contain null values
+   * @param thread the thread building the volume, its interruption cancels the process
+   * @param abort the abort status shared with the confirmation messages
+   * @return the volume or null when the process has been cancelled
+   */
+  static MprVolumeBuilder load(
+      List<DicomImageElement> medias, MprView[] views, Thread thread, boolean[] abort)
+      throws IOException {
+    if (medias.isEmpty()) {
+      throw new IIOException("No image to build the volume!");
+    }
+    MprView msgView = null;
+    for (MprView v : views) {
+      if (v != null) {
+        msgView = v;
+        break;
+      }
+    }
+    double space = checkSliceSpacing(medias, msgView, abort);
+
+    int size = medias.size();
+    PlanarImage first = getSourceImage(medias.getFirst());
+    if (first == null) {
+      abort[0] = true;
+      throw new IIOException("Cannot read an image!");
+    }
+    int width = first.width();
+    int height = first.height();
+    ImageCV volume = new ImageCV(size * height, width, first.type());
+    releaseRescaledImage(medias.getFirst(), first);
+    try {
+      boolean done =
+          runParallel(
+              size,
+              thread,
+              k -> {
+                DicomImageElement dcm = medias.get(k);
+                PlanarImage image = getSourceImage(dcm);
+                if (image == null) {
+                  abort[0] = true;
+                  throw new IllegalStateException("Cannot read an image!");
+                }
+                try {
+                  if (image.width() != width
+                      || image.height() != height
+                      || image.type() != volume.type()) {
+                    abort[0] = true;
+                    throw new IllegalStateException(
+                        "The image " + dcm + " has not the same size or type as the stack");
+                  }
+                  image.toMat().copyTo(volume.submat(k * height, (k + 1) * height, 0, width));
+                } finally {
+                  releaseRescaledImage(dcm, image);
+                }
+                incrementProgress(views);
+              });
+      if (!done) {
+        volume.release();
+        return null;
+      }
+    } catch (IOException | RuntimeException e) {
+      volume.release();
+      throw e;
+    }
+    return new MprVolumeBuilder(volume, size, space);
+  }
+
+  /**
+   * Writes the images of the orthogonal stack defined by the view parameters.
+   *
+   * @param params the parameters of the new stack
+   * @param view the view displaying a progress bar
+   * @param thread the thread building the volume, its interruption cancels the process
+   * @return the new images or null when the process has been cancelled
+   */
+  FileRawImage[] writeStack(ViewParameter params, MprView view, Thread thread)
+      throws IOException {
+    boolean columnPlane =
+        params.rotateCvType == Core.ROTATE_90_CLOCKWISE
+            || params.rotateCvType == Core.ROTATE_90_COUNTERCLOCKWISE;
+    int nbPlanes = columnPlane ? sliceWidth : sliceHeight;
+    FileRawImage[] newSeries = new FileRawImage[nbPlanes];
+    File dir = new File(SeriesBuilder.MPR_CACHE_DIR, params.seriesUID);
+    dir.mkdirs();
+    for (int i = 0; i < nbPlanes; i++) {
+      newSeries[i] = new FileRawImage(new File(dir, "mpr_" + (i + 1) + ".wcv")); // NON-NLS
+    }
+
+    MprView[] views = {view};
+    resetProgress(views, nbPlanes);
+    boolean done = false;
+    try {
+      done =
+          runParallel(
+              nbPlanes,
+              thread,
+              j -> {
+                try (ImageCV plane = buildPlane(j, params)) {
+                  if (!newSeries[j].write(plane)) {
+                    throw new IllegalStateException("Cannot write " + newSeries[j].file());
+                  }
+                }
+                incrementProgress(views);
+              });
+    } finally {
+      if (!done) {
+        for (FileRawImage raw : newSeries) {
+          FileUtil.delete(raw.file());
+        }
+      }
+    }
+    return done ? newSeries : null;
+  }
+
+  /**
+   * Builds the plane j of the stack: the row j of each rotated source image is the row k of the
+   * plane.
+   */
+  ImageCV buildPlane(int j, ViewParameter params) {
+    Mat plane;
+    boolean reverseRow;
+    if (params.rotateCvType == Core.ROTATE_90_COUNTERCLOCKWISE) {
+      // Row j of the rotated image is the column (width - 1 - j) from top to bottom
+      plane = copyColumn(sliceWidth - 1 - j);
+      reverseRow = false;
+    } else if (params.rotateCvType == Core.ROTATE_90_CLOCKWISE) {
+      // Row j of the rotated image is the column j from bottom to top
+      plane = copyColumn(j);
+      reverseRow = true;
+    } else if (params.rotateCvType == Core.ROTATE_180) {
+      // Row j of the rotated image is the row (height - 1 - j) from right to left
+      plane = copyRow(sliceHeight - 1 - j);
+      reverseRow = true;
+    } else {
+      plane = copyRow(j);
+      reverseRow = false;
+    }
+
+    if (reverseRow && params.reverseSeriesOrder) {
+      Core.flip(plane, plane, -1);
+    } else if (reverseRow) {
+      Core.flip(plane, plane, 1);
+    } else if (params.reverseSeriesOrder) {
+      Core.flip(plane, plane, 0);
+    }
+
+    if (params.rotateOutputImg) {
+      Core.rotate(plane, plane, Core.ROTATE_90_CLOCKWISE);
+    }
+    return ImageCV.toImageCV(plane);
+  }
+
+  private Mat copyRow(int row) {
+    // Each row of the reshaped block contains a full slice
+    Mat slices = block.reshape(0, depth);
+    Mat range = slices.colRange(row * sliceWidth, (row + 1) * sliceWidth);
+    Mat plane = new Mat();
+    range.copyTo(plane);
+    range.release();
+    slices.release();
+    return plane;
+  }
+
+  private Mat copyColumn(int col) {
+    Mat column = block.col(col);
+    Mat copy = new Mat();
+    column.copyTo(copy);
+    column.release();
+    // The copy is continuous and can be reshaped into a plane of (depth x sliceHeight)
+    Mat plane = copy.reshape(0, depth);
+    copy.release();
+    return plane;
+  }
+
+  /**
+   * Checks that the slices are regularly spaced, otherwise asks the user whether to continue.
+   *
+   * @return the most frequent space between two consecutive slices
+   */
+  static double checkSliceSpacing(List<DicomImageElement> medias, MprView view, boolean[] abort) {
+    double epsilon = 1e-3;
+    double lastPos = 0.0;
+    double lastSpace = 0.0;
+    int index = 0;
+    // Number of occurrences of each space, rounded to epsilon
+    Map<Long, Integer> spaceCounts = new HashMap<>();
+    double frequentSpace = 0.0;
+    int maxCount = 0;
+    for (DicomImageElement dcm : medias) {
+      double[] sp = (double[]) dcm.getTagValue(TagW.SlicePosition);
+      boolean validSp = sp != null && sp.length == 3;
+      if (!validSp && !abort[1]) {
+        SeriesBuilder.confirmMessage(
+            view, Messages.getString("SeriesBuilder.space_missing"), abort);
+      } else if (validSp) {
+        double pos = sp[0] + sp[1] + sp[2];
+        if (index > 0) {
+          double space = Math.abs(pos - lastPos);
+          if (!abort[1]
+              && (MathUtil.isEqualToZero(space)
+                  || (index > 1 && Math.abs(lastSpace - space) > epsilon))) {
+            SeriesBuilder.confirmMessage(view, Messages.getString("SeriesBuilder.space"), abort);
+          }
+          int count = spaceCounts.merge(Math.round(space / epsilon), 1, Integer::sum);
+          if (count > maxCount) {
+            maxCount = count;
+            frequentSpace = space;
+          }
+          lastSpace = space;
+        }
+        lastPos = pos;
+        index++;
+      }
+    }
+    return frequentSpace;
+  }
+
+  private static PlanarImage getSourceImage(DicomImageElement dcm) {
+    PlanarImage image = dcm.getImage(null, false);
+    if (image != null && MathUtil.isDifferent(dcm.getRescaleX(), dcm.getRescaleY())) {
+      Dimension dim =
+          new Dimension(
+              (int) (Math.abs(dcm.getRescaleX()) * image.width()),
+              (int) (Math.abs(dcm.getRescaleY()) * image.height()));
+      return ImageProcessor.scale(image.toImageCV(), dim, Imgproc.INTER_LINEAR);
+    }
+    return image;
+  }
+
+  private static void releaseRescaledImage(DicomImageElement dcm, PlanarImage image) {
+    // Only the rescaled image is a copy, the original image belongs to the cache
+    if (image != null && MathUtil.isDifferent(dcm.getRescaleX(), dcm.getRescaleY())) {
+      image.release();
+    }
+  }
+
+  /**
+   * Runs the task for each index on a bounded pool.
+   *
+   * @return false when the process has been cancelled
+   */
+  private static boolean runParallel(int size, Thread thread, IntConsumer task)
+      throws IOException {
+    ExecutorService executor = ThreadUtil.buildNewFixedThreadExecutor(N_THREADS, "MPR Builder");
+    try {
+      List<Future<?>> futures = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        final int index = i;
+        futures.add(
+            executor.submit(
+                () -> {
+                  if (!thread.isInterrupted()) {
+                    task.accept(index);
+                  }
+                }));
+      }
+      for (Future<?> f : futures) {
+        f.get();
+      }
+      return !thread.isInterrupted();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException e) {
+      LOGGER.error("Building MPR volume", e.getCause());
+      throw new IIOException(e.getCause().getMessage(), e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void resetProgress(MprView[] views, int max) {
+    for (MprView view : views) {
+      JProgressBar bar = view == null ? null : view.getProgressBar();
+      if (bar != null) {
+        GuiExecutor.execute(
+            () -> {
+              bar.setMaximum(max);
+              bar.setValue(0);
+              // Force to reset the progress bar
+              bar.updateUI();
+              view.repaint();
+            });
+      }
+    }
+  }
+
+  private static void incrementProgress(MprView[] views) {
+    for (MprView view : views) {
+      JProgressBar bar = view == null ? null : view.getProgressBar();
+      if (bar != null) {
+        GuiExecutor.execute(
+            () -> {
+              bar.setValue(bar.getValue() + 1);
+              view.repaint();
+            });
+      }
+    }
+  }
+}
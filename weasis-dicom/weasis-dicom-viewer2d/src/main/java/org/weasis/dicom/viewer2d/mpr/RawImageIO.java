@@ -29,6 +29,7 @@ import org.dcm4che3.io.DicomOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.weasis.core.api.explorer.model.DataExplorerModel;
+import org.weasis.core.api.image.cv.MappedRawImage;
 import org.weasis.core.api.media.data.Codec;
 import org.weasis.core.api.media.data.FileCache;
 import org.weasis.core.api.media.data.MediaElement;
@@ -38,6 +39,7 @@ import org.weasis.dicom.codec.DcmMediaReader;
 import org.weasis.dicom.codec.DicomImageElement;
 import org.weasis.dicom.codec.DicomMediaIO;
 import org.weasis.dicom.codec.DicomSeries;
+import org.weasis.dicom.codec.TagD;
 import org.weasis.dicom.codec.utils.DicomMediaUtils;
 import org.weasis.opencv.data.FileRawImage;
 import org.weasis.opencv.data.PlanarImage;
@@ -65,6 +67,7 @@ public class RawImageIO implements DcmMediaReader {
   private final HashMap<TagW, Object> tags;
   private final Codec codec;
   private Attributes attributes;
+  private int cvType = -1;
 
   public RawImageIO(FileRawImage imageCV, Codec codec) {
     this.imageCV = Objects.requireNonNull(imageCV);
@@ -77,6 +80,16 @@ public class RawImageIO implements DcmMediaReader {
     this.attributes = attributes;
   }
 
+  /**
+   * Sets the OpenCV type of the raw image. When the type is known, the image is mapped in memory
+   * instead of being fully read (the size is given by the Columns and Rows attributes).
+   *
+   * @param cvType the OpenCV type of the image
+   */
+  public void setPixelType(int cvType) {
+    this.cvType = cvType;
+  }
+
   public File getDicomFile() {
     Attributes dcm = getDicomObject();
 
@@ -101,7 +114,17 @@ public class RawImageIO implements DcmMediaReader {
   @Override
   public PlanarImage getImageFragment(MediaElement media) throws Exception {
     if (media != null && media.getFile() != null) {
-      return imageCV.read();
+      Integer width = (Integer) tags.get(TagD.get(Tag.Columns));
+      Integer height = (Integer) tags.get(TagD.get(Tag.Rows));
+      if (cvType >= 0 && width != null && height != null) {
+        return MappedRawImage.read(imageCV.file(), width, height, cvType);
+      }
+      PlanarImage img = imageCV.read();
+      if (img != null) {
+        // Map the file the next time the image is read
+        cvType = img.type();
+      }
+      return img;
     }
     return null;
   }
@@ -13,12 +13,10 @@ import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.geom.Point2D;
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import javax.imageio.IIOException;
 import javax.swing.JOptionPane;
 import javax.swing.JProgressBar;
 import org.dcm4che3.data.Attributes;
@@ -27,7 +25,6 @@ import org.dcm4che3.data.VR;
 import org.dcm4che3.util.UIDUtils;
 import org.joml.Vector3d;
 import org.opencv.core.Core;
-import org.opencv.imgproc.Imgproc;
 import org.weasis.core.api.explorer.ObservableEvent;
 import org.weasis.core.api.explorer.model.DataExplorerModel;
 import org.weasis.core.api.explorer.model.TreeModel;
@@ -37,8 +34,10 @@ import org.weasis.core.api.gui.util.Filter;
 import org.weasis.core.api.gui.util.GuiExecutor;
 import org.weasis.core.api.gui.util.GuiUtils;
 import org.weasis.core.api.gui.util.WinUtil;
+import org.weasis.core.api.media.data.ImageElement;
 import org.weasis.core.api.media.data.MediaSeries;
 import org.weasis.core.api.media.data.MediaSeriesGroup;
+import org.weasis.core.api.media.data.NativeCache;
 import org.weasis.core.api.media.data.TagW;
 import org.weasis.core.api.media.data.TagW.TagType;
 import org.weasis.core.util.FileUtil;
@@ -54,9 +53,7 @@ import org.weasis.dicom.explorer.DicomModel;
 import org.weasis.dicom.viewer2d.Messages;
 import org.weasis.dicom.viewer2d.mpr.MprView.SliceOrientation;
 import org.weasis.opencv.data.FileRawImage;
-import org.weasis.opencv.data.ImageCV;
 import org.weasis.opencv.data.PlanarImage;
-import org.weasis.opencv.op.ImageProcessor;
 
 public class SeriesBuilder {
 
@@ -65,6 +62,10 @@ public class SeriesBuilder {
       AppProperties.buildAccessibleTempDirectory(
           AppProperties.FILE_CACHE_DIR.getName(), "mpr"); // NON-NLS
 
+  // The MPR images have their own budget, they do not evict the original images
+  private static final NativeCache<ImageElement, PlanarImage> MPR_CACHE =
+      ImageElement.buildImageCache("mpr", NativeCache.getDefaultBudget(0.25)); // NON-NLS
+
   private SeriesBuilder() {}
 
   public static void createMissingSeries(
@@ -252,6 +253,9 @@ public class SeriesBuilder {
                 }
               }
 
+              if (!needBuild[0] && !needBuild[1]) {
+                return;
+              }
               final int size = series.size(filter);
               final JProgressBar[] bar = new JProgressBar[2];
               GuiExecutor.invokeAndWait(
@@ -278,71 +282,74 @@ public class SeriesBuilder {
                       MediaSeries.MEDIA_POSITION.MIDDLE, filter, SortSeriesStack.slicePosition);
               final Attributes attributes = img.getMediaReader().getDicomObject();
 
-              for (int i = 0; i < 2; i++) {
-                if (needBuild[i]) {
-                  final MprView mprView = recView[i];
-                  final ViewParameter viewParams = recParams[i];
-
-                  Iterable<DicomImageElement> medias =
-                      series.copyOfMedias(
-                          filter,
-                          viewParams.reverseSeriesOrder
-                              ? SortSeriesStack.slicePosition.getReversOrderComparator()
-                              : SortSeriesStack.slicePosition);
-                  double origPixSize = img.getPixelSize();
-
-                  FileRawImage[] secSeries = new FileRawImage[i == 0 ? height : width];
-                  /*
-                   * Write the new image by tacking the lines (from first to last) of all the images
-                   * of the original series stack
-                   */
-                  double sPixSize =
-                      writeBlock(secSeries, medias, viewParams, mprView, thread, abort, size);
-
-                  if (thread.isInterrupted()) {
-                    return;
-                  }
-                  /*
-                   * Reconstruct dicom files, adapt position, orientation, pixel spacing, instance
-                   * number and UIDs.
-                   */
-                  final DicomSeries dicomSeries =
-                      buildDicomSeriesFromRaw(
-                          secSeries,
-                          new Dimension(i == 0 ? width : height, size),
-                          img,
-                          viewParams,
-                          origPixSize,
-                          sPixSize,
-                          geometry,
-                          mprView,
-                          attributes);
-
-                  if (dicomSeries.size(null) > 0) {
-                    dicomSeries.getMedia(0, null, null).getMediaReader().writeMetaData(dicomSeries);
-                    if (study != null) {
-                      dicomSeries.setTag(TagW.ExplorerModel, model);
-                      treeModel.addHierarchyNode(study, dicomSeries);
-                      if (treeModel instanceof DicomModel dicomModel) {
-                        dicomModel.firePropertyChange(
-                            new ObservableEvent(
-                                ObservableEvent.BasicAction.ADD, dicomModel, null, dicomSeries));
-                      }
+              List<DicomImageElement> medias =
+                  series.copyOfMedias(filter, SortSeriesStack.slicePosition);
+              double origPixSize = img.getPixelSize();
+              MprView[] progressViews = {
+                needBuild[0] ? recView[0] : null, needBuild[1] ? recView[1] : null
+              };
+              // Decode the source images only once for building the two stacks
+              try (MprVolumeBuilder volume =
+                  MprVolumeBuilder.load(medias, progressViews, thread, abort)) {
+                if (volume == null || thread.isInterrupted()) {
+                  return;
+                }
+                for (int i = 0; i < 2; i++) {
+                  if (needBuild[i]) {
+                    final MprView mprView = recView[i];
+                    final ViewParameter viewParams = recParams[i];
+                    /*
+                     * Write the new images by taking the lines (from first to last) of all the
+                     * images of the original series stack
+                     */
+                    FileRawImage[] secSeries = volume.writeStack(viewParams, mprView, thread);
+                    if (secSeries == null || thread.isInterrupted()) {
+                      return;
                     }
+                    /*
+                     * Reconstruct dicom files, adapt position, orientation, pixel spacing,
+                     * instance number and UIDs.
+                     */
+                    final DicomSeries dicomSeries =
+                        buildDicomSeriesFromRaw(
+                            secSeries,
+                            new Dimension(i == 0 ? width : height, size),
+                            img,
+                            viewParams,
+                            origPixSize,
+                            volume.getSliceSpace(),
+                            geometry,
+                            attributes);
+
+                    if (dicomSeries.size(null) > 0) {
+                      dicomSeries
+                          .getMedia(0, null, null)
+                          .getMediaReader()
+                          .writeMetaData(dicomSeries);
+                      if (study != null) {
+                        dicomSeries.setTag(TagW.ExplorerModel, model);
+                        treeModel.addHierarchyNode(study, dicomSeries);
+                        if (treeModel instanceof DicomModel dicomModel) {
+                          dicomModel.firePropertyChange(
+                              new ObservableEvent(
+                                  ObservableEvent.BasicAction.ADD, dicomModel, null, dicomSeries));
+                        }
+                      }
 
-                    GuiExecutor.execute(
-                        () -> {
-                          mprView.setProgressBar(null);
-                          mprView.setSeries(dicomSeries);
-                          // Copy the synch values from the main view
-                          for (String action :
-                              MprContainer.defaultMpr.getSynchData().getActions().keySet()) {
-                            mprView.setActionsInView(action, view.getActionValue(action));
-                          }
-                          mprView.zoom(mainView.getViewModel().getViewScale());
-                          mprView.center();
-                          mprView.repaint();
-                        });
+                      GuiExecutor.execute(
+                          () -> {
+                            mprView.setProgressBar(null);
+                            mprView.setSeries(dicomSeries);
+                            // Copy the synch values from the main view
+                            for (String action :
+                                MprContainer.defaultMpr.getSynchData().getActions().keySet()) {
+                              mprView.setActionsInView(action, view.getActionValue(action));
+                            }
+                            mprView.zoom(mainView.getViewModel().getViewScale());
+                            mprView.center();
+                            mprView.repaint();
+                          });
+                    }
                   }
                 }
               }
@@ -361,28 +368,14 @@ public class SeriesBuilder {
       double origPixSize,
       double sPixSize,
       GeometryOfSlice geometry,
-      final MprView view,
-      final Attributes attributes)
-      throws Exception {
+      final Attributes attributes) {
 
     int bitsAllocated = img.getBitsAllocated();
     int bitsStored = img.getBitsStored();
     double[] pixSpacing = new double[] {sPixSize, origPixSize};
 
-    final JProgressBar bar = view.getProgressBar();
-
     if (params.rotateOutputImg) {
-      if (bar != null) {
-        GuiExecutor.execute(
-            () -> {
-              bar.setMaximum(newSeries.length);
-              bar.setValue(0);
-              // Force to reset the progress bar
-              bar.updateUI();
-              view.repaint();
-            });
-      }
-
+      // The images have been rotated when building the stack
       pixSpacing = new double[] {origPixSize, sPixSize};
 
       int tmp = dim.width;
@@ -448,28 +441,15 @@ public class SeriesBuilder {
 
     int last = newSeries.length;
     List<DicomImageElement> dcms = new ArrayList<>();
+    // The reconstructed images have the same type as the source images
+    PlanarImage srcImg = img.getImage(null, false);
+    int cvType = srcImg == null ? -1 : srcImg.type();
 
     for (int i = 0; i < newSeries.length; i++) {
-      if (params.rotateOutputImg) {
-        try {
-          newSeries[i].write(
-              ImageProcessor.getRotatedImage(newSeries[i].read(), Core.ROTATE_90_CLOCKWISE));
-        } catch (Exception e) {
-          FileUtil.delete(newSeries[i].file());
-          throw e;
-        }
-
-        if (bar != null) {
-          GuiExecutor.execute(
-              () -> {
-                bar.setValue(bar.getValue() + 1);
-                view.repaint();
-              });
-        }
-      }
       RawImageIO rawIO = new RawImageIO(newSeries[i], null);
       rawIO.getFileCache().setOriginalTempFile(newSeries[i].file());
       rawIO.setBaseAttributes(cpTags);
+      rawIO.setPixelType(cvType);
 
       // Tags with same values for all the Series
       rawIO.setTag(TagD.get(Tag.Columns), dim.width);
@@ -523,6 +503,11 @@ public class SeriesBuilder {
 
   public static DicomImageElement buildDicomImageElement(DcmMediaReader rawIO) {
     return new DicomImageElement(rawIO, 0) {
+      @Override
+      protected NativeCache<ImageElement, PlanarImage> getNativeCache() {
+        return MPR_CACHE;
+      }
+
       @Override
       public Attributes saveToFile(File output, DicomExportParameters params) {
         RawImageIO reader = (RawImageIO) getMediaReader();
@@ -563,118 +548,6 @@ public class SeriesBuilder {
     rawIO.setTag(TagW.MonoChrome, img.getTagValue(TagW.MonoChrome));
   }
 
-  private static double writeBlock(
-      FileRawImage[] newSeries,
-      Iterable<DicomImageElement> medias,
-      ViewParameter params,
-      final MprView view,
-      Thread thread,
-      final boolean[] abort,
-      int dstHeight)
-      throws IOException {
-    ImageCV[] builImgs = new ImageCV[newSeries.length];
-
-    // TODO should return the more frequent space!
-    final JProgressBar bar = view.getProgressBar();
-    try {
-
-      double epsilon = 1e-3;
-      double lastPos = 0.0;
-      double lastSpace = 0.0;
-      int index = 0;
-      for (DicomImageElement media : medias) {
-        if (thread.isInterrupted()) {
-          return lastSpace;
-        }
-        DicomImageElement dcm = media;
-        double[] sp = (double[]) dcm.getTagValue(TagW.SlicePosition);
-        boolean validSp = sp != null && sp.length == 3;
-        if (!validSp && !abort[1]) {
-          confirmMessage(view, Messages.getString("SeriesBuilder.space_missing"), abort);
-        } else if (validSp) {
-          double pos = sp[0] + sp[1] + sp[2];
-          if (index > 0) {
-            double space = Math.abs(pos - lastPos);
-            if (!abort[1]
-                && (MathUtil.isEqualToZero(space)
-                    || (index > 1 && Math.abs(lastSpace - space) > epsilon))) {
-              confirmMessage(view, Messages.getString("SeriesBuilder.space"), abort);
-            }
-            lastSpace = space;
-          }
-          lastPos = pos;
-          index++;
-          if (bar != null) {
-            GuiExecutor.execute(
-                () -> {
-                  bar.setValue(bar.getValue() + 1);
-                  view.repaint();
-                });
-          }
-        }
-
-        // TODO do not open more than 512 files (Limitation to open 1024 in the same time on Ubuntu)
-        PlanarImage image = dcm.getImage(null, false);
-        if (image == null) {
-          abort[0] = true;
-          throw new IIOException("Cannot read an image!");
-        }
-        if (MathUtil.isDifferent(dcm.getRescaleX(), dcm.getRescaleY())) {
-          Dimension dim =
-              new Dimension(
-                  (int) (Math.abs(dcm.getRescaleX()) * image.width()),
-                  (int) (Math.abs(dcm.getRescaleY()) * image.height()));
-          try (ImageCV rimg = ImageProcessor.scale(image.toImageCV(), dim, Imgproc.INTER_LINEAR)) {
-            writeRasterInRaw(rimg, newSeries, builImgs, params, dstHeight, index);
-          }
-        } else {
-          writeRasterInRaw(image, newSeries, builImgs, params, dstHeight, index);
-        }
-      }
-
-      return lastSpace;
-    } finally {
-      for (int i = 0; i < newSeries.length; i++) {
-        if (newSeries[i] != null) {
-          if (abort[0]) {
-            FileUtil.delete(newSeries[i].file());
-          } else {
-            newSeries[i].write(builImgs[i]);
-          }
-          builImgs[i].release();
-        }
-      }
-    }
-  }
-
-  private static void writeRasterInRaw(
-      PlanarImage image,
-      FileRawImage[] newSeries,
-      ImageCV[] buildImg,
-      ViewParameter params,
-      int dstHeight,
-      int imgIndex)
-      throws IOException {
-    ImageCV img = ImageProcessor.getRotatedImage(image.toMat(), params.rotateCvType);
-    if (newSeries != null && img != null && img.height() == newSeries.length) {
-      if (newSeries[0] == null) {
-        File dir = new File(MPR_CACHE_DIR, params.seriesUID);
-        dir.mkdirs();
-        for (int i = 0; i < newSeries.length; i++) {
-          newSeries[i] = new FileRawImage(new File(dir, "mpr_" + (i + 1) + ".wcv")); // NON-NLS
-          buildImg[i] = new ImageCV(dstHeight, img.width(), img.type());
-        }
-      }
-
-      for (int j = 0; j < newSeries.length; j++) {
-        img.row(j).copyTo(buildImg[j].row(imgIndex - 1));
-      }
-      if (!img.equals(image)) {
-        img.release();
-      }
-    }
-  }
-
   private static void rotate(Vector3d vSrc, Vector3d axis, double angle, Vector3d vDst) {
     axis.normalize();
     vDst.x =
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.viewer2d.mip;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.Scalar;
+import org.weasis.core.api.media.data.ImageElement;
+import org.weasis.dicom.viewer2d.mip.MipView.Type;
+import org.weasis.opencv.data.ImageCV;
+
+/** Compares the sliding window projections with the projection of each window. */
+class SlabProjectionTest {
+
+  private static final int[] VALUES = {5, 3, 9, 1, 7, 2, 8, 6, 4, 0, 11, 10, 3};
+
+  private static boolean nativeLoaded;
+
+  @BeforeAll
+  static void loadNativeLibrary() {
+    try {
+      System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+      nativeLoaded = true;
+    } catch (UnsatisfiedLinkError e) {
+      nativeLoaded = false;
+    }
+  }
+
+  private static List<ImageElement> stack() {
+    List<ImageElement> list = new ArrayList<>();
+    for (int v : VALUES) {
+      ImageElement img = Mockito.mock(ImageElement.class);
+      Mockito.when(img.getImage(null, false))
+          .thenAnswer(_ -> ImageCV.toImageCV(new Mat(2, 3, CvType.CV_8UC1, new Scalar(v))));
+      list.add(img);
+    }
+    return list;
+  }
+
+  private static double expected(Type type, int index, int extend) {
+    int a = Math.max(0, index - extend);
+    int b = Math.min(VALUES.length - 1, index + extend);
+    double res = type == Type.MIN ? Double.MAX_VALUE : type == Type.MAX ? -Double.MAX_VALUE : 0;
+    for (int i = a; i <= b; i++) {
+      if (type == Type.MIN) {
+        res = Math.min(res, VALUES[i]);
+      } else if (type == Type.MAX) {
+        res = Math.max(res, VALUES[i]);
+      } else {
+        res += VALUES[i];
+      }
+    }
+    // Same rounding as the conversion of OpenCV (half to even)
+    return type == Type.MEAN ? Math.rint(res / (b - a + 1)) : res;
+  }
+
+  private static void check(Type type, int extend, int minIndex, int maxIndex) {
+    Assumptions.assumeTrue(nativeLoaded, "OpenCV library not available");
+    List<ImageElement> medias = stack();
+    Map<Integer, Double> results = new ConcurrentHashMap<>();
+    Map<Integer, Integer> nbSources = new ConcurrentHashMap<>();
+    SlabProjection.compute(
+        type,
+        medias,
+        extend,
+        minIndex,
+        maxIndex,
+        Thread.currentThread(),
+        (index, sources, image) -> {
+          assertNull(results.put(index, image.toMat().get(1, 2)[0]));
+          nbSources.put(index, sources.size());
+        });
+
+    assertEquals(maxIndex - minIndex + 1, results.size());
+    for (int i = minIndex; i <= maxIndex; i++) {
+      int expectedSources = Math.min(VALUES.length - 1, i + extend) - Math.max(0, i - extend) + 1;
+      assertEquals(expected(type, i, extend), results.get(i).doubleValue(), type + " at " + i);
+      assertEquals(expectedSources, nbSources.get(i).intValue());
+    }
+  }
+
+  @Test
+  void test_min() {
+    check(Type.MIN, 1, 0, VALUES.length - 1);
+    check(Type.MIN, 2, 0, VALUES.length - 1);
+  }
+
+  @Test
+  void test_max() {
+    check(Type.MAX, 1, 0, VALUES.length - 1);
+    check(Type.MAX, 3, 0, VALUES.length - 1);
+  }
+
+  @Test
+  void test_mean() {
+    check(Type.MEAN, 1, 0, VALUES.length - 1);
+    check(Type.MEAN, 2, 0, VALUES.length - 1);
+  }
+
+  @Test
+  void test_sub_range() {
+    // The windows of the first outputs start before the range
+    check(Type.MAX, 2, 4, 9);
+    check(Type.MIN, 2, 4, 9);
+    check(Type.MEAN, 2, 4, 9);
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2024 Weasis Team and other contributors.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse
+ * Public License 2.0 which is available at https://www.eclipse.org/legal/epl-2.0, or the Apache
+ * License, Version 2.0 which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+ */
+package org.weasis.dicom.viewer2d.mpr;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.weasis.core.api.media.data.TagW;
+import org.weasis.dicom.codec.DicomImageElement;
+import org.weasis.dicom.viewer2d.mpr.SeriesBuilder.ViewParameter;
+import org.weasis.opencv.data.ImageCV;
+import org.weasis.opencv.op.ImageProcessor;
+
+/** Compares the planes extracted from the volume block with the extraction of each image. */
+class MprVolumeBuilderTest {
+
+  private static final int DEPTH = 3;
+  private static final int HEIGHT = 4;
+  private static final int WIDTH = 5;
+  private static final int[] ROTATIONS = {
+    -1, Core.ROTATE_90_CLOCKWISE, Core.ROTATE_180, Core.ROTATE_90_COUNTERCLOCKWISE
+  };
+
+  private static boolean nativeLoaded;
+
+  @BeforeAll
+  static void loadNativeLibrary() {
+    try {
+      System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+      nativeLoaded = true;
+    } catch (UnsatisfiedLinkError e) {
+      nativeLoaded = false;
+    }
+  }
+
+  private static Mat slice(int k) {
+    Mat img = new Mat(HEIGHT, WIDTH, CvType.CV_16UC1);
+    for (int r = 0; r < HEIGHT; r++) {
+      for (int c = 0; c < WIDTH; c++) {
+        // Unique value for each voxel
+        img.put(r, c, k * 100 + r * 10 + c);
+      }
+    }
+    return img;
+  }
+
+  private static ImageCV block() {
+    ImageCV block = new ImageCV(DEPTH * HEIGHT, WIDTH, CvType.CV_16UC1);
+    for (int k = 0; k < DEPTH; k++) {
+      Mat img = slice(k);
+      img.copyTo(block.submat(k * HEIGHT, (k + 1) * HEIGHT, 0, WIDTH));
+      img.release();
+    }
+    return block;
+  }
+
+  /** Previous extraction: the row j of each rotated image is the row k of the plane j. */
+  private static List<Mat> expectedPlanes(ViewParameter params) {
+    List<Mat> planes = new ArrayList<>();
+    for (int i = 0; i < DEPTH; i++) {
+      int k = params.reverseSeriesOrder ? DEPTH - 1 - i : i;
+      Mat src = slice(k);
+      Mat img = ImageProcessor.getRotatedImage(src, params.rotateCvType);
+      if (planes.isEmpty()) {
+        for (int j = 0; j < img.height(); j++) {
+          planes.add(new Mat(DEPTH, img.width(), img.type()));
+        }
+      }
+      for (int j = 0; j < img.height(); j++) {
+        img.row(j).copyTo(planes.get(j).row(i));
+      }
+      img.release();
+      src.release();
+    }
+    if (params.rotateOutputImg) {
+      for (Mat plane : planes) {
+        Core.rotate(plane, plane, Core.ROTATE_90_CLOCKWISE);
+      }
+    }
+    return planes;
+  }
+
+  private static ViewParameter params(int rotateCvType, boolean reverse, boolean rotateOutput) {
+    return new ViewParameter(
+        "1.2.3", null, reverse, rotateCvType, null, rotateOutput, false, null, null); // NON-NLS
+  }
+
+  private static void assertSamePixels(Mat expected, Mat actual, String message) {
+    assertEquals(expected.rows(), actual.rows(), message);
+    assertEquals(expected.cols(), actual.cols(), message);
+    assertEquals(expected.type(), actual.type(), message);
+    short[] a = new short[expected.rows() * expected.cols()];
+    short[] b = new short[a.length];
+    expected.get(0, 0, a);
+    actual.get(0, 0, b);
+    assertArrayEquals(a, b, message);
+  }
+
+  @Test
+  void test_planes_match_the_extraction_of_each_image() {
+    Assumptions.assumeTrue(nativeLoaded, "OpenCV library not available");
+    try (MprVolumeBuilder volume = new MprVolumeBuilder(block(), DEPTH, 1.0)) {
+      for (int rotation : ROTATIONS) {
+        for (boolean reverse : new boolean[] {false, true}) {
+          for (boolean rotateOutput : new boolean[] {false, true}) {
+            ViewParameter params = params(rotation, reverse, rotateOutput);
+            List<Mat> expected = expectedPlanes(params);
+            boolean columnPlane =
+                rotation == Core.ROTATE_90_CLOCKWISE
+                    || rotation == Core.ROTATE_90_COUNTERCLOCKWISE;
+            assertEquals(columnPlane ? WIDTH : HEIGHT, expected.size());
+            for (int j = 0; j < expected.size(); j++) {
+              String message =
+                  "rotation " + rotation + ", reverse " + reverse + ", output " + rotateOutput;
+              try (ImageCV plane = volume.buildPlane(j, params)) {
+                assertSamePixels(expected.get(j), plane, message + ", plane " + j);
+              }
+              expected.get(j).release();
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void test_most_frequent_slice_spacing() {
+    List<DicomImageElement> medias = new ArrayList<>();
+    for (double z : new double[] {0.0, 2.0, 4.0, 7.0, 9.0, 11.0}) {
+      DicomImageElement img = Mockito.mock(DicomImageElement.class);
+      Mockito.when(img.getTagValue(TagW.SlicePosition)).thenReturn(new double[] {0.0, 0.0, z});
+      medias.add(img);
+    }
+    // The irregular spacing has been already accepted, no confirmation message
+    boolean[] abort = {false, true};
+    assertEquals(2.0, MprVolumeBuilder.checkSliceSpacing(medias, null, abort), 1e-6);
+    assertFalse(abort[0]);
+  }
+}